@@ -28,6 +28,7 @@ import com.thoughtworks.go.remote.Serialization;
 import com.thoughtworks.go.remote.request.*;
 import com.thoughtworks.go.remote.work.Work;
 import com.thoughtworks.go.server.service.AgentRuntimeInfo;
+import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.util.URLService;
 import org.apache.http.HttpResponse;
 import org.apache.http.NoHttpResponseException;
@@ -49,6 +50,7 @@ import java.util.List;
 import static com.thoughtworks.go.CurrentGoCDVersion.docsUrl;
 import static com.thoughtworks.go.agent.ResponseHelpers.readBodyAsString;
 import static com.thoughtworks.go.agent.ResponseHelpers.readBodyAsStringOrElse;
+import static com.thoughtworks.go.util.SystemEnvironment.AGENT_GET_WORK_WAIT_IN_SECONDS;
 import static java.lang.String.format;
 
 @Component
@@ -56,17 +58,20 @@ public class RemotingClient implements BuildRepositoryRemote {
     private static final Logger LOG = LoggerFactory.getLogger(RemotingClient.class);
     private static final String UUID_HEADER = "X-Agent-GUID";
     private static final String AUTH_HEADER = "Authorization";
+    private static final String WAIT_FOR_WORK_HEADER = "X-Agent-Wait-For-Work-Seconds";
     private static final Gson GSON = Serialization.instance();
 
     private final GoAgentServerHttpClient client;
     private final DefaultAgentRegistry agent;
     private final URLService urls;
+    private final SystemEnvironment systemEnvironment;
 
     @Autowired
-    public RemotingClient(GoAgentServerHttpClient client, DefaultAgentRegistry agent, URLService urls) {
+    public RemotingClient(GoAgentServerHttpClient client, DefaultAgentRegistry agent, URLService urls, SystemEnvironment systemEnvironment) {
         this.client = client;
         this.agent = agent;
         this.urls = urls;
+        this.systemEnvironment = systemEnvironment;
     }
 
     @Override
@@ -76,7 +81,16 @@ public class RemotingClient implements BuildRepositoryRemote {
 
     @Override
     public Work getWork(AgentRuntimeInfo info) {
-        return GSON.fromJson(post("get_work", new GetWorkRequest(info)), Work.class);
+        final HttpRequestBase request = postRequestFor("get_work", new GetWorkRequest(info));
+
+        // ask the server to hold on to the request until a job is assigned (servers which do not know
+        // about the header answer straight away, which is the same as polling)
+        int waitForWorkInSeconds = systemEnvironment.get(AGENT_GET_WORK_WAIT_IN_SECONDS);
+        if (waitForWorkInSeconds > 0) {
+            request.setHeader(WAIT_FOR_WORK_HEADER, String.valueOf(waitForWorkInSeconds));
+        }
+
+        return GSON.fromJson(post("get_work", request), Work.class);
     }
 
     @Override
@@ -106,11 +120,12 @@ public class RemotingClient implements BuildRepositoryRemote {
     }
 
     private String post(final String action, final AgentRequest payload) {
+        return post(action, postRequestFor(action, payload));
+    }
+
+    private String post(final String action, final HttpRequestBase request) {
         try {
-            try (CloseableHttpResponse response = client.execute(
-                    injectCredentials(
-                            postRequestFor(action, payload)
-                    ))) {
+            try (CloseableHttpResponse response = client.execute(injectCredentials(request))) {
                 validateResponse(response, action);
                 return readBodyAsString(response);
             }
@@ -31,6 +31,8 @@ import java.io.StringWriter;
 import java.util.Objects;
 import java.util.function.Consumer;
 
+import static org.apache.commons.lang3.StringUtils.*;
+
 public interface ControllerMethods {
 
     String NOTHING = "";
@@ -88,15 +90,27 @@ public interface ControllerMethods {
     }
 
     default String writerForTopLevelObject(Request request, Response response, Consumer<OutputWriter> consumer) throws IOException {
-        new JsonOutputWriter(response.raw().getWriter(), RequestContext.requestContext(request)).forTopLevelObject(consumer);
+        new JsonOutputWriter(response.raw().getOutputStream(), RequestContext.requestContext(request), prettyPrint(request)).forTopLevelObject(consumer);
         return NOTHING;
     }
 
     default String writerForTopLevelArray(Request request, Response response, Consumer<OutputListWriter> consumer) throws IOException {
-        new JsonOutputWriter(response.raw().getWriter(), RequestContext.requestContext(request)).forTopLevelArray(consumer);
+        new JsonOutputWriter(response.raw().getOutputStream(), RequestContext.requestContext(request), prettyPrint(request)).forTopLevelArray(consumer);
         return NOTHING;
     }
 
+    /**
+     * Indentation only helps someone reading a response in a browser tab, everyone else (scripts, agents, the SPAs
+     * which send {@code X-Requested-With}) gets compact JSON. A {@code pretty=true|false} query parameter overrides this.
+     */
+    default boolean prettyPrint(Request request) {
+        String pretty = request.queryParams("pretty");
+        if (isNotBlank(pretty)) {
+            return Boolean.parseBoolean(pretty);
+        }
+        return startsWith(request.headers("User-Agent"), "Mozilla/") && !"XMLHttpRequest".equalsIgnoreCase(request.headers("X-Requested-With"));
+    }
+
     default String jsonizeAsTopLevelObject(Request request, Consumer<OutputWriter> consumer) {
         StringWriter writer = new StringWriter(1024);
         new JsonOutputWriter(writer, RequestContext.requestContext(request)).forTopLevelObject(consumer);
@@ -94,4 +94,37 @@ class ControllerMethodsTest {
       assertThat(controllerMethods.getIfMatch(RequestResponseFactory.create(req))).isEqualTo('foo')
     }
   }
+
+  @Nested
+  class PrettyPrint {
+    def browser = 'Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/537.36 (KHTML, like Gecko)'
+
+    @Test
+    void 'should pretty print for a browser'() {
+      def req = HttpRequestBuilder.GET('/').withHeader('User-Agent', browser).build()
+      assertThat(controllerMethods.prettyPrint(RequestResponseFactory.create(req))).isTrue()
+    }
+
+    @Test
+    void 'should not pretty print for ajax requests from a browser'() {
+      def req = HttpRequestBuilder.GET('/').withHeader('User-Agent', browser).usingAjax().build()
+      assertThat(controllerMethods.prettyPrint(RequestResponseFactory.create(req))).isFalse()
+    }
+
+    @Test
+    void 'should not pretty print for other clients'() {
+      def req = HttpRequestBuilder.GET('/').withHeader('User-Agent', 'curl/7.64.1').build()
+      assertThat(controllerMethods.prettyPrint(RequestResponseFactory.create(req))).isFalse()
+      assertThat(controllerMethods.prettyPrint(RequestResponseFactory.create(new MockHttpServletRequest()))).isFalse()
+    }
+
+    @Test
+    void 'should let the pretty query parameter override the default'() {
+      def req = HttpRequestBuilder.GET('/?pretty=true').withHeader('User-Agent', 'curl/7.64.1').build()
+      assertThat(controllerMethods.prettyPrint(RequestResponseFactory.create(req))).isTrue()
+
+      req = HttpRequestBuilder.GET('/?pretty=false').withHeader('User-Agent', browser).build()
+      assertThat(controllerMethods.prettyPrint(RequestResponseFactory.create(req))).isFalse()
+    }
+  }
 }
@@ -271,6 +271,29 @@ class JsonOutputWriterTest {
     ])
   }
 
+  @Test
+  void 'should write compact UTF-8 to an output stream'() {
+    def result = new ByteArrayOutputStream()
+
+    new JsonOutputWriter(result, new TestRequestContext(), false).forTopLevelObject { writer ->
+      writer.add("key1", "välue")
+      writer.addChildList("key2", ["a", "b"])
+    }
+
+    assertThat(result.toString("UTF-8")).isEqualTo('{"key1":"välue","key2":["a","b"]}')
+  }
+
+  @Test
+  void 'should pretty print to an output stream when asked to'() {
+    def result = new ByteArrayOutputStream()
+
+    new JsonOutputWriter(result, new TestRequestContext(), true).forTopLevelArray { writer ->
+      writer.value("a")
+    }
+
+    assertThat(result.toString("UTF-8")).isEqualTo('[ "a" ]')
+  }
+
   def assertInvalidJSONOutput(Closure closure) {
     def result = new StringWriter()
 
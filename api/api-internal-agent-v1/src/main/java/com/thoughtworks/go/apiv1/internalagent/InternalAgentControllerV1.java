@@ -26,11 +26,14 @@ import com.thoughtworks.go.server.messaging.BuildRepositoryMessageProducer;
 import com.thoughtworks.go.spark.Routes;
 import com.thoughtworks.go.spark.spring.SparkSpringController;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import spark.Request;
 import spark.Response;
 
+import java.util.concurrent.TimeUnit;
+
 import static com.thoughtworks.go.api.util.HaltApiResponses.haltBecauseForbidden;
 import static java.lang.String.valueOf;
 import static spark.Spark.*;
@@ -124,11 +127,14 @@ public class InternalAgentControllerV1 extends ApiController implements SparkSpr
         return buildRepositoryMessageProducer.getCookie(getCookieRequest.getAgentRuntimeInfo());
     }
 
-    public String getWork(Request request, Response response) {
+    public String getWork(Request request, Response response) throws InterruptedException {
         GetWorkRequest workRequest = GetWorkRequestRepresenter.fromJSON(request.body());
         ensureAgentIsMakingARequestForItself(workRequest, request);
 
-        Work work = buildRepositoryMessageProducer.getWork(workRequest.getAgentRuntimeInfo());
+        long waitForWorkInSeconds = NumberUtils.toLong(request.headers("X-Agent-Wait-For-Work-Seconds"), 0);
+        Work work = waitForWorkInSeconds > 0
+                ? buildRepositoryMessageProducer.getWork(workRequest.getAgentRuntimeInfo(), TimeUnit.SECONDS.toMillis(waitForWorkInSeconds))
+                : buildRepositoryMessageProducer.getWork(workRequest.getAgentRuntimeInfo());
 
         return WorkRepresenter.toJSON(work);
     }
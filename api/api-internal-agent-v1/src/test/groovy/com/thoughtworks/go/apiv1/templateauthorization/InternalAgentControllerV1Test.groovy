@@ -35,6 +35,7 @@ import org.junit.jupiter.api.Test
 import org.mockito.Mock
 
 import static com.thoughtworks.go.util.SystemUtil.currentWorkingDirectory
+import static org.mockito.Mockito.never
 import static org.mockito.Mockito.verify
 import static org.mockito.Mockito.when
 import static org.mockito.MockitoAnnotations.initMocks
@@ -340,6 +341,29 @@ class InternalAgentControllerV1Test implements ControllerTrait<InternalAgentCont
               .hasBodyContaining(WorkRepresenter.toJSON(new NoWork()))
     }
 
+    @Test
+    void 'should wait for work when the agent asks to'() {
+      def agent = new Agent("uuid", "localhost", "176.19.4.1")
+      def runtimeInfo = AgentRuntimeInfo.fromAgent(agent.getAgentIdentifier(), AgentRuntimeStatus.Idle, currentWorkingDirectory(),
+              "20.1.0", "20.9.0")
+
+      when(buildRepositoryMessageProducer.getWork(runtimeInfo, 15000L)).thenReturn(new NoWork())
+
+      def headers = [
+              'accept'                       : controller.mimeType,
+              'content-type'                 : 'application/json',
+              'X-Agent-GUID'                 : 'uuid',
+              'X-Agent-Wait-For-Work-Seconds': '15'
+      ]
+      postWithApiHeader(controller.controllerPath("/get_work"), headers, GetWorkRequestRepresenter.toJSON(
+              new GetWorkRequest(runtimeInfo)))
+
+      assertThatResponse()
+              .isOk()
+              .hasBodyContaining(WorkRepresenter.toJSON(new NoWork()))
+      verify(buildRepositoryMessageProducer, never()).getWork(runtimeInfo)
+    }
+
     @Test
     void 'ensure agent is making a request for itself'() {
       def agent = new Agent("different_agent_uuid", "localhost", "176.19.4.1")
@@ -169,12 +169,40 @@ public class SystemEnvironment implements Serializable, ConfigDirProvider {
     public static GoIntSystemProperty DEPENDENCY_MATERIAL_UPDATE_LISTENERS = new GoIntSystemProperty("dependency.material.check.threads", 3);
 
     public static GoIntSystemProperty CONFIG_MATERIAL_POST_UPDATE_LISTENERS = new GoIntSystemProperty("config.material.post.update.threads", 2);
+    public static GoIntSystemProperty CONFIG_REPO_PARSE_CACHE_TTL_IN_SECONDS = new GoIntSystemProperty("go.config.repo.parse.cache.ttl.seconds", 300);
+    public static GoIntSystemProperty SECRETS_CACHE_TTL_IN_SECONDS = new GoIntSystemProperty("go.secrets.cache.ttl.seconds", 0);
+    public static GoIntSystemProperty SECRETS_CACHE_MAX_ENTRIES = new GoIntSystemProperty("go.secrets.cache.max.entries", 1000);
+    public static GoIntSystemProperty SECRETS_LOOKUP_THREADS = new GoIntSystemProperty("go.secrets.lookup.threads", 4);
+    public static GoSystemProperty<Integer> PLUGIN_REQUEST_TIMEOUT_IN_SECONDS = new GoIntSystemProperty("go.plugin.request.timeout.seconds", 0);
+    public static GoSystemProperty<Integer> PLUGIN_REQUEST_MAX_CONCURRENT = new GoIntSystemProperty("go.plugin.request.max.concurrent", 0);
+    public static GoSystemProperty<Boolean> ELASTIC_AGENT_SHOULD_ASSIGN_WORK_PER_PROFILE = new GoBooleanSystemProperty("go.elastic.agent.should.assign.work.per.profile", false);
+    public static GoSystemProperty<Integer> ELASTIC_AGENT_DECLINED_WORK_TTL_IN_SECONDS = new GoIntSystemProperty("go.elastic.agent.declined.work.ttl.seconds", 5);
+    public static GoSystemProperty<String> PIPELINE_TIMELINE_SNAPSHOT_FILE = new GoStringSystemProperty("go.pipeline.timeline.snapshot.file", "");
+    public static GoSystemProperty<Integer> PIPELINE_TIMELINE_SNAPSHOT_INTERVAL_IN_SECONDS = new GoIntSystemProperty("go.pipeline.timeline.snapshot.interval.seconds", 300);
 
     public static GoSystemProperty<String> GO_SERVER_MODE = new GoStringSystemProperty("go.server.mode", "production");
     public static GoBooleanSystemProperty REAUTHENTICATION_ENABLED = new GoBooleanSystemProperty("go.security.reauthentication.enabled", true);
     public static GoSystemProperty<Long> REAUTHENTICATION_TIME_INTERVAL = new GoLongSystemProperty("go.security.reauthentication.interval", 1800 * 1000L);
     public static GoSystemProperty<Boolean> CONSOLE_OUT_TO_STDOUT = new GoBooleanSystemProperty("go.console.stdout", false);
     private static GoSystemProperty<String> CONSOLE_LOG_CHARSET = new GoStringSystemProperty("go.console.log.charset", "utf-8");
+    public static GoSystemProperty<Integer> CONSOLE_OUTPUT_BUFFER_SIZE = new GoIntSystemProperty("go.console.output.buffer.size", 4 * 1024 * 1024);
+    public static GoSystemProperty<Boolean> CONSOLE_OUTPUT_COMPRESS = new GoBooleanSystemProperty("go.console.output.compress", false);
+    public static GoSystemProperty<Boolean> ARTIFACTS_DEDUPLICATION = new GoBooleanSystemProperty("go.artifacts.deduplication", false);
+    private static GoSystemProperty<Boolean> ARTIFACTS_ZIP_STREAMING = new GoBooleanSystemProperty("go.artifacts.zip.streaming", true);
+    public static GoSystemProperty<Integer> ARTIFACTS_ZIP_CACHE_CREATOR_THREADS = new GoIntSystemProperty("go.artifacts.zip.cache.creator.threads", 2);
+    public static GoSystemProperty<Integer> ARTIFACTS_ZIP_CACHE_MAX_SIZE_IN_MB = new GoIntSystemProperty("go.artifacts.zip.cache.max.size.mb", 5 * 1024);
+    public static GoSystemProperty<String> GO_CACHE_BACKEND = new GoStringSystemProperty("go.cache.backend", "regions");
+    public static GoSystemProperty<String> GO_MESSAGING_BACKEND = new GoStringSystemProperty("go.messaging.backend", "activemq");
+    public static GoSystemProperty<Integer> GO_MESSAGING_IN_MEMORY_CAPACITY = new GoIntSystemProperty("go.messaging.in.memory.capacity", 10000);
+    public static GoSystemProperty<Integer> ACCESS_TOKEN_VERIFICATION_CACHE_TTL_IN_SECONDS = new GoIntSystemProperty("go.access.token.verification.cache.ttl.seconds", 300);
+    public static GoSystemProperty<Integer> ACCESS_TOKEN_VERIFICATION_CACHE_MAX_ENTRIES = new GoIntSystemProperty("go.access.token.verification.cache.max.entries", 1000);
+    public static GoSystemProperty<String> AGENT_ARTIFACT_FETCH_CACHE_DIR = new GoStringSystemProperty("go.agent.artifact.fetch.cache.dir", "artifact-fetch-cache");
+    public static GoSystemProperty<Integer> AGENT_ARTIFACT_FETCH_CACHE_MAX_SIZE_IN_MB = new GoIntSystemProperty("go.agent.artifact.fetch.cache.max.size.mb", 0);
+    public static GoSystemProperty<Integer> AGENT_ARTIFACT_DOWNLOAD_SEGMENTS = new GoIntSystemProperty("go.agent.artifact.download.segments", 1);
+    public static GoSystemProperty<Integer> AGENT_ARTIFACT_DOWNLOAD_MIN_SEGMENT_SIZE_IN_MB = new GoIntSystemProperty("go.agent.artifact.download.min.segment.size.mb", 64);
+    public static GoSystemProperty<Integer> AGENT_GET_WORK_WAIT_IN_SECONDS = new GoIntSystemProperty("go.agent.get.work.wait.seconds", 0);
+    public static GoSystemProperty<Integer> AGENT_GET_WORK_MAX_WAIT_IN_SECONDS = new GoIntSystemProperty("go.agent.get.work.max.wait.seconds", 20);
+    public static GoSystemProperty<Integer> AGENT_GET_WORK_MAX_WAITING_REQUESTS = new GoIntSystemProperty("go.agent.get.work.max.waiting.requests", 50);
     private static GoSystemProperty<Boolean> AGENT_STATUS_API_ENABLED = new GoBooleanSystemProperty("go.agent.status.api.enabled", true);
     private static GoSystemProperty<String> AGENT_STATUS_API_BIND_HOST = new GoStringSystemProperty("go.agent.status.api.bind.host", "localhost");
     private static GoSystemProperty<Integer> AGENT_STATUS_API_BIND_PORT = new GoIntSystemProperty("go.agent.status.api.bind.port", 8152);
@@ -400,6 +428,78 @@ public class SystemEnvironment implements Serializable, ConfigDirProvider {
         return CONFIG_MATERIAL_POST_UPDATE_LISTENERS.getValue();
     }
 
+    public long getConfigRepoParseCacheTtlInMillis() {
+        return CONFIG_REPO_PARSE_CACHE_TTL_IN_SECONDS.getValue() * 1000L;
+    }
+
+    /**
+     * Resolved secrets are only cached when a TTL is set. {@code go.secrets.cache.ttl.seconds} applies to every secret
+     * config, and can be overridden for a single one with {@code go.secrets.cache.ttl.seconds.<secret config id>}.
+     */
+    public long getSecretsCacheTtlInMillis(String secretConfigId) {
+        Integer defaultTtl = SECRETS_CACHE_TTL_IN_SECONDS.getValue();
+        return new GoIntSystemProperty(SECRETS_CACHE_TTL_IN_SECONDS.propertyName() + "." + secretConfigId, defaultTtl).getValue() * 1000L;
+    }
+
+    public int getSecretsCacheMaxEntries() {
+        return SECRETS_CACHE_MAX_ENTRIES.getValue();
+    }
+
+    public int getNumberOfSecretsLookupThreads() {
+        return SECRETS_LOOKUP_THREADS.getValue();
+    }
+
+    /**
+     * @return how long to wait for a plugin to respond to a request of an extension, 0 to wait for as long as it takes.
+     * Can be set for all plugins, per extension, per plugin or per plugin and extension, the most specific one wins.
+     */
+    public long getPluginRequestTimeoutInMillis(String pluginId, String extensionName) {
+        return pluginRequestSetting(PLUGIN_REQUEST_TIMEOUT_IN_SECONDS, pluginId, extensionName) * 1000L;
+    }
+
+    /**
+     * @return how many requests of an extension a plugin may be handling at once, 0 for no limit (requests with a
+     * timeout are still limited to a default then). Can be set the same way as
+     * {@link #getPluginRequestTimeoutInMillis(String, String)}.
+     */
+    public int getPluginRequestMaxConcurrent(String pluginId, String extensionName) {
+        return pluginRequestSetting(PLUGIN_REQUEST_MAX_CONCURRENT, pluginId, extensionName);
+    }
+
+    private int pluginRequestSetting(GoSystemProperty<Integer> property, String pluginId, String extensionName) {
+        int value = property.getValue();
+        for (String suffix : Arrays.asList(extensionName, pluginId, pluginId + "." + extensionName)) {
+            value = new GoIntSystemProperty(property.propertyName() + "." + suffix, value).getValue();
+        }
+        return value;
+    }
+
+    /**
+     * @return whether an elastic agent plugin decides whether to take a job by its elastic profile, cluster profile and
+     * environment alone, so that it only needs to be asked once for all jobs that have those in common. Can be set
+     * for all plugins or per plugin id.
+     */
+    public boolean shouldAskElasticAgentPluginOncePerProfile(String pluginId) {
+        Boolean defaultValue = ELASTIC_AGENT_SHOULD_ASSIGN_WORK_PER_PROFILE.getValue();
+        return new GoBooleanSystemProperty(ELASTIC_AGENT_SHOULD_ASSIGN_WORK_PER_PROFILE.propertyName() + "." + pluginId, defaultValue).getValue();
+    }
+
+    public long getElasticAgentDeclinedWorkTtlInMillis() {
+        return ELASTIC_AGENT_DECLINED_WORK_TTL_IN_SECONDS.getValue() * 1000L;
+    }
+
+    /**
+     * @return where the pipeline timeline is snapshotted to, or null if it should not be snapshotted
+     */
+    public File getPipelineTimelineSnapshotFile() {
+        String file = PIPELINE_TIMELINE_SNAPSHOT_FILE.getValue();
+        return isBlank(file) ? null : new File(file);
+    }
+
+    public long getPipelineTimelineSnapshotIntervalInMillis() {
+        return PIPELINE_TIMELINE_SNAPSHOT_INTERVAL_IN_SECONDS.getValue() * 1000L;
+    }
+
     public String getAgentMd5() {
         return getPropertyImpl(GoConstants.AGENT_JAR_MD5, BLANK_STRING);
     }
@@ -592,6 +692,10 @@ public class SystemEnvironment implements Serializable, ConfigDirProvider {
         return consoleLogCharsetAsCharset;
     }
 
+    public boolean shouldStreamArtifactZips() {
+        return get(ARTIFACTS_ZIP_STREAMING);
+    }
+
     public String getExternalPluginAbsolutePath() {
         return new File(get(PLUGIN_EXTERNAL_PROVIDED_PATH)).getAbsolutePath();
     }
@@ -46,6 +46,10 @@ public class ZipBuilder {
     }
 
     public void done() throws IOException {
+        done(null);
+    }
+
+    void done(ZipUtil.ZippedFileHandler zippedFileHandler) throws IOException {
         ZipOutputStream zip = null;
         try {
             zip = new ZipOutputStream(new BufferedOutputStream(destinationStream));
@@ -53,7 +57,7 @@ public class ZipBuilder {
             for (Map.Entry<String, File> zipDirToSourceFileEntry : toAdd.entrySet()) {
                 File sourceFileToZip = zipDirToSourceFileEntry.getValue();
                 String destinationFolder = zipDirToSourceFileEntry.getKey();
-                zipUtil.addToZip(new ZipPath(destinationFolder), sourceFileToZip, zip, excludeRootDir);
+                zipUtil.addToZip(new ZipPath(destinationFolder), sourceFileToZip, zip, excludeRootDir, zippedFileHandler);
             }
             zip.flush();
         } finally {
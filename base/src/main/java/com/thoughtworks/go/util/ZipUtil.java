@@ -15,10 +15,13 @@
  */
 package com.thoughtworks.go.util;
 
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 
 import java.io.*;
+import java.security.MessageDigest;
 import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
@@ -59,40 +62,50 @@ public class ZipUtil {
         zipContents(file, output, level, false);
     }
 
+    /**
+     * Zips like {@link #zip(File, OutputStream, int)}, additionally handing the MD5 of every file to
+     * {@code zippedFileHandler} as soon as it has been added, so that callers needing checksums do not have to read
+     * the files a second time.
+     */
+    public void zip(File file, OutputStream output, int level, ZippedFileHandler zippedFileHandler) throws IOException {
+        new ZipBuilder(this, level, output, false).add("", file).done(zippedFileHandler);
+    }
+
     private void zipContents(File file, OutputStream output, int level, boolean excludeRootDir) throws IOException {
         new ZipBuilder(this, level, output, excludeRootDir).add("", file).done();
     }
 
-    private void addFolderToZip(ZipPath path, File source, ZipOutputStream zip, boolean excludeRootDir) throws IOException {
+    private void addFolderToZip(ZipPath path, File source, ZipOutputStream zip, boolean excludeRootDir, ZippedFileHandler zippedFileHandler) throws IOException {
         ZipPath newPath = path.with(source);
         if (source.isFile()) {
-            addToZip(newPath, source, zip, false);
+            addToZip(newPath, source, zip, false, zippedFileHandler);
         } else {
-            addDirectory(path, source, zip, excludeRootDir);
+            addDirectory(path, source, zip, excludeRootDir, zippedFileHandler);
         }
     }
 
-    private void addDirectory(ZipPath path, File source, ZipOutputStream zip, boolean excludeRootDir) throws IOException {
+    private void addDirectory(ZipPath path, File source, ZipOutputStream zip, boolean excludeRootDir, ZippedFileHandler zippedFileHandler) throws IOException {
         if (excludeRootDir) {
-            addDirContents(path, source, zip);
+            addDirContents(path, source, zip, zippedFileHandler);
             return;
         }
         ZipPath newPath = path.with(source);
         zip.putNextEntry(newPath.asZipEntryDirectory());
-        addDirContents(newPath, source, zip);
+        addDirContents(newPath, source, zip, zippedFileHandler);
     }
 
-    private void addDirContents(ZipPath path, File source, ZipOutputStream zip) throws IOException {
+    private void addDirContents(ZipPath path, File source, ZipOutputStream zip, ZippedFileHandler zippedFileHandler) throws IOException {
         for (File file : source.listFiles()) {
-            addToZip(path, file, zip, false);
+            addToZip(path, file, zip, false, zippedFileHandler);
         }
     }
 
-    void addToZip(ZipPath path, File srcFile, ZipOutputStream zip, boolean excludeRootDir) throws IOException {
+    void addToZip(ZipPath path, File srcFile, ZipOutputStream zip, boolean excludeRootDir, ZippedFileHandler zippedFileHandler) throws IOException {
         if (srcFile.isDirectory()) {
-            addFolderToZip(path, srcFile, zip, excludeRootDir);
+            addFolderToZip(path, srcFile, zip, excludeRootDir, zippedFileHandler);
         } else {
             byte[] buff = new byte[4096];
+            MessageDigest md5 = zippedFileHandler == null ? null : DigestUtils.getMd5Digest();
             try (BufferedInputStream inputStream = new BufferedInputStream(new FileInputStream(srcFile))) {
                 ZipEntry zipEntry = path.with(srcFile).asZipEntry();
                 zipEntry.setTime(srcFile.lastModified());
@@ -100,8 +113,14 @@ public class ZipUtil {
                 int len;
                 while ((len = inputStream.read(buff)) > 0) {
                     zip.write(buff, 0, len);
+                    if (md5 != null) {
+                        md5.update(buff, 0, len);
+                    }
                 }
             }
+            if (zippedFileHandler != null) {
+                zippedFileHandler.handleZippedFile(srcFile, Hex.encodeHexString(md5.digest()));
+            }
         }
     }
 
@@ -112,11 +131,15 @@ public class ZipUtil {
     }
 
     public void unzip(ZipInputStream zipInputStream, File destDir) throws IOException {
+        unzip(zipInputStream, destDir, null);
+    }
+
+    public void unzip(ZipInputStream zipInputStream, File destDir, UnzippedFileHandler unzippedFileHandler) throws IOException {
         try(ZipInputStream zis = zipInputStream) {
             destDir.mkdirs();
             ZipEntry zipEntry = zis.getNextEntry();
             while (zipEntry != null) {
-                extractTo(zipEntry, zis, destDir);
+                extractTo(zipEntry, zis, destDir, unzippedFileHandler);
                 zipEntry = zis.getNextEntry();
             }
         }
@@ -126,7 +149,7 @@ public class ZipUtil {
         unzip(new ZipInputStream(new BufferedInputStream(new FileInputStream(zip))), destDir);
     }
 
-    private void extractTo(ZipEntry entry, InputStream entryInputStream, File toDir) throws IOException {
+    private void extractTo(ZipEntry entry, InputStream entryInputStream, File toDir, UnzippedFileHandler unzippedFileHandler) throws IOException {
         bombIfZipEntryPathContainsDirectoryTraversalCharacters(entry.getName());
         String entryName = nonRootedEntryName(entry);
 
@@ -137,6 +160,9 @@ public class ZipUtil {
         }
         try {
             outputFile.getParentFile().mkdirs();
+            if (unzippedFileHandler != null) {
+                unzippedFileHandler.beforeUnzipping(outputFile);
+            }
             try (FileOutputStream os = new FileOutputStream(outputFile)) {
                 IOUtils.copyLarge(entryInputStream, os);
                 if (zipEntryHandler != null) {
@@ -188,4 +214,12 @@ public class ZipUtil {
         void handleEntry(ZipEntry entry, InputStream stream) throws IOException;
     }
 
+    public interface ZippedFileHandler {
+        void handleZippedFile(File file, String md5) throws IOException;
+    }
+
+    public interface UnzippedFileHandler {
+        void beforeUnzipping(File file) throws IOException;
+    }
+
 }
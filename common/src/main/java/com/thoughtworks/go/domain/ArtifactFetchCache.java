@@ -0,0 +1,189 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.domain;
+
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.thoughtworks.go.util.CachedDigestUtils.md5Hex;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * @understands keeping the contents of fetched artifacts on the agent, addressed by their MD5, so that fetching the
+ * same artifact again does not have to download it
+ * <p>
+ * Files are hard linked in and out of the cache where the file system allows it, and copied otherwise. As a fetched
+ * file can be modified by the job that fetched it, a cached file is checked against its MD5 before it is handed out
+ * and dropped if it does not match any more. The least recently used files are evicted once the cache grows beyond
+ * its size limit. A limit that is not positive disables the cache.
+ */
+public class ArtifactFetchCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArtifactFetchCache.class);
+    private static final long ONE_MB = 1024 * 1024;
+
+    private final File cacheDir;
+    private final long maxSizeInBytes;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @Autowired
+    public ArtifactFetchCache(SystemEnvironment systemEnvironment) {
+        this(new File(systemEnvironment.get(SystemEnvironment.AGENT_ARTIFACT_FETCH_CACHE_DIR)),
+                systemEnvironment.get(SystemEnvironment.AGENT_ARTIFACT_FETCH_CACHE_MAX_SIZE_IN_MB) * ONE_MB);
+    }
+
+    public ArtifactFetchCache(File cacheDir, long maxSizeInBytes) {
+        this.cacheDir = cacheDir;
+        this.maxSizeInBytes = maxSizeInBytes;
+    }
+
+    public static ArtifactFetchCache disabled() {
+        return new ArtifactFetchCache(null, 0);
+    }
+
+    public boolean isEnabled() {
+        return maxSizeInBytes > 0;
+    }
+
+    public boolean contains(String md5) {
+        return isEnabled() && isValidMd5(md5) && entry(md5).isFile();
+    }
+
+    /**
+     * Puts the cached file with the given MD5 at {@code destination}.
+     *
+     * @return {@code false} if there is no such file in the cache, in which case {@code destination} is left alone
+     */
+    public boolean restore(String md5, File destination) {
+        if (!contains(md5)) {
+            return false;
+        }
+
+        File entry = entry(md5);
+        try {
+            if (!md5.equals(md5Of(entry))) {
+                LOGGER.warn("[Artifact Fetch Cache] Dropping cached file {} as its contents do not match its MD5 any more.", entry);
+                FileUtils.deleteQuietly(entry);
+                return false;
+            }
+            entry.setLastModified(System.currentTimeMillis());
+            linkOrCopy(entry, destination);
+            return true;
+        } catch (IOException e) {
+            LOGGER.warn("[Artifact Fetch Cache] Could not restore {} from the cache.", destination, e);
+            return false;
+        }
+    }
+
+    /**
+     * Adds a fetched file, whose contents have been verified to have the given MD5, to the cache.
+     */
+    public void store(File source, String md5) {
+        if (!isEnabled() || !isValidMd5(md5) || !source.isFile() || entry(md5).isFile()) {
+            return;
+        }
+
+        File entry = entry(md5);
+        File temp = new File(entry.getParentFile(), entry.getName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            linkOrCopy(source, temp);
+            Files.move(temp.toPath(), entry.toPath(), ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.warn("[Artifact Fetch Cache] Could not add {} to the cache.", source, e);
+            FileUtils.deleteQuietly(temp);
+            return;
+        }
+        evictLeastRecentlyUsed();
+    }
+
+    public void recordHits(long count) {
+        hits.addAndGet(count);
+    }
+
+    public void recordMisses(long count) {
+        misses.addAndGet(count);
+    }
+
+    public long hits() {
+        return hits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    private synchronized void evictLeastRecentlyUsed() {
+        List<File> entries = new ArrayList<>(FileUtils.listFiles(cacheDir, null, true));
+        entries.removeIf(file -> file.getName().endsWith(".tmp"));
+        long totalSize = entries.stream().mapToLong(File::length).sum();
+        if (totalSize <= maxSizeInBytes) {
+            return;
+        }
+
+        entries.sort(Comparator.comparingLong(File::lastModified));
+        for (File entry : entries) {
+            if (totalSize <= maxSizeInBytes) {
+                return;
+            }
+            long size = entry.length();
+            if (FileUtils.deleteQuietly(entry)) {
+                totalSize -= size;
+            }
+        }
+    }
+
+    private File entry(String md5) {
+        String key = md5.toLowerCase();
+        return new File(new File(cacheDir, key.substring(0, 2)), key);
+    }
+
+    private static boolean isValidMd5(String md5) {
+        return md5 != null && md5.matches("[0-9a-fA-F]{32}");
+    }
+
+    private static String md5Of(File file) throws IOException {
+        try (InputStream stream = new FileInputStream(file)) {
+            return md5Hex(stream);
+        }
+    }
+
+    private static void linkOrCopy(File source, File destination) throws IOException {
+        Path target = destination.toPath();
+        Files.createDirectories(target.toAbsolutePath().getParent());
+        Files.deleteIfExists(target);
+        try {
+            Files.createLink(target, source.toPath());
+        } catch (IOException | UnsupportedOperationException e) {
+            Files.copy(source.toPath(), target, REPLACE_EXISTING);
+        }
+    }
+}
@@ -19,7 +19,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.util.Map;
 import java.util.Properties;
+import java.util.TreeMap;
 
 public class ArtifactMd5Checksums implements Serializable {
 
@@ -86,4 +88,18 @@ public class ArtifactMd5Checksums implements Serializable {
     public String md5For(String artifactPath) {
         return checksumProperties.getProperty(artifactPath);
     }
+
+    /**
+     * @return the MD5 of every file under the given directory, by the path of the file
+     */
+    public Map<String, String> md5ForFilesUnder(String directoryPath) {
+        String prefix = directoryPath.endsWith("/") ? directoryPath : directoryPath + "/";
+        Map<String, String> md5s = new TreeMap<>();
+        for (String path : checksumProperties.stringPropertyNames()) {
+            if (path.startsWith(prefix)) {
+                md5s.put(path, checksumProperties.getProperty(path));
+            }
+        }
+        return md5s;
+    }
 }
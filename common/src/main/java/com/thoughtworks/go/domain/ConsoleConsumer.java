@@ -24,5 +24,10 @@ import java.util.function.Consumer;
 public interface ConsoleConsumer extends AutoCloseable {
     long stream(Consumer<String> action) throws IOException;
 
+    /**
+     * Same as {@link #stream(Consumer)}, but leaves out a last line which is not terminated by a newline yet.
+     */
+    long streamCompleteLines(Consumer<String> action) throws IOException;
+
     long totalLinesConsumed();
 }
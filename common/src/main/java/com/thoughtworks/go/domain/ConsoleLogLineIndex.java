@@ -0,0 +1,250 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.domain;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import static java.nio.charset.StandardCharsets.*;
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * A sparse index of line offsets for a console log, kept in a hidden sidecar file next to the log. It records the
+ * byte offset at which every {@link #LINES_PER_ENTRY}th line starts, so that a reader can seek close to the line it
+ * wants instead of decoding the log from the very beginning.
+ * <p>
+ * Line terminators are counted the same way {@link java.io.BufferedReader#readLine()} does (<code>\n</code>,
+ * <code>\r</code> or <code>\r\n</code>), which is only possible by looking at raw bytes for charsets in which those
+ * characters are always single bytes. See {@link #supports(Charset)}.
+ * <p>
+ * Sidecar layout: a header of the number of log bytes indexed so far, the number of line terminators seen in them and
+ * the scanner state flags, followed by one offset per indexed line.
+ */
+public class ConsoleLogLineIndex {
+    public static final int LINES_PER_ENTRY = 1000;
+
+    private static final int HEADER_SIZE = 3 * Long.BYTES;
+    private static final long PENDING_CARRIAGE_RETURN = 1L;
+    private static final long PENDING_ENTRY = 2L;
+    private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+    private static final Object[] LOCKS = new Object[64];
+
+    static {
+        for (int i = 0; i < LOCKS.length; i++) {
+            LOCKS[i] = new Object();
+        }
+    }
+
+    private final Path log;
+    private final Path index;
+
+    public ConsoleLogLineIndex(Path log) {
+        this.log = log;
+        this.index = indexFileFor(log);
+    }
+
+    public static Path indexFileFor(Path log) {
+        return log.resolveSibling("." + log.getFileName() + ".idx");
+    }
+
+    public static boolean supports(Charset charset) {
+        return UTF_8.equals(charset) || US_ASCII.equals(charset) || ISO_8859_1.equals(charset);
+    }
+
+    /**
+     * Moves the index of a console log along with the log itself. Does nothing if the log was never indexed.
+     */
+    public static void move(Path fromLog, Path toLog) throws IOException {
+        Path from = indexFileFor(fromLog);
+        if (Files.exists(from)) {
+            Files.move(from, indexFileFor(toLog), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Indexes whatever has been appended to the log since the last update, building the whole index if there is none.
+     */
+    public void update() throws IOException {
+        if (!Files.exists(log)) {
+            return;
+        }
+
+        synchronized (lock()) {
+            try (FileChannel indexChannel = FileChannel.open(index, CREATE, READ, WRITE);
+                 FileChannel logChannel = FileChannel.open(log, READ)) {
+                Header header = Header.readFrom(indexChannel);
+                if (header.indexedBytes > logChannel.size()) {
+                    // the log has been replaced with something shorter, start over
+                    header = new Header();
+                }
+                if (header.indexedBytes == logChannel.size()) {
+                    return;
+                }
+                indexChannel.truncate(HEADER_SIZE + header.entries * Long.BYTES);
+                scan(logChannel, indexChannel, header);
+                header.writeTo(indexChannel);
+            }
+        }
+    }
+
+    /**
+     * @return the indexed line closest to, but not after, the given line
+     */
+    public Position seek(long line) throws IOException {
+        if (line < LINES_PER_ENTRY || !Files.exists(index)) {
+            return Position.START;
+        }
+
+        try (FileChannel indexChannel = FileChannel.open(index, READ)) {
+            long available = Math.max(0, (indexChannel.size() - HEADER_SIZE) / Long.BYTES);
+            long entry = Math.min(line / LINES_PER_ENTRY, available);
+            if (entry == 0) {
+                return Position.START;
+            }
+
+            ByteBuffer offset = ByteBuffer.allocate(Long.BYTES);
+            indexChannel.read(offset, HEADER_SIZE + (entry - 1) * Long.BYTES);
+            offset.flip();
+            if (offset.remaining() < Long.BYTES) {
+                return Position.START;
+            }
+            return new Position(entry * LINES_PER_ENTRY, offset.getLong());
+        }
+    }
+
+    private void scan(FileChannel logChannel, FileChannel indexChannel, Header header) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        ByteBuffer entries = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long position = header.indexedBytes;
+        long entriesPosition = HEADER_SIZE + header.entries * Long.BYTES;
+
+        while (logChannel.read(buffer, position) > 0) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                byte b = buffer.get();
+                if (header.pendingCarriageReturn && b == '\n') {
+                    header.pendingCarriageReturn = false;
+                    position++;
+                    continue;
+                }
+                header.pendingCarriageReturn = false;
+
+                if (header.pendingEntry) {
+                    if (!entries.hasRemaining()) {
+                        entriesPosition += flush(entries, indexChannel, entriesPosition);
+                    }
+                    entries.putLong(position);
+                    header.entries++;
+                    header.pendingEntry = false;
+                }
+
+                if (b == '\n' || b == '\r') {
+                    header.lines++;
+                    header.pendingCarriageReturn = b == '\r';
+                    header.pendingEntry = header.lines % LINES_PER_ENTRY == 0;
+                }
+                position++;
+            }
+            buffer.clear();
+        }
+
+        flush(entries, indexChannel, entriesPosition);
+        header.indexedBytes = position;
+    }
+
+    private static int flush(ByteBuffer entries, FileChannel indexChannel, long at) throws IOException {
+        entries.flip();
+        int written = 0;
+        while (entries.hasRemaining()) {
+            written += indexChannel.write(entries, at + written);
+        }
+        entries.clear();
+        return written;
+    }
+
+    private Object lock() {
+        return LOCKS[Math.floorMod(index.toAbsolutePath().hashCode(), LOCKS.length)];
+    }
+
+    public static class Position {
+        public static final Position START = new Position(0, 0);
+
+        private final long line;
+        private final long byteOffset;
+
+        Position(long line, long byteOffset) {
+            this.line = line;
+            this.byteOffset = byteOffset;
+        }
+
+        public long line() {
+            return line;
+        }
+
+        public long byteOffset() {
+            return byteOffset;
+        }
+    }
+
+    private static class Header {
+        private long indexedBytes;
+        private long lines;
+        private long entries;
+        private boolean pendingCarriageReturn;
+        private boolean pendingEntry;
+
+        private static Header readFrom(FileChannel channel) throws IOException {
+            Header header = new Header();
+            if (channel.size() < HEADER_SIZE) {
+                return header;
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE);
+            while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) > 0) {
+                // keep reading until the header is complete
+            }
+            buffer.flip();
+            header.indexedBytes = buffer.getLong();
+            header.lines = buffer.getLong();
+            long flags = buffer.getLong();
+            header.pendingCarriageReturn = (flags & PENDING_CARRIAGE_RETURN) != 0;
+            header.pendingEntry = (flags & PENDING_ENTRY) != 0;
+            header.entries = header.lines / LINES_PER_ENTRY - (header.pendingEntry ? 1 : 0);
+
+            if (header.entries < 0 || HEADER_SIZE + header.entries * Long.BYTES > channel.size()) {
+                // the index was not completely written, rebuild it
+                return new Header();
+            }
+            return header;
+        }
+
+        private void writeTo(FileChannel channel) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE);
+            buffer.putLong(indexedBytes);
+            buffer.putLong(lines);
+            buffer.putLong((pendingCarriageReturn ? PENDING_CARRIAGE_RETURN : 0) | (pendingEntry ? PENDING_ENTRY : 0));
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, buffer.position());
+            }
+        }
+    }
+}
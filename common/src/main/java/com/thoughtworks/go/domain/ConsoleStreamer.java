@@ -18,11 +18,14 @@ package com.thoughtworks.go.domain;
 import com.thoughtworks.go.util.SystemEnvironment;
 
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
 import java.nio.file.Path;
-import java.util.Iterator;
 import java.util.function.Consumer;
-import java.util.stream.Stream;
+
+import static java.nio.file.StandardOpenOption.READ;
 
 /**
  * Encapsulates a stream of lines from a console log file while keeping track of the number of lines processed
@@ -30,10 +33,16 @@ import java.util.stream.Stream;
  */
 public class ConsoleStreamer implements ConsoleConsumer {
     private Path path;
-    private Stream stream;
-    private Iterator iterator;
+    private ConsoleLogLineIndex lineIndex;
+    private Reader reader;
+    private final char[] chars = new char[8192];
+    private int next;
+    private int end;
+    private final StringBuilder line = new StringBuilder();
+    private boolean skipLineFeed;
 
     private long start;
+    private long linesToSkip;
     private long count = 0L;
 
     public ConsoleStreamer(Path path, long start) {
@@ -41,6 +50,15 @@ public class ConsoleStreamer implements ConsoleConsumer {
         this.start = (start < 0L) ? 0L : start;
     }
 
+    /**
+     * @param lineIndex an up-to-date index of the log, used to seek close to the starting line instead of skipping
+     *                  every line before it
+     */
+    public ConsoleStreamer(Path path, long start, ConsoleLogLineIndex lineIndex) {
+        this(path, start);
+        this.lineIndex = lineIndex;
+    }
+
     /**
      * Applies a lambda (or equivalent {@link Consumer}) to each line and increments the totalLinesConsumed() until
      * EOF. Multiple invocations to this method will continue from where it left off if new content was appended after
@@ -52,13 +70,31 @@ public class ConsoleStreamer implements ConsoleConsumer {
      */
     @Override
     public long stream(Consumer<String> action) throws IOException {
+        return stream(action, false);
+    }
+
+    /**
+     * Same as {@link #stream(Consumer)}, but keeps a last line that is not terminated by a newline yet, as the file
+     * is still being written to. It is streamed once its newline has been appended, or by {@link #stream(Consumer)}.
+     */
+    @Override
+    public long streamCompleteLines(Consumer<String> action) throws IOException {
+        return stream(action, true);
+    }
+
+    private long stream(Consumer<String> action, boolean completeLinesOnly) throws IOException {
         long linesStreamed = 0L;
 
-        if (null == stream) stream = Files.lines(path, new SystemEnvironment().consoleLogCharsetAsCharset()).skip(start);
-        if (null == iterator) iterator = stream.iterator();
+        if (null == reader) reader = openReader(new SystemEnvironment().consoleLogCharsetAsCharset());
 
-        while (iterator.hasNext()) {
-            action.accept((String) iterator.next());
+        // a reader (unlike a Stream) picks up content appended after it has once reached EOF
+        while (linesToSkip > 0 && null != nextLine(completeLinesOnly)) {
+            --linesToSkip;
+        }
+
+        String line;
+        while (linesToSkip == 0 && null != (line = nextLine(completeLinesOnly))) {
+            action.accept(line);
             ++linesStreamed;
             ++count;
         }
@@ -66,14 +102,69 @@ public class ConsoleStreamer implements ConsoleConsumer {
         return linesStreamed;
     }
 
+    // like BufferedReader.readLine(), but able to tell a line cut short by EOF from a terminated one
+    private String nextLine(boolean completeLinesOnly) throws IOException {
+        while (true) {
+            if (next == end) {
+                int read = reader.read(chars, 0, chars.length);
+                if (read <= 0) {
+                    return completeLinesOnly || line.length() == 0 ? null : takeLine();
+                }
+                next = 0;
+                end = read;
+            }
+
+            if (skipLineFeed) {
+                skipLineFeed = false;
+                if (chars[next] == '\n') {
+                    next++;
+                    continue;
+                }
+            }
+
+            int from = next;
+            while (next < end && chars[next] != '\n' && chars[next] != '\r') {
+                next++;
+            }
+            line.append(chars, from, next - from);
+            if (next < end) {
+                skipLineFeed = chars[next] == '\r';
+                next++;
+                return takeLine();
+            }
+        }
+    }
+
+    private String takeLine() {
+        String taken = line.toString();
+        line.setLength(0);
+        return taken;
+    }
+
+    private Reader openReader(Charset charset) throws IOException {
+        ConsoleLogLineIndex.Position position = (null == lineIndex) ? ConsoleLogLineIndex.Position.START : lineIndex.seek(start);
+        FileChannel channel = FileChannel.open(path, READ);
+        try {
+            channel.position(position.byteOffset());
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+
+        linesToSkip = start - position.line();
+        return Channels.newReader(channel, charset.newDecoder(), -1);
+    }
+
     @Override
-    public void close() {
-        if (null != stream) {
-            stream.close();
+    public void close() throws IOException {
+        if (null != reader) {
+            reader.close();
         }
 
-        stream = null;
-        iterator = null;
+        reader = null;
+        next = end = 0;
+        line.setLength(0);
+        skipLineFeed = false;
     }
 
     @Override
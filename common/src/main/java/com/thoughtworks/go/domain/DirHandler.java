@@ -26,6 +26,8 @@ import javax.servlet.http.HttpServletResponse;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
@@ -38,6 +40,7 @@ public class DirHandler implements FetchHandler {
     private static final Logger LOG = LoggerFactory.getLogger(DirHandler.class);
     private ArtifactMd5Checksums artifactMd5Checksums;
     private ChecksumValidationPublisher checksumValidationPublisher;
+    private transient ArtifactFetchCache artifactFetchCache;
 
     public DirHandler(String srcFile, File destOnAgent) {
         this.srcFile = srcFile;
@@ -56,14 +59,47 @@ public class DirHandler implements FetchHandler {
             LOG.info("[Agent Fetch Artifact] Downloading from '{}' to '{}'. Will read from Socket stream to compute MD5 and write to file", srcFile, destOnAgent.getAbsolutePath());
 
             long before = System.currentTimeMillis();
+            Map<File, String> verifiedFiles = new LinkedHashMap<>();
             new ZipUtil((entry, stream1) -> {
                 LOG.info("[Agent Fetch Artifact] Downloading a directory from '{}' to '{}'. Handling the entry: '{}'", srcFile, destOnAgent.getAbsolutePath(), entry.getName());
-                new ChecksumValidator(artifactMd5Checksums).validate(getSrcFilePath(entry), md5Hex(stream1), checksumValidationPublisher);
+                String srcFilePath = getSrcFilePath(entry);
+                String md5 = md5Hex(stream1);
+                new ChecksumValidator(artifactMd5Checksums).validate(srcFilePath, md5, checksumValidationPublisher);
+                if (artifactFetchCache != null && artifactMd5Checksums != null && md5.equals(artifactMd5Checksums.md5For(srcFilePath))) {
+                    verifiedFiles.put(new File(destOnAgent, entry.getName()), md5);
+                }
             }).unzip(zipInputStream, destOnAgent);
             LOG.info("[Agent Fetch Artifact] Downloading a directory from '{}' to '{}'. Took: {}ms", srcFile, destOnAgent.getAbsolutePath(), System.currentTimeMillis() - before);
+            verifiedFiles.forEach((file, md5) -> artifactFetchCache.store(file, md5));
         }
     }
 
+    @Override
+    public boolean restoreFromCache() {
+        if (artifactFetchCache == null || artifactMd5Checksums == null) {
+            return false;
+        }
+
+        Map<String, String> md5s = artifactMd5Checksums.md5ForFilesUnder(FilenameUtils.separatorsToUnix(new File(srcFile).getPath()));
+        if (md5s.isEmpty() || !md5s.values().stream().allMatch(artifactFetchCache::contains)) {
+            return false;
+        }
+
+        for (Map.Entry<String, String> srcFilePathAndMd5 : md5s.entrySet()) {
+            if (!artifactFetchCache.restore(srcFilePathAndMd5.getValue(), destinationOf(srcFilePathAndMd5.getKey()))) {
+                return false;
+            }
+            checksumValidationPublisher.md5Match(srcFilePathAndMd5.getKey());
+        }
+        return true;
+    }
+
+    private File destinationOf(String srcFilePath) {
+        String parent = new File(srcFile).getParent();
+        String entryName = parent == null ? srcFilePath : srcFilePath.substring(FilenameUtils.separatorsToUnix(parent).length() + 1);
+        return new File(destOnAgent, entryName);
+    }
+
     private String getSrcFilePath(ZipEntry entry) {
         String parent = new File(srcFile).getParent();
         return FilenameUtils.separatorsToUnix(new File(parent, entry.getName()).getPath());
@@ -80,6 +116,11 @@ public class DirHandler implements FetchHandler {
         this.artifactMd5Checksums = artifactMd5Checksums;
     }
 
+    @Override
+    public void useArtifactFetchCache(ArtifactFetchCache artifactFetchCache) {
+        this.artifactFetchCache = artifactFetchCache;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -30,4 +30,17 @@ public interface FetchHandler extends Serializable {
 
     void useArtifactMd5Checksums(ArtifactMd5Checksums artifactMd5Checksums);
 
+    default void useArtifactFetchCache(ArtifactFetchCache artifactFetchCache) {
+    }
+
+    /**
+     * Puts the artifact in place from the artifact fetch cache of the agent, if all of it is there and matches the
+     * checksums given to {@link #useArtifactMd5Checksums(ArtifactMd5Checksums)}.
+     *
+     * @return {@code false} if the artifact has to be downloaded
+     */
+    default boolean restoreFromCache() {
+        return false;
+    }
+
 }
@@ -24,24 +24,26 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.servlet.http.HttpServletResponse;
-import java.io.File;
-import java.io.IOException;
-import java.io.InputStream;
+import java.io.*;
 import java.net.URLEncoder;
-import java.security.DigestInputStream;
+import java.nio.file.Files;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Date;
 
 import static java.lang.String.format;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
 
-public class FileHandler implements FetchHandler {
+public class FileHandler implements ResumableFetchHandler {
+    private static final int BUFFER_SIZE = 32 * 1024;
 
     private final File artifact;
     private final String srcFile;
     private static final Logger LOG = LoggerFactory.getLogger(FileHandler.class);
     private ArtifactMd5Checksums artifactMd5Checksums;
     private ChecksumValidationPublisher checksumValidationPublisher;
+    private transient ArtifactFetchCache artifactFetchCache;
+    private transient String entityTag;
 
     public FileHandler(File artifact, String srcFile) {
         this.artifact = artifact;
@@ -64,15 +66,99 @@ public class FileHandler implements FetchHandler {
 
     @Override
     public void handle(InputStream stream) throws IOException {
+        handle(stream, 0, null);
+    }
+
+    @Override
+    public void handle(InputStream stream, long offset, String entityTag) throws IOException {
+        File partialDownload = partialDownload();
+        FileUtils.forceMkdirParent(partialDownload);
         MessageDigest digest = getMd5();
-        try (DigestInputStream digestInputStream = new DigestInputStream(stream, digest)) {
-            LOG.info("[Artifact File Download] [{}] Download of artifact {} started", new Date(), artifact.getName());
-            FileUtils.copyInputStreamToFile(digestInputStream, artifact);
+        this.entityTag = entityTag;
+
+        try (RandomAccessFile file = new RandomAccessFile(partialDownload, "rw")) {
+            file.setLength(offset);
+            digestBytesReceived(file, offset, digest);
+            LOG.info("[Artifact File Download] [{}] Download of artifact {} started from byte {}", new Date(), artifact.getName(), offset);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = stream.read(buffer)) != -1) {
+                file.write(buffer, 0, read);
+                digest.update(buffer, 0, read);
+            }
             LOG.info("[Artifact File Download] [{}] Download of artifact {} ended", new Date(), artifact.getName());
         }
 
-        String artifactMD5 = Hex.encodeHexString(digest.digest());
+        downloaded(Hex.encodeHexString(digest.digest()));
+    }
+
+    @Override
+    public void handleDownloaded(String entityTag) throws IOException {
+        MessageDigest digest = getMd5();
+        try (RandomAccessFile file = new RandomAccessFile(partialDownload(), "r")) {
+            digestBytesReceived(file, file.length(), digest);
+        }
+        downloaded(Hex.encodeHexString(digest.digest()));
+    }
+
+    private void digestBytesReceived(RandomAccessFile file, long length, MessageDigest digest) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        file.seek(0);
+        long remaining = length;
+        while (remaining > 0) {
+            int read = file.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read == -1) {
+                break;
+            }
+            digest.update(buffer, 0, read);
+            remaining -= read;
+        }
+    }
+
+    private void downloaded(String artifactMD5) throws IOException {
+        Files.move(partialDownload().toPath(), artifact.toPath(), REPLACE_EXISTING);
+        entityTag = null;
+
         new ChecksumValidator(artifactMd5Checksums).validate(srcFile, artifactMD5, checksumValidationPublisher);
+        if (artifactFetchCache != null && artifactMD5.equals(expectedMd5())) {
+            artifactFetchCache.store(artifact, artifactMD5);
+        }
+    }
+
+    @Override
+    public long bytesReceived() {
+        File partialDownload = partialDownload();
+        return entityTag != null && partialDownload.isFile() ? partialDownload.length() : 0;
+    }
+
+    @Override
+    public String entityTag() {
+        return entityTag;
+    }
+
+    @Override
+    public File partialDownload() {
+        return new File(artifact.getPath() + ".part");
+    }
+
+    @Override
+    public void discardPartialDownload() {
+        entityTag = null;
+        FileUtils.deleteQuietly(partialDownload());
+    }
+
+    @Override
+    public boolean restoreFromCache() {
+        String md5 = expectedMd5();
+        if (artifactFetchCache == null || md5 == null || !artifactFetchCache.restore(md5, artifact)) {
+            return false;
+        }
+        checksumValidationPublisher.md5Match(srcFile);
+        return true;
+    }
+
+    private String expectedMd5() {
+        return artifactMd5Checksums == null ? null : artifactMd5Checksums.md5For(srcFile);
     }
 
     private MessageDigest getMd5() {
@@ -95,6 +181,11 @@ public class FileHandler implements FetchHandler {
         this.artifactMd5Checksums = artifactMd5Checksums;
     }
 
+    @Override
+    public void useArtifactFetchCache(ArtifactFetchCache artifactFetchCache) {
+        this.artifactFetchCache = artifactFetchCache;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
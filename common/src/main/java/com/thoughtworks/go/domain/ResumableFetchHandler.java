@@ -0,0 +1,53 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.domain;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * @understands a fetch handler that receives its artifact as a single file, which can therefore be downloaded in
+ * ranges: continuing from where an interrupted download stopped, or in several parts at once
+ */
+public interface ResumableFetchHandler extends FetchHandler {
+    /**
+     * @return the number of bytes received so far that a download can continue from, 0 if it has to start over
+     */
+    long bytesReceived();
+
+    /**
+     * @return the entity tag of the version of the artifact received so far, <code>null</code> if unknown
+     */
+    String entityTag();
+
+    /**
+     * Receives the artifact from the given offset on, keeping the bytes before it that were received already.
+     */
+    void handle(InputStream stream, long offset, String entityTag) throws IOException;
+
+    /**
+     * @return the file the parts of the artifact are written to, at their position, until all of it is received
+     */
+    File partialDownload();
+
+    /**
+     * Called once all the parts of the artifact have been written to {@link #partialDownload()}.
+     */
+    void handleDownloaded(String entityTag) throws IOException;
+
+    void discardPartialDownload();
+}
@@ -22,6 +22,9 @@ import com.thoughtworks.go.plugin.infra.PluginRequestProcessorRegistry;
 import com.thoughtworks.go.util.URLService;
 import com.thoughtworks.go.util.command.EnvironmentVariableContext;
 import com.thoughtworks.go.work.DefaultGoPublisher;
+import com.thoughtworks.go.work.GoPublisher;
+
+import javax.servlet.http.HttpServletResponse;
 
 public class FetchArtifactBuilder extends Builder {
     private final JobIdentifier jobIdentifier;
@@ -47,15 +50,41 @@ public class FetchArtifactBuilder extends Builder {
     }
 
     public void fetch(DownloadAction downloadAction, URLService urlService) throws Exception {
+        fetch(downloadAction, urlService, ArtifactFetchCache.disabled(), null);
+    }
+
+    /**
+     * Fetches the artifact, restoring it from the artifact fetch cache of the agent instead of downloading it when it
+     * is there. The checksum file is always downloaded, as it is what tells whether the cached files are the ones
+     * the server has.
+     *
+     * @param publisher where use of the cache is reported, only needed if the cache is enabled
+     */
+    public void fetch(DownloadAction downloadAction, URLService urlService, ArtifactFetchCache artifactFetchCache, GoPublisher publisher) throws Exception {
         downloadChecksumFile(downloadAction, urlService.baseRemoteURL());
-        downloadArtifact(downloadAction, urlService.baseRemoteURL());
+        downloadArtifact(downloadAction, urlService.baseRemoteURL(), artifactFetchCache, publisher);
     }
 
-    private void downloadArtifact(DownloadAction downloadAction, String baseRemoteUrl) throws Exception {
+    private void downloadArtifact(DownloadAction downloadAction, String baseRemoteUrl, ArtifactFetchCache artifactFetchCache, GoPublisher publisher) throws Exception {
         handler.useArtifactMd5Checksums(checksumFileHandler.getArtifactMd5Checksums());
+        handler.useArtifactFetchCache(artifactFetchCache);
+        if (artifactFetchCache.isEnabled()) {
+            if (handler.restoreFromCache()) {
+                artifactFetchCache.recordHits(1);
+                publisher.taggedConsumeLineWithPrefix(GoPublisher.OUT, String.format("[Artifact Fetch Cache] Restored artifact [%s] from the cache of this agent instead of downloading it. %s", getSrc(), cacheUsage(artifactFetchCache)));
+                handler.handleResult(HttpServletResponse.SC_OK, publisher);
+                return;
+            }
+            artifactFetchCache.recordMisses(1);
+            publisher.taggedConsumeLineWithPrefix(GoPublisher.OUT, String.format("[Artifact Fetch Cache] Artifact [%s] is not in the cache of this agent, downloading it. %s", getSrc(), cacheUsage(artifactFetchCache)));
+        }
         pullArtifact(downloadAction, handler.url(baseRemoteUrl, artifactLocator()), handler);
     }
 
+    private String cacheUsage(ArtifactFetchCache artifactFetchCache) {
+        return String.format("(hits: %s, misses: %s)", artifactFetchCache.hits(), artifactFetchCache.misses());
+    }
+
     private void downloadChecksumFile(DownloadAction downloadAction, String baseRemoteUrl) throws Exception {
         final String checksumUrl = checksumFileHandler.url(baseRemoteUrl, jobIdentifier.buildLocator());
         pullArtifact(downloadAction, checksumUrl, checksumFileHandler);
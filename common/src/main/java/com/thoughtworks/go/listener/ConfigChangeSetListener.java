@@ -0,0 +1,30 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.listener;
+
+import com.thoughtworks.go.config.ConfigChangeSet;
+import com.thoughtworks.go.config.CruiseConfig;
+
+/**
+ * @understands reacting to just the parts of the config which changed
+ * <p>
+ * Listeners implementing this are told what changed whenever the previous config is known. They are still sent the
+ * whole config through {@link #onConfigChange(CruiseConfig)} when it is not, like when they are registered or when
+ * the config is loaded for the first time, and they should then treat everything as changed.
+ */
+public interface ConfigChangeSetListener extends ConfigChangedListener {
+    void onConfigChange(CruiseConfig newCruiseConfig, ConfigChangeSet changes);
+}
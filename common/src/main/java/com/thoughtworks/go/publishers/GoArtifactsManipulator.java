@@ -15,6 +15,7 @@
  */
 package com.thoughtworks.go.publishers;
 
+import com.thoughtworks.go.domain.ArtifactFetchCache;
 import com.thoughtworks.go.domain.DownloadAction;
 import com.thoughtworks.go.domain.JobIdentifier;
 import com.thoughtworks.go.domain.builder.FetchArtifactBuilder;
@@ -33,14 +34,9 @@ import org.springframework.stereotype.Component;
 
 import javax.servlet.http.HttpServletResponse;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.util.Collection;
-import java.util.Properties;
-import java.util.zip.Deflater;
+import java.nio.charset.Charset;
 
 import static com.thoughtworks.go.util.ArtifactLogUtil.getConsoleOutputFolderAndFileNameUrl;
-import static com.thoughtworks.go.util.CachedDigestUtils.md5Hex;
 import static com.thoughtworks.go.util.ExceptionUtils.bomb;
 import static com.thoughtworks.go.util.GoConstants.PUBLISH_MAX_RETRIES;
 import static com.thoughtworks.go.util.command.TaggedStreamConsumer.PUBLISH;
@@ -52,13 +48,15 @@ public class GoArtifactsManipulator {
     private final HttpService httpService;
     private final URLService urlService;
     private final ZipUtil zipUtil;
+    private final ArtifactFetchCache artifactFetchCache;
     private static final Logger LOGGER = LoggerFactory.getLogger(GoArtifactsManipulator.class);
 
     @Autowired
-    public GoArtifactsManipulator(HttpService httpService, URLService urlService, ZipUtil zipUtil) {
+    public GoArtifactsManipulator(HttpService httpService, URLService urlService, ZipUtil zipUtil, ArtifactFetchCache artifactFetchCache) {
         this.httpService = httpService;
         this.urlService = urlService;
         this.zipUtil = zipUtil;
+        this.artifactFetchCache = artifactFetchCache;
     }
 
     public void publish(DefaultGoPublisher goPublisher, String destPath, File source, JobIdentifier jobIdentifier) {
@@ -71,14 +69,9 @@ public class GoArtifactsManipulator {
         int publishingAttempts = 0;
         Throwable lastException = null;
         while (publishingAttempts < PUBLISH_MAX_RETRIES) {
-            File tmpDir = null;
             try {
                 publishingAttempts++;
 
-                tmpDir = FileUtil.createTempFolder();
-                File dataToUpload = new File(tmpDir, source.getName() + ".zip");
-                zipUtil.zip(source, dataToUpload, Deflater.BEST_SPEED);
-
                 long size = 0;
                 if (source.isDirectory()) {
                     size = FileUtils.sizeOfDirectory(source);
@@ -91,7 +84,8 @@ public class GoArtifactsManipulator {
                 String normalizedDestPath = FilenameUtils.separatorsToUnix(destPath);
                 String url = urlService.getUploadUrlOfAgent(jobIdentifier, normalizedDestPath, publishingAttempts);
 
-                int statusCode = httpService.upload(url, size, dataToUpload, artifactChecksums(source, normalizedDestPath));
+                StreamingArtifactUpload upload = new StreamingArtifactUpload(zipUtil, source, filePath -> getEffectiveFileName(normalizedDestPath, filePath));
+                int statusCode = httpService.upload(url, size, upload.artifact(), upload.checksums());
 
                 if (statusCode == HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE) {
                     String message = String.format("Artifact upload for file %s (Size: %s) was denied by the server. This usually happens when server runs out of disk space.",
@@ -110,8 +104,6 @@ public class GoArtifactsManipulator {
                 LOGGER.error(message, e);
                 goPublisher.taggedConsumeLineWithPrefix(PUBLISH_ERR, message);
                 lastException = e;
-            } finally {
-                FileUtils.deleteQuietly(tmpDir);
             }
         }
         if (lastException != null) {
@@ -119,37 +111,6 @@ public class GoArtifactsManipulator {
         }
     }
 
-    private Properties artifactChecksums(File source, String destPath) throws IOException {
-        if (source.isDirectory()) {
-            return computeChecksumForContentsOfDirectory(source, destPath);
-        }
-
-        Properties properties = null;
-        try (FileInputStream inputStream = new FileInputStream(source)) {
-            properties = computeChecksumForFile(source.getName(), md5Hex(inputStream), destPath);
-        }
-        return properties;
-    }
-
-    private Properties computeChecksumForContentsOfDirectory(File directory, String destPath) throws IOException {
-        Collection<File> fileStructure = FileUtils.listFiles(directory, null, true);
-        Properties checksumProperties = new Properties();
-        for (File file : fileStructure) {
-            String filePath = removeStart(file.getAbsolutePath(), directory.getParentFile().getAbsolutePath());
-            try (FileInputStream inputStream = new FileInputStream(file)) {
-                checksumProperties.setProperty(getEffectiveFileName(destPath, FilenameUtils.separatorsToUnix(filePath)), md5Hex(inputStream));
-            }
-        }
-        return checksumProperties;
-    }
-
-    private Properties computeChecksumForFile(String sourceName, String md5, String destPath) {
-        String effectiveFileName = getEffectiveFileName(destPath, sourceName);
-        Properties properties = new Properties();
-        properties.setProperty(effectiveFileName, md5);
-        return properties;
-    }
-
     private String getEffectiveFileName(String computedDestPath, String filePath) {
         File artifactDest = computedDestPath.isEmpty() ? new File(filePath) : new File(computedDestPath, filePath);
         return removeLeadingSlash(artifactDest);
@@ -165,7 +126,7 @@ public class GoArtifactsManipulator {
             String fetchMsg = String.format("Fetching artifact [%s] from [%s]", fetchArtifactBuilder.getSrc(),
                     fetchArtifactBuilder.jobLocatorForDisplay());
             goPublisher.taggedConsumeLineWithPrefix(DefaultGoPublisher.OUT, fetchMsg);
-            fetchArtifactBuilder.fetch(new DownloadAction(httpService, goPublisher, new SystemTimeClock()), urlService);
+            fetchArtifactBuilder.fetch(new DownloadAction(httpService, goPublisher, new SystemTimeClock()), urlService, artifactFetchCache, goPublisher);
         } catch (Exception e) {
             String fetchMsg = String.format("Failed to save artifact [%s] to [%s]",
                     fetchArtifactBuilder.getSrc(), fetchArtifactBuilder.getDest());
@@ -186,6 +147,6 @@ public class GoArtifactsManipulator {
     public ConsoleOutputTransmitter createConsoleOutputTransmitter(JobIdentifier jobIdentifier,
                                                                    AgentIdentifier agentIdentifier, String consoleLogCharset) {
         String consoleUrl = urlService.getUploadUrlOfAgent(jobIdentifier, getConsoleOutputFolderAndFileNameUrl());
-        return new ConsoleOutputTransmitter(new RemoteConsoleAppender(consoleUrl, httpService, consoleLogCharset));
+        return new ConsoleOutputTransmitter(new RemoteConsoleAppender(consoleUrl, httpService, consoleLogCharset), Charset.forName(consoleLogCharset));
     }
 }
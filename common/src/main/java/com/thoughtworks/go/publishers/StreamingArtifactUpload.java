@@ -0,0 +1,107 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.publishers;
+
+import com.thoughtworks.go.util.ZipUtil;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.mime.MIME;
+import org.apache.http.entity.mime.content.AbstractContentBody;
+import org.apache.http.entity.mime.content.ContentBody;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Properties;
+import java.util.function.Function;
+import java.util.zip.Deflater;
+
+import static org.apache.commons.lang3.StringUtils.removeStart;
+
+/**
+ * @understands sending an artifact as a zip which is built while it is being uploaded, computing the checksums of the
+ * files in it along the way. The artifact is read from disk once and never written to a temporary file.
+ * <p>
+ * The checksums are only complete once the zip has been written, which is why they must be sent after it.
+ */
+class StreamingArtifactUpload {
+    private final ZipUtil zipUtil;
+    private final File source;
+    private final Function<String, String> checksumKey;
+    private final Properties checksums = new Properties();
+
+    /**
+     * @param checksumKey maps the path of a file relative to the parent of {@code source} (with a leading slash) to
+     *                    the key of its checksum
+     */
+    StreamingArtifactUpload(ZipUtil zipUtil, File source, Function<String, String> checksumKey) {
+        this.zipUtil = zipUtil;
+        this.source = source.getAbsoluteFile();
+        this.checksumKey = checksumKey;
+    }
+
+    ContentBody artifact() {
+        return new AbstractContentBody(ContentType.DEFAULT_BINARY) {
+            @Override
+            public String getFilename() {
+                return source.getName() + ".zip";
+            }
+
+            @Override
+            public void writeTo(OutputStream out) throws IOException {
+                checksums.clear();
+                String parent = source.getParentFile().getAbsolutePath();
+                zipUtil.zip(source, new CloseShieldOutputStream(out), Deflater.BEST_SPEED, (file, md5) ->
+                        checksums.setProperty(checksumKey.apply(FilenameUtils.separatorsToUnix(removeStart(file.getAbsolutePath(), parent))), md5));
+            }
+
+            @Override
+            public String getTransferEncoding() {
+                return MIME.ENC_BINARY;
+            }
+
+            @Override
+            public long getContentLength() {
+                return -1;
+            }
+        };
+    }
+
+    ContentBody checksums() {
+        return new AbstractContentBody(ContentType.DEFAULT_BINARY) {
+            @Override
+            public String getFilename() {
+                return "checksum_file";
+            }
+
+            @Override
+            public void writeTo(OutputStream out) throws IOException {
+                checksums.store(out, "");
+            }
+
+            @Override
+            public String getTransferEncoding() {
+                return MIME.ENC_BINARY;
+            }
+
+            @Override
+            public long getContentLength() {
+                return -1;
+            }
+        };
+    }
+}
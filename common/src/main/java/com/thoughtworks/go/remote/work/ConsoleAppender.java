@@ -15,8 +15,20 @@
  */
 package com.thoughtworks.go.remote.work;
 
+import org.apache.commons.io.IOUtils;
+
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
 
 public interface ConsoleAppender {
     void append(String content) throws IOException;
+
+    /**
+     * Appends {@code length} bytes of console output, already encoded in {@code charset}. Appenders that can send the
+     * bytes along without decoding them should override this.
+     */
+    default void append(InputStream content, long length, Charset charset) throws IOException {
+        append(IOUtils.toString(content, charset));
+    }
 }
@@ -17,38 +17,80 @@ package com.thoughtworks.go.remote.work;
 
 import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.util.command.TaggedStreamConsumer;
-import org.apache.commons.collections4.queue.CircularFifoQueue;
+import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Date;
-import java.util.List;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
-import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
+/**
+ * Collects console output of a build and periodically sends it to the server.
+ * <p>
+ * Lines are prefixed with their tag and timestamp and encoded straight into an in-memory byte buffer. Output is never
+ * dropped: when the buffer fills up between two flushes (or the server cannot be reached) its contents are spilled to a
+ * temporary file, which is sent ahead of the in-memory output on the next flush.
+ */
 public final class ConsoleOutputTransmitter implements TaggedStreamConsumer, Runnable {
     private static final Logger LOGGER = LoggerFactory.getLogger(ConsoleOutputTransmitter.class);
+    private static final DateTimeFormatter SECONDS_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss.");
+    private static final String NO_TAG = "  ";
 
-    private final CircularFifoQueue buffer = new CircularFifoQueue(10 * 1024); // maximum 10k lines
     private final ConsoleAppender consoleAppender;
-    private final SimpleDateFormat dateFormat = new SimpleDateFormat("HH:mm:ss.SSS");
+    private final Charset charset;
+    private final CharsetEncoder encoder;
     private final ScheduledThreadPoolExecutor executor;
+    private final ThreadLocal<StringBuilder> lineBuilder = ThreadLocal.withInitial(() -> new StringBuilder(256));
+    private volatile CachedSecond cachedSecond = new CachedSecond(Long.MIN_VALUE, "");
+
+    private final Object bufferLock = new Object();
+    private final Object flushLock = new Object();
+    private ByteBuffer buffer;
+    private ByteBuffer sending;
+    private File spill;
 
     public ConsoleOutputTransmitter(ConsoleAppender consoleAppender) {
-        this(consoleAppender, new SystemEnvironment().getConsolePublishInterval(), new ScheduledThreadPoolExecutor(1));
+        this(consoleAppender, UTF_8);
+    }
+
+    public ConsoleOutputTransmitter(ConsoleAppender consoleAppender, Charset charset) {
+        this(consoleAppender, charset, new SystemEnvironment().getConsolePublishInterval(), new ScheduledThreadPoolExecutor(1));
     }
 
     protected ConsoleOutputTransmitter(ConsoleAppender consoleAppender, Integer consolePublishInterval,
                                        ScheduledThreadPoolExecutor scheduledThreadPoolExecutor) {
+        this(consoleAppender, UTF_8, consolePublishInterval, scheduledThreadPoolExecutor);
+    }
+
+    protected ConsoleOutputTransmitter(ConsoleAppender consoleAppender, Charset charset, Integer consolePublishInterval,
+                                       ScheduledThreadPoolExecutor scheduledThreadPoolExecutor) {
+        this(consoleAppender, charset, consolePublishInterval, scheduledThreadPoolExecutor, new SystemEnvironment().get(SystemEnvironment.CONSOLE_OUTPUT_BUFFER_SIZE));
+    }
+
+    ConsoleOutputTransmitter(ConsoleAppender consoleAppender, Charset charset, Integer consolePublishInterval,
+                             ScheduledThreadPoolExecutor scheduledThreadPoolExecutor, int bufferSize) {
         this.consoleAppender = consoleAppender;
+        this.charset = charset;
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.buffer = ByteBuffer.allocate(bufferSize);
+        this.sending = ByteBuffer.allocate(bufferSize);
         this.executor = scheduledThreadPoolExecutor;
         executor.scheduleAtFixedRate(this, 0L, consolePublishInterval, TimeUnit.SECONDS);
-
     }
 
     @Override
@@ -58,15 +100,54 @@ public final class ConsoleOutputTransmitter implements TaggedStreamConsumer, Run
 
     @Override
     public void taggedConsumeLine(String tag, String line) {
-        synchronized (buffer) {
-            if (null == tag) tag = "  ";
-            String date = dateFormat.format(new Date());
-            String prepend = format("%s|%s", tag, date);
-            String multilineJoin = "\n" + prepend + " ";
-            buffer.add(format("%s %s", prepend, line).replaceAll("\n", multilineJoin));
+        StringBuilder formatted = format(tag, line);
+
+        synchronized (bufferLock) {
+            CharBuffer chars = CharBuffer.wrap(formatted);
+            encoder.reset();
+            while (encoder.encode(chars, buffer, true).isOverflow()) {
+                spillBuffer();
+            }
+            while (encoder.flush(buffer).isOverflow()) {
+                spillBuffer();
+            }
         }
     }
 
+    private StringBuilder format(String tag, String line) {
+        StringBuilder formatted = lineBuilder.get();
+        formatted.setLength(0);
+
+        appendPrefix(formatted, null == tag ? NO_TAG : tag);
+        int prefixLength = formatted.length();
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            formatted.append(c);
+            if (c == '\n') {
+                formatted.append(formatted, 0, prefixLength);
+            }
+        }
+        return formatted.append('\n');
+    }
+
+    private void appendPrefix(StringBuilder formatted, String tag) {
+        long now = System.currentTimeMillis();
+        long second = Math.floorDiv(now, 1000L);
+        CachedSecond cached = cachedSecond;
+        if (cached.second != second) {
+            cached = new CachedSecond(second, SECONDS_FORMAT.format(LocalTime.ofInstant(Instant.ofEpochSecond(second), ZoneId.systemDefault())));
+            cachedSecond = cached;
+        }
+
+        int millis = (int) Math.floorMod(now, 1000L);
+        formatted.append(tag).append('|').append(cached.text)
+                .append((char) ('0' + millis / 100))
+                .append((char) ('0' + millis / 10 % 10))
+                .append((char) ('0' + millis % 10))
+                .append(' ');
+    }
+
     @Override
     public void run() {
         try {
@@ -77,29 +158,31 @@ public final class ConsoleOutputTransmitter implements TaggedStreamConsumer, Run
     }
 
     public void flushToServer() {
-        if (buffer.isEmpty()) {
-            return;
-        }
-
-        List sent = new ArrayList();
-        try {
-            synchronized (buffer) {
-                while (!buffer.isEmpty()) {
-                    sent.add(buffer.remove());
+        synchronized (flushLock) {
+            File spilled;
+            ByteBuffer toSend;
+            synchronized (bufferLock) {
+                if (buffer.position() == 0 && spill == null) {
+                    return;
                 }
-            }
-            StringBuilder result = new StringBuilder();
-            for (Object string : sent) {
-                result.append(string);
-                result.append("\n");
-            }
-            consoleAppender.append(result.toString());
-        } catch (IOException e) {
-            LOGGER.warn("Could not send console output to server", e);
-            synchronized (buffer) {
-                sent.addAll(buffer);
+                spilled = spill;
+                spill = null;
+                toSend = buffer;
+                buffer = sending;
+                sending = toSend;
                 buffer.clear();
-                buffer.addAll(sent);
+            }
+
+            toSend.flip();
+            long length = toSend.remaining() + (spilled == null ? 0 : spilled.length());
+            try (InputStream content = contentOf(spilled, toSend)) {
+                consoleAppender.append(content, length, charset);
+                FileUtils.deleteQuietly(spilled);
+            } catch (IOException e) {
+                LOGGER.warn("Could not send console output to server", e);
+                requeue(spilled, toSend);
+            } finally {
+                toSend.clear();
             }
         }
     }
@@ -108,5 +191,66 @@ public final class ConsoleOutputTransmitter implements TaggedStreamConsumer, Run
     public void stop() {
         flushToServer();
         executor.shutdown();
+        synchronized (bufferLock) {
+            if (spill != null) {
+                LOGGER.warn("Discarding {} bytes of console output that could not be sent to the server", spill.length());
+                FileUtils.deleteQuietly(spill);
+                spill = null;
+            }
+        }
+    }
+
+    private InputStream contentOf(File spilled, ByteBuffer inMemory) throws IOException {
+        InputStream fromMemory = new ByteArrayInputStream(inMemory.array(), inMemory.position(), inMemory.remaining());
+        if (spilled == null) {
+            return fromMemory;
+        }
+        return new SequenceInputStream(new BufferedInputStream(new FileInputStream(spilled)), fromMemory);
+    }
+
+    // must be called while holding the buffer lock
+    private void spillBuffer() {
+        try {
+            if (spill == null) {
+                spill = File.createTempFile("console-output", ".log");
+            }
+            buffer.flip();
+            try (OutputStream out = new FileOutputStream(spill, true)) {
+                out.write(buffer.array(), buffer.position(), buffer.remaining());
+            }
+        } catch (IOException e) {
+            LOGGER.error("Could not spill console output to disk, {} bytes of output are lost", buffer.remaining(), e);
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    private void requeue(File spilled, ByteBuffer unsent) {
+        synchronized (bufferLock) {
+            try {
+                File requeued = spilled != null ? spilled : File.createTempFile("console-output", ".log");
+                try (OutputStream out = new FileOutputStream(requeued, true)) {
+                    out.write(unsent.array(), 0, unsent.limit());
+                    // anything spilled since this flush started comes after what could not be sent
+                    if (spill != null) {
+                        FileUtils.copyFile(spill, out);
+                        FileUtils.deleteQuietly(spill);
+                    }
+                }
+                spill = requeued;
+            } catch (IOException e) {
+                LOGGER.error("Could not keep console output that failed to be sent, some output is lost", e);
+            }
+        }
+    }
+
+    private static class CachedSecond {
+        private final long second;
+        private final String text;
+
+        private CachedSecond(long second, String text) {
+            this.second = second;
+            this.text = text;
+        }
     }
 }
@@ -16,13 +16,20 @@
 package com.thoughtworks.go.remote.work;
 
 import com.thoughtworks.go.util.HttpService;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.entity.GzipCompressingEntity;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPut;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.InputStreamEntity;
 import org.apache.http.entity.StringEntity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
 
 public class RemoteConsoleAppender implements ConsoleAppender {
 
@@ -31,11 +38,17 @@ public class RemoteConsoleAppender implements ConsoleAppender {
     private String consoleUri;
     private HttpService httpService;
     private final String charset;
+    private final boolean compress;
 
     public RemoteConsoleAppender(String consoleUri, HttpService httpService, String charset) {
+        this(consoleUri, httpService, charset, new SystemEnvironment().get(SystemEnvironment.CONSOLE_OUTPUT_COMPRESS));
+    }
+
+    RemoteConsoleAppender(String consoleUri, HttpService httpService, String charset, boolean compress) {
         this.consoleUri = consoleUri;
         this.httpService = httpService;
         this.charset = charset;
+        this.compress = compress;
     }
 
     @Override
@@ -53,4 +66,23 @@ public class RemoteConsoleAppender implements ConsoleAppender {
             putMethod.releaseConnection();
         }
     }
+
+    @Override
+    public void append(InputStream content, long length, Charset charset) throws IOException {
+        HttpPut putMethod = new HttpPut(consoleUri);
+        try {
+            LOGGER.debug("Appending {} bytes of console to URL -> {}", length, consoleUri);
+            HttpEntity entity = new InputStreamEntity(content, length, ContentType.TEXT_PLAIN.withCharset(charset));
+            if (compress) {
+                entity = new GzipCompressingEntity(entity);
+            }
+            putMethod.setEntity(entity);
+            HttpService.setSizeHeader(putMethod, length);
+            try (CloseableHttpResponse response = httpService.execute(putMethod)) {
+                LOGGER.debug("Got {}", response.getStatusLine().getStatusCode());
+            }
+        } finally {
+            putMethod.releaseConnection();
+        }
+    }
 }
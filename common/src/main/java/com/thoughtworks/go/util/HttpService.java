@@ -19,6 +19,9 @@ import com.thoughtworks.go.agent.common.ssl.GoAgentServerHttpClient;
 import com.thoughtworks.go.agent.common.ssl.GoAgentServerHttpClientBuilder;
 import com.thoughtworks.go.config.AgentRegistry;
 import com.thoughtworks.go.domain.FetchHandler;
+import com.thoughtworks.go.domain.ResumableFetchHandler;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
@@ -26,6 +29,7 @@ import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.entity.mime.MultipartEntityBuilder;
 import org.apache.http.entity.mime.content.ByteArrayBody;
+import org.apache.http.entity.mime.content.ContentBody;
 import org.apache.http.entity.mime.content.FileBody;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,29 +38,52 @@ import org.springframework.stereotype.Component;
 
 import javax.servlet.http.HttpServletResponse;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
 
 @Component
 public class HttpService {
     private final AgentRegistry agentRegistry;
+    private final int downloadSegments;
+    private final long minimumSegmentSize;
     private HttpClientFactory httpClientFactory;
 
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpService.class);
 
     public static final String GO_ARTIFACT_PAYLOAD_SIZE = "X-GO-ARTIFACT-SIZE";
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes (\\d+)-(\\d+)/(\\d+)");
+    private static final long ONE_MB = 1024 * 1024;
 
     public HttpService() {
-        this(new GoAgentServerHttpClient(new GoAgentServerHttpClientBuilder(new SystemEnvironment())), null);
+        this(new SystemEnvironment());
+    }
+
+    private HttpService(SystemEnvironment systemEnvironment) {
+        this(new GoAgentServerHttpClient(new GoAgentServerHttpClientBuilder(systemEnvironment)), null, systemEnvironment);
     }
 
     @Autowired(required = false)
-    public HttpService(GoAgentServerHttpClient httpClient, AgentRegistry agentRegistry) {
-        this(new HttpClientFactory(httpClient), agentRegistry);
+    public HttpService(GoAgentServerHttpClient httpClient, AgentRegistry agentRegistry, SystemEnvironment systemEnvironment) {
+        this(new HttpClientFactory(httpClient), agentRegistry, systemEnvironment);
     }
 
-    HttpService(HttpClientFactory httpClientFactory, AgentRegistry agentRegistry) {
+    HttpService(HttpClientFactory httpClientFactory, AgentRegistry agentRegistry, SystemEnvironment systemEnvironment) {
         this.httpClientFactory = httpClientFactory;
         this.agentRegistry = agentRegistry;
+        this.downloadSegments = systemEnvironment.get(SystemEnvironment.AGENT_ARTIFACT_DOWNLOAD_SEGMENTS);
+        this.minimumSegmentSize = systemEnvironment.get(SystemEnvironment.AGENT_ARTIFACT_DOWNLOAD_MIN_SEGMENT_SIZE_IN_MB) * ONE_MB;
     }
 
     public int upload(String url, long size, File artifactFile, Properties artifactChecksums) throws IOException {
@@ -79,6 +106,27 @@ public class HttpService {
         }
     }
 
+    /**
+     * Uploads an artifact which is produced while it is being sent, using chunked transfer encoding. The checksums
+     * are sent after the artifact, so they may be computed while the artifact is written.
+     */
+    public int upload(String url, long size, ContentBody artifact, ContentBody artifactChecksums) throws IOException {
+        LOGGER.info("Uploading [{}] to url [{}]", artifact.getFilename(), url);
+
+        HttpPost filePost = httpClientFactory.createPost(url);
+        setSizeHeader(filePost, size);
+        filePost.setHeader("Confirm", "true");
+        filePost.setEntity(httpClientFactory.createMultipartRequestEntity(artifact, artifactChecksums));
+        try (CloseableHttpResponse response = execute(filePost)) {
+            return response.getStatusLine().getStatusCode();
+        } catch (IOException e) {
+            LOGGER.error("Error while uploading [{}]", artifact.getFilename(), e);
+            throw e;
+        } finally {
+            filePost.releaseConnection();
+        }
+    }
+
     private HttpPost createHttpPostForUpload(String url, long size, File artifactFile, Properties artifactChecksums) throws IOException {
         HttpPost filePost = httpClientFactory.createPost(url);
         setSizeHeader(filePost, size);
@@ -87,7 +135,20 @@ public class HttpService {
         return filePost;
     }
 
+    /**
+     * Downloads an artifact. An artifact received as a single file is downloaded in ranges where possible: an
+     * interrupted download continues from the last byte received, and a large file may be downloaded in several
+     * segments at once.
+     */
     public int download(String url, FetchHandler handler) throws IOException {
+        if (handler instanceof ResumableFetchHandler) {
+            ResumableFetchHandler resumableHandler = (ResumableFetchHandler) handler;
+            if (downloadSegments > 1 && resumableHandler.bytesReceived() == 0) {
+                return downloadInSegments(url, resumableHandler);
+            }
+            return resume(url, resumableHandler);
+        }
+
         HttpGet toGet = null;
         try {
             toGet = httpClientFactory.createGet(url);
@@ -115,6 +176,178 @@ public class HttpService {
         }
     }
 
+    private int resume(String url, ResumableFetchHandler handler) throws IOException {
+        long offset = handler.bytesReceived();
+        HttpGet toGet = null;
+        try {
+            toGet = httpClientFactory.createGet(url);
+            if (offset > 0) {
+                LOGGER.info("Continuing download of [{}] from byte {}", url, offset);
+                toGet.setHeader("Range", "bytes=" + offset + "-");
+                toGet.setHeader("If-Range", handler.entityTag());
+            }
+            PerfTimer timer = PerfTimer.start(String.format("Downloading from url [%s]", url));
+            try (CloseableHttpResponse response = execute(toGet)) {
+                timer.stop();
+                int statusCode = response.getStatusLine().getStatusCode();
+
+                if (statusCode == HttpServletResponse.SC_OK) {
+                    handle(response, handler, 0);
+                } else if (statusCode == HttpServletResponse.SC_PARTIAL_CONTENT) {
+                    long[] contentRange = contentRange(response);
+                    if (offset == 0 || contentRange == null || contentRange[0] != offset) {
+                        handler.discardPartialDownload();
+                        throw new IOException(String.format("Server sent an unexpected range of [%s]", url));
+                    }
+                    handle(response, handler, offset);
+                    return HttpServletResponse.SC_OK;
+                } else if (statusCode == HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE) {
+                    handler.discardPartialDownload();
+                    throw new IOException(String.format("Could not continue the download of [%s], starting over", url));
+                }
+                return statusCode;
+            }
+        } catch (IOException e) {
+            LOGGER.error("Error while downloading [{}]", url, e);
+            throw e;
+        } finally {
+            if (toGet != null) {
+                toGet.releaseConnection();
+            }
+        }
+    }
+
+    private void handle(CloseableHttpResponse response, ResumableFetchHandler handler, long offset) throws IOException {
+        if (response.getEntity() != null) {
+            try (InputStream is = response.getEntity().getContent()) {
+                handler.handle(is, offset, entityTag(response));
+            }
+        }
+    }
+
+    /**
+     * Asks for the first byte to learn the size and version of the file, and downloads it in segments at once if it
+     * is large enough. Any failure leaves nothing to continue from, as the segments may have been received partly.
+     */
+    private int downloadInSegments(String url, ResumableFetchHandler handler) throws IOException {
+        long length;
+        String entityTag;
+        HttpGet probe = httpClientFactory.createGet(url);
+        try {
+            probe.setHeader("Range", "bytes=0-0");
+            try (CloseableHttpResponse response = execute(probe)) {
+                int statusCode = response.getStatusLine().getStatusCode();
+                if (statusCode == HttpServletResponse.SC_OK) {
+                    handle(response, handler, 0);
+                    return statusCode;
+                }
+                long[] contentRange = contentRange(response);
+                entityTag = entityTag(response);
+                if (statusCode != HttpServletResponse.SC_PARTIAL_CONTENT || contentRange == null || entityTag == null) {
+                    return statusCode;
+                }
+                length = contentRange[2];
+            }
+        } finally {
+            probe.releaseConnection();
+        }
+
+        int segments = (int) Math.max(1, Math.min(downloadSegments, length / Math.max(1, minimumSegmentSize)));
+        if (segments == 1) {
+            return resume(url, handler);
+        }
+
+        LOGGER.info("Downloading [{}] ({} bytes) in {} segments", url, length, segments);
+        ExecutorService segmentDownloaders = Executors.newFixedThreadPool(segments, new BasicThreadFactory.Builder().namingPattern("artifact-segment-download-%d").daemon(true).build());
+        try (FileChannel file = FileChannel.open(prepare(handler.partialDownload(), length).toPath(), CREATE, WRITE)) {
+            List<Future<?>> downloads = new ArrayList<>();
+            long segmentSize = (length + segments - 1) / segments;
+            for (long first = 0; first < length; first += segmentSize) {
+                long start = first;
+                long last = Math.min(first + segmentSize, length) - 1;
+                downloads.add(segmentDownloaders.submit(() -> {
+                    downloadSegment(url, entityTag, start, last, file);
+                    return null;
+                }));
+            }
+            for (Future<?> download : downloads) {
+                download.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            handler.discardPartialDownload();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            handler.discardPartialDownload();
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        } finally {
+            segmentDownloaders.shutdownNow();
+        }
+
+        handler.handleDownloaded(entityTag);
+        return HttpServletResponse.SC_OK;
+    }
+
+    private File prepare(File partialDownload, long length) throws IOException {
+        File parent = partialDownload.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        try (RandomAccessFile file = new RandomAccessFile(partialDownload, "rw")) {
+            file.setLength(length);
+        }
+        return partialDownload;
+    }
+
+    private void downloadSegment(String url, String entityTag, long first, long last, FileChannel file) throws IOException {
+        HttpGet toGet = httpClientFactory.createGet(url);
+        try {
+            toGet.setHeader("Range", "bytes=" + first + "-" + last);
+            toGet.setHeader("If-Range", entityTag);
+            try (CloseableHttpResponse response = execute(toGet)) {
+                long[] contentRange = contentRange(response);
+                if (response.getStatusLine().getStatusCode() != HttpServletResponse.SC_PARTIAL_CONTENT || contentRange == null
+                        || contentRange[0] != first || contentRange[1] != last || response.getEntity() == null) {
+                    throw new IOException(String.format("Server did not send bytes %s-%s of [%s]", first, last, url));
+                }
+
+                long position = first;
+                byte[] buffer = new byte[32 * 1024];
+                try (InputStream is = response.getEntity().getContent()) {
+                    int read;
+                    while ((read = is.read(buffer)) != -1) {
+                        ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, read);
+                        while (bytes.hasRemaining()) {
+                            position += file.write(bytes, position);
+                        }
+                    }
+                }
+                if (position != last + 1) {
+                    throw new IOException(String.format("Download of bytes %s-%s of [%s] ended early", first, last, url));
+                }
+            }
+        } finally {
+            toGet.releaseConnection();
+        }
+    }
+
+    private static String entityTag(CloseableHttpResponse response) {
+        Header header = response.getFirstHeader("ETag");
+        return header == null ? null : header.getValue();
+    }
+
+    /**
+     * @return the first and last byte positions and the total length in the Content-Range of a response
+     */
+    private static long[] contentRange(CloseableHttpResponse response) {
+        Header header = response.getFirstHeader("Content-Range");
+        Matcher matcher = header == null ? null : CONTENT_RANGE.matcher(header.getValue());
+        if (matcher == null || !matcher.matches()) {
+            return null;
+        }
+        return new long[]{Long.parseLong(matcher.group(1)), Long.parseLong(matcher.group(2)), Long.parseLong(matcher.group(3))};
+    }
+
     public CloseableHttpResponse execute(HttpRequestBase httpMethod) throws IOException {
         GoAgentServerHttpClient client = httpClientFactory.httpClient();
 
@@ -162,5 +395,12 @@ public class HttpService {
             }
             return entityBuilder.build();
         }
+
+        public HttpEntity createMultipartRequestEntity(ContentBody artifact, ContentBody artifactChecksums) {
+            return MultipartEntityBuilder.create()
+                    .addPart(GoConstants.ZIP_MULTIPART_FILENAME, artifact)
+                    .addPart(GoConstants.CHECKSUM_MULTIPART_FILENAME, artifactChecksums)
+                    .build();
+        }
     }
 }
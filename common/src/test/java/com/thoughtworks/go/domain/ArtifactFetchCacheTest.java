@@ -0,0 +1,112 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.domain;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ArtifactFetchCacheTest {
+    @TempDir
+    File tempDir;
+    private File cacheDir;
+
+    @BeforeEach
+    void setUp() {
+        cacheDir = new File(tempDir, "cache");
+    }
+
+    @Test
+    void shouldRestoreAStoredFileByItsMd5() throws IOException {
+        ArtifactFetchCache cache = new ArtifactFetchCache(cacheDir, 1024 * 1024);
+        File fetched = file("fetched", "some content");
+
+        cache.store(fetched, DigestUtils.md5Hex("some content"));
+        File restored = new File(tempDir, "restored/file");
+
+        assertThat(cache.restore(DigestUtils.md5Hex("some content"), restored)).isTrue();
+        assertThat(FileUtils.readFileToString(restored, UTF_8)).isEqualTo("some content");
+    }
+
+    @Test
+    void shouldNotRestoreAnythingThatWasNotStored() {
+        ArtifactFetchCache cache = new ArtifactFetchCache(cacheDir, 1024 * 1024);
+        File restored = new File(tempDir, "restored");
+
+        assertThat(cache.contains(DigestUtils.md5Hex("some content"))).isFalse();
+        assertThat(cache.restore(DigestUtils.md5Hex("some content"), restored)).isFalse();
+        assertThat(restored).doesNotExist();
+    }
+
+    @Test
+    void shouldDropACachedFileWhoseContentsHaveChanged() throws IOException {
+        ArtifactFetchCache cache = new ArtifactFetchCache(cacheDir, 1024 * 1024);
+        File fetched = file("fetched", "some content");
+        cache.store(fetched, DigestUtils.md5Hex("some content"));
+
+        // a hard linked file modified in place by a job changes the cached file too
+        FileUtils.listFiles(cacheDir, null, true).forEach(cached -> write(cached, "changed by a job"));
+
+        assertThat(cache.restore(DigestUtils.md5Hex("some content"), new File(tempDir, "restored"))).isFalse();
+        assertThat(cache.contains(DigestUtils.md5Hex("some content"))).isFalse();
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedFilesToStayWithinItsMaxSize() throws IOException {
+        ArtifactFetchCache cache = new ArtifactFetchCache(cacheDir, 10);
+        String older = DigestUtils.md5Hex("123456");
+        String newer = DigestUtils.md5Hex("abcdef");
+
+        cache.store(file("older", "123456"), older);
+        FileUtils.listFiles(cacheDir, null, true).forEach(cached -> cached.setLastModified(System.currentTimeMillis() - 60000));
+        cache.store(file("newer", "abcdef"), newer);
+
+        assertThat(cache.contains(older)).isFalse();
+        assertThat(cache.contains(newer)).isTrue();
+    }
+
+    @Test
+    void shouldDoNothingWhenDisabled() throws IOException {
+        ArtifactFetchCache cache = ArtifactFetchCache.disabled();
+
+        cache.store(file("fetched", "some content"), DigestUtils.md5Hex("some content"));
+
+        assertThat(cache.isEnabled()).isFalse();
+        assertThat(cache.contains(DigestUtils.md5Hex("some content"))).isFalse();
+    }
+
+    private File file(String name, String content) throws IOException {
+        File file = new File(tempDir, name);
+        FileUtils.writeStringToFile(file, content, UTF_8);
+        return file;
+    }
+
+    private void write(File file, String content) {
+        try {
+            FileUtils.writeStringToFile(file, content, UTF_8);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.domain;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.thoughtworks.go.domain.ConsoleLogLineIndex.LINES_PER_ENTRY;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConsoleLogLineIndexTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldSeekToTheClosestIndexedLine() throws IOException {
+        Path log = tempDir.resolve("console.log");
+        Files.write(log, lines(0, 3 * LINES_PER_ENTRY + 10, "\n").getBytes(UTF_8));
+
+        ConsoleLogLineIndex index = new ConsoleLogLineIndex(log);
+        index.update();
+
+        assertThat(index.seek(LINES_PER_ENTRY - 1).line()).isEqualTo(0);
+        assertLineAt(log, index.seek(2 * LINES_PER_ENTRY + 5), 2 * LINES_PER_ENTRY);
+        assertLineAt(log, index.seek(10 * LINES_PER_ENTRY), 3 * LINES_PER_ENTRY);
+    }
+
+    @Test
+    void shouldCatchUpWithContentAppendedInChunksAcrossLineTerminators() throws IOException {
+        Path log = tempDir.resolve("console.log");
+        String content = lines(0, 2 * LINES_PER_ENTRY + 3, "\r\n");
+        ConsoleLogLineIndex index = new ConsoleLogLineIndex(log);
+
+        Files.write(log, new byte[0]);
+        for (int from = 0; from < content.length(); from += 997) {
+            String chunk = content.substring(from, Math.min(content.length(), from + 997));
+            Files.write(log, chunk.getBytes(UTF_8), APPEND);
+            index.update();
+        }
+
+        assertLineAt(log, index.seek(LINES_PER_ENTRY), LINES_PER_ENTRY);
+        assertLineAt(log, index.seek(2 * LINES_PER_ENTRY + 1), 2 * LINES_PER_ENTRY);
+    }
+
+    @Test
+    void shouldRebuildIndexWhenLogIsReplacedWithAShorterOne() throws IOException {
+        Path log = tempDir.resolve("console.log");
+        ConsoleLogLineIndex index = new ConsoleLogLineIndex(log);
+        Files.write(log, lines(0, 3 * LINES_PER_ENTRY, "\n").getBytes(UTF_8));
+        index.update();
+
+        Files.write(log, lines(100, LINES_PER_ENTRY + 1, "\n").getBytes(UTF_8));
+        index.update();
+
+        ConsoleLogLineIndex.Position position = index.seek(2 * LINES_PER_ENTRY);
+        assertThat(position.line()).isEqualTo(LINES_PER_ENTRY);
+        assertThat(lineAt(log, position.byteOffset())).isEqualTo("line-" + (100 + LINES_PER_ENTRY));
+    }
+
+    @Test
+    void shouldMoveIndexAlongWithTheLog() throws IOException {
+        Path log = tempDir.resolve("console.log");
+        Path moved = tempDir.resolve("moved.log");
+        Files.write(log, lines(0, 2 * LINES_PER_ENTRY, "\n").getBytes(UTF_8));
+        new ConsoleLogLineIndex(log).update();
+
+        Files.move(log, moved);
+        ConsoleLogLineIndex.move(log, moved);
+
+        assertThat(ConsoleLogLineIndex.indexFileFor(log)).doesNotExist();
+        assertThat(ConsoleLogLineIndex.indexFileFor(moved)).exists();
+        assertThat(ConsoleLogLineIndex.indexFileFor(moved).toFile().isHidden()).isTrue();
+        assertLineAt(moved, new ConsoleLogLineIndex(moved).seek(LINES_PER_ENTRY), LINES_PER_ENTRY);
+    }
+
+    @Test
+    void shouldStreamFromTheIndexedOffset() throws Exception {
+        Path log = tempDir.resolve("console.log");
+        Files.write(log, lines(0, 2 * LINES_PER_ENTRY + 3, "\n").getBytes(UTF_8));
+        ConsoleLogLineIndex index = new ConsoleLogLineIndex(log);
+        index.update();
+
+        List<String> actual = new ArrayList<>();
+        try (ConsoleStreamer streamer = new ConsoleStreamer(log, 2 * LINES_PER_ENTRY + 1, index)) {
+            streamer.stream(actual::add);
+        }
+
+        assertThat(actual).containsExactly("line-" + (2 * LINES_PER_ENTRY + 1), "line-" + (2 * LINES_PER_ENTRY + 2));
+    }
+
+    private void assertLineAt(Path log, ConsoleLogLineIndex.Position position, long expectedLine) throws IOException {
+        assertThat(position.line()).isEqualTo(expectedLine);
+        assertThat(lineAt(log, position.byteOffset())).isEqualTo("line-" + expectedLine);
+    }
+
+    private String lineAt(Path log, long offset) throws IOException {
+        String content = new String(Files.readAllBytes(log), UTF_8).substring((int) offset);
+        return content.split("[\r\n]", 2)[0];
+    }
+
+    private String lines(int from, int count, String terminator) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = from; i < from + count; i++) {
+            builder.append("line-").append(i).append(terminator);
+        }
+        return builder.toString();
+    }
+}
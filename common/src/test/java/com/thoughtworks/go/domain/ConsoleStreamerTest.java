@@ -21,6 +21,7 @@ import org.junit.Test;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.function.Consumer;
 
@@ -101,6 +102,39 @@ public class ConsoleStreamerTest {
         }
     }
 
+    @Test
+    public void streamContinuesWithContentAppendedAfterReachingEOF() throws Exception {
+        final ArrayList<String> actual = new ArrayList<>();
+        File file = makeConsoleFile("first\n");
+
+        try (ConsoleStreamer console = new ConsoleStreamer(file.toPath(), 0L)) {
+            assertEquals(1L, console.stream(actual::add));
+            Files.write(file.toPath(), "second\nthird\n".getBytes(), StandardOpenOption.APPEND);
+            assertEquals(2L, console.stream(actual::add));
+
+            assertArrayEquals(new String[]{"first", "second", "third"}, actual.toArray());
+            assertEquals(3L, console.totalLinesConsumed());
+        }
+    }
+
+    @Test
+    public void streamCompleteLinesKeepsALineCutShortUntilItIsComplete() throws Exception {
+        final ArrayList<String> actual = new ArrayList<>();
+        File file = makeConsoleFile("first\nsec");
+
+        try (ConsoleStreamer console = new ConsoleStreamer(file.toPath(), 0L)) {
+            assertEquals(1L, console.streamCompleteLines(actual::add));
+            Files.write(file.toPath(), "ond\r".getBytes(), StandardOpenOption.APPEND);
+            assertEquals(1L, console.streamCompleteLines(actual::add));
+            Files.write(file.toPath(), "\nthird".getBytes(), StandardOpenOption.APPEND);
+            assertEquals(0L, console.streamCompleteLines(actual::add));
+            assertEquals(1L, console.stream(actual::add));
+
+            assertArrayEquals(new String[]{"first", "second", "third"}, actual.toArray());
+            assertEquals(3L, console.totalLinesConsumed());
+        }
+    }
+
     private File makeConsoleFile(String... message) throws IOException {
         File console = File.createTempFile("console", ".log");
         console.deleteOnExit();
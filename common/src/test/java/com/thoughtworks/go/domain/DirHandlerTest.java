@@ -26,6 +26,7 @@ import org.junit.rules.TemporaryFolder;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.util.Properties;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.hamcrest.Matchers.not;
@@ -176,6 +177,31 @@ public class DirHandlerTest {
         assertArtifactWasSaved("fetch_dest");
     }
 
+    @Test
+    public void shouldRestoreADirectoryFetchedBeforeFromTheArtifactFetchCache() throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("fetch_dest/first", DigestUtils.md5Hex("First File"));
+        properties.setProperty("fetch_dest/under_dir/second", DigestUtils.md5Hex("Second File"));
+        ArtifactMd5Checksums artifactMd5Checksums = new ArtifactMd5Checksums(properties);
+        ArtifactFetchCache cache = new ArtifactFetchCache(temporaryFolder.newFolder("cache"), 1024 * 1024);
+        zip = createZip("under_dir");
+
+        dirHandler.useArtifactMd5Checksums(artifactMd5Checksums);
+        dirHandler.useArtifactFetchCache(cache);
+        assertThat(dirHandler.restoreFromCache(), is(false));
+        dirHandler.handle(new FileInputStream(zip));
+
+        FileUtils.deleteDirectory(agentDest);
+        DirHandler handler = new DirHandler("fetch_dest", agentDest);
+        handler.useArtifactMd5Checksums(artifactMd5Checksums);
+        handler.useArtifactFetchCache(cache);
+
+        assertThat(handler.restoreFromCache(), is(true));
+        handler.handleResult(200, goPublisher);
+        assertThat(goPublisher.getMessage(), containsString(String.format("Saved artifact to [%s] after verifying the integrity of its contents.", agentDest)));
+        assertArtifactWasSaved("under_dir");
+    }
+
     private File createZip(String subDirectoryName) throws IOException {
         File first = new File(artifactDest, "first");
         FileUtils.writeStringToFile(first, "First File", UTF_8);
@@ -67,6 +67,30 @@ public class FileHandlerTest {
         verifyNoMoreInteractions(checksums);
     }
 
+    @Test
+    public void shouldRestoreAFileFetchedBeforeFromTheArtifactFetchCache() throws IOException {
+        File cacheDir = new File("artifact-fetch-cache-" + System.currentTimeMillis());
+        try {
+            ArtifactFetchCache cache = new ArtifactFetchCache(cacheDir, 1024 * 1024);
+            when(checksums.md5For("src/file/path")).thenReturn(CachedDigestUtils.md5Hex(new ByteArrayInputStream("Hello world".getBytes())));
+            fileHandler.useArtifactMd5Checksums(checksums);
+            fileHandler.useArtifactFetchCache(cache);
+            fileHandler.handle(new ByteArrayInputStream("Hello world".getBytes()));
+            FileUtils.deleteQuietly(artifact);
+
+            FileHandler handler = new FileHandler(artifact, "src/file/path");
+            handler.useArtifactMd5Checksums(checksums);
+            handler.useArtifactFetchCache(cache);
+
+            assertThat(handler.restoreFromCache(), is(true));
+            handler.handleResult(200, goPublisher);
+            assertThat(FileUtils.readFileToString(artifact, UTF_8), is("Hello world"));
+            assertThat(goPublisher.getMessage(), containsString("Saved artifact to [foo] after verifying the integrity of its contents."));
+        } finally {
+            FileUtils.deleteQuietly(cacheDir);
+        }
+    }
+
     @Test
     public void shouldWarnWhenChecksumsFileIsNotPresent() throws IOException {
         fileHandler.handle(new ByteArrayInputStream("Hello world".getBytes()));
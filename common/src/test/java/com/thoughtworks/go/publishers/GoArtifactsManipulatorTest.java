@@ -23,19 +23,22 @@ import com.thoughtworks.go.remote.work.GoArtifactsManipulatorStub;
 import com.thoughtworks.go.server.service.AgentRuntimeInfo;
 import com.thoughtworks.go.util.CachedDigestUtils;
 import com.thoughtworks.go.util.HttpService;
-import com.thoughtworks.go.util.ReflectionUtil;
+import com.thoughtworks.go.util.ZipUtil;
 import com.thoughtworks.go.work.DefaultGoPublisher;
-import org.apache.commons.collections4.queue.CircularFifoQueue;
 import org.apache.commons.io.FileUtils;
+import org.apache.http.entity.mime.content.ContentBody;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
 import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.util.Properties;
+import java.util.zip.ZipInputStream;
 
 import static com.thoughtworks.go.util.SystemUtil.currentWorkingDirectory;
 import static java.nio.charset.StandardCharsets.UTF_8;
@@ -54,6 +57,8 @@ public class GoArtifactsManipulatorTest {
     private JobIdentifier jobIdentifier;
     private DefaultGoPublisher goPublisher;
     private File artifactFolder;
+    private byte[] uploadedZip;
+    private Properties uploadedChecksums;
 
     @Before
     public void setUp() throws Exception {
@@ -69,30 +74,28 @@ public class GoArtifactsManipulatorTest {
 
     @Test
     public void shouldBombWithErrorWhenStatusCodeReturnedIsRequestEntityTooLarge() throws IOException, InterruptedException {
-        when(httpService.upload(any(String.class), eq(tempFile.length()), any(File.class), any(Properties.class))).thenReturn(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
-
-        CircularFifoQueue buffer = (CircularFifoQueue) ReflectionUtil.getField(ReflectionUtil.getField(goPublisher, "consoleOutputTransmitter"), "buffer");
-        synchronized (buffer) {
-            try {
-                goArtifactsManipulatorStub.publish(goPublisher, "some_dest", tempFile, jobIdentifier);
-                fail("should have thrown request entity too large error");
-            } catch (RuntimeException e) {
-                String expectedMessage = "Artifact upload for file " + tempFile.getAbsolutePath() + " (Size: "+ tempFile.length() +") was denied by the server. This usually happens when server runs out of disk space.";
-                assertThat(e.getMessage(), is("java.lang.RuntimeException: " + expectedMessage + ".  HTTP return code is 413"));
-                assertThat(buffer.toString().contains(expectedMessage), is(true));
-            }
+        stubUpload(tempFile.length(), HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+
+        try {
+            goArtifactsManipulatorStub.publish(goPublisher, "some_dest", tempFile, jobIdentifier);
+            fail("should have thrown request entity too large error");
+        } catch (RuntimeException e) {
+            String expectedMessage = "Artifact upload for file " + tempFile.getAbsolutePath() + " (Size: "+ tempFile.length() +") was denied by the server. This usually happens when server runs out of disk space.";
+            assertThat(e.getMessage(), is("java.lang.RuntimeException: " + expectedMessage + ".  HTTP return code is 413"));
+            goPublisher.stop();
+            assertThat(goArtifactsManipulatorStub.consoleOut().contains(expectedMessage), is(true));
         }
     }
 
     @Test
     public void uploadShouldBeGivenFileSize() throws IOException {
 
-        when(httpService.upload(any(String.class), eq(tempFile.length()), any(File.class), any(Properties.class))).thenReturn(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+        stubUpload(tempFile.length(), HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
         try {
             goArtifactsManipulatorStub.publish(goPublisher, "dest", tempFile, jobIdentifier);
             fail("should have thrown request entity too large error");
         } catch (RuntimeException e) {
-            verify(httpService).upload(any(String.class), eq(tempFile.length()), any(File.class), any(Properties.class));
+            verify(httpService).upload(any(String.class), eq(tempFile.length()), any(ContentBody.class), any(ContentBody.class));
         }
     }
 
@@ -104,9 +107,11 @@ public class GoArtifactsManipulatorTest {
         Properties properties = new Properties();
         properties.setProperty("dest/path/file.txt", md5);
 
-        when(httpService.upload(any(String.class), eq(tempFile.length()), any(File.class), eq(properties))).thenReturn(HttpServletResponse.SC_OK);
+        stubUpload(tempFile.length(), HttpServletResponse.SC_OK);
 
         goArtifactsManipulatorStub.publish(goPublisher, "/dest/path", tempFile, jobIdentifier);
+
+        assertThat(uploadedChecksums, is(properties));
     }
 
     @Test
@@ -117,9 +122,11 @@ public class GoArtifactsManipulatorTest {
         Properties properties = new Properties();
         properties.setProperty("file.txt", md5);
 
-        when(httpService.upload(any(String.class), eq(tempFile.length()), any(File.class), eq(properties))).thenReturn(HttpServletResponse.SC_OK);
+        stubUpload(tempFile.length(), HttpServletResponse.SC_OK);
 
         goArtifactsManipulatorStub.publish(goPublisher, "", tempFile, jobIdentifier);
+
+        assertThat(uploadedChecksums, is(properties));
     }
 
     @Test
@@ -133,9 +140,39 @@ public class GoArtifactsManipulatorTest {
         FileUtils.writeStringToFile(anotherFile, secondData, UTF_8);
 
 
-        when(httpService.upload(any(String.class), eq(FileUtils.sizeOfDirectory(artifactFolder)), any(File.class), eq(expectedProperties(data, secondData)))).thenReturn(HttpServletResponse.SC_OK);
+        stubUpload(FileUtils.sizeOfDirectory(artifactFolder), HttpServletResponse.SC_OK);
+
+        goArtifactsManipulatorStub.publish(goPublisher, "dest", artifactFolder, jobIdentifier);
+
+        assertThat(uploadedChecksums, is(expectedProperties(data, secondData)));
+    }
+
+    @Test
+    public void shouldStreamArtifactAsZipWithoutWritingItToDiskFirst() throws IOException {
+        File anotherFile = new File(artifactFolder, "bond/james_bond/another_file");
+        FileUtils.writeStringToFile(anotherFile, "some more", UTF_8);
+        stubUpload(FileUtils.sizeOfDirectory(artifactFolder), HttpServletResponse.SC_OK);
 
         goArtifactsManipulatorStub.publish(goPublisher, "dest", artifactFolder, jobIdentifier);
+
+        File unzipped = temporaryFolder.newFolder("unzipped");
+        new ZipUtil().unzip(new ZipInputStream(new ByteArrayInputStream(uploadedZip)), unzipped);
+        assertThat(FileUtils.readFileToString(new File(unzipped, "artifact_folder/file.txt"), UTF_8), is("some-random-data"));
+        assertThat(FileUtils.readFileToString(new File(unzipped, "artifact_folder/bond/james_bond/another_file"), UTF_8), is("some more"));
+    }
+
+    private void stubUpload(long size, int statusCode) throws IOException {
+        when(httpService.upload(any(String.class), eq(size), any(ContentBody.class), any(ContentBody.class))).thenAnswer(invocation -> {
+            ByteArrayOutputStream zip = new ByteArrayOutputStream();
+            invocation.<ContentBody>getArgument(2).writeTo(zip);
+            uploadedZip = zip.toByteArray();
+
+            ByteArrayOutputStream checksums = new ByteArrayOutputStream();
+            invocation.<ContentBody>getArgument(3).writeTo(checksums);
+            uploadedChecksums = new Properties();
+            uploadedChecksums.load(new ByteArrayInputStream(checksums.toByteArray()));
+            return statusCode;
+        });
     }
 
     private Properties expectedProperties(String data, String secondData) {
@@ -52,6 +52,7 @@ import org.mockito.Mock;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -332,7 +333,7 @@ public class BuildWorkArtifactUploadingTest {
 
     private class ZipUtilThatRunsOutOfMemory extends ZipUtil {
         @Override
-        public File zip(File source, File destFile, int level) {
+        public void zip(File file, OutputStream output, int level, ZippedFileHandler zippedFileHandler) {
             throw new OutOfMemoryError("#2824");
         }
     }
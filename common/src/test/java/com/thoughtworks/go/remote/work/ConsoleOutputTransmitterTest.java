@@ -16,23 +16,30 @@
 package com.thoughtworks.go.remote.work;
 
 import com.thoughtworks.go.util.SystemEnvironment;
+import org.apache.commons.io.IOUtils;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
-import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 
-import static org.hamcrest.Matchers.containsString;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 import static org.mockito.MockitoAnnotations.initMocks;
 
 public class ConsoleOutputTransmitterTest {
     @Mock
     private ConsoleAppender consoleAppender;
-    private ArgumentCaptor<String> requestArgumentCaptor;
+    private List<String> sent;
     private ConsoleOutputTransmitter transmitter;
 
     @Before
@@ -41,8 +48,13 @@ public class ConsoleOutputTransmitterTest {
 
         new SystemEnvironment().setProperty(SystemEnvironment.INTERVAL, "60"); // so the thread does not wake up
 
-        requestArgumentCaptor = ArgumentCaptor.forClass(String.class);
-        doNothing().when(consoleAppender).append(requestArgumentCaptor.capture());
+        sent = new ArrayList<>();
+        doAnswer(invocation -> {
+            String content = IOUtils.toString(invocation.<InputStream>getArgument(0), invocation.<Charset>getArgument(2));
+            assertThat((long) content.getBytes(UTF_8).length, is(invocation.<Long>getArgument(1)));
+            sent.add(content);
+            return null;
+        }).when(consoleAppender).append(any(InputStream.class), anyLong(), any(Charset.class));
         transmitter = new ConsoleOutputTransmitter(consoleAppender, 0, mock(ScheduledThreadPoolExecutor.class));
     }
 
@@ -58,15 +70,59 @@ public class ConsoleOutputTransmitterTest {
 
         transmitter.flushToServer();
 
-        verify(consoleAppender).append(any(String.class));
-        assertThat(requestArgumentCaptor.getValue(), containsString("first line\n"));
-        assertThat(requestArgumentCaptor.getValue(), containsString("second line\n"));
+        verify(consoleAppender).append(any(InputStream.class), anyLong(), any(Charset.class));
+        assertThat(sent.get(0), containsString("first line\n"));
+        assertThat(sent.get(0), containsString("second line\n"));
     }
 
     @Test
     public void shouldNotFlushToServerWhenBufferIsEmpty() throws Exception {
         transmitter.flushToServer();
 
-        verify(consoleAppender, never()).append(any(String.class));
+        verify(consoleAppender, never()).append(any(InputStream.class), anyLong(), any(Charset.class));
+    }
+
+    @Test
+    public void shouldPrefixEveryLineOfMultilineOutputWithTagAndTimestamp() throws Exception {
+        transmitter.taggedConsumeLine("##", "first\nsecond");
+
+        transmitter.flushToServer();
+
+        String[] lines = sent.get(0).split("\n");
+        assertThat(lines.length, is(2));
+        assertThat(lines[0], matchesPattern("##\\|\\d{2}:\\d{2}:\\d{2}\\.\\d{3} first"));
+        assertThat(lines[1], matchesPattern("##\\|\\d{2}:\\d{2}:\\d{2}\\.\\d{3} second"));
+    }
+
+    @Test
+    public void shouldSpillToDiskInsteadOfDroppingOutputWhenBufferIsFull() throws Exception {
+        transmitter.stop();
+        transmitter = new ConsoleOutputTransmitter(consoleAppender, UTF_8, 0, mock(ScheduledThreadPoolExecutor.class), 1024);
+
+        for (int i = 0; i < 20000; i++) {
+            transmitter.consumeLine("line " + i);
+        }
+        transmitter.flushToServer();
+
+        String[] lines = sent.get(0).split("\n");
+        assertThat(lines.length, is(20000));
+        assertThat(lines[0], endsWith(" line 0"));
+        assertThat(lines[19999], endsWith(" line 19999"));
+    }
+
+    @Test
+    public void shouldResendOutputThatCouldNotBeSentAheadOfNewerOutput() throws Exception {
+        doThrow(new IOException("server went away")).doAnswer(invocation -> {
+            sent.add(IOUtils.toString(invocation.<InputStream>getArgument(0), invocation.<Charset>getArgument(2)));
+            return null;
+        }).when(consoleAppender).append(any(InputStream.class), anyLong(), any(Charset.class));
+
+        transmitter.consumeLine("first line");
+        transmitter.flushToServer();
+        transmitter.consumeLine("second line");
+        transmitter.flushToServer();
+
+        assertThat(sent.size(), is(1));
+        assertThat(sent.get(0), matchesPattern("(?s).* first line\n.* second line\n"));
     }
 }
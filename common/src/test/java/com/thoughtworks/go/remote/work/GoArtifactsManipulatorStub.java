@@ -15,6 +15,7 @@
  */
 package com.thoughtworks.go.remote.work;
 
+import com.thoughtworks.go.domain.ArtifactFetchCache;
 import com.thoughtworks.go.domain.FetchHandler;
 import com.thoughtworks.go.domain.JobIdentifier;
 import com.thoughtworks.go.domain.builder.FetchArtifactBuilder;
@@ -37,17 +38,17 @@ public class GoArtifactsManipulatorStub extends GoArtifactsManipulator {
     private List<UploadEntry> uploads = new ArrayList<>();
 
     public GoArtifactsManipulatorStub() {
-        super(new HttpServiceStub(), new URLService(), new ZipUtil());
+        super(new HttpServiceStub(), new URLService(), new ZipUtil(), ArtifactFetchCache.disabled());
         consoleOuts = new ArrayList<>();
     }
 
     public GoArtifactsManipulatorStub(HttpService service) {
-        super(service, new URLService(), new ZipUtil());
+        super(service, new URLService(), new ZipUtil(), ArtifactFetchCache.disabled());
         consoleOuts = new ArrayList<>();
     }
 
     public GoArtifactsManipulatorStub(List<String> consoleOuts, HttpService service, URLService urlService, ZipUtil zipUtil) {
-        super(service, urlService, zipUtil);
+        super(service, urlService, zipUtil, ArtifactFetchCache.disabled());
         this.consoleOuts = consoleOuts;
     }
 
@@ -18,6 +18,7 @@ package com.thoughtworks.go.remote.work;
 import com.thoughtworks.go.domain.FetchHandler;
 import com.thoughtworks.go.util.HttpService;
 import org.apache.commons.io.IOUtils;
+import org.apache.http.entity.mime.content.ContentBody;
 
 import javax.servlet.http.HttpServletResponse;
 import java.io.ByteArrayInputStream;
@@ -26,8 +27,10 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.util.*;
 
+import static org.apache.commons.io.output.NullOutputStream.NULL_OUTPUT_STREAM;
+
 public class HttpServiceStub extends HttpService {
-    private Map<String, File> uploadedFiles = new HashMap<>();
+    private Map<String, String> uploadedFiles = new HashMap<>();
     private Map<String, byte[]> downloadFiles = new HashMap<>();
     private List<String> uploadedFileUrls = new ArrayList<>();
 
@@ -43,13 +46,23 @@ public class HttpServiceStub extends HttpService {
 
     @Override
     public int upload(String url, long size, File artifactFile, Properties artifactChecksums) throws IOException {
-        uploadedFiles.put(url, artifactFile);
+        uploadedFiles.put(url, artifactFile.getName());
+        uploadedFileUrls.add(url);
+
+        return returnCode;
+    }
+
+    @Override
+    public int upload(String url, long size, ContentBody artifact, ContentBody artifactChecksums) throws IOException {
+        artifact.writeTo(NULL_OUTPUT_STREAM);
+        artifactChecksums.writeTo(NULL_OUTPUT_STREAM);
+        uploadedFiles.put(url, artifact.getFilename());
         uploadedFileUrls.add(url);
 
         return returnCode;
     }
 
-    public Map<String, File> getUploadedFiles() {
+    public Map<String, String> getUploadedFiles() {
         return uploadedFiles;
     }
 
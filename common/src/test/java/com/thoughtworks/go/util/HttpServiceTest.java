@@ -18,11 +18,18 @@ package com.thoughtworks.go.util;
 import com.thoughtworks.go.agent.common.ssl.GoAgentServerHttpClient;
 import com.thoughtworks.go.config.AgentRegistry;
 import com.thoughtworks.go.domain.FetchHandler;
+import com.thoughtworks.go.domain.FileHandler;
+import org.apache.commons.io.FileUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
 import org.apache.http.HttpVersion;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.entity.mime.content.ContentBody;
+import org.apache.http.entity.mime.content.InputStreamBody;
+import org.apache.http.message.BasicHeader;
 import org.apache.http.message.BasicStatusLine;
 import org.junit.Before;
 import org.junit.Rule;
@@ -33,11 +40,19 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import static com.thoughtworks.go.util.HttpService.GO_ARTIFACT_PAYLOAD_SIZE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 public class HttpServiceTest {
@@ -59,7 +74,7 @@ public class HttpServiceTest {
         AgentRegistry agentRegistry = mock(AgentRegistry.class);
         when(agentRegistry.token()).thenReturn("some-token");
         when(agentRegistry.uuid()).thenReturn("some-guid");
-        service = new HttpService(httpClientFactory, agentRegistry);
+        service = new HttpService(httpClientFactory, agentRegistry, new SystemEnvironment());
     }
 
     @Test
@@ -88,6 +103,38 @@ public class HttpServiceTest {
         verify(httpClient).execute(mockPostMethod);
     }
 
+    @Test
+    public void shouldPostStreamedArtifactsAlongWithChecksums() throws IOException {
+        ContentBody artifact = mock(ContentBody.class);
+        ContentBody checksums = mock(ContentBody.class);
+        String uploadUrl = "http://url";
+
+        HttpPost mockPostMethod = mock(HttpPost.class);
+        CloseableHttpResponse response = mock(CloseableHttpResponse.class);
+        when(response.getStatusLine()).thenReturn(new BasicStatusLine(HttpVersion.HTTP_1_1, 200, "OK"));
+        when(httpClient.execute(mockPostMethod)).thenReturn(response);
+        when(httpClientFactory.createPost(uploadUrl)).thenReturn(mockPostMethod);
+
+        service.upload(uploadUrl, 100L, artifact, checksums);
+
+        verify(mockPostMethod).setHeader(GO_ARTIFACT_PAYLOAD_SIZE, "100");
+        verify(mockPostMethod).setHeader("Confirm", "true");
+        verify(httpClientFactory).createMultipartRequestEntity(artifact, checksums);
+        verify(httpClient).execute(mockPostMethod);
+    }
+
+    @Test
+    public void shouldSendStreamedArtifactsChunked() {
+        HttpService.HttpClientFactory factory = new HttpService.HttpClientFactory(null);
+        ContentBody artifact = new InputStreamBody(new ByteArrayInputStream(new byte[]{1}), "artifact.zip");
+        ContentBody checksums = new InputStreamBody(new ByteArrayInputStream(new byte[]{2}), "checksum_file");
+
+        HttpEntity entity = factory.createMultipartRequestEntity(artifact, checksums);
+
+        assertThat(entity.isChunked(), is(true));
+        assertThat(entity.getContentLength(), is(-1L));
+    }
+
     @Test
     public void shouldDownloadArtifact() throws IOException, URISyntaxException {
         String url = "http://blah";
@@ -110,6 +157,117 @@ public class HttpServiceTest {
         verify(fetchHandler).handle(instream);
     }
 
+    @Test
+    public void shouldContinueAnInterruptedDownloadFromTheLastByteReceived() throws IOException {
+        String url = "http://blah";
+        File artifact = new File(folderToSaveDowloadFiles, "artifact");
+        FileHandler fileHandler = new FileHandler(artifact, "src");
+        List<String> ranges = new CopyOnWriteArrayList<>();
+        when(httpClientFactory.createGet(url)).thenAnswer(invocation -> new HttpGet(url));
+        when(httpClient.execute(any(HttpGet.class))).thenAnswer(invocation -> {
+            HttpGet get = invocation.getArgument(0);
+            Header range = get.getFirstHeader("Range");
+            if (range == null) {
+                ranges.add("none");
+                return response(200, failingAfter("hello world".getBytes(UTF_8), 3), new BasicHeader("ETag", "\"v1\""));
+            }
+            ranges.add(range.getValue() + " if " + get.getFirstHeader("If-Range").getValue());
+            return response(206, new ByteArrayInputStream("lo world".getBytes(UTF_8)), new BasicHeader("ETag", "\"v1\""), new BasicHeader("Content-Range", "bytes 3-10/11"));
+        });
+
+        try {
+            service.download(url, fileHandler);
+            fail("Download should have been interrupted");
+        } catch (IOException expected) {
+        }
+        assertThat(fileHandler.bytesReceived(), is(3L));
+
+        assertThat(service.download(url, fileHandler), is(200));
+        assertThat(ranges, is(Arrays.asList("none", "bytes=3- if \"v1\"")));
+        assertThat(FileUtils.readFileToString(artifact, UTF_8), is("hello world"));
+        assertThat(fileHandler.partialDownload().exists(), is(false));
+    }
+
+    @Test
+    public void shouldStartOverWhenTheArtifactChangedSinceTheDownloadWasInterrupted() throws IOException {
+        String url = "http://blah";
+        File artifact = new File(folderToSaveDowloadFiles, "artifact");
+        FileHandler fileHandler = new FileHandler(artifact, "src");
+        when(httpClientFactory.createGet(url)).thenAnswer(invocation -> new HttpGet(url));
+        when(httpClient.execute(any(HttpGet.class))).thenAnswer(invocation -> {
+            HttpGet get = invocation.getArgument(0);
+            if (get.getFirstHeader("Range") == null) {
+                return response(200, failingAfter("hello world".getBytes(UTF_8), 3), new BasicHeader("ETag", "\"v1\""));
+            }
+            return response(200, new ByteArrayInputStream("goodbye".getBytes(UTF_8)), new BasicHeader("ETag", "\"v2\""));
+        });
+
+        try {
+            service.download(url, fileHandler);
+            fail("Download should have been interrupted");
+        } catch (IOException expected) {
+        }
+
+        assertThat(service.download(url, fileHandler), is(200));
+        assertThat(FileUtils.readFileToString(artifact, UTF_8), is("goodbye"));
+    }
+
+    @Test
+    public void shouldDownloadLargeFilesInSegmentsAtOnce() throws IOException {
+        SystemEnvironment systemEnvironment = mock(SystemEnvironment.class);
+        when(systemEnvironment.get(SystemEnvironment.AGENT_ARTIFACT_DOWNLOAD_SEGMENTS)).thenReturn(3);
+        when(systemEnvironment.get(SystemEnvironment.AGENT_ARTIFACT_DOWNLOAD_MIN_SEGMENT_SIZE_IN_MB)).thenReturn(0);
+        AgentRegistry agentRegistry = mock(AgentRegistry.class);
+        service = new HttpService(httpClientFactory, agentRegistry, systemEnvironment);
+
+        String url = "http://blah";
+        byte[] content = "0123456789".getBytes(UTF_8);
+        File artifact = new File(folderToSaveDowloadFiles, "artifact");
+        FileHandler fileHandler = new FileHandler(artifact, "src");
+        List<String> ranges = new CopyOnWriteArrayList<>();
+        when(httpClientFactory.createGet(url)).thenAnswer(invocation -> new HttpGet(url));
+        when(httpClient.execute(any(HttpGet.class))).thenAnswer(invocation -> {
+            String[] range = ((HttpGet) invocation.getArgument(0)).getFirstHeader("Range").getValue().substring("bytes=".length()).split("-");
+            int first = Integer.parseInt(range[0]);
+            int last = Integer.parseInt(range[1]);
+            ranges.add(first + "-" + last);
+            return response(206, new ByteArrayInputStream(content, first, last - first + 1), new BasicHeader("ETag", "\"v1\""),
+                    new BasicHeader("Content-Range", "bytes " + first + "-" + last + "/" + content.length));
+        });
+
+        assertThat(service.download(url, fileHandler), is(200));
+
+        assertThat(FileUtils.readFileToString(artifact, UTF_8), is("0123456789"));
+        assertThat(ranges.size(), is(4));
+        assertThat(ranges.containsAll(Arrays.asList("0-0", "0-3", "4-7", "8-9")), is(true));
+    }
+
+    private CloseableHttpResponse response(int statusCode, InputStream content, Header... headers) {
+        CloseableHttpResponse response = mock(CloseableHttpResponse.class);
+        BasicHttpEntity entity = new BasicHttpEntity();
+        entity.setContent(content);
+        when(response.getEntity()).thenReturn(entity);
+        when(response.getStatusLine()).thenReturn(new BasicStatusLine(HttpVersion.HTTP_1_1, statusCode, ""));
+        for (Header header : headers) {
+            when(response.getFirstHeader(header.getName())).thenReturn(header);
+        }
+        return response;
+    }
+
+    private InputStream failingAfter(byte[] content, int bytes) {
+        ByteArrayInputStream delivered = new ByteArrayInputStream(content, 0, bytes);
+        return new InputStream() {
+            @Override
+            public int read() throws IOException {
+                int read = delivered.read();
+                if (read == -1) {
+                    throw new IOException("connection reset");
+                }
+                return read;
+            }
+        };
+    }
+
     @Test
     public void shouldNotFailIfChecksumFileIsNotPresent() throws IOException {
         HttpService.HttpClientFactory factory = new HttpService.HttpClientFactory(null);
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.config;
+
+import com.thoughtworks.go.domain.materials.MaterialConfig;
+
+import java.util.*;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+import static java.util.Collections.unmodifiableSet;
+
+/**
+ * @understands what changed between two versions of the config, so that config listeners can act on just the parts
+ * that changed instead of the whole config
+ * <p>
+ * Pipelines are compared after preprocessing, so a pipeline is reported as changed when a template or a parameter
+ * it uses changes. A pipeline which moved to another group is reported as changed too, while a group is only
+ * reported as changed when its authorization changes. Materials are identified by their fingerprints.
+ */
+public class ConfigChangeSet {
+    private final Changes<CaseInsensitiveString> pipelines;
+    private final Changes<String> groups;
+    private final Changes<CaseInsensitiveString> environments;
+    private final Changes<CaseInsensitiveString> templates;
+    private final Changes<String> materials;
+    private final boolean securityChanged;
+
+    private ConfigChangeSet(Changes<CaseInsensitiveString> pipelines, Changes<String> groups, Changes<CaseInsensitiveString> environments,
+                            Changes<CaseInsensitiveString> templates, Changes<String> materials, boolean securityChanged) {
+        this.pipelines = pipelines;
+        this.groups = groups;
+        this.environments = environments;
+        this.templates = templates;
+        this.materials = materials;
+        this.securityChanged = securityChanged;
+    }
+
+    public static ConfigChangeSet between(CruiseConfig previous, CruiseConfig current) {
+        return new ConfigChangeSet(
+                Changes.between(pipelinesIn(previous), pipelinesIn(current), ConfigChangeSet::isSamePipeline),
+                Changes.between(groupsIn(previous), groupsIn(current), ConfigChangeSet::isSameGroup),
+                Changes.between(byName(previous.getEnvironments(), EnvironmentConfig::name), byName(current.getEnvironments(), EnvironmentConfig::name), Objects::equals),
+                Changes.between(byName(previous.getTemplates(), PipelineTemplateConfig::name), byName(current.getTemplates(), PipelineTemplateConfig::name), Objects::equals),
+                Changes.between(materialsIn(previous), materialsIn(current), (before, after) -> true),
+                !Objects.equals(previous.server().security(), current.server().security())
+        );
+    }
+
+    public Changes<CaseInsensitiveString> pipelines() {
+        return pipelines;
+    }
+
+    public Changes<String> groups() {
+        return groups;
+    }
+
+    public Changes<CaseInsensitiveString> environments() {
+        return environments;
+    }
+
+    public Changes<CaseInsensitiveString> templates() {
+        return templates;
+    }
+
+    /**
+     * @return fingerprints of the materials which are used by at least one pipeline in only one of the two configs
+     */
+    public Changes<String> materials() {
+        return materials;
+    }
+
+    public boolean isSecurityChanged() {
+        return securityChanged;
+    }
+
+    public boolean isEmpty() {
+        return pipelines.isEmpty() && groups.isEmpty() && environments.isEmpty() && templates.isEmpty() && materials.isEmpty() && !securityChanged;
+    }
+
+    @Override
+    public String toString() {
+        return "ConfigChangeSet{" +
+                "pipelines=" + pipelines +
+                ", groups=" + groups +
+                ", environments=" + environments +
+                ", templates=" + templates +
+                ", materials=" + materials +
+                ", securityChanged=" + securityChanged +
+                '}';
+    }
+
+    private static boolean isSamePipeline(GroupedPipeline before, GroupedPipeline after) {
+        if (!before.group.equals(after.group)) {
+            return false;
+        }
+        return before.pipeline == after.pipeline || (before.pipeline.isLocal() == after.pipeline.isLocal() && before.pipeline.equals(after.pipeline));
+    }
+
+    private static boolean isSameGroup(PipelineConfigs before, PipelineConfigs after) {
+        return Objects.equals(before.getAuthorization(), after.getAuthorization());
+    }
+
+    private static Map<CaseInsensitiveString, GroupedPipeline> pipelinesIn(CruiseConfig config) {
+        Map<CaseInsensitiveString, GroupedPipeline> pipelines = new LinkedHashMap<>();
+        for (PipelineConfigs group : config.getGroups()) {
+            for (PipelineConfig pipelineConfig : group) {
+                pipelines.put(pipelineConfig.name(), new GroupedPipeline(group.getGroup(), pipelineConfig));
+            }
+        }
+        return pipelines;
+    }
+
+    private static Map<String, PipelineConfigs> groupsIn(CruiseConfig config) {
+        return byName(config.getGroups(), PipelineConfigs::getGroup);
+    }
+
+    private static Map<String, MaterialConfig> materialsIn(CruiseConfig config) {
+        Map<String, MaterialConfig> byFingerprint = new HashMap<>();
+        for (PipelineConfig pipelineConfig : config.getAllPipelineConfigs()) {
+            for (MaterialConfig materialConfig : pipelineConfig.materialConfigs()) {
+                byFingerprint.putIfAbsent(materialConfig.getFingerprint(), materialConfig);
+            }
+        }
+        return byFingerprint;
+    }
+
+    private static <K, V> Map<K, V> byName(Iterable<V> entities, Function<V, K> name) {
+        Map<K, V> byName = new LinkedHashMap<>();
+        for (V entity : entities) {
+            byName.put(name.apply(entity), entity);
+        }
+        return byName;
+    }
+
+    private static class GroupedPipeline {
+        private final String group;
+        private final PipelineConfig pipeline;
+
+        private GroupedPipeline(String group, PipelineConfig pipeline) {
+            this.group = group;
+            this.pipeline = pipeline;
+        }
+    }
+
+    /**
+     * Names of the entities of one kind which were added, removed or changed.
+     */
+    public static class Changes<K> {
+        private final Set<K> added;
+        private final Set<K> removed;
+        private final Set<K> changed;
+
+        private Changes(Set<K> added, Set<K> removed, Set<K> changed) {
+            this.added = unmodifiableSet(added);
+            this.removed = unmodifiableSet(removed);
+            this.changed = unmodifiableSet(changed);
+        }
+
+        static <K, V> Changes<K> between(Map<K, V> before, Map<K, V> after, BiPredicate<V, V> isSame) {
+            Set<K> added = new LinkedHashSet<>();
+            Set<K> removed = new LinkedHashSet<>();
+            Set<K> changed = new LinkedHashSet<>();
+
+            for (Map.Entry<K, V> entry : after.entrySet()) {
+                V previous = before.get(entry.getKey());
+                if (previous == null) {
+                    added.add(entry.getKey());
+                } else if (!isSame.test(previous, entry.getValue())) {
+                    changed.add(entry.getKey());
+                }
+            }
+            for (K name : before.keySet()) {
+                if (!after.containsKey(name)) {
+                    removed.add(name);
+                }
+            }
+            return new Changes<>(added, removed, changed);
+        }
+
+        public Set<K> added() {
+            return added;
+        }
+
+        public Set<K> removed() {
+            return removed;
+        }
+
+        public Set<K> changed() {
+            return changed;
+        }
+
+        public Set<K> all() {
+            Set<K> all = new LinkedHashSet<>(added);
+            all.addAll(removed);
+            all.addAll(changed);
+            return all;
+        }
+
+        public boolean isEmpty() {
+            return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            return "{added=" + added + ", removed=" + removed + ", changed=" + changed + '}';
+        }
+    }
+}
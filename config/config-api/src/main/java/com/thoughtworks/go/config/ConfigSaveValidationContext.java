@@ -277,13 +277,25 @@ public class ConfigSaveValidationContext implements ValidationContext {
 
     @Override
     public MaterialConfigs getAllMaterialsByFingerPrint(String fingerprint) {
-        if (fingerprintToMaterials == null || fingerprintToMaterials.isEmpty()) {
-            primeForMaterialValidations();
+        ConfigSaveValidationContext owner = materialsIndexOwner();
+        if (owner.fingerprintToMaterials == null || owner.fingerprintToMaterials.isEmpty()) {
+            owner.primeForMaterialValidations();
         }
-        MaterialConfigs matchingMaterials = fingerprintToMaterials.get(fingerprint);
+        MaterialConfigs matchingMaterials = owner.fingerprintToMaterials.get(fingerprint);
         return matchingMaterials == null ? new MaterialConfigs() : matchingMaterials;
     }
 
+    /**
+     * The context of the cruise config being validated holds the materials of all its pipelines, so that a full
+     * validation indexes them once rather than once for every pipeline it walks through.
+     */
+    private ConfigSaveValidationContext materialsIndexOwner() {
+        if (immediateParent instanceof CruiseConfig || parentContext == null) {
+            return this;
+        }
+        return parentContext.materialsIndexOwner();
+    }
+
     @Override
     public Map<CaseInsensitiveString, Boolean> getPipelineToMaterialAutoUpdateMapByFingerprint(String fingerprint) {
         Map<CaseInsensitiveString, Boolean> map = new HashMap<>();
@@ -15,10 +15,12 @@
  */
 package com.thoughtworks.go.config;
 
+import java.util.function.Supplier;
+
 public class GoConfigHolder {
     public final CruiseConfig config;
     public final CruiseConfig configForEdit;
-    public CruiseConfig mergedConfigForEdit;
+    private MergedConfigForEdit mergedConfigForEdit;
 
     public GoConfigHolder(CruiseConfig config, CruiseConfig configForEdit) {
         this.config = config;
@@ -27,6 +29,51 @@ public class GoConfigHolder {
 
     public GoConfigHolder(CruiseConfig config, CruiseConfig configForEdit, CruiseConfig mergedConfigForEdit) {
         this(config, configForEdit);
-        this.mergedConfigForEdit = mergedConfigForEdit;
+        setMergedConfigForEdit(mergedConfigForEdit);
+    }
+
+    /**
+     * @return the config for edit with partials merged into it, or {@code null} if there are no partials
+     */
+    public CruiseConfig mergedConfigForEdit() {
+        return mergedConfigForEdit == null ? null : mergedConfigForEdit.get();
+    }
+
+    public boolean hasMergedConfigForEdit() {
+        return mergedConfigForEdit != null;
+    }
+
+    public void setMergedConfigForEdit(CruiseConfig mergedConfigForEdit) {
+        this.mergedConfigForEdit = mergedConfigForEdit == null ? null : new MergedConfigForEdit(() -> mergedConfigForEdit);
+    }
+
+    /**
+     * Merging partials needs a copy of the whole config for edit, which most saves never look at. The merge is done
+     * the first time someone asks for the merged config instead, and only once. Copies of a holder made by
+     * {@code GoConfigCloner} leave the merged config out.
+     */
+    public void mergeConfigForEditOnFirstUse(Supplier<CruiseConfig> merge) {
+        this.mergedConfigForEdit = new MergedConfigForEdit(merge);
+    }
+
+    public static class MergedConfigForEdit {
+        private Supplier<CruiseConfig> merge;
+        private volatile CruiseConfig merged;
+
+        private MergedConfigForEdit(Supplier<CruiseConfig> merge) {
+            this.merge = merge;
+        }
+
+        private CruiseConfig get() {
+            if (merged == null) {
+                synchronized (this) {
+                    if (merged == null) {
+                        merged = merge.get();
+                        merge = null;
+                    }
+                }
+            }
+            return merged;
+        }
     }
 }
@@ -216,17 +216,64 @@ public class PipelineConfigSaveValidationContext implements ValidationContext {
         return getDependencies().keySet();
     }
 
+    /**
+     * @return the pipelines which depend on the given pipeline, either directly or through other pipelines
+     */
+    public Set<CaseInsensitiveString> getDownstreamPipelinesOf(CaseInsensitiveString pipelineName) {
+        Map<CaseInsensitiveString, Set<CaseInsensitiveString>> directDownstreams = getDirectDownstreams();
+        Set<CaseInsensitiveString> downstreams = new LinkedHashSet<>();
+        Deque<CaseInsensitiveString> toVisit = new ArrayDeque<>();
+        toVisit.push(pipelineName);
+        while (!toVisit.isEmpty()) {
+            for (CaseInsensitiveString downstream : directDownstreams.getOrDefault(toVisit.pop(), Collections.emptySet())) {
+                if (downstreams.add(downstream)) {
+                    toVisit.push(downstream);
+                }
+            }
+        }
+        downstreams.remove(pipelineName);
+        return downstreams;
+    }
+
     private Hashtable<CaseInsensitiveString, Node> getDependencies() {
-        if (dependencies == null) {
-            dependencies = new Hashtable<>();
+        PipelineConfigSaveValidationContext owner = indexOwner();
+        if (owner.dependencies == null) {
+            Hashtable<CaseInsensitiveString, Node> dependencies = new Hashtable<>();
             for (PipelineConfig pipeline : cruiseConfig.getAllPipelineConfigs()) {
                 dependencies.put(pipeline.name(), pipeline.getDependenciesAsNode());
             }
+            owner.dependencies = dependencies;
+        }
+        return owner.dependencies;
+    }
+
+    private Map<CaseInsensitiveString, Set<CaseInsensitiveString>> getDirectDownstreams() {
+        PipelineConfigSaveValidationContext owner = indexOwner();
+        if (owner.directDownstreams == null) {
+            Map<CaseInsensitiveString, Set<CaseInsensitiveString>> directDownstreams = new HashMap<>();
+            for (Map.Entry<CaseInsensitiveString, Node> pipelineAndDependencies : getDependencies().entrySet()) {
+                for (Node.DependencyNode upstream : pipelineAndDependencies.getValue().getDependencies()) {
+                    directDownstreams.computeIfAbsent(upstream.getPipelineName(), name -> new HashSet<>()).add(pipelineAndDependencies.getKey());
+                }
+            }
+            owner.directDownstreams = directDownstreams;
+        }
+        return owner.directDownstreams;
+    }
+
+    /**
+     * Every context below the one holding the cruise config shares its lookups, so that they are built once per
+     * validation instead of once per config element.
+     */
+    private PipelineConfigSaveValidationContext indexOwner() {
+        if (parentContext != null && parentContext.cruiseConfig == cruiseConfig) {
+            return parentContext.indexOwner();
         }
-        return dependencies;
+        return this;
     }
 
     private Hashtable<CaseInsensitiveString, Node> dependencies;
+    private Map<CaseInsensitiveString, Set<CaseInsensitiveString>> directDownstreams;
 
     public PipelineGroups getGroups() {
         return cruiseConfig.getGroups();
@@ -237,9 +284,11 @@ public class PipelineConfigSaveValidationContext implements ValidationContext {
     }
 
     private void initMaterialConfigMap() {
-        if (materialConfigsFingerprintMap == null) {
-            materialConfigsFingerprintMap = new MaterialConfigFingerprintMap(cruiseConfig);
+        PipelineConfigSaveValidationContext owner = indexOwner();
+        if (owner.materialConfigsFingerprintMap == null) {
+            owner.materialConfigsFingerprintMap = new MaterialConfigFingerprintMap(cruiseConfig);
         }
+        materialConfigsFingerprintMap = owner.materialConfigsFingerprintMap;
     }
 
     private class MaterialConfigFingerprintMap {
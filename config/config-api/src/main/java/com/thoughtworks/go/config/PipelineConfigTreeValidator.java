@@ -87,8 +87,8 @@ public class PipelineConfigTreeValidator {
 
     void validateDependencies(PipelineConfigSaveValidationContext validationContext) {
         if (validationContext.isPipelineBeingCreated()) return;
-        for (CaseInsensitiveString selected : validationContext.getPipelinesWithDependencyMaterials()) {
-            if (selected.equals(pipelineConfig.name())) continue;
+        // only pipelines downstream of this one can refer to it through a dependency material or a fetch task
+        for (CaseInsensitiveString selected : validationContext.getDownstreamPipelinesOf(pipelineConfig.name())) {
             PipelineConfig selectedPipeline = validationContext.getPipelineConfigByName(selected);
             validateDependencyMaterialsForDownstreams(validationContext, selected, selectedPipeline);
             validateFetchTasksForOtherPipelines(validationContext, selectedPipeline);
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.config;
+
+import com.thoughtworks.go.helper.GoConfigMother;
+import com.thoughtworks.go.helper.MaterialConfigsMother;
+import org.junit.jupiter.api.Test;
+
+import static com.thoughtworks.go.helper.EnvironmentConfigMother.environment;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConfigChangeSetTest {
+    private static final CaseInsensitiveString P1 = new CaseInsensitiveString("p1");
+    private static final CaseInsensitiveString P2 = new CaseInsensitiveString("p2");
+    private static final CaseInsensitiveString P3 = new CaseInsensitiveString("p3");
+
+    @Test
+    void shouldBeEmptyWhenNothingChanged() {
+        ConfigChangeSet changes = ConfigChangeSet.between(GoConfigMother.configWithPipelines("p1", "p2"), GoConfigMother.configWithPipelines("p1", "p2"));
+
+        assertThat(changes.isEmpty()).isTrue();
+    }
+
+    @Test
+    void shouldFindAddedRemovedAndChangedPipelines() {
+        BasicCruiseConfig previous = GoConfigMother.configWithPipelines("p1", "p2");
+        BasicCruiseConfig current = GoConfigMother.configWithPipelines("p1", "p3");
+        current.pipelineConfigByName(P1).setLabelTemplate("${COUNT}-changed");
+
+        ConfigChangeSet changes = ConfigChangeSet.between(previous, current);
+
+        assertThat(changes.pipelines().added()).containsExactly(P3);
+        assertThat(changes.pipelines().removed()).containsExactly(P2);
+        assertThat(changes.pipelines().changed()).containsExactly(P1);
+        assertThat(changes.pipelines().all()).containsExactlyInAnyOrder(P1, P2, P3);
+    }
+
+    @Test
+    void shouldReportAPipelineMovedToAnotherGroupAsChanged() {
+        BasicCruiseConfig previous = GoConfigMother.configWithPipelines("p1", "p2");
+        BasicCruiseConfig current = GoConfigMother.configWithPipelines("p1");
+        new GoConfigMother().addPipelineWithGroup(current, "another-group", "p2", "stage", "job");
+
+        ConfigChangeSet changes = ConfigChangeSet.between(previous, current);
+
+        assertThat(changes.pipelines().changed()).containsExactly(P2);
+        assertThat(changes.groups().added()).containsExactly("another-group");
+        assertThat(changes.groups().changed()).isEmpty();
+    }
+
+    @Test
+    void shouldReportAGroupAsChangedWhenItsAuthorizationChanges() {
+        BasicCruiseConfig previous = GoConfigMother.configWithPipelines("p1");
+        BasicCruiseConfig current = GoConfigMother.configWithPipelines("p1");
+        String group = current.getGroups().first().getGroup();
+        new GoConfigMother().addAdminUserForPipelineGroup(current, "admin", group);
+
+        ConfigChangeSet changes = ConfigChangeSet.between(previous, current);
+
+        assertThat(changes.groups().changed()).containsExactly(group);
+        assertThat(changes.pipelines().isEmpty()).isTrue();
+    }
+
+    @Test
+    void shouldFindChangedEnvironmentsTemplatesAndSecurity() {
+        BasicCruiseConfig previous = GoConfigMother.configWithPipelines("p1");
+        previous.addEnvironment(environment("uat", "p1"));
+        BasicCruiseConfig current = GoConfigMother.configWithPipelines("p1");
+        current.addEnvironment(environment("uat"));
+        current.addTemplate(new PipelineTemplateConfig(new CaseInsensitiveString("template")));
+        current.server().security().adminsConfig().add(new AdminUser(new CaseInsensitiveString("admin")));
+
+        ConfigChangeSet changes = ConfigChangeSet.between(previous, current);
+
+        assertThat(changes.environments().changed()).containsExactly(new CaseInsensitiveString("uat"));
+        assertThat(changes.templates().added()).containsExactly(new CaseInsensitiveString("template"));
+        assertThat(changes.isSecurityChanged()).isTrue();
+    }
+
+    @Test
+    void shouldFindMaterialsNoLongerUsedOrNewlyUsedByAnyPipeline() {
+        BasicCruiseConfig previous = GoConfigMother.configWithPipelines("p1");
+        BasicCruiseConfig current = GoConfigMother.configWithPipelines("p1");
+        current.pipelineConfigByName(P1).addMaterialConfig(MaterialConfigsMother.gitMaterialConfig());
+
+        ConfigChangeSet changes = ConfigChangeSet.between(previous, current);
+
+        assertThat(changes.materials().added()).containsExactly(MaterialConfigsMother.gitMaterialConfig().getFingerprint());
+        assertThat(changes.materials().removed()).isEmpty();
+        assertThat(changes.pipelines().changed()).containsExactly(P1);
+    }
+}
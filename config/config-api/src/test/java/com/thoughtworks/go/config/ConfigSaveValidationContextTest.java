@@ -69,6 +69,24 @@ public class ConfigSaveValidationContextTest {
         assertThat(context.getAllMaterialsByFingerPrint(hg.getFingerprint()).size()).isEqualTo(10);
     }
 
+    @Test
+    void shouldIndexMaterialsOnceForAllContextsUnderTheCruiseConfig() {
+        CruiseConfig cruiseConfig = new BasicCruiseConfig();
+        HgMaterialConfig hg = hg("url", null);
+        for (int i = 0; i < 3; i++) {
+            cruiseConfig.addPipeline("defaultGroup", pipelineConfig("pipeline" + i, new MaterialConfigs(hg)));
+        }
+        ValidationContext context = ConfigSaveValidationContext.forChain(cruiseConfig);
+        PipelineConfig first = cruiseConfig.getAllPipelineConfigs().get(0);
+        PipelineConfig second = cruiseConfig.getAllPipelineConfigs().get(1);
+
+        MaterialConfigs fromFirst = context.withParent(first).withParent(first.materialConfigs()).getAllMaterialsByFingerPrint(hg.getFingerprint());
+        MaterialConfigs fromSecond = context.withParent(second).withParent(second.materialConfigs()).getAllMaterialsByFingerPrint(hg.getFingerprint());
+
+        assertThat(fromFirst.size()).isEqualTo(3);
+        assertThat(fromSecond).isSameAs(fromFirst);
+    }
+
     @Test
     void shouldReturnEmptyListWhenNoMaterialsMatch() {
         CruiseConfig cruiseConfig = new BasicCruiseConfig();
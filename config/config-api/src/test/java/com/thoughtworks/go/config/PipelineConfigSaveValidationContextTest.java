@@ -113,6 +113,33 @@ class PipelineConfigSaveValidationContextTest {
         assertThat(context.getDependencyMaterialsFor(new CaseInsensitiveString("junk")).getDependencies().isEmpty()).isTrue();
     }
 
+    @Test
+    void shouldGetPipelinesDownstreamOfAPipeline() {
+        BasicCruiseConfig cruiseConfig = GoConfigMother.configWithPipelines("p1", "p2", "p3", "p4");
+        PipelineConfig p2 = cruiseConfig.getPipelineConfigByName(new CaseInsensitiveString("p2"));
+        p2.addMaterialConfig(new DependencyMaterialConfig(new CaseInsensitiveString("p1"), new CaseInsensitiveString("stage")));
+        PipelineConfig p3 = cruiseConfig.getPipelineConfigByName(new CaseInsensitiveString("p3"));
+        p3.addMaterialConfig(new DependencyMaterialConfig(new CaseInsensitiveString("p2"), new CaseInsensitiveString("stage")));
+        PipelineConfigSaveValidationContext context = PipelineConfigSaveValidationContext.forChain(false, "group", cruiseConfig);
+
+        assertThat(context.getDownstreamPipelinesOf(new CaseInsensitiveString("p1"))).containsExactlyInAnyOrder(new CaseInsensitiveString("p2"), new CaseInsensitiveString("p3"));
+        assertThat(context.getDownstreamPipelinesOf(new CaseInsensitiveString("p2"))).containsExactly(new CaseInsensitiveString("p3"));
+        assertThat(context.getDownstreamPipelinesOf(new CaseInsensitiveString("p3"))).isEmpty();
+        assertThat(context.getDownstreamPipelinesOf(new CaseInsensitiveString("p4"))).isEmpty();
+    }
+
+    @Test
+    void shouldShareMaterialAndDependencyLookupsWithChildContexts() {
+        CruiseConfig cruiseConfig = new GoConfigMother().cruiseConfigWithPipelineUsingTwoMaterials();
+        MaterialConfig material = MaterialConfigsMother.multipleMaterialConfigs().get(1);
+        PipelineConfig pipeline = cruiseConfig.getAllPipelineConfigs().get(0);
+        PipelineConfigSaveValidationContext context = PipelineConfigSaveValidationContext.forChain(false, "group", cruiseConfig);
+        PipelineConfigSaveValidationContext childContext = context.withParent(pipeline).withParent(pipeline.materialConfigs());
+
+        assertThat(childContext.getAllMaterialsByFingerPrint(material.getFingerprint())).isSameAs(context.getAllMaterialsByFingerPrint(material.getFingerprint()));
+        assertThat(childContext.getPipelinesWithDependencyMaterials()).isSameAs(context.getPipelinesWithDependencyMaterials());
+    }
+
     @Test
     void shouldGetParentDisplayName() {
         assertThat(PipelineConfigSaveValidationContext.forChain(true, "group", new PipelineConfig()).getParentDisplayName()).isEqualTo("pipeline");
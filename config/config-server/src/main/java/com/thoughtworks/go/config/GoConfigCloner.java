@@ -19,8 +19,11 @@ import com.rits.cloning.Cloner;
 import com.thoughtworks.go.config.BasicCruiseConfig.AllPipelineConfigs;
 import com.thoughtworks.go.config.BasicCruiseConfig.AllTemplatesWithAssociatedPipelines;
 import com.thoughtworks.go.config.BasicCruiseConfig.PipelineNameToConfigMap;
+import com.thoughtworks.go.config.GoConfigHolder.MergedConfigForEdit;
 import com.thoughtworks.go.util.ClonerFactory;
 
+import java.util.ArrayList;
+
 // Cloner to handle nullification of specific classes in config objects.
 // A specific field can be ignored from being cloned by setting `cloner.setNullTransient(true)` and marking the field as 'transient',
 // but if the object being cloned has other fields which have transient fields internally,
@@ -36,7 +39,21 @@ public class GoConfigCloner extends Cloner {
                 AllTemplatesWithAssociatedPipelines.class,
                 PipelineNameToConfigMap.class,
                 CachedPluggableArtifactConfigs.class,
-                CachedFetchPluggableArtifactTasks.class);
+                CachedFetchPluggableArtifactTasks.class,
+                MergedConfigForEdit.class);
         ClonerFactory.applyFixes(this);
     }
+
+    /**
+     * Deep clones a config except for its partials, which are shared with the original config. Meant for a config
+     * whose partials are replaced right after it is cloned, where copying every remote pipeline would be thrown away.
+     */
+    public <T extends CruiseConfig> T deepCloneSharingPartials(T config) {
+        if (config.getPartials() == null) {
+            return deepClone(config);
+        }
+        T clone = deepCloneDontCloneInstances(config, config.getPartials());
+        clone.setPartials(new ArrayList<>(config.getPartials()));
+        return clone;
+    }
 }
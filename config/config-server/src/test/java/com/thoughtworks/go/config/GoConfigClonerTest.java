@@ -15,7 +15,9 @@
  */
 package com.thoughtworks.go.config;
 
+import com.thoughtworks.go.config.remote.PartialConfig;
 import com.thoughtworks.go.helper.GoConfigMother;
+import com.thoughtworks.go.helper.PartialConfigMother;
 import com.thoughtworks.go.helper.PipelineConfigMother;
 import com.thoughtworks.go.helper.PipelineTemplateConfigMother;
 import com.thoughtworks.go.util.ReflectionUtil;
@@ -116,4 +118,30 @@ public class GoConfigClonerTest {
         assertThat(cloned.getGroups().size(), is(1));
         assertThat(cloned.getGroups().get(0).getPipelines().size(), is(2));
     }
+
+    @Test
+    public void shouldSharePartialsWhenAskedTo() {
+        BasicCruiseConfig config = GoConfigMother.configWithPipelines("p1", "p2");
+        PartialConfig partial = PartialConfigMother.withPipeline("remote");
+        config.setPartials(new ArrayList<>(List.of(partial)));
+
+        BasicCruiseConfig cloned = new GoConfigCloner().deepCloneSharingPartials(config);
+
+        assertThat(cloned.getPartials().get(0), is(sameInstance(partial)));
+        assertThat(cloned.getPartials(), is(not(sameInstance(config.getPartials()))));
+        assertThat(cloned.getGroups().get(0), is(not(sameInstance(config.getGroups().get(0)))));
+        assertThat(cloned.getGroups().get(0).getPipelines().size(), is(2));
+    }
+
+    @Test
+    public void shouldNotCloneMergedConfigForEditOfAConfigHolder() {
+        BasicCruiseConfig config = GoConfigMother.configWithPipelines("p1");
+        GoConfigHolder holder = new GoConfigHolder(config, config);
+        holder.mergeConfigForEditOnFirstUse(() -> config);
+
+        GoConfigHolder cloned = new GoConfigCloner().deepClone(holder);
+
+        assertThat(cloned.hasMergedConfigForEdit(), is(false));
+        assertThat(cloned.configForEdit.getAllPipelineConfigs().size(), is(1));
+    }
 }
@@ -76,6 +76,18 @@ public class LiquibaseMigtrationTest {
         verifyTableDoesNotExists("USAGEDATAREPORTING");
     }
 
+    @Test
+    void shouldAddIndexOnPipelineMaterialRevisionsMaterialAndToRevision_asPartOfMigration_2103() throws SQLException, LiquibaseException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE PIPELINEMATERIALREVISIONS (ID BIGINT, PIPELINEID BIGINT, MATERIALID BIGINT, FROMREVISIONID BIGINT, TOREVISIONID BIGINT);");
+        }
+
+        migrate("migrations/2103.xml");
+
+        verifyLiquibaseTablesExists();
+        assertThat(indexList("PIPELINEMATERIALREVISIONS")).contains("IDX_PMR_MATERIALID_TOREVISIONID");
+    }
+
     private void migrate(String migration) throws SQLException, LiquibaseException {
         Connection connection = dataSource.getConnection();
         Database database = DatabaseFactory.getInstance().findCorrectDatabaseImplementation(new JdbcConnection(connection));
@@ -98,6 +110,20 @@ public class LiquibaseMigtrationTest {
         return tables;
     }
 
+    private ArrayList<String> indexList(String tableName) throws SQLException {
+        ArrayList<String> indexes = new ArrayList<>();
+
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("SELECT INDEX_NAME FROM INFORMATION_SCHEMA.indexes WHERE table_schema = 'PUBLIC' and table_name = '" + tableName + "';");
+            ResultSet resultSet = statement.getResultSet();
+            while (resultSet.next()) {
+                indexes.add(resultSet.getString("INDEX_NAME"));
+            }
+        }
+
+        return indexes;
+    }
+
     private void verifyLiquibaseTablesExists() throws SQLException {
         verifyTableExists("DATABASECHANGELOG");
         verifyTableExists("DATABASECHANGELOGLOCK");
@@ -106,6 +106,8 @@ public class Jetty9Server extends AppServer {
                 "application/vnd.go.cd.v7+json",
                 "application/vnd.go.cd.v8+json",
                 "application/vnd.go.cd.v9+json",
+                "application/vnd.go.cd.v10+json",
+                "application/vnd.go.cd.v11+json",
                 "application/xhtml+xml",
                 "image/svg+xml",
                 "text/css",
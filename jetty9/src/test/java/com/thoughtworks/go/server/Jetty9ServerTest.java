@@ -299,6 +299,15 @@ public class Jetty9ServerTest {
         assertThat(webAppContext.getGzipHandler(), is(not(nullValue())));
     }
 
+    @Test
+    public void shouldGzipResponsesOfAllApiVersions() {
+        List<String> mimeTypes = Arrays.asList(Jetty9Server.gzipHandler().getIncludedMimeTypes());
+
+        for (int version = 1; version <= 11; version++) {
+            assertThat(mimeTypes, hasItem("application/vnd.go.cd.v" + version + "+json"));
+        }
+    }
+
     @Test
     public void shouldHaveAHandlerCollectionAtServerLevel_ToAllowRequestLoggingHandlerToBeAdded() throws Exception {
         jetty9Server.configure();
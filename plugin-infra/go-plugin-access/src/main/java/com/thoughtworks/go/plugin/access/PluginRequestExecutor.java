@@ -0,0 +1,229 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.plugin.access;
+
+import com.thoughtworks.go.plugin.api.response.DefaultGoApiResponse;
+import com.thoughtworks.go.plugin.api.response.GoPluginApiResponse;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import static java.lang.String.format;
+
+/**
+ * @understands sending requests to plugins without letting a slow or hung plugin take the server down with it, and
+ * keeping track of how long each plugin takes to respond.
+ * <p>
+ * Every plugin and extension pair gets a bulkhead which bounds the number of requests the plugin may be handling at
+ * once, and an optional timeout after which the caller stops waiting for a response. A request that times out keeps
+ * holding its place in the bulkhead until the plugin actually returns, so a hung plugin cannot pile up threads beyond
+ * its limit. Both are configured through {@link SystemEnvironment} and are off by default, in which case requests run
+ * on the caller's thread as before. A bulkhead with a timeout but without a limit of its own is limited to
+ * {@link #DEFAULT_MAX_CONCURRENT_WITH_TIMEOUT} requests, as the threads of requests that timed out are only given back
+ * once the plugin returns.
+ * <p>
+ * All extensions share the one instance, so that the limits of a plugin hold across everything that talks to it.
+ */
+@Component
+public class PluginRequestExecutor {
+    static final int DEFAULT_MAX_CONCURRENT_WITH_TIMEOUT = 10;
+    private static final long[] LATENCY_BUCKETS_IN_MILLIS = {10, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000};
+
+    private final SystemEnvironment systemEnvironment;
+    private final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, RequestStatistics>> statistics = new ConcurrentHashMap<>();
+    private final ExecutorService timedRequests = Executors.newCachedThreadPool(new BasicThreadFactory.Builder()
+            .namingPattern("plugin-request-%d")
+            .daemon(true)
+            .build());
+
+    @Autowired
+    public PluginRequestExecutor(SystemEnvironment systemEnvironment) {
+        this.systemEnvironment = systemEnvironment;
+    }
+
+    public GoPluginApiResponse submit(String pluginId, String extensionName, String requestName, Supplier<GoPluginApiResponse> request) {
+        Bulkhead bulkhead = bulkheads.computeIfAbsent(pluginId + "/" + extensionName, key -> new Bulkhead(
+                systemEnvironment.getPluginRequestTimeoutInMillis(pluginId, extensionName),
+                systemEnvironment.getPluginRequestMaxConcurrent(pluginId, extensionName)));
+        RequestStatistics requestStatistics = statistics
+                .computeIfAbsent(pluginId, id -> new ConcurrentSkipListMap<>())
+                .computeIfAbsent(extensionName + " " + requestName, name -> new RequestStatistics(bulkhead));
+
+        if (!bulkhead.tryAcquire()) {
+            requestStatistics.rejected.increment();
+            throw new RuntimeException(format("Plugin with id '%s' is already handling %d requests for the '%s' extension, gave up waiting to request for '%s'.", pluginId, bulkhead.maxConcurrent, extensionName, requestName));
+        }
+
+        long startedAt = System.nanoTime();
+        try {
+            GoPluginApiResponse response = bulkhead.timeoutInMillis > 0 ? submitWithTimeout(bulkhead, request) : submitAndRelease(bulkhead, request);
+            requestStatistics.completed(System.nanoTime() - startedAt, response == null || response.responseCode() != DefaultGoApiResponse.SUCCESS_RESPONSE_CODE);
+            return response;
+        } catch (TimeoutException e) {
+            requestStatistics.timedOut.increment();
+            throw new RuntimeException(format("Plugin with id '%s' did not respond within %d ms while requesting for '%s' of the '%s' extension.", pluginId, bulkhead.timeoutInMillis, requestName, extensionName));
+        } catch (RuntimeException e) {
+            requestStatistics.completed(System.nanoTime() - startedAt, true);
+            throw e;
+        }
+    }
+
+    /**
+     * @return request statistics by plugin id, and then by extension and request name
+     */
+    public Map<String, Object> statistics() {
+        Map<String, Object> json = new TreeMap<>();
+        statistics.forEach((pluginId, requests) -> {
+            LinkedHashMap<String, Object> jsonForPlugin = new LinkedHashMap<>();
+            requests.forEach((request, requestStatistics) -> jsonForPlugin.put(request, requestStatistics.asJson()));
+            json.put(pluginId, jsonForPlugin);
+        });
+        return json;
+    }
+
+    private GoPluginApiResponse submitAndRelease(Bulkhead bulkhead, Supplier<GoPluginApiResponse> request) {
+        try {
+            return request.get();
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    private GoPluginApiResponse submitWithTimeout(Bulkhead bulkhead, Supplier<GoPluginApiResponse> request) throws TimeoutException {
+        Future<GoPluginApiResponse> response;
+        try {
+            response = timedRequests.submit(() -> submitAndRelease(bulkhead, request));
+        } catch (RejectedExecutionException e) {
+            bulkhead.release();
+            throw e;
+        }
+
+        try {
+            return response.get(bulkhead.timeoutInMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            response.cancel(true);
+            throw e;
+        } catch (InterruptedException e) {
+            response.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private static class Bulkhead {
+        private final long timeoutInMillis;
+        private final int maxConcurrent;
+        private final Semaphore permits;
+        private final AtomicLong inProgress = new AtomicLong();
+
+        private Bulkhead(long timeoutInMillis, int maxConcurrent) {
+            this.timeoutInMillis = timeoutInMillis;
+            this.maxConcurrent = maxConcurrent <= 0 && timeoutInMillis > 0 ? DEFAULT_MAX_CONCURRENT_WITH_TIMEOUT : maxConcurrent;
+            this.permits = this.maxConcurrent > 0 ? new Semaphore(this.maxConcurrent, true) : null;
+        }
+
+        private boolean tryAcquire() {
+            if (permits != null && timeoutInMillis > 0) {
+                try {
+                    if (!permits.tryAcquire(timeoutInMillis, TimeUnit.MILLISECONDS)) {
+                        return false;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            } else if (permits != null) {
+                permits.acquireUninterruptibly();
+            }
+            inProgress.incrementAndGet();
+            return true;
+        }
+
+        private void release() {
+            inProgress.decrementAndGet();
+            if (permits != null) {
+                permits.release();
+            }
+        }
+    }
+
+    private static class RequestStatistics {
+        private final Bulkhead bulkhead;
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder timedOut = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder totalTimeInNanos = new LongAdder();
+        private final AtomicLong maximumTimeInNanos = new AtomicLong();
+        private final LongAdder[] latencyBuckets = new LongAdder[LATENCY_BUCKETS_IN_MILLIS.length + 1];
+
+        private RequestStatistics(Bulkhead bulkhead) {
+            this.bulkhead = bulkhead;
+            for (int i = 0; i < latencyBuckets.length; i++) {
+                latencyBuckets[i] = new LongAdder();
+            }
+        }
+
+        private void completed(long timeInNanos, boolean failed) {
+            requests.increment();
+            if (failed) {
+                errors.increment();
+            }
+            totalTimeInNanos.add(timeInNanos);
+            maximumTimeInNanos.accumulateAndGet(timeInNanos, Math::max);
+
+            long timeInMillis = TimeUnit.NANOSECONDS.toMillis(timeInNanos);
+            int bucket = 0;
+            while (bucket < LATENCY_BUCKETS_IN_MILLIS.length && timeInMillis > LATENCY_BUCKETS_IN_MILLIS[bucket]) {
+                bucket++;
+            }
+            latencyBuckets[bucket].increment();
+        }
+
+        private Map<String, Object> asJson() {
+            long completed = requests.sum();
+            LinkedHashMap<String, Object> json = new LinkedHashMap<>();
+            json.put("Requests", completed);
+            json.put("Errors", errors.sum());
+            json.put("Timed out", timedOut.sum());
+            json.put("Rejected", rejected.sum());
+            json.put("Requests in progress for the extension", bulkhead.inProgress.get());
+            json.put("Average time in milliseconds", completed == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalTimeInNanos.sum() / completed));
+            json.put("Maximum time in milliseconds", TimeUnit.NANOSECONDS.toMillis(maximumTimeInNanos.get()));
+
+            LinkedHashMap<String, Long> histogram = new LinkedHashMap<>();
+            for (int i = 0; i < LATENCY_BUCKETS_IN_MILLIS.length; i++) {
+                histogram.put("<= " + LATENCY_BUCKETS_IN_MILLIS[i] + " ms", latencyBuckets[i].sum());
+            }
+            histogram.put("> " + LATENCY_BUCKETS_IN_MILLIS[LATENCY_BUCKETS_IN_MILLIS.length - 1] + " ms", latencyBuckets[LATENCY_BUCKETS_IN_MILLIS.length].sum());
+            json.put("Latency", histogram);
+            return json;
+        }
+    }
+}
@@ -29,11 +29,13 @@ public class PluginRequestHelper {
     protected PluginManager pluginManager;
     private List<String> goSupportedVersions;
     private String extensionName;
+    private final PluginRequestExecutor requestExecutor;
 
-    public PluginRequestHelper(PluginManager pluginManager, List<String> goSupportedVersions, String extensionName) {
+    public PluginRequestHelper(PluginManager pluginManager, List<String> goSupportedVersions, String extensionName, PluginRequestExecutor requestExecutor) {
         this.pluginManager = pluginManager;
         this.goSupportedVersions = goSupportedVersions;
         this.extensionName = extensionName;
+        this.requestExecutor = requestExecutor;
     }
 
     public <T> T submitRequest(String pluginId, String requestName, PluginInteractionCallback<T> pluginInteractionCallback) {
@@ -46,7 +48,7 @@ public class PluginRequestHelper {
             apiRequest.setRequestBody(pluginInteractionCallback.requestBody(resolvedExtensionVersion));
             apiRequest.setRequestParams(pluginInteractionCallback.requestParams(resolvedExtensionVersion));
             apiRequest.setRequestHeaders(pluginInteractionCallback.requestHeaders(resolvedExtensionVersion));
-            GoPluginApiResponse response = pluginManager.submitTo(pluginId, extensionName, apiRequest);
+            GoPluginApiResponse response = requestExecutor.submit(pluginId, extensionName, requestName, () -> pluginManager.submitTo(pluginId, extensionName, apiRequest));
             if (response == null) {
                 throw new RuntimeException("The plugin sent a null response");
             }
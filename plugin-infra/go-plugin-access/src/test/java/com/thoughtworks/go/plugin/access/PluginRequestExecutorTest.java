@@ -0,0 +1,150 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.plugin.access;
+
+import com.thoughtworks.go.plugin.api.response.DefaultGoPluginApiResponse;
+import com.thoughtworks.go.plugin.api.response.GoPluginApiResponse;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PluginRequestExecutorTest {
+    private SystemEnvironment systemEnvironment;
+    private PluginRequestExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        systemEnvironment = mock(SystemEnvironment.class);
+        executor = new PluginRequestExecutor(systemEnvironment);
+    }
+
+    @Test
+    void shouldKeepStatisticsPerPluginAndRequest() {
+        executor.submit("plugin", "elastic-agent", "should-assign-work", () -> DefaultGoPluginApiResponse.success("true"));
+        executor.submit("plugin", "elastic-agent", "should-assign-work", () -> DefaultGoPluginApiResponse.error("boom"));
+        assertThatThrownBy(() -> executor.submit("plugin", "elastic-agent", "create-agent", () -> {
+            throw new RuntimeException("crashed");
+        })).hasMessage("crashed");
+
+        Map<String, Object> shouldAssignWork = statisticsFor("plugin", "elastic-agent should-assign-work");
+        assertThat(shouldAssignWork)
+                .containsEntry("Requests", 2L)
+                .containsEntry("Errors", 1L)
+                .containsEntry("Timed out", 0L)
+                .containsEntry("Rejected", 0L)
+                .containsEntry("Requests in progress for the extension", 0L);
+        assertThat((Map<String, Long>) shouldAssignWork.get("Latency")).containsEntry("<= 10 ms", 2L);
+        assertThat(statisticsFor("plugin", "elastic-agent create-agent"))
+                .containsEntry("Requests", 1L)
+                .containsEntry("Errors", 1L);
+    }
+
+    @Test
+    void shouldStopWaitingForAPluginThatDoesNotRespondInTime() throws Exception {
+        when(systemEnvironment.getPluginRequestTimeoutInMillis("plugin", "authorization")).thenReturn(100L);
+        CountDownLatch hung = new CountDownLatch(1);
+
+        assertThatThrownBy(() -> executor.submit("plugin", "authorization", "authenticate-user", () -> {
+            awaitIgnoringInterrupts(hung);
+            return DefaultGoPluginApiResponse.success("{}");
+        })).hasMessage("Plugin with id 'plugin' did not respond within 100 ms while requesting for 'authenticate-user' of the 'authorization' extension.");
+
+        assertThat(statisticsFor("plugin", "authorization authenticate-user"))
+                .containsEntry("Timed out", 1L)
+                .containsEntry("Requests", 0L);
+        hung.countDown();
+    }
+
+    @Test
+    void shouldNotLetMoreRequestsThanAllowedThroughToAPlugin() throws Exception {
+        when(systemEnvironment.getPluginRequestTimeoutInMillis("plugin", "authorization")).thenReturn(100L);
+        when(systemEnvironment.getPluginRequestMaxConcurrent("plugin", "authorization")).thenReturn(1);
+        CountDownLatch hung = new CountDownLatch(1);
+        CountDownLatch returned = new CountDownLatch(1);
+
+        assertThatThrownBy(() -> executor.submit("plugin", "authorization", "authenticate-user", () -> {
+            awaitIgnoringInterrupts(hung);
+            returned.countDown();
+            return DefaultGoPluginApiResponse.success("{}");
+        })).hasMessageContaining("did not respond within 100 ms");
+
+        assertThatThrownBy(() -> executor.submit("plugin", "authorization", "authenticate-user", () -> DefaultGoPluginApiResponse.success("{}")))
+                .hasMessage("Plugin with id 'plugin' is already handling 1 requests for the 'authorization' extension, gave up waiting to request for 'authenticate-user'.");
+        assertThat(statisticsFor("plugin", "authorization authenticate-user"))
+                .containsEntry("Rejected", 1L)
+                .containsEntry("Requests in progress for the extension", 1L);
+
+        hung.countDown();
+        assertThat(returned.await(5, TimeUnit.SECONDS)).isTrue();
+        GoPluginApiResponse response = executor.submit("plugin", "authorization", "authenticate-user", () -> DefaultGoPluginApiResponse.success("{}"));
+        assertThat(response.responseBody()).isEqualTo("{}");
+    }
+
+    @Test
+    void shouldLimitRequestsThatMayTimeOutEvenWithoutAConfiguredLimit() throws Exception {
+        when(systemEnvironment.getPluginRequestTimeoutInMillis("plugin", "authorization")).thenReturn(50L);
+        int limit = PluginRequestExecutor.DEFAULT_MAX_CONCURRENT_WITH_TIMEOUT;
+        CountDownLatch hung = new CountDownLatch(1);
+        CountDownLatch returned = new CountDownLatch(limit);
+
+        for (int i = 0; i < limit; i++) {
+            assertThatThrownBy(() -> executor.submit("plugin", "authorization", "authenticate-user", () -> {
+                awaitIgnoringInterrupts(hung);
+                returned.countDown();
+                return DefaultGoPluginApiResponse.success("{}");
+            })).hasMessageContaining("did not respond within 50 ms");
+        }
+
+        assertThatThrownBy(() -> executor.submit("plugin", "authorization", "authenticate-user", () -> DefaultGoPluginApiResponse.success("{}")))
+                .hasMessage("Plugin with id 'plugin' is already handling " + limit + " requests for the 'authorization' extension, gave up waiting to request for 'authenticate-user'.");
+        assertThat(statisticsFor("plugin", "authorization authenticate-user"))
+                .containsEntry("Timed out", (long) limit)
+                .containsEntry("Rejected", 1L)
+                .containsEntry("Requests in progress for the extension", (long) limit);
+
+        hung.countDown();
+        assertThat(returned.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private Map<String, Object> statisticsFor(String pluginId, String request) {
+        return (Map<String, Object>) ((Map<String, Object>) executor.statistics().get(pluginId)).get(request);
+    }
+
+    // a hung plugin does not necessarily give up when the request is cancelled
+    private static void awaitIgnoringInterrupts(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await(5, TimeUnit.SECONDS);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -16,6 +16,7 @@
 package com.thoughtworks.go.plugin.access.analytics;
 
 import com.thoughtworks.go.plugin.access.ExtensionsRegistry;
+import com.thoughtworks.go.plugin.access.PluginRequestExecutor;
 import com.thoughtworks.go.plugin.api.request.GoPluginApiRequest;
 import com.thoughtworks.go.plugin.api.response.DefaultGoPluginApiResponse;
 import com.thoughtworks.go.plugin.domain.analytics.AnalyticsData;
@@ -24,6 +25,7 @@ import com.thoughtworks.go.plugin.domain.analytics.SupportedAnalytics;
 import com.thoughtworks.go.plugin.domain.common.PluginConstants;
 import com.thoughtworks.go.plugin.infra.PluginManager;
 import com.thoughtworks.go.plugin.infra.plugininfo.GoPluginDescriptor;
+import com.thoughtworks.go.util.SystemEnvironment;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
@@ -67,7 +69,7 @@ public class AnalyticsExtensionTest {
         when(pluginManager.resolveExtensionVersion(PLUGIN_ID, ANALYTICS_EXTENSION, Arrays.asList("1.0", "2.0"))).thenReturn("1.0", "2.0");
         when(pluginManager.isPluginOfType(ANALYTICS_EXTENSION, PLUGIN_ID)).thenReturn(true);
 
-        analyticsExtension = new AnalyticsExtension(pluginManager, extensionsRegistry);
+        analyticsExtension = new AnalyticsExtension(pluginManager, extensionsRegistry, new PluginRequestExecutor(new SystemEnvironment()));
         metadataStore = AnalyticsMetadataStore.instance();
 
         requestArgumentCaptor = ArgumentCaptor.forClass(GoPluginApiRequest.class);
@@ -18,6 +18,7 @@ package com.thoughtworks.go.plugin.access.artifact;
 import com.thoughtworks.go.config.ArtifactStore;
 import com.thoughtworks.go.domain.ArtifactPlan;
 import com.thoughtworks.go.plugin.access.ExtensionsRegistry;
+import com.thoughtworks.go.plugin.access.PluginRequestExecutor;
 import com.thoughtworks.go.plugin.access.artifact.model.PublishArtifactResponse;
 import com.thoughtworks.go.plugin.api.request.GoPluginApiRequest;
 import com.thoughtworks.go.plugin.api.response.DefaultGoPluginApiResponse;
@@ -26,6 +27,7 @@ import com.thoughtworks.go.plugin.api.response.validation.ValidationResult;
 import com.thoughtworks.go.plugin.domain.common.Metadata;
 import com.thoughtworks.go.plugin.domain.common.PluginConfiguration;
 import com.thoughtworks.go.plugin.infra.PluginManager;
+import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.util.command.EnvironmentVariableContext;
 import org.hamcrest.Matchers;
 import org.junit.Before;
@@ -61,7 +63,7 @@ public abstract class ArtifactExtensionTestBase {
     public void setUp() throws Exception {
         pluginManager = mock(PluginManager.class);
         extensionsRegistry = mock(ExtensionsRegistry.class);
-        artifactExtension = new ArtifactExtension(pluginManager, extensionsRegistry);
+        artifactExtension = new ArtifactExtension(pluginManager, extensionsRegistry, new PluginRequestExecutor(new SystemEnvironment()));
         requestArgumentCaptor = ArgumentCaptor.forClass(GoPluginApiRequest.class);
 
 
@@ -71,14 +73,14 @@ public abstract class ArtifactExtensionTestBase {
 
     @Test
     public void shouldGetSupportedVersions() {
-        final ArtifactExtension artifactExtension = new ArtifactExtension(null, null);
+        final ArtifactExtension artifactExtension = new ArtifactExtension(null, null, null);
 
         assertThat(artifactExtension.goSupportedVersions(), containsInAnyOrder("1.0", "2.0"));
     }
 
     @Test
     public void shouldRegisterMessageHandler() {
-        final ArtifactExtension artifactExtension = new ArtifactExtension(null, null);
+        final ArtifactExtension artifactExtension = new ArtifactExtension(null, null, null);
 
         assertTrue(artifactExtension.getMessageHandler(ArtifactMessageConverterV1.VERSION) instanceof ArtifactMessageConverterV1);
         assertTrue(artifactExtension.getMessageHandler(ArtifactMessageConverterV2.VERSION) instanceof ArtifactMessageConverterV2);
@@ -16,6 +16,7 @@
 package com.thoughtworks.go.plugin.access.configrepo;
 
 import com.thoughtworks.go.plugin.access.ExtensionsRegistry;
+import com.thoughtworks.go.plugin.access.PluginRequestExecutor;
 import com.thoughtworks.go.plugin.access.common.AbstractExtension;
 import com.thoughtworks.go.plugin.access.configrepo.v1.JsonMessageHandler1_0;
 import com.thoughtworks.go.plugin.access.configrepo.v2.JsonMessageHandler2_0;
@@ -27,6 +28,7 @@ import com.thoughtworks.go.plugin.configrepo.contract.CRParseResult;
 import com.thoughtworks.go.plugin.configrepo.contract.CRPipeline;
 import com.thoughtworks.go.plugin.domain.configrepo.Capabilities;
 import com.thoughtworks.go.plugin.infra.PluginManager;
+import com.thoughtworks.go.util.SystemEnvironment;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -72,7 +74,7 @@ public class ConfigRepoExtensionTest {
     @Before
     public void setUp() throws Exception {
         initMocks(this);
-        extension = new ConfigRepoExtension(pluginManager, extensionsRegistry);
+        extension = new ConfigRepoExtension(pluginManager, extensionsRegistry, new PluginRequestExecutor(new SystemEnvironment()));
         extension.getMessageHandlerMap().put("1.0", jsonMessageHandler1);
         extension.getMessageHandlerMap().put("2.0", jsonMessageHandler2);
         extension.getMessageHandlerMap().put("3.0", jsonMessageHandler3);
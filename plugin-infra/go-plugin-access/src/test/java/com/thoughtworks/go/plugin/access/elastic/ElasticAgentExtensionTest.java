@@ -17,12 +17,14 @@ package com.thoughtworks.go.plugin.access.elastic;
 
 import com.thoughtworks.go.domain.JobIdentifier;
 import com.thoughtworks.go.plugin.access.ExtensionsRegistry;
+import com.thoughtworks.go.plugin.access.PluginRequestExecutor;
 import com.thoughtworks.go.plugin.access.common.AbstractExtension;
 import com.thoughtworks.go.plugin.api.request.GoPluginApiRequest;
 import com.thoughtworks.go.plugin.api.response.DefaultGoPluginApiResponse;
 import com.thoughtworks.go.plugin.infra.PluginManager;
 import com.thoughtworks.go.plugin.infra.plugininfo.GoPluginDescriptor;
 import com.thoughtworks.go.util.ReflectionUtil;
+import com.thoughtworks.go.util.SystemEnvironment;
 import org.hamcrest.Matchers;
 import org.junit.Assert;
 import org.junit.Before;
@@ -59,7 +61,7 @@ public class ElasticAgentExtensionTest {
         extensionsRegistry = mock(ExtensionsRegistry.class);
         requestArgumentCaptor = ArgumentCaptor.forClass(GoPluginApiRequest.class);
         descriptor = mock(GoPluginDescriptor.class);
-        extension = new ElasticAgentExtension(pluginManager, extensionsRegistry);
+        extension = new ElasticAgentExtension(pluginManager, extensionsRegistry, new PluginRequestExecutor(new SystemEnvironment()));
 
         when(descriptor.id()).thenReturn(PLUGIN_ID);
 
@@ -95,7 +97,7 @@ public class ElasticAgentExtensionTest {
 
     @Test
     public void shouldExtendAbstractExtension() {
-        assertTrue(new ElasticAgentExtension(pluginManager, extensionsRegistry) instanceof AbstractExtension);
+        assertTrue(new ElasticAgentExtension(pluginManager, extensionsRegistry, new PluginRequestExecutor(new SystemEnvironment())) instanceof AbstractExtension);
     }
 
     @Test
@@ -15,11 +15,13 @@
  */
 package com.thoughtworks.go.plugin.access.notification;
 
+import com.thoughtworks.go.plugin.access.PluginRequestExecutor;
 import com.thoughtworks.go.plugin.access.common.settings.PluginSettingsJsonMessageHandler;
 import com.thoughtworks.go.plugin.access.common.settings.PluginSettingsJsonMessageHandler2_0;
 import com.thoughtworks.go.plugin.access.notification.v3.JsonMessageHandler3_0;
 import com.thoughtworks.go.plugin.api.request.GoPluginApiRequest;
 import com.thoughtworks.go.plugin.api.response.DefaultGoPluginApiResponse;
+import com.thoughtworks.go.util.SystemEnvironment;
 import org.junit.Assert;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
@@ -69,7 +71,7 @@ public class NotificationExtensionTestForV3 extends NotificationExtensionTestBas
         when(pluginManager.isPluginOfType(NOTIFICATION_EXTENSION, "pluginId")).thenReturn(true);
         when(pluginManager.submitTo(eq("pluginId"), eq(NOTIFICATION_EXTENSION), requestArgumentCaptor.capture())).thenReturn(new DefaultGoPluginApiResponse(SUCCESS_RESPONSE_CODE, ""));
 
-        NotificationExtension extension = new NotificationExtension(pluginManager, extensionsRegistry);
+        NotificationExtension extension = new NotificationExtension(pluginManager, extensionsRegistry, new PluginRequestExecutor(new SystemEnvironment()));
         extension.notifyPluginSettingsChange("pluginId", settings);
 
         assertRequest(requestArgumentCaptor.getValue(), NOTIFICATION_EXTENSION,
@@ -16,6 +16,7 @@
 package com.thoughtworks.go.plugin.access.packagematerial;
 
 import com.thoughtworks.go.plugin.access.ExtensionsRegistry;
+import com.thoughtworks.go.plugin.access.PluginRequestExecutor;
 import com.thoughtworks.go.plugin.access.common.AbstractExtension;
 import com.thoughtworks.go.plugin.access.common.settings.PluginSettingsConfiguration;
 import com.thoughtworks.go.plugin.access.common.settings.PluginSettingsConstants;
@@ -30,6 +31,7 @@ import com.thoughtworks.go.plugin.api.response.Result;
 import com.thoughtworks.go.plugin.api.response.validation.ValidationError;
 import com.thoughtworks.go.plugin.api.response.validation.ValidationResult;
 import com.thoughtworks.go.plugin.infra.PluginManager;
+import com.thoughtworks.go.util.SystemEnvironment;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -76,7 +78,7 @@ public class PackageRepositoryExtensionTest {
     @Before
     public void setUp() throws Exception {
         initMocks(this);
-        extension = new PackageRepositoryExtension(pluginManager, extensionsRegistry);
+        extension = new PackageRepositoryExtension(pluginManager, extensionsRegistry, new PluginRequestExecutor(new SystemEnvironment()));
 
         pluginSettingsConfiguration = new PluginSettingsConfiguration();
 
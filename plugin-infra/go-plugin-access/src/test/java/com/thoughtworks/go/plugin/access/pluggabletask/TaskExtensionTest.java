@@ -16,6 +16,7 @@
 package com.thoughtworks.go.plugin.access.pluggabletask;
 
 import com.thoughtworks.go.plugin.access.ExtensionsRegistry;
+import com.thoughtworks.go.plugin.access.PluginRequestExecutor;
 import com.thoughtworks.go.plugin.access.common.AbstractExtension;
 import com.thoughtworks.go.plugin.access.common.settings.PluginSettingsConfiguration;
 import com.thoughtworks.go.plugin.access.common.settings.PluginSettingsConstants;
@@ -31,6 +32,7 @@ import com.thoughtworks.go.plugin.infra.Action;
 import com.thoughtworks.go.plugin.infra.ActionWithReturn;
 import com.thoughtworks.go.plugin.infra.PluginManager;
 import com.thoughtworks.go.plugin.infra.plugininfo.GoPluginDescriptor;
+import com.thoughtworks.go.util.SystemEnvironment;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -67,7 +69,7 @@ public class TaskExtensionTest {
     @Before
     public void setup() {
         initMocks(this);
-        extension = new TaskExtension(pluginManager, extensionsRegistry);
+        extension = new TaskExtension(pluginManager, extensionsRegistry, new PluginRequestExecutor(new SystemEnvironment()));
         pluginId = "plugin-id";
         when(pluginManager.resolveExtensionVersion(eq(pluginId), eq(PLUGGABLE_TASK_EXTENSION), any(List.class))).thenReturn("1.0");
 
@@ -166,7 +168,7 @@ public class TaskExtensionTest {
     @Test
     public void shouldValidateTask() {
         GoPluginApiResponse response = mock(GoPluginApiResponse.class);
-        TaskExtension jsonBasedTaskExtension = new TaskExtension(pluginManager, extensionsRegistry);
+        TaskExtension jsonBasedTaskExtension = new TaskExtension(pluginManager, extensionsRegistry, new PluginRequestExecutor(new SystemEnvironment()));
         TaskConfig taskConfig = mock(TaskConfig.class);
 
         when(response.responseCode()).thenReturn(DefaultGoApiResponse.SUCCESS_RESPONSE_CODE);
@@ -17,6 +17,7 @@ package com.thoughtworks.go.plugin.access.secrets;
 
 import com.thoughtworks.go.config.SecretConfig;
 import com.thoughtworks.go.plugin.access.ExtensionsRegistry;
+import com.thoughtworks.go.plugin.access.PluginRequestExecutor;
 import com.thoughtworks.go.plugin.access.common.AbstractExtension;
 import com.thoughtworks.go.plugin.access.exceptions.SecretResolutionFailureException;
 import com.thoughtworks.go.plugin.access.secrets.v1.SecretsExtensionV1;
@@ -24,6 +25,7 @@ import com.thoughtworks.go.plugin.domain.secrets.Secret;
 import com.thoughtworks.go.plugin.infra.PluginManager;
 import com.thoughtworks.go.plugin.infra.plugininfo.GoPluginDescriptor;
 import com.thoughtworks.go.util.ReflectionUtil;
+import com.thoughtworks.go.util.SystemEnvironment;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -51,7 +53,7 @@ public class SecretsExtensionTest {
         pluginManager = mock(PluginManager.class);
         extensionsRegistry = mock(ExtensionsRegistry.class);
         descriptor = mock(GoPluginDescriptor.class);
-        extension = new SecretsExtension(pluginManager, extensionsRegistry);
+        extension = new SecretsExtension(pluginManager, extensionsRegistry, new PluginRequestExecutor(new SystemEnvironment()));
 
         when(descriptor.id()).thenReturn(PLUGIN_ID);
         when(pluginManager.getPluginDescriptorFor(PLUGIN_ID)).thenReturn(descriptor);
@@ -76,7 +78,7 @@ public class SecretsExtensionTest {
     void getIcon_shouldDelegateToVersionedExtension() {
         SecretsExtensionV1 secretsExtensionV1 = mock(SecretsExtensionV1.class);
         Map<String, VersionedSecretsExtension> secretsExtensionMap = singletonMap("1.0", secretsExtensionV1);
-        extension = new SecretsExtension(pluginManager, extensionsRegistry, secretsExtensionMap);
+        extension = new SecretsExtension(pluginManager, extensionsRegistry, new PluginRequestExecutor(new SystemEnvironment()), secretsExtensionMap);
 
         when(pluginManager.resolveExtensionVersion(PLUGIN_ID, SECRETS_EXTENSION, SUPPORTED_VERSIONS)).thenReturn(SecretsExtensionV1.VERSION);
 
@@ -89,7 +91,7 @@ public class SecretsExtensionTest {
     void getSecretsConfigMetadata_shouldDelegateToVersionedExtension() {
         SecretsExtensionV1 secretsExtensionV1 = mock(SecretsExtensionV1.class);
         Map<String, VersionedSecretsExtension> secretsExtensionMap = singletonMap("1.0", secretsExtensionV1);
-        extension = new SecretsExtension(pluginManager, extensionsRegistry, secretsExtensionMap);
+        extension = new SecretsExtension(pluginManager, extensionsRegistry, new PluginRequestExecutor(new SystemEnvironment()), secretsExtensionMap);
 
         when(pluginManager.resolveExtensionVersion(PLUGIN_ID, SECRETS_EXTENSION, SUPPORTED_VERSIONS)).thenReturn(SecretsExtensionV1.VERSION);
 
@@ -102,7 +104,7 @@ public class SecretsExtensionTest {
     void getSecretsConfigView_shouldDelegateToVersionedExtension() {
         SecretsExtensionV1 secretsExtensionV1 = mock(SecretsExtensionV1.class);
         Map<String, VersionedSecretsExtension> secretsExtensionMap = singletonMap("1.0", secretsExtensionV1);
-        extension = new SecretsExtension(pluginManager, extensionsRegistry, secretsExtensionMap);
+        extension = new SecretsExtension(pluginManager, extensionsRegistry, new PluginRequestExecutor(new SystemEnvironment()), secretsExtensionMap);
 
         when(pluginManager.resolveExtensionVersion(PLUGIN_ID, SECRETS_EXTENSION, SUPPORTED_VERSIONS)).thenReturn(SecretsExtensionV1.VERSION);
 
@@ -115,7 +117,7 @@ public class SecretsExtensionTest {
     void validateSecretsConfig_shouldDelegateToVersionedExtension() {
         SecretsExtensionV1 secretsExtensionV1 = mock(SecretsExtensionV1.class);
         Map<String, VersionedSecretsExtension> secretsExtensionMap = singletonMap("1.0", secretsExtensionV1);
-        extension = new SecretsExtension(pluginManager, extensionsRegistry, secretsExtensionMap);
+        extension = new SecretsExtension(pluginManager, extensionsRegistry, new PluginRequestExecutor(new SystemEnvironment()), secretsExtensionMap);
         Map<String, String> configuration = singletonMap("key", "val");
 
         when(pluginManager.resolveExtensionVersion(PLUGIN_ID, SECRETS_EXTENSION, SUPPORTED_VERSIONS)).thenReturn(SecretsExtensionV1.VERSION);
@@ -132,7 +134,7 @@ public class SecretsExtensionTest {
             final SecretConfig secretConfig = new SecretConfig("file", "cd.go.secret.file");
             SecretsExtensionV1 secretsExtensionV1 = mock(SecretsExtensionV1.class);
             Map<String, VersionedSecretsExtension> secretsExtensionMap = singletonMap("1.0", secretsExtensionV1);
-            extension = new SecretsExtension(pluginManager, extensionsRegistry, secretsExtensionMap);
+            extension = new SecretsExtension(pluginManager, extensionsRegistry, new PluginRequestExecutor(new SystemEnvironment()), secretsExtensionMap);
             Set<String> keys = new HashSet<>(asList("key1", "key2"));
 
             when(pluginManager.resolveExtensionVersion(PLUGIN_ID, SECRETS_EXTENSION, SUPPORTED_VERSIONS)).thenReturn(SecretsExtensionV1.VERSION);
@@ -152,7 +154,7 @@ public class SecretsExtensionTest {
         void shouldBombIfResolvedSecretContainsAdditionalSecrets() {
             SecretsExtensionV1 secretsExtensionV1 = mock(SecretsExtensionV1.class);
             Map<String, VersionedSecretsExtension> secretsExtensionMap = singletonMap("1.0", secretsExtensionV1);
-            extension = new SecretsExtension(pluginManager, extensionsRegistry, secretsExtensionMap);
+            extension = new SecretsExtension(pluginManager, extensionsRegistry, new PluginRequestExecutor(new SystemEnvironment()), secretsExtensionMap);
             final Set<String> secretsToLookup = new HashSet<>(asList("key1", "key2"));
             final SecretConfig secretConfig = new SecretConfig("file", "cd.go.secret.file");
 
@@ -172,7 +174,7 @@ public class SecretsExtensionTest {
         void shouldBombWhenPluginReturnsPartiallyResolvedSecretParams() {
             SecretsExtensionV1 secretsExtensionV1 = mock(SecretsExtensionV1.class);
             Map<String, VersionedSecretsExtension> secretsExtensionMap = singletonMap("1.0", secretsExtensionV1);
-            extension = new SecretsExtension(pluginManager, extensionsRegistry, secretsExtensionMap);
+            extension = new SecretsExtension(pluginManager, extensionsRegistry, new PluginRequestExecutor(new SystemEnvironment()), secretsExtensionMap);
             final Set<String> secretsToLookup = new HashSet<>(asList("key1", "key2", "key3"));
 
             when(pluginManager.resolveExtensionVersion(PLUGIN_ID, SECRETS_EXTENSION, SUPPORTED_VERSIONS)).thenReturn(SecretsExtensionV1.VERSION);
@@ -186,6 +188,6 @@ public class SecretsExtensionTest {
 
     @Test
     void shouldExtendAbstractExtension() {
-        assertThat(new SecretsExtension(pluginManager, extensionsRegistry) instanceof AbstractExtension).isTrue();
+        assertThat(new SecretsExtension(pluginManager, extensionsRegistry, new PluginRequestExecutor(new SystemEnvironment())) instanceof AbstractExtension).isTrue();
     }
 }
@@ -19,6 +19,7 @@ import com.thoughtworks.go.config.commands.EntityConfigUpdateCommand;
 import com.thoughtworks.go.config.update.FullConfigUpdateCommand;
 import com.thoughtworks.go.config.validation.GoConfigValidity;
 import com.thoughtworks.go.domain.ConfigErrors;
+import com.thoughtworks.go.listener.ConfigChangeSetListener;
 import com.thoughtworks.go.listener.ConfigChangedListener;
 import com.thoughtworks.go.listener.EntityConfigChangedListener;
 import com.thoughtworks.go.server.domain.Username;
@@ -51,7 +52,6 @@ public class CachedGoConfig {
     private List<ConfigChangedListener> listeners = new ArrayList<>();
     private volatile CruiseConfig currentConfig;
     private volatile CruiseConfig currentConfigForEdit;
-    private volatile CruiseConfig mergedCurrentConfigForEdit;
     private volatile GoConfigHolder configHolder;
     private volatile Exception lastException;
 
@@ -118,6 +118,8 @@ public class CachedGoConfig {
 
     public CruiseConfig loadMergedForEditing() {
         loadConfigIfNull();
+        GoConfigHolder holder = configHolder;
+        CruiseConfig mergedCurrentConfigForEdit = holder == null ? null : holder.mergedConfigForEdit();
         if (mergedCurrentConfigForEdit == null) {
             // when there are no partials, just return standard config for edit
             return currentConfigForEdit;
@@ -133,7 +135,7 @@ public class CachedGoConfig {
     }
 
     public void loadConfigIfNull() {
-        if (currentConfig == null || currentConfigForEdit == null || configHolder == null || (mergedCurrentConfigForEdit == null && !cachedGoPartials.lastValidPartials().isEmpty())) {
+        if (currentConfig == null || currentConfigForEdit == null || configHolder == null || (!configHolder.hasMergedConfigForEdit() && !cachedGoPartials.lastValidPartials().isEmpty())) {
             forceReload();
         }
     }
@@ -187,15 +189,27 @@ public class CachedGoConfig {
             this.configHolder = configHolder;
             this.currentConfig = this.configHolder.config;
             this.currentConfigForEdit = this.configHolder.configForEdit;
-            this.mergedCurrentConfigForEdit = configHolder.mergedConfigForEdit;
             serverHealthService.update(ServerHealthState.success(HealthStateType.invalidConfig()));
         }
     }
 
     private synchronized void saveValidConfigToCacheAndNotifyConfigChangeListeners(GoConfigHolder configHolder) {
+        CruiseConfig previousConfig = this.currentConfig;
         saveValidConfigToCache(configHolder);
         if (configHolder != null) {
-            notifyListeners(currentConfig);
+            notifyListeners(currentConfig, changesBetween(previousConfig, currentConfig));
+        }
+    }
+
+    private ConfigChangeSet changesBetween(CruiseConfig previousConfig, CruiseConfig newConfig) {
+        if (previousConfig == null) {
+            return null;
+        }
+        try {
+            return ConfigChangeSet.between(previousConfig, newConfig);
+        } catch (Exception e) {
+            LOGGER.warn("Could not work out what changed in the config, notifying listeners of the whole config", e);
+            return null;
         }
     }
 
@@ -219,10 +233,19 @@ public class CachedGoConfig {
     }
 
     private synchronized void notifyListeners(CruiseConfig newCruiseConfig) {
+        notifyListeners(newCruiseConfig, null);
+    }
+
+    private synchronized void notifyListeners(CruiseConfig newCruiseConfig, ConfigChangeSet changes) {
         LOGGER.info("About to notify config listeners");
+        LOGGER.debug("[Configuration Changed] {}", changes);
         for (ConfigChangedListener listener : listeners) {
             try {
-                listener.onConfigChange(newCruiseConfig);
+                if (changes != null && listener instanceof ConfigChangeSetListener) {
+                    ((ConfigChangeSetListener) listener).onConfigChange(newCruiseConfig, changes);
+                } else {
+                    listener.onConfigChange(newCruiseConfig);
+                }
             } catch (Exception e) {
                 LOGGER.error("Failed to fire config changed event for listener: {}", listener, e);
             }
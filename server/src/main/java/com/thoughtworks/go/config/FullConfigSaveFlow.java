@@ -126,10 +126,13 @@ public abstract class FullConfigSaveFlow {
     protected void setMergedConfigForEditOn(GoConfigHolder validatedConfigHolder, List<PartialConfig> partials) {
         if (partials.isEmpty()) return;
 
-        LOGGER.debug("[Config Save] Updating GoConfigHolder with mergedCruiseConfigForEdit: Starting.");
-        CruiseConfig mergedCruiseConfigForEdit = cloner.deepClone(validatedConfigHolder.configForEdit);
-        mergedCruiseConfigForEdit.merge(partials, true);
-        validatedConfigHolder.mergedConfigForEdit = mergedCruiseConfigForEdit;
-        LOGGER.debug("[Config Save] Updating GoConfigHolder with mergedCruiseConfigForEdit: Done.");
+        CruiseConfig configForEdit = validatedConfigHolder.configForEdit;
+        validatedConfigHolder.mergeConfigForEditOnFirstUse(() -> {
+            LOGGER.debug("[Config Save] Updating GoConfigHolder with mergedCruiseConfigForEdit: Starting.");
+            CruiseConfig mergedCruiseConfigForEdit = cloner.deepClone(configForEdit);
+            mergedCruiseConfigForEdit.merge(partials, true);
+            LOGGER.debug("[Config Save] Updating GoConfigHolder with mergedCruiseConfigForEdit: Done.");
+            return mergedCruiseConfigForEdit;
+        });
     }
 }
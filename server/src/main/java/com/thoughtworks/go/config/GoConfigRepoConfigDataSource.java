@@ -29,6 +29,9 @@ import com.thoughtworks.go.serverhealth.HealthStateScope;
 import com.thoughtworks.go.serverhealth.HealthStateType;
 import com.thoughtworks.go.serverhealth.ServerHealthService;
 import com.thoughtworks.go.serverhealth.ServerHealthState;
+import com.thoughtworks.go.util.Clock;
+import com.thoughtworks.go.util.SystemEnvironment;
+import com.thoughtworks.go.util.SystemTimeClock;
 import org.jetbrains.annotations.TestOnly;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,7 +42,10 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static java.util.Collections.synchronizedSet;
 
@@ -54,19 +60,30 @@ public class GoConfigRepoConfigDataSource implements ChangedRepoConfigWatchListL
     private final GoConfigWatchList configWatchList;
     private final ConfigReposMaterialParseResultManager configReposMaterialParseResultManager;
     private final GoConfigService goConfigService;
+    private final SystemEnvironment systemEnvironment;
+    private final Clock clock;
 
+    private final Map<String, ParsedRevision> lastSuccessfulParses = new ConcurrentHashMap<>();
     private final List<PartialConfigUpdateCompletedListener> listeners = new ArrayList<>();
     private final Set<ConfigRepoConfig> modifiedConfigRepoConfigsAwaitingParse = synchronizedSet(new HashSet<>());
 
     @Autowired
     public GoConfigRepoConfigDataSource(GoConfigWatchList configWatchList, GoConfigPluginService configPluginService,
                                         ServerHealthService healthService, ConfigRepoService configRepoService,
-                                        GoConfigService goConfigService) {
+                                        GoConfigService goConfigService, SystemEnvironment systemEnvironment) {
+        this(configWatchList, configPluginService, healthService, configRepoService, goConfigService, systemEnvironment, new SystemTimeClock());
+    }
+
+    GoConfigRepoConfigDataSource(GoConfigWatchList configWatchList, GoConfigPluginService configPluginService,
+                                 ServerHealthService healthService, ConfigRepoService configRepoService,
+                                 GoConfigService goConfigService, SystemEnvironment systemEnvironment, Clock clock) {
         this.configReposMaterialParseResultManager = new ConfigReposMaterialParseResultManager(healthService, configRepoService);
         this.configPluginService = configPluginService;
         this.serverHealthService = healthService;
         this.configWatchList = configWatchList;
         this.goConfigService = goConfigService;
+        this.systemEnvironment = systemEnvironment;
+        this.clock = clock;
 
         this.configWatchList.registerListener(this);
         this.goConfigService.register(new EntityConfigChangedListener<ConfigRepoConfig>() {
@@ -120,6 +137,7 @@ public class GoConfigRepoConfigDataSource implements ChangedRepoConfigWatchListL
                 this.configReposMaterialParseResultManager.remove(fingerprint);
             }
         }
+        lastSuccessfulParses.keySet().removeIf(fingerprint -> !newConfigRepos.hasMaterialWithFingerprint(fingerprint));
     }
 
     public void onCheckoutComplete(MaterialConfig material, File folder, Modification modification) {
@@ -141,9 +159,17 @@ public class GoConfigRepoConfigDataSource implements ChangedRepoConfigWatchListL
             ConfigRepoConfig repoConfig = configWatchList.getConfigRepoForMaterial(material);
             HealthStateScope scope = HealthStateScope.forPartialConfigRepo(repoConfig);
 
+            PartialConfig alreadyParsed = recentlyParsedPartial(fingerprint, repoConfig, modification);
+            if (alreadyParsed != null) {
+                LOGGER.debug("Skipping parse of configuration material {}, revision {} was parsed recently", material.getDisplayName(), modification.getRevision());
+                notifySuccessListeners(repoConfig, alreadyParsed);
+                return;
+            }
+
             try {
                 plugin = this.configPluginService.partialConfigProviderFor(repoConfig);
             } catch (Exception ex) {
+                this.lastSuccessfulParses.remove(fingerprint);
                 this.configReposMaterialParseResultManager.parseFailed(fingerprint, modification, ex);
                 LOGGER.error("Failed to get config plugin for {}", material.getDisplayName());
                 String message = String.format("Failed to obtain configuration plugin '%s' for material: %s",
@@ -167,10 +193,12 @@ public class GoConfigRepoConfigDataSource implements ChangedRepoConfigWatchListL
 
                 newPart.setOrigins(new RepoConfigOrigin(repoConfig, modification.getRevision()));
                 this.configReposMaterialParseResultManager.parseSuccess(fingerprint, modification, newPart);
+                this.lastSuccessfulParses.put(fingerprint, new ParsedRevision(repoConfig, modification.getRevision(), clock.currentTimeMillis()));
 
                 // it is the responsibility of the success listeners to clear the ServerHealthState
                 notifySuccessListeners(repoConfig, newPart);
             } catch (Exception ex) {
+                this.lastSuccessfulParses.remove(fingerprint);
                 this.configReposMaterialParseResultManager.parseFailed(fingerprint, modification, ex);
                 LOGGER.error("Failed to parse configuration material {} by {}", material.getDisplayName(), plugin.displayName(), ex);
                 String message = String.format("Parsing configuration repository using %s failed for material: %s",
@@ -183,6 +211,35 @@ public class GoConfigRepoConfigDataSource implements ChangedRepoConfigWatchListL
         }
     }
 
+    /**
+     * The partial parsed from the same revision of the same config repo a short while ago, if that parse succeeded and
+     * nothing has asked for a reparse since. Material updates hand over every config repo on every poll, and asking
+     * the plugin to parse an unchanged checkout again is only useful to pick up new branches for templated config
+     * repos, which {@link SystemEnvironment#CONFIG_REPO_PARSE_CACHE_TTL_IN_SECONDS} bounds.
+     */
+    private PartialConfig recentlyParsedPartial(String fingerprint, ConfigRepoConfig repoConfig, Modification modification) {
+        ParsedRevision parsed = lastSuccessfulParses.get(fingerprint);
+        if (parsed == null || modification == null || modification.getRevision() == null) {
+            return null;
+        }
+
+        if (!parsed.isFor(repoConfig, modification.getRevision()) || modifiedConfigRepoConfigsAwaitingParse.contains(repoConfig)) {
+            return null;
+        }
+
+        if (clock.currentTimeMillis() - parsed.parsedAt >= systemEnvironment.getConfigRepoParseCacheTtlInMillis()) {
+            return null;
+        }
+
+        PartialConfigParseResult result = configReposMaterialParseResultManager.get(fingerprint);
+        if (result == null || !result.isSuccessful() || result.getLatestParsedModification() == null ||
+                !parsed.revision.equals(result.getLatestParsedModification().getRevision())) {
+            // a reparse has been asked for since
+            return null;
+        }
+        return result.lastGoodPartialConfig();
+    }
+
     protected void onConfigRepoConfigChange(ConfigRepoConfig configRepoConfig) {
         modifiedConfigRepoConfigsAwaitingParse.add(configRepoConfig);
     }
@@ -221,6 +278,22 @@ public class GoConfigRepoConfigDataSource implements ChangedRepoConfigWatchListL
         return result.getLatestParsedModification().getRevision();
     }
 
+    private static class ParsedRevision {
+        private final ConfigRepoConfig repoConfig;
+        private final String revision;
+        private final long parsedAt;
+
+        private ParsedRevision(ConfigRepoConfig repoConfig, String revision, long parsedAt) {
+            this.repoConfig = repoConfig;
+            this.revision = revision;
+            this.parsedAt = parsedAt;
+        }
+
+        private boolean isFor(ConfigRepoConfig repoConfig, String revision) {
+            return this.revision != null && this.revision.equals(revision) && Objects.equals(this.repoConfig, repoConfig);
+        }
+    }
+
     private class LoadContext implements PartialConfigLoadContext {
         private final ConfigRepoConfig repoConfig;
 
@@ -288,7 +288,7 @@ public class GoFileConfigDataSource {
     }
 
     public synchronized EntityConfigSaveResult writeEntityWithLock(EntityConfigUpdateCommand updatingCommand, GoConfigHolder configHolder, Username currentUser) {
-        CruiseConfig modifiedConfig = cloner.deepClone(configHolder.configForEdit);
+        CruiseConfig modifiedConfig = cloner.deepCloneSharingPartials(configHolder.configForEdit);
         try {
             updatingCommand.update(modifiedConfig);
         } catch (Exception e) {
@@ -496,14 +496,9 @@ public class GoFileConfigDataSource {
                 writeToConfigXmlFile(configAsXml);
                 checkinConfigToGitRepo(partials, preprocessedConfig, configAsXml, md5, currentUser.getUsername().toString());
                 LOGGER.debug("[Config Save] Done writing with lock");
-                CruiseConfig mergedCruiseConfigForEdit = modifiedConfig;
-                if (!partials.isEmpty()) {
-                    LOGGER.debug("[Config Save] Updating GoConfigHolder with mergedCruiseConfigForEdit: Starting.");
-                    mergedCruiseConfigForEdit = cloner.deepClone(modifiedConfig);
-                    mergedCruiseConfigForEdit.merge(partials, true);
-                    LOGGER.debug("[Config Save] Updating GoConfigHolder with mergedCruiseConfigForEdit: Done.");
-                }
-                return new EntityConfigSaveResult(updatingCommand.getPreprocessedEntityConfig(), new GoConfigHolder(preprocessedConfig, modifiedConfig, mergedCruiseConfigForEdit));
+                GoConfigHolder configHolder = new GoConfigHolder(preprocessedConfig, modifiedConfig, modifiedConfig);
+                updateMergedConfigForEdit(configHolder, partials);
+                return new EntityConfigSaveResult(updatingCommand.getPreprocessedEntityConfig(), configHolder);
             } catch (Exception e) {
                 throw new RuntimeException("failed to save : " + e.getMessage());
             }
@@ -540,9 +535,14 @@ public class GoFileConfigDataSource {
 
     private void updateMergedConfigForEdit(GoConfigHolder validatedConfigHolder, List<PartialConfig> partialConfigs) {
         if (partialConfigs.isEmpty()) return;
-        CruiseConfig mergedCruiseConfigForEdit = cloner.deepClone(validatedConfigHolder.configForEdit);
-        mergedCruiseConfigForEdit.merge(partialConfigs, true);
-        validatedConfigHolder.mergedConfigForEdit = mergedCruiseConfigForEdit;
+        CruiseConfig configForEdit = validatedConfigHolder.configForEdit;
+        validatedConfigHolder.mergeConfigForEditOnFirstUse(() -> {
+            LOGGER.debug("[Config Save] Updating GoConfigHolder with mergedCruiseConfigForEdit: Starting.");
+            CruiseConfig mergedCruiseConfigForEdit = cloner.deepClone(configForEdit);
+            mergedCruiseConfigForEdit.merge(partialConfigs, true);
+            LOGGER.debug("[Config Save] Updating GoConfigHolder with mergedCruiseConfigForEdit: Done.");
+            return mergedCruiseConfigForEdit;
+        });
     }
 
     private GoConfigHolder trySavingFullConfig(FullConfigUpdateCommand updatingCommand, GoConfigHolder configHolder, List<PartialConfig> partials) throws Exception {
@@ -594,7 +594,7 @@ public class GoFileConfigDataSource {
     }
 
     private String getUnmergedConfig(UpdateConfigCommand updatingCommand, GoConfigHolder configHolder, List<PartialConfig> partials) throws Exception {
-        CruiseConfig deepCloneForEdit = cloner.deepClone(configHolder.configForEdit);
+        CruiseConfig deepCloneForEdit = cloner.deepCloneSharingPartials(configHolder.configForEdit);
         deepCloneForEdit.setPartials(partials);
         CruiseConfig config = updatingCommand.update(deepCloneForEdit);
         String configAsXml = configAsXml(config, false);
@@ -25,9 +25,15 @@ import com.thoughtworks.go.serverhealth.HealthStateScope;
 import com.thoughtworks.go.serverhealth.HealthStateType;
 import com.thoughtworks.go.serverhealth.ServerHealthService;
 import com.thoughtworks.go.serverhealth.ServerHealthState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import static java.lang.String.format;
@@ -35,6 +41,7 @@ import static java.lang.String.format;
 @Component
 public class PartialConfigService implements PartialConfigUpdateCompletedListener, ChangedRepoConfigWatchListListener {
     public static final String INVALID_CRUISE_CONFIG_MERGE = "Invalid Merged Configuration";
+    private static final Logger LOGGER = LoggerFactory.getLogger(PartialConfigService.class);
 
     private final GoConfigService goConfigService;
     private final CachedGoPartials cachedGoPartials;
@@ -43,6 +50,10 @@ public class PartialConfigService implements PartialConfigUpdateCompletedListene
     private final GoConfigRepoConfigDataSource repoConfigDataSource;
     private final GoConfigWatchList configWatchList;
 
+    // partials waiting to be merged, by fingerprint; a later partial of a config repo replaces the queued one
+    private final Map<String, QueuedPartial> queuedPartials = new LinkedHashMap<>();
+    private final Object mergeLock = new Object();
+
     @Autowired
     public PartialConfigService(GoConfigRepoConfigDataSource repoConfigDataSource,
                                 GoConfigWatchList configWatchList, GoConfigService goConfigService,
@@ -80,24 +91,8 @@ public class PartialConfigService implements PartialConfigUpdateCompletedListene
                 //validate rules
                 hasRuleViolations(incoming);
 
-                /* Validate config.
-                UpdateConfig will fail to update the configuration if there are validation errors.
-                Even in case of rules violation, the updateConfig method is required to populate a server health message
-                of rule violation, which also will be shown on the config repo spa.*/
-                if (updateConfig(incoming, fingerprint, repoConfig)) {
-                    // mark the partial as valid when config is updated successfully for it.
-                    cachedGoPartials.markAsValid(fingerprint, incoming);
-                } else {
-                    /* If the latest partial is invalid for the current config repo rules.
-                    1. Apply latest config repo rules to previous valid partial.
-                    2. If the previous valid partials are valid - do nothing - as the error for the latest partial is
-                       already populated and config contains the last known partial.
-                    3. If the previous valid partials are invalid - remove those config without clearing the server health message.
-                       Server health message is populated for the same fingerprint with the latest parse failure message.*/
-                    if (hasRuleViolationsOnPreviousValidPartial(repoConfig)) {
-                        removeCachedLastValidPartial(fingerprint);
-                    }
-                }
+                queueForMerge(new QueuedPartial(repoConfig, fingerprint, incoming));
+                mergeQueuedPartials();
             }
         }
     }
@@ -129,6 +124,72 @@ public class PartialConfigService implements PartialConfigUpdateCompletedListene
         return new PartialConfigUpdateCommand(partial, fingerprint, cachedGoPartials);
     }
 
+    private void queueForMerge(QueuedPartial queuedPartial) {
+        synchronized (queuedPartials) {
+            queuedPartials.put(queuedPartial.fingerprint, queuedPartial);
+        }
+    }
+
+    /**
+     * Merges every partial queued so far. Config repos are parsed on several threads, and partials that arrive while
+     * a merge is in progress are merged together by whichever thread gets to merge next, so that a burst of config
+     * repo updates costs one merge and validation of the whole config instead of one per config repo. The calling
+     * thread returns once its own partial has been merged, either by itself or along with another thread's.
+     */
+    private void mergeQueuedPartials() {
+        synchronized (mergeLock) {
+            List<QueuedPartial> batch;
+            synchronized (queuedPartials) {
+                batch = new ArrayList<>(queuedPartials.values());
+                queuedPartials.clear();
+            }
+
+            if (batch.size() > 1 && updateConfig(batch)) {
+                batch.forEach(queued -> cachedGoPartials.markAsValid(queued.fingerprint, queued.partial));
+                return;
+            }
+
+            // one at a time, so that a merge error is reported against the config repo which caused it
+            batch.forEach(this::merge);
+        }
+    }
+
+    private void merge(QueuedPartial queued) {
+        /* Validate config.
+        UpdateConfig will fail to update the configuration if there are validation errors.
+        Even in case of rules violation, the updateConfig method is required to populate a server health message
+        of rule violation, which also will be shown on the config repo spa.*/
+        if (updateConfig(queued.partial, queued.fingerprint, queued.repoConfig)) {
+            // mark the partial as valid when config is updated successfully for it.
+            cachedGoPartials.markAsValid(queued.fingerprint, queued.partial);
+        } else {
+            /* If the latest partial is invalid for the current config repo rules.
+            1. Apply latest config repo rules to previous valid partial.
+            2. If the previous valid partials are valid - do nothing - as the error for the latest partial is
+               already populated and config contains the last known partial.
+            3. If the previous valid partials are invalid - remove those config without clearing the server health message.
+               Server health message is populated for the same fingerprint with the latest parse failure message.*/
+            if (hasRuleViolationsOnPreviousValidPartial(queued.repoConfig)) {
+                removeCachedLastValidPartial(queued.fingerprint);
+            }
+        }
+    }
+
+    private boolean updateConfig(List<QueuedPartial> batch) {
+        try {
+            goConfigService.updateConfig(cruiseConfig -> {
+                for (QueuedPartial queued : batch) {
+                    buildUpdateCommand(queued.partial, queued.fingerprint).update(cruiseConfig);
+                }
+                return cruiseConfig;
+            });
+            return true;
+        } catch (Exception e) {
+            LOGGER.debug("Merging {} partials together failed, merging them one at a time. Reason: {}", batch.size(), e.getMessage());
+            return false;
+        }
+    }
+
     private void removeCachedLastValidPartial(String fingerprint) {
         //  remove cached partial without clearing server health message.
         cachedGoPartials.removeValidWithoutClearingServerHealthMessage(fingerprint);
@@ -186,6 +247,18 @@ public class PartialConfigService implements PartialConfigUpdateCompletedListene
         return !partialConfigHelper.isEquivalent(previous, partial);
     }
 
+    private static class QueuedPartial {
+        private final ConfigRepoConfig repoConfig;
+        private final String fingerprint;
+        private final PartialConfig partial;
+
+        private QueuedPartial(ConfigRepoConfig repoConfig, String fingerprint, PartialConfig partial) {
+            this.repoConfig = repoConfig;
+            this.fingerprint = fingerprint;
+            this.partial = partial;
+        }
+    }
+
     private boolean hasRuleViolations(PartialConfig partial) {
         if (null == partial) {
             return false;
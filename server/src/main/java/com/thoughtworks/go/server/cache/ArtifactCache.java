@@ -17,10 +17,11 @@ package com.thoughtworks.go.server.cache;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import com.thoughtworks.go.server.service.ArtifactsDirHolder;
 
@@ -33,8 +34,11 @@ public abstract class ArtifactCache<T> {
     protected ConcurrentMap<T, Exception> pendingExceptions = new ConcurrentHashMap<>();
     public static final String CACHE_ARTIFACTS_FOLDER = "cache/artifacts/";
 
-    public ArtifactCache(ArtifactsDirHolder artifactsDirHolder) {
+    private final Executor cacheCreators;
+
+    public ArtifactCache(ArtifactsDirHolder artifactsDirHolder, Executor cacheCreators) {
         this.artifactsDirHolder = artifactsDirHolder;
+        this.cacheCreators = cacheCreators;
     }
 
     public boolean cacheCreated(T artifactLocation) throws Exception {
@@ -58,7 +62,13 @@ public abstract class ArtifactCache<T> {
     }
 
     private boolean cacheAlreadyCreated(T artifactLocation) {
-        return cachedFile(artifactLocation).exists();
+        File cachedFile = cachedFile(artifactLocation);
+        if (cachedFile.exists()) {
+            // remember when it was last asked for, so that the least recently used files can be evicted first
+            cachedFile.setLastModified(System.currentTimeMillis());
+            return true;
+        }
+        return false;
     }
 
     private boolean currentlyCreatingCache(T artifactLocation) {
@@ -68,9 +78,8 @@ public abstract class ArtifactCache<T> {
     protected void startCacheCreationThread(final T artifactLocation) {
         boolean inserted = pendingCacheFiles.add(artifactLocation);
         if (inserted) {
-            Thread cacheCreatorThread = new Thread("cache-creator-thread-" + UUID.randomUUID().toString()) {
-                @Override
-                public void run() {
+            try {
+                cacheCreators.execute(() -> {
                     try {
                         createCachedFile(artifactLocation);
                     } catch (Exception e) {
@@ -78,9 +87,11 @@ public abstract class ArtifactCache<T> {
                     } finally {
                         pendingCacheFiles.remove(artifactLocation);
                     }
-                }
-            };
-            cacheCreatorThread.start();
+                });
+            } catch (RejectedExecutionException e) {
+                pendingCacheFiles.remove(artifactLocation);
+                throw e;
+            }
         }
     }
 
@@ -23,6 +23,7 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 public class CacheKeyGenerator {
+    public static final String DEFAULT_NAMESPACE = "default";
     private static final String DELIMITER = ".$";
     private final Class<?> clazz;
 
@@ -47,7 +48,20 @@ public class CacheKeyGenerator {
         allArgs.add(0, clazz.getName());
         allArgs.add(1, identifier);
 
-        return StringUtils.join(allArgs, DELIMITER).intern();
+        return StringUtils.join(allArgs, DELIMITER);
+    }
+
+    /**
+     * @return the simple class name and identifier a key was generated from, such as
+     * <code>StageSqlMapDao.stageHistories</code>, or {@link #DEFAULT_NAMESPACE} for keys not generated by this class
+     */
+    public static String namespaceOf(String key) {
+        String[] parts = StringUtils.splitByWholeSeparator(key, DELIMITER, 3);
+        if (parts.length < 2) {
+            return DEFAULT_NAMESPACE;
+        }
+        String className = parts[0];
+        return className.substring(className.lastIndexOf('.') + 1) + "." + parts[1];
     }
 
     private static boolean isAllowed(Object arg) {
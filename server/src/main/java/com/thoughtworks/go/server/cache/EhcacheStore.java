@@ -0,0 +1,86 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.cache;
+
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.Element;
+import net.sf.ehcache.statistics.StatisticsGateway;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * @understands keeping the entries of a {@link GoCache} in a single ehcache LRU store
+ */
+public class EhcacheStore implements GoCacheStore {
+    private final Ehcache ehCache;
+
+    public EhcacheStore(Ehcache ehCache) {
+        this.ehCache = ehCache;
+    }
+
+    @Override
+    public Object get(String key) {
+        Element element = ehCache.get(key);
+        return element == null ? null : element.getObjectValue();
+    }
+
+    @Override
+    public void put(String key, Object value) {
+        ehCache.put(new Element(key, value));
+    }
+
+    @Override
+    public boolean remove(String key) {
+        return ehCache.remove(key);
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return ehCache.isKeyInCache(key);
+    }
+
+    @Override
+    public List<String> keys() {
+        return ehCache.getKeys();
+    }
+
+    @Override
+    public void clear() {
+        ehCache.removeAll();
+    }
+
+    @Override
+    public void onEviction(BiConsumer<String, Object> listener) {
+        ehCache.getCacheEventNotificationService().registerListener(new CacheEvictionListener(listener));
+    }
+
+    @Override
+    public Map<String, Object> statistics() {
+        StatisticsGateway statistics = ehCache.getStatistics();
+        LinkedHashMap<String, Object> json = new LinkedHashMap<>();
+        json.put("Backend", "ehcache");
+        json.put("Maximum Elements in Memory", ehCache.getCacheConfiguration().getMaxEntriesLocalHeap());
+        json.put("Cache Size", statistics.getSize());
+        json.put("Hits", statistics.cacheHitCount());
+        json.put("Miss", statistics.cacheMissCount());
+        json.put("Hit Ratio", statistics.cacheHitRatio());
+        json.put("Eviction", statistics.cacheEvictedCount());
+        return json;
+    }
+}
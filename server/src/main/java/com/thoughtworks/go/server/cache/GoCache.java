@@ -17,12 +17,9 @@ package com.thoughtworks.go.server.cache;
 
 import com.thoughtworks.go.domain.NullUser;
 import com.thoughtworks.go.domain.PersistentObject;
+import com.thoughtworks.go.server.cache.KeyedLockProvider.KeyedLock;
 import com.thoughtworks.go.server.transaction.TransactionSynchronizationManager;
 import net.sf.ehcache.Ehcache;
-import net.sf.ehcache.Element;
-import net.sf.ehcache.config.CacheConfiguration;
-import net.sf.ehcache.event.CacheEventListener;
-import net.sf.ehcache.statistics.StatisticsGateway;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,19 +27,21 @@ import org.springframework.transaction.support.TransactionSynchronizationAdapter
 
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import static com.thoughtworks.go.util.ExceptionUtils.bomb;
 
 /**
- * @understands storing and retrieving objects from an underlying LRU cache
+ * @understands storing and retrieving objects from an underlying {@link GoCacheStore}
  */
 public class GoCache {
     private final ThreadLocal<Boolean> doNotServeForTransaction = new ThreadLocal<>();
 
     public static final String SUB_KEY_DELIMITER = "!_#$#_!";
 
-    private Ehcache ehCache;
+    private final GoCacheStore store;
+    private final KeyedLockProvider keyedLocks = KeyedLockProvider.shared();
 
     private static final Logger LOGGER = LoggerFactory.getLogger(GoCache.class);
     private TransactionSynchronizationManager transactionSynchronizationManager;
@@ -56,27 +55,23 @@ public class GoCache {
      * @deprecated only for tests
      */
     public GoCache(GoCache goCache) {
-        this(goCache.ehCache, goCache.transactionSynchronizationManager);
+        this(goCache.store, goCache.transactionSynchronizationManager);
     }
 
     public GoCache(Ehcache cache, TransactionSynchronizationManager transactionSynchronizationManager) {
-        this.ehCache = cache;
+        this(new EhcacheStore(cache), transactionSynchronizationManager);
+    }
+
+    public GoCache(GoCacheStore store, TransactionSynchronizationManager transactionSynchronizationManager) {
+        this.store = store;
         this.transactionSynchronizationManager = transactionSynchronizationManager;
         this.nullObjectClasses = new HashSet<>();
         nullObjectClasses.add(NullUser.class);
         registerAsCacheEvictionListener();
     }
 
-    public void removeListener(CacheEventListener cacheEventListener) {
-        ehCache.getCacheEventNotificationService().unregisterListener(cacheEventListener);
-    }
-
-    public void addListener(CacheEventListener listener) {
-        ehCache.getCacheEventNotificationService().registerListener(listener);
-    }
-
     protected void registerAsCacheEvictionListener() {
-        ehCache.getCacheEventNotificationService().registerListener(new CacheEvictionListener(this));
+        store.onEviction(this::removeAssociations);
     }
 
     public void stopServingForTransaction() {
@@ -101,11 +96,11 @@ public class GoCache {
             LOGGER.debug("transaction active during cache put for {} = {}", key, value, new IllegalStateException());
             return;
         }
-        ehCache.put(new Element(key, value));
+        store.put(key, value);
     }
 
     public List<String> getKeys() {
-        return ehCache.getKeys();
+        return store.keys();
     }
 
     /**
@@ -137,10 +132,6 @@ public class GoCache {
         }
     }
 
-    public void flush() {
-        ehCache.flush();
-    }
-
     public Object get(String key) {
         if (doNotServeForTransaction()) {
             return null;
@@ -149,11 +140,10 @@ public class GoCache {
     }
 
     private Object getWithoutTransactionCheck(String key) {
-        Element element = ehCache.get(key);
-        if (element == null) {
+        Object value = store.get(key);
+        if (value == null) {
             return null;
         }
-        Object value = element.getObjectValue();
         logUnsavedPersistentObjectInteraction(value, "PersistentObject {} without an id served out of cache.");
         return value;
     }
@@ -163,18 +153,18 @@ public class GoCache {
     }
 
     public void clear() {
-        ehCache.removeAll();
+        store.clear();
     }
 
     public boolean remove(String key) {
-        synchronized (key.intern()) {
+        try (KeyedLock lock = keyedLocks.acquire(key)) {
             Object value = getWithoutTransactionCheck(key);
             if (value instanceof KeyList) {
                 for (String subKey : (KeyList) value) {
-                    ehCache.remove(compositeKey(key, subKey));
+                    store.remove(compositeKey(key, subKey));
                 }
             }
-            return ehCache.remove(key);
+            return store.remove(key);
         }
     }
 
@@ -192,7 +182,7 @@ public class GoCache {
 
     public void put(String key, String subKey, Object value) {
         KeyList subKeys;
-        synchronized (key.intern()) {
+        try (KeyedLock lock = keyedLocks.acquire(key)) {
             subKeys = subKeyFamily(key);
             if (subKeys == null) {
                 subKeys = new KeyList();
@@ -209,10 +199,10 @@ public class GoCache {
         }
     }
 
-    public void removeAssociations(String key, Element element) {
-        if (element.getObjectValue() instanceof KeyList) {
-            synchronized (key.intern()) {
-                for (String subkey : (KeyList) element.getObjectValue()) {
+    public void removeAssociations(String key, Object value) {
+        if (value instanceof KeyList) {
+            try (KeyedLock lock = keyedLocks.acquire(key)) {
+                for (String subkey : (KeyList) value) {
                     remove(compositeKey(key, subkey));
                 }
             }
@@ -220,19 +210,18 @@ public class GoCache {
             String[] parts = StringUtils.splitByWholeSeparator(key, SUB_KEY_DELIMITER);
             String parentKey = parts[0];
             String childKey = parts[1];
-            synchronized (parentKey.intern()) {
-                Element parent = ehCache.get(parentKey);
-                if (parent == null) {
+            try (KeyedLock lock = keyedLocks.acquire(parentKey)) {
+                Object parent = store.get(parentKey);
+                if (!(parent instanceof KeyList)) {
                     return;
                 }
-                KeyList subKeys = (KeyList) parent.getObjectValue();
-                subKeys.remove(childKey);
+                ((KeyList) parent).remove(childKey);
             }
         }
     }
 
-    public boolean isKeyInCache(Object key) {
-        return ehCache.isKeyInCache(key);
+    public boolean isKeyInCache(String key) {
+        return store.containsKey(key);
     }
 
     private KeyList subKeyFamily(String parentKey) {
@@ -248,7 +237,7 @@ public class GoCache {
     }
 
     public void remove(String key, String subKey) {
-        synchronized (key.intern()) {
+        try (KeyedLock lock = keyedLocks.acquire(key)) {
             KeyList subKeys = subKeyFamily(key);
             if(subKeys == null) {
                 return;
@@ -258,12 +247,8 @@ public class GoCache {
         }
     }
 
-    public StatisticsGateway statistics() {
-        return ehCache.getStatistics();
-    }
-
-    public CacheConfiguration configuration() {
-        return ehCache.getCacheConfiguration();
+    public Map<String, Object> statistics() {
+        return store.statistics();
     }
 
     private interface Predicate {
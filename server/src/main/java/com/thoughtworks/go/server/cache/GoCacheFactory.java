@@ -16,6 +16,7 @@
 package com.thoughtworks.go.server.cache;
 
 import com.thoughtworks.go.server.transaction.TransactionSynchronizationManager;
+import com.thoughtworks.go.util.SystemEnvironment;
 import net.sf.ehcache.Cache;
 import net.sf.ehcache.CacheManager;
 import net.sf.ehcache.config.CacheConfiguration;
@@ -26,10 +27,14 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.stereotype.Component;
 
+import static com.thoughtworks.go.util.SystemEnvironment.GO_CACHE_BACKEND;
+
 @Component
 public class GoCacheFactory {
+    static final String EHCACHE_BACKEND = "ehcache";
 
     private final CacheConfiguration cacheConfiguration;
+    private final SystemEnvironment systemEnvironment;
     private TransactionSynchronizationManager transactionSynchronizationManager;
 
     static {
@@ -37,9 +42,11 @@ public class GoCacheFactory {
     }
 
     public GoCacheFactory(TransactionSynchronizationManager transactionSynchronizationManager,
+                          SystemEnvironment systemEnvironment,
                           @Value("${cruise.cache.elements.limit}") int maxElementsInMemory,
                           @Value("${cruise.cache.is.eternal}") boolean eternal) {
         this.transactionSynchronizationManager = transactionSynchronizationManager;
+        this.systemEnvironment = systemEnvironment;
         cacheConfiguration = new CacheConfiguration("goCache", maxElementsInMemory)
                 .persistence(new PersistenceConfiguration().strategy(PersistenceConfiguration.Strategy.NONE))
                 .eternal(eternal)
@@ -48,10 +55,16 @@ public class GoCacheFactory {
 
     @Bean(name = "goCache")
     public GoCache createCache() {
-        CacheManager cacheManager = CacheManager.newInstance(new Configuration().name(getClass().getName()));
-        Cache cache = new Cache(cacheConfiguration);
-        cacheManager.addCache(cache);
-        return new GoCache(cache, transactionSynchronizationManager);
+        return new GoCache(createStore(), transactionSynchronizationManager);
     }
 
+    GoCacheStore createStore() {
+        if (EHCACHE_BACKEND.equalsIgnoreCase(systemEnvironment.get(GO_CACHE_BACKEND))) {
+            CacheManager cacheManager = CacheManager.newInstance(new Configuration().name(getClass().getName()));
+            Cache cache = new Cache(cacheConfiguration);
+            cacheManager.addCache(cache);
+            return new EhcacheStore(cache);
+        }
+        return new RegionedCacheStore(cacheConfiguration.getMaxEntriesLocalHeap(), systemEnvironment::getPropertyImpl);
+    }
 }
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.cache;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * @understands holding the entries of a {@link GoCache}
+ */
+public interface GoCacheStore {
+    Object get(String key);
+
+    void put(String key, Object value);
+
+    boolean remove(String key);
+
+    boolean containsKey(String key);
+
+    List<String> keys();
+
+    void clear();
+
+    /**
+     * Registers a callback for entries the store drops on its own, because of size limits or expiry. Entries removed
+     * through {@link #remove(String)} or {@link #clear()} are not reported.
+     */
+    void onEviction(BiConsumer<String, Object> listener);
+
+    Map<String, Object> statistics();
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @understands handing out a lock per key, so that work on a cache key can be serialized without synchronizing on
+ * interned strings.
+ * <p>
+ * A lock only exists while it is held or waited for, so the number of live locks is bounded by the number of threads
+ * rather than by the number of keys ever used. Locks are reentrant and, unlike lock striping, two different keys never
+ * share a lock, which matters because callers nest locks of related keys (for example a cache key and its sub keys).
+ * <p>
+ * Holding the lock of a key while checking the cache and loading a missing value makes concurrent misses on that key
+ * wait for the first load instead of each going to the database.
+ */
+public class KeyedLockProvider {
+    private static final KeyedLockProvider SHARED = new KeyedLockProvider();
+
+    private final Map<String, KeyedLock> locks = new ConcurrentHashMap<>();
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder contendedAcquisitions = new LongAdder();
+    private final LongAdder waitTimeNanos = new LongAdder();
+
+    /**
+     * The provider shared by the cache and the DAOs, which lock the same cache keys.
+     */
+    public static KeyedLockProvider shared() {
+        return SHARED;
+    }
+
+    public KeyedLock acquire(String key) {
+        KeyedLock lock = locks.compute(key, (k, existing) -> {
+            KeyedLock keyedLock = existing == null ? new KeyedLock(k) : existing;
+            keyedLock.users++;
+            return keyedLock;
+        });
+
+        if (!lock.lock.tryLock()) {
+            contendedAcquisitions.increment();
+            long start = System.nanoTime();
+            lock.lock.lock();
+            waitTimeNanos.add(System.nanoTime() - start);
+        }
+        acquisitions.increment();
+        return lock;
+    }
+
+    public Map<String, Object> statistics() {
+        LinkedHashMap<String, Object> json = new LinkedHashMap<>();
+        json.put("Acquisitions", acquisitions.sum());
+        json.put("Contended acquisitions", contendedAcquisitions.sum());
+        json.put("Total wait time in milliseconds", TimeUnit.NANOSECONDS.toMillis(waitTimeNanos.sum()));
+        json.put("Keys currently locked", locks.size());
+        return json;
+    }
+
+    int numberOfLiveLocks() {
+        return locks.size();
+    }
+
+    private void release(KeyedLock lock) {
+        lock.lock.unlock();
+        locks.computeIfPresent(lock.key, (k, existing) -> --existing.users == 0 ? null : existing);
+    }
+
+    public class KeyedLock implements AutoCloseable {
+        private final String key;
+        private final ReentrantLock lock = new ReentrantLock();
+        // guarded by the map entry of the key
+        private int users;
+
+        private KeyedLock(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public void close() {
+            release(this);
+        }
+    }
+}
@@ -15,6 +15,7 @@
  */
 package com.thoughtworks.go.server.cache;
 
+import com.thoughtworks.go.server.cache.KeyedLockProvider.KeyedLock;
 import com.thoughtworks.go.server.transaction.TransactionSynchronizationManager;
 import net.sf.ehcache.Ehcache;
 import net.sf.ehcache.Element;
@@ -24,6 +25,7 @@ import java.util.function.Supplier;
 
 public class LazyCache {
     private final Ehcache ehcache;
+    private final KeyedLockProvider keyedLocks = KeyedLockProvider.shared();
     private final TransactionSynchronizationManager transactionSynchronizationManager;
 
     public LazyCache(Ehcache ehcache, TransactionSynchronizationManager transactionSynchronizationManager) {
@@ -38,7 +40,7 @@ public class LazyCache {
             return (T) element.getObjectValue();
         }
 
-        synchronized (key.intern()) {
+        try (KeyedLock lock = keyedLocks.acquire(key)) {
             element = ehcache.get(key);
             if (element != null) {
                 return (T) element.getObjectValue();
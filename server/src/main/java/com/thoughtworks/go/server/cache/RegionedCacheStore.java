@@ -0,0 +1,215 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * @understands keeping the entries of a {@link GoCache} in bounded regions by cache key namespace
+ * <p>
+ * Every region is a W-TinyLFU cache of its own, so a flood of entries that are read only once (such as old stage
+ * history pages) can neither push out entries of other regions nor frequently read entries of its own region.
+ * Namespaces are taken from {@link CacheKeyGenerator#namespaceOf(String)}; sub keys live in the region of their parent.
+ * <p>
+ * A namespace gets a region of its own when <code>go.cache.region.&lt;namespace&gt;.max.entries</code> or
+ * <code>go.cache.region.&lt;namespace&gt;.max.weight</code> is set; the region then holds at most that many entries or
+ * entries of at most that total weight, where a collection or a map weighs as much as the number of elements in it.
+ * All other namespaces share the default region, which holds at most the default limit of entries. So however many
+ * namespaces come and go, they never hold more than the default limit of entries together, while any of them, such as
+ * the keys not generated by {@link CacheKeyGenerator}, can still use the whole of it.
+ */
+public class RegionedCacheStore implements GoCacheStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RegionedCacheStore.class);
+    private static final String MAX_ENTRIES_PROPERTY = "go.cache.region.%s.max.entries";
+    private static final String MAX_WEIGHT_PROPERTY = "go.cache.region.%s.max.weight";
+    private static final Object NULL = new Object();
+
+    private final Map<String, Cache<String, Object>> regions = new ConcurrentHashMap<>();
+    private final Map<String, Cache<String, Object>> regionOfNamespace = new ConcurrentHashMap<>();
+    private final Function<String, String> properties;
+    private final Executor executor;
+    private final Cache<String, Object> defaultRegion;
+    private volatile BiConsumer<String, Object> evictionListener = (key, value) -> {
+    };
+
+    public RegionedCacheStore(long defaultMaxEntries, Function<String, String> properties) {
+        this(defaultMaxEntries, properties, ForkJoinPool.commonPool());
+    }
+
+    RegionedCacheStore(long defaultMaxEntries, Function<String, String> properties, Executor executor) {
+        this.properties = properties;
+        this.executor = executor;
+        this.defaultRegion = build(newRegion().maximumSize(defaultMaxEntries));
+        this.regions.put(CacheKeyGenerator.DEFAULT_NAMESPACE, defaultRegion);
+    }
+
+    @Override
+    public Object get(String key) {
+        return fromStore(region(key).getIfPresent(key));
+    }
+
+    @Override
+    public void put(String key, Object value) {
+        region(key).put(key, value == null ? NULL : value);
+    }
+
+    @Override
+    public boolean remove(String key) {
+        return region(key).asMap().remove(key) != null;
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return region(key).asMap().containsKey(key);
+    }
+
+    @Override
+    public List<String> keys() {
+        List<String> keys = new ArrayList<>();
+        for (Cache<String, Object> region : regions.values()) {
+            keys.addAll(region.asMap().keySet());
+        }
+        return keys;
+    }
+
+    @Override
+    public void clear() {
+        for (Cache<String, Object> region : regions.values()) {
+            region.invalidateAll();
+        }
+    }
+
+    @Override
+    public void onEviction(BiConsumer<String, Object> listener) {
+        this.evictionListener = listener;
+    }
+
+    @Override
+    public Map<String, Object> statistics() {
+        LinkedHashMap<String, Object> json = new LinkedHashMap<>();
+        json.put("Backend", "regions");
+        new TreeMap<>(regions).forEach((namespace, region) -> json.put(namespace, statistics(region)));
+        return json;
+    }
+
+    /**
+     * Performs pending maintenance, such as evictions, right away. Only meant for tests.
+     */
+    void cleanUp() {
+        regions.values().forEach(Cache::cleanUp);
+    }
+
+    private Map<String, Object> statistics(Cache<String, Object> region) {
+        LinkedHashMap<String, Object> json = new LinkedHashMap<>();
+        CacheStats stats = region.stats();
+        region.policy().eviction().ifPresent(eviction -> {
+            if (eviction.isWeighted()) {
+                json.put("Maximum weight", eviction.getMaximum());
+                json.put("Weight", eviction.weightedSize().orElse(0L));
+            } else {
+                json.put("Maximum entries", eviction.getMaximum());
+            }
+        });
+        json.put("Entries", region.estimatedSize());
+        json.put("Hits", stats.hitCount());
+        json.put("Miss", stats.missCount());
+        json.put("Hit Ratio", stats.hitRate());
+        json.put("Eviction", stats.evictionCount());
+        json.put("Evicted weight", stats.evictionWeight());
+        return json;
+    }
+
+    private Cache<String, Object> region(String key) {
+        String parentKey = StringUtils.substringBefore(key, GoCache.SUB_KEY_DELIMITER);
+        return regionOfNamespace.computeIfAbsent(CacheKeyGenerator.namespaceOf(parentKey), this::regionFor);
+    }
+
+    private Cache<String, Object> regionFor(String namespace) {
+        if (CacheKeyGenerator.DEFAULT_NAMESPACE.equals(namespace)) {
+            return defaultRegion;
+        }
+
+        Long maxWeight = limit(MAX_WEIGHT_PROPERTY, namespace);
+        Long maxEntries = maxWeight == null ? limit(MAX_ENTRIES_PROPERTY, namespace) : null;
+        if (maxWeight == null && maxEntries == null) {
+            return defaultRegion;
+        }
+
+        Caffeine<Object, Object> builder = newRegion();
+        if (maxWeight != null) {
+            builder.maximumWeight(maxWeight).weigher(RegionedCacheStore::weigh);
+        } else {
+            builder.maximumSize(maxEntries);
+        }
+        Cache<String, Object> region = build(builder);
+        regions.put(namespace, region);
+        return region;
+    }
+
+    private Caffeine<Object, Object> newRegion() {
+        return Caffeine.newBuilder()
+                .executor(executor)
+                .recordStats();
+    }
+
+    private Cache<String, Object> build(Caffeine<Object, Object> builder) {
+        return builder.<String, Object>removalListener((key, value, cause) -> {
+            if (cause.wasEvicted()) {
+                evictionListener.accept(key, fromStore(value));
+            }
+        }).build();
+    }
+
+    private Long limit(String propertyFormat, String namespace) {
+        String property = String.format(propertyFormat, namespace);
+        String value = properties.apply(property);
+        if (StringUtils.isBlank(value)) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            LOGGER.warn("Ignoring cache limit {}={} as it is not a number.", property, value);
+            return null;
+        }
+    }
+
+    private static int weigh(String key, Object value) {
+        if (value instanceof Collection) {
+            return Math.max(1, ((Collection<?>) value).size());
+        }
+        if (value instanceof Map) {
+            return Math.max(1, ((Map<?, ?>) value).size());
+        }
+        return 1;
+    }
+
+    private static Object fromStore(Object value) {
+        return value == NULL ? null : value;
+    }
+}
@@ -17,26 +17,53 @@ package com.thoughtworks.go.server.cache;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 import java.util.zip.Deflater;
 
 import com.thoughtworks.go.server.service.ArtifactsDirHolder;
 import com.thoughtworks.go.server.web.ArtifactFolder;
+import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.util.ZipUtil;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import static com.thoughtworks.go.util.StringUtil.removeTrailingSlash;
 
+/**
+ * @understands zipping artifact folders ahead of serving them, on a bounded number of threads, keeping the total size
+ * of the zips under a limit by evicting the least recently used ones
+ */
 @Component
 public class ZipArtifactCache extends ArtifactCache<ArtifactFolder> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ZipArtifactCache.class);
+    private static final long ONE_MB = 1024 * 1024;
+
     private final ZipUtil zipUtil;
+    private final long maxSizeInBytes;
 
     @Autowired
-    public ZipArtifactCache(ArtifactsDirHolder artifactsDirHolder, ZipUtil zipUtil) {
-        super(artifactsDirHolder);
+    public ZipArtifactCache(ArtifactsDirHolder artifactsDirHolder, ZipUtil zipUtil, SystemEnvironment systemEnvironment) {
+        this(artifactsDirHolder, zipUtil, cacheCreators(systemEnvironment.get(SystemEnvironment.ARTIFACTS_ZIP_CACHE_CREATOR_THREADS)),
+                systemEnvironment.get(SystemEnvironment.ARTIFACTS_ZIP_CACHE_MAX_SIZE_IN_MB) * ONE_MB);
+    }
+
+    ZipArtifactCache(ArtifactsDirHolder artifactsDirHolder, ZipUtil zipUtil, Executor cacheCreators, long maxSizeInBytes) {
+        super(artifactsDirHolder, cacheCreators);
         this.zipUtil = zipUtil;
+        this.maxSizeInBytes = maxSizeInBytes;
+    }
+
+    private static Executor cacheCreators(int threads) {
+        return Executors.newFixedThreadPool(Math.max(1, threads), new BasicThreadFactory.Builder().namingPattern("cache-creator-thread-%d").daemon(true).build());
     }
 
     @Override void createCachedFile(ArtifactFolder artifactFolder) throws IOException {
@@ -51,6 +78,43 @@ public class ZipArtifactCache extends ArtifactCache<ArtifactFolder> {
             throw e;
         }
         FileUtils.moveFile(cachedTempZip, cachedZip);
+        evictLeastRecentlyUsed(cachedZip);
+    }
+
+    /**
+     * Deletes the zips that were asked for the longest time ago, until the ones left fit in the configured size.
+     * A limit that is not positive disables eviction.
+     */
+    void evictLeastRecentlyUsed(File justCreated) {
+        if (maxSizeInBytes <= 0) {
+            return;
+        }
+
+        File cacheRoot = new File(artifactsDirHolder.getArtifactsDir(), CACHE_ARTIFACTS_FOLDER);
+        if (!cacheRoot.isDirectory()) {
+            return;
+        }
+
+        List<File> zips = new ArrayList<>(FileUtils.listFiles(cacheRoot, new String[]{"zip"}, true));
+        long totalSize = zips.stream().mapToLong(File::length).sum();
+        if (totalSize <= maxSizeInBytes) {
+            return;
+        }
+
+        zips.sort(Comparator.comparingLong(File::lastModified));
+        for (File zip : zips) {
+            if (totalSize <= maxSizeInBytes) {
+                break;
+            }
+            if (zip.equals(justCreated)) {
+                continue;
+            }
+            long size = zip.length();
+            if (FileUtils.deleteQuietly(zip)) {
+                totalSize -= size;
+                LOGGER.debug("Evicted cached artifact zip {}", zip);
+            }
+        }
     }
 
     private File zipToTempFile(File cachedZip) {
@@ -52,7 +52,9 @@ import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
 
+import static com.thoughtworks.go.server.web.StreamingZipArtifactFolderViewFactory.streamingZipViewFactory;
 import static com.thoughtworks.go.server.web.ZipArtifactFolderViewFactory.zipViewFactory;
 import static com.thoughtworks.go.util.ArtifactLogUtil.isConsoleOutput;
 import static com.thoughtworks.go.util.GoConstants.*;
@@ -84,7 +86,7 @@ public class ArtifactsController {
 
         this.folderViewFactory = FileModelAndView.htmlViewFactory();
         this.jsonViewFactory = FileModelAndView.jsonViewfactory();
-        this.zipViewFactory = zipViewFactory(zipArtifactCache);
+        this.zipViewFactory = systemEnvironment.shouldStreamArtifactZips() ? streamingZipViewFactory() : zipViewFactory(zipArtifactCache);
         this.headerConstraint = new HeaderConstraint(systemEnvironment);
         this.consoleLogCharset = systemEnvironment.consoleLogCharsetAsCharset();
     }
@@ -232,7 +234,7 @@ public class ArtifactsController {
         }
 
         if (isConsoleOutput(filePath)) {
-            return putConsoleOutput(jobIdentifier, request.getInputStream());
+            return putConsoleOutput(jobIdentifier, consoleOutputStream(request));
         } else {
             return putArtifact(jobIdentifier, filePath, request.getInputStream());
         }
@@ -320,6 +322,13 @@ public class ArtifactsController {
         }
     }
 
+    private InputStream consoleOutputStream(HttpServletRequest request) throws IOException {
+        if ("gzip".equalsIgnoreCase(request.getHeader("Content-Encoding"))) {
+            return new GZIPInputStream(request.getInputStream());
+        }
+        return request.getInputStream();
+    }
+
     private ModelAndView putArtifact(JobIdentifier jobIdentifier, String filePath,
                                      InputStream inputStream) throws Exception {
         File artifact = artifactsService.findArtifact(jobIdentifier, filePath);
@@ -17,6 +17,8 @@ package com.thoughtworks.go.server.dao;
 
 import com.thoughtworks.go.domain.AccessToken;
 import com.thoughtworks.go.server.service.AccessTokenFilter;
+import com.thoughtworks.go.server.service.VerifiedAccessTokenCache;
+import com.thoughtworks.go.server.transaction.TransactionSynchronizationManager;
 import com.thoughtworks.go.server.transaction.TransactionTemplate;
 import com.thoughtworks.go.util.Clock;
 import org.hibernate.Criteria;
@@ -30,6 +32,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.support.TransactionCallback;
 import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
 
 import java.sql.Timestamp;
 import java.util.Collection;
@@ -41,13 +44,19 @@ public class AccessTokenSqlMapDao extends HibernateDaoSupport implements AccessT
     private SessionFactory sessionFactory;
     private TransactionTemplate transactionTemplate;
     private Clock clock;
+    private final VerifiedAccessTokenCache verifiedAccessTokenCache;
+    private final TransactionSynchronizationManager transactionSynchronizationManager;
 
     @Autowired
     public AccessTokenSqlMapDao(SessionFactory sessionFactory,
-                                TransactionTemplate transactionTemplate, Clock clock) {
+                                TransactionTemplate transactionTemplate, Clock clock,
+                                VerifiedAccessTokenCache verifiedAccessTokenCache,
+                                TransactionSynchronizationManager transactionSynchronizationManager) {
         this.sessionFactory = sessionFactory;
         this.transactionTemplate = transactionTemplate;
         this.clock = clock;
+        this.verifiedAccessTokenCache = verifiedAccessTokenCache;
+        this.transactionSynchronizationManager = transactionSynchronizationManager;
         setSessionFactory(sessionFactory);
     }
 
@@ -57,6 +66,9 @@ public class AccessTokenSqlMapDao extends HibernateDaoSupport implements AccessT
             @Override
             protected void doInTransactionWithoutResult(TransactionStatus status) {
                 sessionFactory.getCurrentSession().saveOrUpdate(AccessToken.class.getName(), accessToken);
+                if (accessToken.isRevoked()) {
+                    invalidateVerifiedTokens(() -> verifiedAccessTokenCache.invalidate(accessToken.getId()));
+                }
             }
         });
     }
@@ -114,6 +126,7 @@ public class AccessTokenSqlMapDao extends HibernateDaoSupport implements AccessT
                         accessToken.revokeBecauseOfUserDelete(byWhom, clock.currentTimestamp());
                         currentSession.saveOrUpdate(accessToken);
                     });
+            invalidateVerifiedTokens(() -> verifiedAccessTokenCache.invalidateTokensOf(usernames));
             return Boolean.TRUE;
         });
     }
@@ -153,4 +166,15 @@ public class AccessTokenSqlMapDao extends HibernateDaoSupport implements AccessT
         });
     }
 
+    // once right away, so that the token stops working at once, and once more after the revocation is committed, in
+    // case the token was verified again against the old row in the meantime
+    private void invalidateVerifiedTokens(Runnable invalidation) {
+        invalidation.run();
+        transactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                invalidation.run();
+            }
+        });
+    }
 }
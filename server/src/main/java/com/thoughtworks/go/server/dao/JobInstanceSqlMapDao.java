@@ -22,6 +22,7 @@ import com.thoughtworks.go.config.elastic.ElasticProfile;
 import com.thoughtworks.go.domain.*;
 import com.thoughtworks.go.server.cache.CacheKeyGenerator;
 import com.thoughtworks.go.server.cache.GoCache;
+import com.thoughtworks.go.server.cache.KeyedLockProvider.KeyedLock;
 import com.thoughtworks.go.server.cache.LazyCache;
 import com.thoughtworks.go.server.database.Database;
 import com.thoughtworks.go.server.domain.JobStatusListener;
@@ -118,7 +119,7 @@ public class JobInstanceSqlMapDao extends SqlMapClientDaoSupport implements JobI
     @Override
     public JobInstance buildByIdWithTransitions(long buildInstanceId) {
         String cacheKey = cacheKeyForJobInstanceWithTransitions(buildInstanceId);
-        synchronized (cacheKey) {
+        try (KeyedLock lock = keyedLocks.acquire(cacheKey)) {
             JobInstance instance = (JobInstance) goCache.get(cacheKey);
             if (instance == null) {
                 instance = job(buildInstanceId, "buildByIdWithTransitions");
@@ -168,7 +169,7 @@ public class JobInstanceSqlMapDao extends SqlMapClientDaoSupport implements JobI
         String activeJobKey = cacheKeyForActiveJob(activeJobId);
         ActiveJob activeJob = (ActiveJob) goCache.get(activeJobKey);
         if (activeJob == null) {
-            synchronized (activeJobKey) {
+            try (KeyedLock lock = keyedLocks.acquire(activeJobKey)) {
                 activeJob = (ActiveJob) goCache.get(activeJobKey);
                 if (activeJob == null) {
                     activeJob = _getActiveJob(activeJobId);
@@ -185,7 +186,7 @@ public class JobInstanceSqlMapDao extends SqlMapClientDaoSupport implements JobI
         String idsCacheKey = cacheKeyForActiveJobIds();
         List<Long> activeJobIds = (List<Long>) goCache.get(idsCacheKey);
 
-        synchronized (idsCacheKey) {
+        try (KeyedLock lock = keyedLocks.acquire(idsCacheKey)) {
             if (activeJobIds == null) {
                 activeJobIds = getSqlMapClientTemplate().queryForList("getActiveJobIds");
                 goCache.put(idsCacheKey, activeJobIds);
@@ -283,7 +284,7 @@ public class JobInstanceSqlMapDao extends SqlMapClientDaoSupport implements JobI
 
         JobIdentifier jobIdentifier = (JobIdentifier) goCache.get(key);
         if (jobIdentifier == null) {
-            synchronized (key) {
+            try (KeyedLock lock = keyedLocks.acquire(key)) {
                 jobIdentifier = (JobIdentifier) goCache.get(key);
                 if (jobIdentifier == null) {
                     Map params = arguments("pipelineName", stageIdentifier.getPipelineName()).
@@ -370,14 +371,14 @@ public class JobInstanceSqlMapDao extends SqlMapClientDaoSupport implements JobI
                 @Override
                 public void afterCommit() {
                     // Methods not extracted in order to make synchronization visible.
-                    synchronized (cacheKeyForJobPlan(jobInstance.getId())) {
+                    try (KeyedLock lock = keyedLocks.acquire(cacheKeyForJobPlan(jobInstance.getId()))) {
                         removeCachedJobPlan(jobInstance);
                     }
-                    synchronized (cacheKeyForActiveJobIds()) {
+                    try (KeyedLock lock = keyedLocks.acquire(cacheKeyForActiveJobIds())) {
                         goCache.remove(cacheKeyForActiveJobIds());
                     }
                     String activeJobKey = cacheKeyForActiveJob(jobInstance.getId());
-                    synchronized (activeJobKey) {
+                    try (KeyedLock lock = keyedLocks.acquire(activeJobKey)) {
                         goCache.remove(activeJobKey);
                     }
                     removeCachedJobInstance(jobInstance);
@@ -393,7 +394,7 @@ public class JobInstanceSqlMapDao extends SqlMapClientDaoSupport implements JobI
 
     private void removeCachedJobInstance(JobInstance jobInstance) {
         String cacheKeyOfJob = cacheKeyForJobInstanceWithTransitions(jobInstance.getId());
-        synchronized (cacheKeyOfJob) {
+        try (KeyedLock lock = keyedLocks.acquire(cacheKeyOfJob)) {
             goCache.remove(cacheKeyOfJob);
         }
     }
@@ -544,7 +545,7 @@ public class JobInstanceSqlMapDao extends SqlMapClientDaoSupport implements JobI
         List<JobPlan> plans = new ArrayList<>();
         for (Long jobId : jobIds) {
             String cacheKey = cacheKeyForJobPlan(jobId);
-            synchronized (cacheKey) {
+            try (KeyedLock lock = keyedLocks.acquire(cacheKey)) {
                 JobPlan jobPlan = (JobPlan) goCache.get(cacheKey);
                 if (jobPlan == null) {
                     jobPlan = _loadJobPlan(jobId);
@@ -594,10 +595,10 @@ public class JobInstanceSqlMapDao extends SqlMapClientDaoSupport implements JobI
     }
 
     public JobStateTransition oldestBuild() {
-        String cacheKeyForOldestBuild = (JobInstanceSqlMapDao.class.getName() + "_oldestBuild").intern();
+        String cacheKeyForOldestBuild = JobInstanceSqlMapDao.class.getName() + "_oldestBuild";
         JobStateTransition oldestBuild = (JobStateTransition) goCache.get(cacheKeyForOldestBuild);
         if (oldestBuild == null) {
-            synchronized (cacheKeyForOldestBuild) {
+            try (KeyedLock lock = keyedLocks.acquire(cacheKeyForOldestBuild)) {
                 oldestBuild = (JobStateTransition) goCache.get(cacheKeyForOldestBuild);
                 if (oldestBuild == null) {
                     oldestBuild = (JobStateTransition) getSqlMapClientTemplate().queryForObject("oldestBuild", new Object());
@@ -28,6 +28,7 @@ import com.thoughtworks.go.presentation.pipelinehistory.PipelineInstanceModel;
 import com.thoughtworks.go.presentation.pipelinehistory.PipelineInstanceModels;
 import com.thoughtworks.go.server.cache.CacheKeyGenerator;
 import com.thoughtworks.go.server.cache.GoCache;
+import com.thoughtworks.go.server.cache.KeyedLockProvider.KeyedLock;
 import com.thoughtworks.go.server.cache.LazyCache;
 import com.thoughtworks.go.server.database.Database;
 import com.thoughtworks.go.server.domain.StageStatusListener;
@@ -223,7 +224,7 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
         String cacheKey = cacheKeyForBuildCauseByNameAndCounter(name, counter);
         BuildCause buildCause = (BuildCause) goCache.get(cacheKey);
         if (buildCause == null) {
-            synchronized (cacheKey) {
+            try (KeyedLock lock = keyedLocks.acquire(cacheKey)) {
                 buildCause = (BuildCause) goCache.get(cacheKey);
                 if (buildCause == null) {
                     Pipeline pipeline = findPipelineByNameAndCounter(name, counter);
@@ -253,7 +254,7 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
         if (stage.passed()) {
             StageIdentifier identifier = stage.getIdentifier();
             String cacheKey = latestSuccessfulStageCacheKey(identifier.getPipelineName(), identifier.getStageName());
-            synchronized (cacheKey) {
+            try (KeyedLock lock = keyedLocks.acquire(cacheKey)) {
                 goCache.put(cacheKey, identifier);
             }
         }
@@ -369,7 +370,7 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
         String cacheKey = cacheKeyForPipelineHistoryByNameAndCounter(pipelineName, pipelineCounter);
         PipelineInstanceModel instanceModel = (PipelineInstanceModel) goCache.get(cacheKey);
         if (instanceModel == null) {
-            synchronized (cacheKey) {
+            try (KeyedLock lock = keyedLocks.acquire(cacheKey)) {
                 instanceModel = (PipelineInstanceModel) goCache.get(cacheKey);
                 if (instanceModel == null) {
                     instanceModel = (PipelineInstanceModel) getSqlMapClientTemplate().queryForObject("getPipelineHistoryByNameAndCounter",
@@ -555,7 +556,7 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
         String cacheKey = pipelineHistoryCacheKey(id);
         PipelineInstanceModel result = (PipelineInstanceModel) goCache.get(cacheKey);
         if (result == null) {
-            synchronized (cacheKey) {
+            try (KeyedLock lock = keyedLocks.acquire(cacheKey)) {
                 result = (PipelineInstanceModel) goCache.get(cacheKey);
                 if (result == null) {
                     result = (PipelineInstanceModel) getSqlMapClientTemplate().queryForObject("getPipelineHistoryById", arguments("id", id).asMap());
@@ -714,7 +715,7 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
             String cacheKey = cacheKeyForLatestPipelineIdByPipelineName(pipelineName);
             List<Long> ids = (List<Long>) goCache.get(cacheKey);
             if (ids == null) {
-                synchronized (cacheKey) {
+                try (KeyedLock lock = keyedLocks.acquire(cacheKey)) {
                     ids = (List<Long>) goCache.get(cacheKey);
                     if (ids == null) {
                         ids = fetchPipelineIds(pipelineName, limit, offset);
@@ -819,7 +820,7 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
 
     public void pause(String pipelineName, String pauseCause, String pauseBy) {
         String cacheKey = cacheKeyForPauseState(pipelineName);
-        synchronized (cacheKey) {
+        try (KeyedLock lock = keyedLocks.acquire(cacheKey)) {
             Map<String, Object> args = arguments("pipelineName", pipelineName).and("pauseCause", pauseCause).and("pauseBy", pauseBy).and("paused", true).and("pausedAt", timeProvider.currentTime()).asMap();
             PipelinePauseInfo pipelinePauseInfo = (PipelinePauseInfo) getSqlMapClientTemplate().queryForObject("getPipelinePauseState", pipelineName);
             if (pipelinePauseInfo == null) {
@@ -833,7 +834,7 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
 
     public void unpause(String pipelineName) {
         String cacheKey = cacheKeyForPauseState(pipelineName);
-        synchronized (cacheKey) {
+        try (KeyedLock lock = keyedLocks.acquire(cacheKey)) {
             Map<String, Object> args = arguments("pipelineName", pipelineName).and("pauseCause", null).and("pauseBy", null).and("paused", false).and("pausedAt", null).asMap();
             getSqlMapClientTemplate().update("updatePipelinePauseState", args);
             goCache.remove(cacheKey);
@@ -845,7 +846,7 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
         String cacheKey = cacheKeyForPauseState(pipelineName);
         PipelinePauseInfo result = (PipelinePauseInfo) goCache.get(cacheKey);
         if (result == null) {
-            synchronized (cacheKey) {
+            try (KeyedLock lock = keyedLocks.acquire(cacheKey)) {
                 result = (PipelinePauseInfo) goCache.get(cacheKey);
                 if (result == null) {
                     result = (PipelinePauseInfo) getSqlMapClientTemplate().queryForObject("getPipelinePauseState", pipelineName);
@@ -870,7 +871,7 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
         String cacheKey = cacheKeyForLatestPassedStage(pipelineId, stage);
         StageIdentifier result = (StageIdentifier) goCache.get(cacheKey);
         if (result == null) {
-            synchronized (cacheKey) {
+            try (KeyedLock lock = keyedLocks.acquire(cacheKey)) {
                 result = (StageIdentifier) goCache.get(cacheKey);
                 if (result == null) {
                     result = (StageIdentifier) getSqlMapClientTemplate().queryForObject("latestPassedStageForPipelineId", arguments("id", pipelineId).and("stage", stage).asMap());
@@ -888,7 +889,7 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
         String cacheKey = cacheKeyForPipelineInstancesTriggeredWithDependencyMaterial(pipelineName, dependencyPipelineIdentifier.getName(), dependencyPipelineIdentifier.getCounter());
         List<PipelineIdentifier> pipelineIdentifiers = (List<PipelineIdentifier>) goCache.get(cacheKey);
         if (pipelineIdentifiers == null) {
-            synchronized (cacheKey) {
+            try (KeyedLock lock = keyedLocks.acquire(cacheKey)) {
                 pipelineIdentifiers = (List<PipelineIdentifier>) goCache.get(cacheKey);
                 if (pipelineIdentifiers == null) {
                     pipelineIdentifiers = (List<PipelineIdentifier>) getSqlMapClientTemplate().queryForList("pipelineInstancesTriggeredOutOfDependencyMaterial",
@@ -909,7 +910,7 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
         String cacheKey = cacheKeyForPipelineInstancesTriggeredWithDependencyMaterial(pipelineName, materialInstance.getFingerprint(), revision);
         List<PipelineIdentifier> pipelineIdentifiers = (List<PipelineIdentifier>) goCache.get(cacheKey);
         if (pipelineIdentifiers == null) {
-            synchronized (cacheKey) {
+            try (KeyedLock lock = keyedLocks.acquire(cacheKey)) {
                 pipelineIdentifiers = (List<PipelineIdentifier>) goCache.get(cacheKey);
                 if (pipelineIdentifiers == null) {
                     pipelineIdentifiers = (List<PipelineIdentifier>) getSqlMapClientTemplate().queryForList("pipelineInstancesTriggeredOffOfMaterialRevision",
@@ -987,7 +988,7 @@ public class PipelineSqlMapDao extends SqlMapClientDaoSupport implements Initial
         String cacheKey = activePipelinesCacheKey();
         Map<CaseInsensitiveString, TreeSet<Long>> result = (Map<CaseInsensitiveString, TreeSet<Long>>) goCache.get(cacheKey);
         if (result == null) {
-            synchronized (cacheKey) {
+            try (KeyedLock lock = keyedLocks.acquire(cacheKey)) {
                 result = (Map<CaseInsensitiveString, TreeSet<Long>>) goCache.get(cacheKey);
                 if (result == null) {
                     List<PipelineInstanceModel> pipelines = getAllPIMs();
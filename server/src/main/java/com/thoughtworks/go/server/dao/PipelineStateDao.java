@@ -15,6 +15,7 @@
  */
 package com.thoughtworks.go.server.dao;
 
+import com.thoughtworks.go.server.cache.KeyedLockProvider.KeyedLock;
 import com.thoughtworks.go.server.database.Database;
 import com.thoughtworks.go.domain.Pipeline;
 import com.thoughtworks.go.domain.PipelineState;
@@ -71,7 +72,7 @@ public class PipelineStateDao extends SqlMapClientDaoSupport implements StageSta
     }
 
     public void lockPipeline(final Pipeline pipeline, AfterCompletionCallback... callbacks) {
-        synchronized (pipelineLockStateCacheKey(pipeline.getName())) {
+        try (KeyedLock lock = keyedLocks.acquire(pipelineLockStateCacheKey(pipeline.getName()))) {
             transactionTemplate.execute(new TransactionCallbackWithoutResult() {
                 @Override
                 protected void doInTransactionWithoutResult(TransactionStatus status) {
@@ -112,7 +113,7 @@ public class PipelineStateDao extends SqlMapClientDaoSupport implements StageSta
     }
 
     public void unlockPipeline(final String pipelineName, AfterCompletionCallback... afterCompletionCallbacks) {
-        synchronized (pipelineLockStateCacheKey(pipelineName)) {
+        try (KeyedLock lock = keyedLocks.acquire(pipelineLockStateCacheKey(pipelineName))) {
             transactionTemplate.execute(new TransactionCallbackWithoutResult() {
                 @Override
                 protected void doInTransactionWithoutResult(TransactionStatus status) {
@@ -151,7 +152,7 @@ public class PipelineStateDao extends SqlMapClientDaoSupport implements StageSta
         if (pipelineState != null) {
             return pipelineState.equals(PipelineState.NOT_LOCKED) ? null : pipelineState;
         }
-        synchronized (cacheKey) {
+        try (KeyedLock lock = keyedLocks.acquire(cacheKey)) {
             pipelineState = (PipelineState) goCache.get(cacheKey);
             if (pipelineState != null) {
                 return pipelineState.equals(PipelineState.NOT_LOCKED) ? null : pipelineState;
@@ -19,6 +19,8 @@ import com.thoughtworks.go.domain.NullPlugin;
 import com.thoughtworks.go.domain.Plugin;
 import com.thoughtworks.go.server.cache.CacheKeyGenerator;
 import com.thoughtworks.go.server.cache.GoCache;
+import com.thoughtworks.go.server.cache.KeyedLockProvider;
+import com.thoughtworks.go.server.cache.KeyedLockProvider.KeyedLock;
 import com.thoughtworks.go.server.transaction.TransactionTemplate;
 import org.hibernate.Query;
 import org.hibernate.SessionFactory;
@@ -38,6 +40,7 @@ public class PluginSqlMapDao extends HibernateDaoSupport implements PluginDao {
     private SessionFactory sessionFactory;
     private TransactionTemplate transactionTemplate;
     private GoCache goCache;
+    private final KeyedLockProvider keyedLocks = KeyedLockProvider.shared();
 
     @Autowired
     public PluginSqlMapDao(SessionFactory sessionFactory, TransactionTemplate transactionTemplate, GoCache goCache) {
@@ -51,7 +54,7 @@ public class PluginSqlMapDao extends HibernateDaoSupport implements PluginDao {
     @Override
     public void saveOrUpdate(final Plugin plugin) {
         String cacheKey = cacheKeyForPluginSettings(plugin.getPluginId());
-        synchronized (cacheKey) {
+        try (KeyedLock lock = keyedLocks.acquire(cacheKey)) {
             transactionTemplate.execute(new TransactionCallbackWithoutResult() {
                 @Override
                 protected void doInTransactionWithoutResult(TransactionStatus status) {
@@ -69,7 +72,7 @@ public class PluginSqlMapDao extends HibernateDaoSupport implements PluginDao {
         if (plugin != null) {
             return plugin;
         }
-        synchronized (cacheKey) {
+        try (KeyedLock lock = keyedLocks.acquire(cacheKey)) {
             plugin = (Plugin) goCache.get(cacheKey);
             if (plugin != null) {
                 return plugin;
@@ -122,7 +125,7 @@ public class PluginSqlMapDao extends HibernateDaoSupport implements PluginDao {
             return;
         }
 
-        synchronized (cacheKey) {
+        try (KeyedLock lock = keyedLocks.acquire(cacheKey)) {
             Plugin found = this.findPlugin(pluginId);
             if (found instanceof NullPlugin) {
                 return;
@@ -29,6 +29,7 @@ import com.thoughtworks.go.presentation.pipelinehistory.StageInstanceModel;
 import com.thoughtworks.go.presentation.pipelinehistory.StageInstanceModels;
 import com.thoughtworks.go.server.cache.CacheKeyGenerator;
 import com.thoughtworks.go.server.cache.GoCache;
+import com.thoughtworks.go.server.cache.KeyedLockProvider.KeyedLock;
 import com.thoughtworks.go.server.database.Database;
 import com.thoughtworks.go.server.domain.JobStatusListener;
 import com.thoughtworks.go.server.domain.StageIdentity;
@@ -199,7 +200,7 @@ public class StageSqlMapDao extends SqlMapClientDaoSupport implements StageDao,
     public Stage findStageWithIdentifier(StageIdentifier identifier) {
         String cachekey = cacheKeyForStageIdentifier(identifier);
         String cacheKeyForIdentifiers = cacheKeyForListOfStageIdentifiers(identifier);
-        synchronized (cacheKeyForIdentifiers) {
+        try (KeyedLock lock = keyedLocks.acquire(cacheKeyForIdentifiers)) {
             Stage stage = (Stage) goCache.get(cacheKeyForIdentifiers, cachekey);
             if (stage == null) {
                 IBatisUtil.IBatisArgument argument = IBatisUtil.arguments("pipelineName", identifier.getPipelineName())
@@ -365,7 +366,7 @@ public class StageSqlMapDao extends SqlMapClientDaoSupport implements StageDao,
     @Override
     public Stages getAllRunsOfStageForPipelineInstance(String pipelineName, Integer pipelineCounter, String stageName) {
         String cacheKeyForAllStages = cacheKeyForAllStageOfPipeline(pipelineName, pipelineCounter, stageName);
-        synchronized (cacheKeyForAllStages) {
+        try (KeyedLock lock = keyedLocks.acquire(cacheKeyForAllStages)) {
             List<Stage> stages = (List<Stage>) goCache.get(cacheKeyForAllStages);
             if (stages == null) {
                 Map<String, Object> toGet = arguments("pipelineName", pipelineName).and("pipelineCounter", pipelineCounter).and("stageName", stageName).asMap();
@@ -395,7 +396,7 @@ public class StageSqlMapDao extends SqlMapClientDaoSupport implements StageDao,
         String key = cacheKeyForStageCountForGraph(pipelineName, stageName);
         Integer total = (Integer) goCache.get(key);
         if (total == null) {
-            synchronized (key) {
+            try (KeyedLock lock = keyedLocks.acquire(key)) {
                 if (total == null) {
                     Map<String, Object> toGet = arguments("pipelineName", pipelineName).and("stageName", stageName).asMap();
                     total = (Integer) getSqlMapClientTemplate().queryForObject("getTotalStageCountForChart", toGet);
@@ -411,7 +412,7 @@ public class StageSqlMapDao extends SqlMapClientDaoSupport implements StageDao,
         String key = cacheKeyForLatestStageInstances();
         List<StageIdentity> stageIdentities = (List<StageIdentity>) goCache.get(key);
         if (stageIdentities == null) {
-            synchronized (key) {
+            try (KeyedLock lock = keyedLocks.acquire(key)) {
                 stageIdentities = (List<StageIdentity>) goCache.get(key);
                 if (stageIdentities == null) {
                     stageIdentities = (List<StageIdentity>) getSqlMapClientTemplate().queryForList("latestStageInstances");
@@ -528,7 +529,7 @@ public class StageSqlMapDao extends SqlMapClientDaoSupport implements StageDao,
     }
 
     String mutexForStageHistory(String pipelineName, String stageName) {
-        return format("%s_stageHistoryMutex_%s_<>_%s", getClass().getName(), pipelineName, stageName).intern();
+        return format("%s_stageHistoryMutex_%s_<>_%s", getClass().getName(), pipelineName, stageName);
     }
 
     String cacheKeyForStageHistories(String pipelineName, String stageName) {
@@ -591,7 +592,7 @@ public class StageSqlMapDao extends SqlMapClientDaoSupport implements StageDao,
     }
 
     String cacheKeyForStageOffset(Stage stage) {
-        return cacheKeyGenerator.generate("stageOffsetMap", stage.getIdentifier().getPipelineName(), stage.getIdentifier().getStageName()).intern();
+        return cacheKeyGenerator.generate("stageOffsetMap", stage.getIdentifier().getPipelineName(), stage.getIdentifier().getStageName());
     }
 
     private List<StageFeedEntry> findForFeed(String baseQuery, FeedModifier modifier, long transitionId, int pageSize) {
@@ -651,7 +652,7 @@ public class StageSqlMapDao extends SqlMapClientDaoSupport implements StageDao,
         if (id != null) {
             return id;
         }
-        synchronized (key) {
+        try (KeyedLock lock = keyedLocks.acquire(key)) {
             id = (Long) goCache.get(key);
             if (id != null) {
                 return id;
@@ -681,7 +682,7 @@ public class StageSqlMapDao extends SqlMapClientDaoSupport implements StageDao,
         Stage stage = (Stage) goCache.get(key);
 
         if (stage == null) {
-            synchronized (key) {
+            try (KeyedLock lock = keyedLocks.acquire(key)) {
                 stage = (Stage) goCache.get(key);
                 if (stage == null) {
                     stage = (Stage) getSqlMapClientTemplate().queryForObject("getStageById", id);
@@ -709,7 +710,7 @@ public class StageSqlMapDao extends SqlMapClientDaoSupport implements StageDao,
     @Override
     public boolean isStageActive(String pipelineName, String stageName) {
         String cacheKey = cacheKeyForPipelineAndStage(pipelineName, stageName);
-        synchronized (cacheKey) {
+        try (KeyedLock lock = keyedLocks.acquire(cacheKey)) {
             Boolean isActive = (Boolean) goCache.get(cacheKey);
             if (isActive == null) {
                 final Map<String, Object> toGet = arguments("pipelineName", pipelineName).and("stageName", stageName).asMap();
@@ -757,7 +758,7 @@ public class StageSqlMapDao extends SqlMapClientDaoSupport implements StageDao,
         String key = cacheKeyForPipelineAndCounter(pipelineName, counter);
         List<Stage> stages = (List<Stage>) goCache.get(key);
         if (stages == null) {
-            synchronized (key) {
+            try (KeyedLock lock = keyedLocks.acquire(key)) {
                 stages = (List<Stage>) goCache.get(key);
                 if (stages == null) {
                     Map<String, Object> params = arguments("pipelineName", pipelineName).and("pipelineCounter", counter).asMap();
@@ -804,7 +805,7 @@ public class StageSqlMapDao extends SqlMapClientDaoSupport implements StageDao,
     }
 
     private void removeFromCache(String key) {
-        synchronized (key) {
+        try (KeyedLock lock = keyedLocks.acquire(key)) {
             goCache.remove(key);
         }
     }
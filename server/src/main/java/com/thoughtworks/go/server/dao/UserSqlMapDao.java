@@ -21,6 +21,8 @@ import com.thoughtworks.go.domain.NullUser;
 import com.thoughtworks.go.domain.User;
 import com.thoughtworks.go.domain.Users;
 import com.thoughtworks.go.server.cache.GoCache;
+import com.thoughtworks.go.server.cache.KeyedLockProvider;
+import com.thoughtworks.go.server.cache.KeyedLockProvider.KeyedLock;
 import com.thoughtworks.go.server.exceptions.UserEnabledException;
 import com.thoughtworks.go.server.transaction.TransactionSynchronizationManager;
 import com.thoughtworks.go.server.transaction.TransactionTemplate;
@@ -46,9 +48,10 @@ public class UserSqlMapDao extends HibernateDaoSupport implements UserDao {
     private SessionFactory sessionFactory;
     private TransactionTemplate transactionTemplate;
     private GoCache goCache;
+    private final KeyedLockProvider keyedLocks = KeyedLockProvider.shared();
     private final AccessTokenDao accessTokenDao;
     private final TransactionSynchronizationManager transactionSynchronizationManager;
-    protected static final String ENABLED_USER_COUNT_CACHE_KEY = "ENABLED_USER_COUNT_CACHE_KEY".intern();
+    protected static final String ENABLED_USER_COUNT_CACHE_KEY = "ENABLED_USER_COUNT_CACHE_KEY";
 
     @Autowired
     public UserSqlMapDao(SessionFactory sessionFactory,
@@ -118,7 +121,7 @@ public class UserSqlMapDao extends HibernateDaoSupport implements UserDao {
             return value;
         }
 
-        synchronized (ENABLED_USER_COUNT_CACHE_KEY) {
+        try (KeyedLock lock = keyedLocks.acquire(ENABLED_USER_COUNT_CACHE_KEY)) {
             value = (Long) goCache.get(ENABLED_USER_COUNT_CACHE_KEY);
             if (value == null) {
                 value = hibernateTemplate().execute(session -> (Long) session.createCriteria(User.class).add(Restrictions.eq("enabled", true)).setProjection(Projections.rowCount()).setCacheable(true).uniqueResult());
@@ -197,7 +200,7 @@ public class UserSqlMapDao extends HibernateDaoSupport implements UserDao {
     }
 
     private void clearEnabledUserCountFromCache() {
-        synchronized (ENABLED_USER_COUNT_CACHE_KEY) {
+        try (KeyedLock lock = keyedLocks.acquire(ENABLED_USER_COUNT_CACHE_KEY)) {
             goCache.remove(ENABLED_USER_COUNT_CACHE_KEY);
         }
     }
@@ -37,6 +37,8 @@ public abstract class AbstractDashboardGroup implements DashboardGroup {
     private String name;
     private boolean hasDefinedPipelines;
     private Map<String, GoDashboardPipeline> pipelines = new LinkedHashMap<>();
+    // groups are shared between requests once built, so the etag is worked out only once
+    private volatile String etag;
 
     AbstractDashboardGroup(String name, boolean hasDefinedPipelines) {
         this.name = name;
@@ -62,7 +64,16 @@ public abstract class AbstractDashboardGroup implements DashboardGroup {
     public abstract boolean canAdminister(Username username);
 
     @Override
-    public abstract String etag();
+    public String etag() {
+        String etag = this.etag;
+        if (etag == null) {
+            etag = digest(permissionsSegment());
+            this.etag = etag;
+        }
+        return etag;
+    }
+
+    protected abstract String permissionsSegment();
 
     @Override
     public boolean hasDefinedPipelines() {
@@ -83,6 +94,7 @@ public abstract class AbstractDashboardGroup implements DashboardGroup {
     public void addPipeline(GoDashboardPipeline pipeline) {
         if (pipeline != null) {
             pipelines.put(pipeline.name().toString(), pipeline);
+            etag = null;
         }
     }
 
@@ -15,11 +15,12 @@
  */
 package com.thoughtworks.go.server.dashboard;
 
+import com.thoughtworks.go.config.ConfigChangeSet;
 import com.thoughtworks.go.config.CruiseConfig;
 import com.thoughtworks.go.config.PipelineConfig;
 import com.thoughtworks.go.config.PipelineConfigs;
 import com.thoughtworks.go.config.PipelineTemplateConfig;
-import com.thoughtworks.go.listener.ConfigChangedListener;
+import com.thoughtworks.go.listener.ConfigChangeSetListener;
 import com.thoughtworks.go.listener.EntityConfigChangedListener;
 import com.thoughtworks.go.listener.SecurityConfigChangeListener;
 import com.thoughtworks.go.server.domain.PipelineLockStatusChangeListener;
@@ -38,7 +39,7 @@ import org.springframework.stereotype.Component;
 /* Listens to all activity that is needed to keep the dashboard updated and sets it up for processing.
  */
 @Component
-public class GoDashboardActivityListener implements Initializer, ConfigChangedListener, PipelinePauseChangeListener,
+public class GoDashboardActivityListener implements Initializer, ConfigChangeSetListener, PipelinePauseChangeListener,
         PipelineLockStatusChangeListener {
     private final GoConfigService goConfigService;
     private final StageService stageService;
@@ -108,6 +109,21 @@ public class GoDashboardActivityListener implements Initializer, ConfigChangedLi
         });
     }
 
+    @Override
+    public void onConfigChange(final CruiseConfig newConfig, final ConfigChangeSet changes) {
+        processor.add(new Action() {
+            @Override
+            public void call() {
+                configChangeHandler.call(newConfig, changes);
+            }
+
+            @Override
+            public String description() {
+                return "config change: " + changes.pipelines().all().size() + " pipelines";
+            }
+        });
+    }
+
     protected EntityConfigChangedListener<PipelineConfig> pipelineConfigChangedListener() {
         return new EntityConfigChangedListener<PipelineConfig>() {
             @Override
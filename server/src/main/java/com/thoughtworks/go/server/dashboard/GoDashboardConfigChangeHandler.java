@@ -15,12 +15,14 @@
  */
 package com.thoughtworks.go.server.dashboard;
 
-import com.thoughtworks.go.config.CruiseConfig;
-import com.thoughtworks.go.config.PipelineConfig;
+import com.thoughtworks.go.config.*;
 import com.thoughtworks.go.server.service.GoDashboardService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.LinkedHashSet;
+import java.util.Set;
+
 /* Understands what needs to be done to keep the dashboard cache updated, when the config changes. */
 @Component
 public class GoDashboardConfigChangeHandler {
@@ -38,4 +40,30 @@ public class GoDashboardConfigChangeHandler {
     public void call(CruiseConfig config) {
         cacheUpdateService.updateCacheForAllPipelinesIn(config);
     }
+
+    public void call(CruiseConfig config, ConfigChangeSet changes) {
+        if (changes.isSecurityChanged()) {
+            call(config);
+            return;
+        }
+
+        Set<CaseInsensitiveString> pipelinesToUpdate = new LinkedHashSet<>(changes.pipelines().all());
+        for (String groupName : changes.groups().changed()) {
+            addPipelinesOf(config.findGroup(groupName), pipelinesToUpdate);
+        }
+
+        // loading the state of most pipelines one at a time is slower than loading all of them together
+        if (pipelinesToUpdate.size() > config.getAllPipelineConfigs().size() / 2) {
+            call(config);
+            return;
+        }
+
+        pipelinesToUpdate.forEach(pipelineName -> cacheUpdateService.updateCacheForPipeline(pipelineName));
+    }
+
+    private void addPipelinesOf(PipelineConfigs group, Set<CaseInsensitiveString> pipelineNames) {
+        for (PipelineConfig pipelineConfig : group) {
+            pipelineNames.add(pipelineConfig.name());
+        }
+    }
 }
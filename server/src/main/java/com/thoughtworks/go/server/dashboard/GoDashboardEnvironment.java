@@ -32,7 +32,7 @@ public class GoDashboardEnvironment extends AbstractDashboardGroup {
     }
 
     @Override
-    public String etag() {
-        return digest(Integer.toString(allowedUsers.hashCode()));
+    protected String permissionsSegment() {
+        return Integer.toString(allowedUsers.hashCode());
     }
 }
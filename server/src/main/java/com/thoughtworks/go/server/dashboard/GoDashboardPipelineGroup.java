@@ -32,8 +32,8 @@ public class GoDashboardPipelineGroup extends AbstractDashboardGroup {
     }
 
     @Override
-    public String etag() {
-        return digest(Integer.toString(permissions.hashCode()));
+    protected String permissionsSegment() {
+        return Integer.toString(permissions.hashCode());
     }
 
     public boolean canBeViewedBy(Username userName) {
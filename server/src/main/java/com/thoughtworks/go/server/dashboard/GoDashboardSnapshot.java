@@ -0,0 +1,102 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.dashboard;
+
+import com.thoughtworks.go.config.CaseInsensitiveString;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * @understands the pipeline groups or environments shown to one user, as of a version of the config.
+ * <p>
+ * The config decides which groups there are and which pipelines make them up, while the dashboard cache decides what
+ * each pipeline looks like right now. Since pipeline statuses change far more often than the config, a snapshot can
+ * be brought up to date with a newer {@link GoDashboardPipelines}: only the groups made up of a pipeline which has
+ * changed in the cache since are built again, all others (along with their etags) are reused.
+ */
+public class GoDashboardSnapshot<T extends DashboardGroup> {
+    private final long configVersion;
+    private final long builtAt;
+    private final GoDashboardPipelines pipelines;
+    private final List<Section<T>> sections;
+    private final List<T> groups;
+
+    public GoDashboardSnapshot(long configVersion, long builtAt, GoDashboardPipelines pipelines, List<Section<T>> sections) {
+        this.configVersion = configVersion;
+        this.builtAt = builtAt;
+        this.pipelines = pipelines;
+        this.sections = sections;
+        this.groups = Collections.unmodifiableList(sections.stream().map(section -> section.group).filter(Objects::nonNull).collect(toList()));
+    }
+
+    /**
+     * @return whether this snapshot was built for the given version of the config, no earlier than {@code notBefore}
+     */
+    public boolean isFor(long configVersion, long notBefore) {
+        return this.configVersion == configVersion && builtAt >= notBefore;
+    }
+
+    public GoDashboardSnapshot<T> refreshedWith(GoDashboardPipelines current) {
+        if (current == pipelines) {
+            return this;
+        }
+
+        List<Section<T>> refreshed = new ArrayList<>(sections.size());
+        for (Section<T> section : sections) {
+            refreshed.add(section.refreshedWith(pipelines, current));
+        }
+        return new GoDashboardSnapshot<>(configVersion, builtAt, current, refreshed);
+    }
+
+    public List<T> groups() {
+        return groups;
+    }
+
+    /**
+     * A group (or environment) of the config along with the pipelines it is made of. The builder returns
+     * {@code null} when the group is not to be shown.
+     */
+    public static class Section<T extends DashboardGroup> {
+        private final List<CaseInsensitiveString> pipelineNames;
+        private final Function<GoDashboardPipelines, T> builder;
+        private final T group;
+
+        public Section(List<CaseInsensitiveString> pipelineNames, Function<GoDashboardPipelines, T> builder, GoDashboardPipelines pipelines) {
+            this(pipelineNames, builder, builder.apply(pipelines));
+        }
+
+        private Section(List<CaseInsensitiveString> pipelineNames, Function<GoDashboardPipelines, T> builder, T group) {
+            this.pipelineNames = pipelineNames;
+            this.builder = builder;
+            this.group = group;
+        }
+
+        private Section<T> refreshedWith(GoDashboardPipelines previous, GoDashboardPipelines current) {
+            for (CaseInsensitiveString pipelineName : pipelineNames) {
+                if (previous.find(pipelineName) != current.find(pipelineName)) {
+                    return new Section<>(pipelineNames, builder, builder.apply(current));
+                }
+            }
+            return this;
+        }
+    }
+}
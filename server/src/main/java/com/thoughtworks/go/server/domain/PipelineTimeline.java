@@ -23,6 +23,7 @@ import com.thoughtworks.go.server.persistence.PipelineRepository;
 import com.thoughtworks.go.server.transaction.TransactionSynchronizationManager;
 import com.thoughtworks.go.server.transaction.TransactionTemplate;
 import com.thoughtworks.go.util.ClonerFactory;
+import com.thoughtworks.go.util.SystemEnvironment;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -51,14 +52,22 @@ public class PipelineTimeline {
     private final ReadWriteLock naturalOrderLock = new ReentrantReadWriteLock();
     private final ReadWriteLock scheduleOrderLock = new ReentrantReadWriteLock();
     private final Cloner cloner = ClonerFactory.instance();
+    private final PipelineTimelineInterner interner = new PipelineTimelineInterner();
+    private final PipelineTimelineSnapshot snapshot;
 
-    @Autowired
     public PipelineTimeline(PipelineRepository pipelineRepository, TransactionTemplate transactionTemplate, TransactionSynchronizationManager transactionSynchronizationManager,
                             TimelineUpdateListener... listeners) {
+        this(pipelineRepository, transactionTemplate, transactionSynchronizationManager, new SystemEnvironment(), listeners);
+    }
+
+    @Autowired
+    public PipelineTimeline(PipelineRepository pipelineRepository, TransactionTemplate transactionTemplate, TransactionSynchronizationManager transactionSynchronizationManager,
+                            SystemEnvironment systemEnvironment, TimelineUpdateListener... listeners) {
         this.pipelineRepository = pipelineRepository;
         this.transactionTemplate = transactionTemplate;
         this.transactionSynchronizationManager = transactionSynchronizationManager;
         this.listeners = listeners;
+        this.snapshot = new PipelineTimelineSnapshot(systemEnvironment.getPipelineTimelineSnapshotFile(), systemEnvironment.getPipelineTimelineSnapshotIntervalInMillis());
         naturalOrderPmm = new HashMap<>();
         scheduleOrderPmm = new HashMap<>();
         maximumId = -1;
@@ -85,6 +94,14 @@ public class PipelineTimeline {
         return maximumId;
     }
 
+    /**
+     * Entries added to the timeline should be built with this, so that what they have in common with other entries
+     * is only held once.
+     */
+    public PipelineTimelineInterner interner() {
+        return interner;
+    }
+
     public void add(PipelineTimelineEntry pipelineTimelineEntry) {
         CaseInsensitiveString pipelineName = new CaseInsensitiveString(pipelineTimelineEntry.getPipelineName());
         initializedNaturalOrderCollection(pipelineName).add(pipelineTimelineEntry);
@@ -108,6 +125,9 @@ public class PipelineTimeline {
                             rollbackTempEntries();
                         } else if (STATUS_COMMITTED == status) {
                             notifyListeners(newlyAddedEntries);
+                            if (!newlyAddedEntries.isEmpty()) {
+                                saveSnapshotIfDue();
+                            }
                         }
                     }
 
@@ -176,12 +196,63 @@ public class PipelineTimeline {
     public void updateTimelineOnInit() {
         acquireAllWriteLocks();
         try {
+            loadSnapshot();
+            long maximumIdInSnapshot = maximumId;
             pipelineRepository.updatePipelineTimeline(this, new ArrayList<>());
+            if (maximumId != maximumIdInSnapshot) {
+                saveSnapshot();
+            }
         } finally {
             releaseAllWriteLocks();
         }
     }
 
+    // Must be called holding all write locks.
+    private void loadSnapshot() {
+        List<PipelineTimelineEntry> entries = snapshot.load(interner);
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        PipelineTimelineEntry latest = entries.get(entries.size() - 1);
+        Integer counterInDatabase = pipelineRepository.findPipelineCounterById(latest.getId());
+        if (counterInDatabase == null || counterInDatabase != latest.getCounter()) {
+            LOGGER.warn("Ignoring pipeline timeline snapshot since it does not match the database, the timeline will be rebuilt from the database");
+            snapshot.delete();
+            return;
+        }
+
+        try {
+            for (PipelineTimelineEntry entry : entries) {
+                add(entry);
+            }
+        } catch (RuntimeException e) {
+            LOGGER.warn("Ignoring pipeline timeline snapshot, the timeline will be rebuilt from the database", e);
+            snapshot.delete();
+            naturalOrderPmm.clear();
+            scheduleOrderPmm.clear();
+            maximumId = -1;
+        }
+    }
+
+    // Must be called holding all write locks, so that the entries do not change while they are being copied.
+    private void saveSnapshotIfDue() {
+        if (snapshot.isDue()) {
+            saveSnapshot();
+        }
+    }
+
+    private void saveSnapshot() {
+        if (!snapshot.isEnabled()) {
+            return;
+        }
+        List<PipelineTimelineEntry> entries = new ArrayList<>();
+        for (ArrayList<PipelineTimelineEntry> entriesOfPipeline : scheduleOrderPmm.values()) {
+            entries.addAll(entriesOfPipeline);
+        }
+        snapshot.saveAsync(entries);
+    }
+
     /**
      * @param id           for the pipeline
      * @param pipelineName
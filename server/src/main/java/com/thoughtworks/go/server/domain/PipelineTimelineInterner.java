@@ -0,0 +1,54 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.domain;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.thoughtworks.go.domain.PipelineTimelineEntry;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @understands keeping the pipeline timeline small: the same pipeline names, material fingerprints, revisions and
+ * folders show up in a great many timeline entries, so they are shared instead of being held once per entry, and
+ * the revisions of an entry are kept in right-sized, immutable collections.
+ */
+public class PipelineTimelineInterner {
+    private final Interner<String> strings = Interners.newWeakInterner();
+
+    public String intern(String value) {
+        return value == null ? null : strings.intern(value);
+    }
+
+    public PipelineTimelineEntry.Revision revision(Date date, String revision, String folder, long id) {
+        return new PipelineTimelineEntry.Revision(date, intern(revision), intern(folder), id);
+    }
+
+    public Map<String, List<PipelineTimelineEntry.Revision>> revisions(Map<String, List<PipelineTimelineEntry.Revision>> revisions) {
+        Map<String, List<PipelineTimelineEntry.Revision>> compacted = new HashMap<>();
+        for (Map.Entry<String, List<PipelineTimelineEntry.Revision>> entry : revisions.entrySet()) {
+            compacted.put(intern(entry.getKey()), List.copyOf(entry.getValue()));
+        }
+        return Map.copyOf(compacted);
+    }
+
+    public PipelineTimelineEntry entry(String pipelineName, long id, int counter, Map<String, List<PipelineTimelineEntry.Revision>> revisions, double naturalOrder) {
+        return new PipelineTimelineEntry(intern(pipelineName), id, counter, revisions(revisions), naturalOrder);
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.domain;
+
+import com.thoughtworks.go.domain.PipelineTimelineEntry;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * @understands saving the pipeline timeline to disk and reading it back, so that the server does not have to rebuild
+ * it from every pipeline run in the database when it starts up.
+ * <p>
+ * Entries are written in the order of their ids, which is the order they are added to the timeline in, along with the
+ * natural order that was calculated for them. Strings are written once and referred to by their position in the
+ * file from then on.
+ */
+class PipelineTimelineSnapshot {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PipelineTimelineSnapshot.class);
+    private static final int MAGIC = 0x474f544c;
+    private static final int VERSION = 1;
+    private static final int NO_STRING = -1;
+    private static final int NOT_A_TIMESTAMP = -1;
+
+    private final File file;
+    private final long intervalInMillis;
+    private final AtomicBoolean saving = new AtomicBoolean(false);
+    private final ExecutorService executor;
+    private volatile long lastSavedAt;
+
+    PipelineTimelineSnapshot(File file, long intervalInMillis) {
+        this.file = file;
+        this.intervalInMillis = intervalInMillis;
+        this.executor = file == null ? null : Executors.newSingleThreadExecutor(new BasicThreadFactory.Builder()
+                .namingPattern("pipeline-timeline-snapshot-%d")
+                .daemon(true)
+                .build());
+    }
+
+    boolean isEnabled() {
+        return file != null;
+    }
+
+    boolean isDue() {
+        return isEnabled() && !saving.get() && System.currentTimeMillis() - lastSavedAt >= intervalInMillis;
+    }
+
+    /**
+     * @return the entries in the snapshot in the order of their ids, or nothing if there is no usable snapshot
+     */
+    List<PipelineTimelineEntry> load(PipelineTimelineInterner interner) {
+        if (!isEnabled() || !file.exists()) {
+            return Collections.emptyList();
+        }
+
+        long startedAt = System.currentTimeMillis();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                LOGGER.warn("Ignoring pipeline timeline snapshot {} since it is not in a format this server understands", file);
+                return Collections.emptyList();
+            }
+            List<PipelineTimelineEntry> entries = new Reader(in, interner).entries();
+            LOGGER.info("Loaded {} pipeline timeline entries from {} in {} ms", entries.size(), file, System.currentTimeMillis() - startedAt);
+            return entries;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Ignoring pipeline timeline snapshot {} since it could not be read", file, e);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Writes the entries out in the background, unless the previous snapshot is still being written. The entries
+     * must not be changed once they are handed over.
+     */
+    Future<?> saveAsync(List<PipelineTimelineEntry> entries) {
+        if (!isEnabled() || !saving.compareAndSet(false, true)) {
+            return null;
+        }
+        lastSavedAt = System.currentTimeMillis();
+        return executor.submit(() -> {
+            try {
+                save(entries);
+            } finally {
+                saving.set(false);
+            }
+        });
+    }
+
+    void delete() {
+        if (isEnabled()) {
+            file.delete();
+        }
+    }
+
+    private void save(List<PipelineTimelineEntry> entries) {
+        long startedAt = System.currentTimeMillis();
+        List<PipelineTimelineEntry> sorted = new ArrayList<>(entries);
+        sorted.sort(Comparator.comparing(PipelineTimelineEntry::getId));
+
+        Path target = file.toPath().toAbsolutePath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(target.getParent());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                new Writer(out).write(sorted);
+            }
+            Files.move(temp, target, REPLACE_EXISTING, ATOMIC_MOVE);
+            LOGGER.info("Saved {} pipeline timeline entries to {} in {} ms", sorted.size(), file, System.currentTimeMillis() - startedAt);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Could not save pipeline timeline snapshot to {}", file, e);
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private static class Writer {
+        private final DataOutputStream out;
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        private Writer(DataOutputStream out) {
+            this.out = out;
+        }
+
+        private void write(List<PipelineTimelineEntry> entries) throws IOException {
+            out.writeInt(entries.size());
+            for (PipelineTimelineEntry entry : entries) {
+                writeString(entry.getPipelineName());
+                out.writeLong(entry.getId());
+                out.writeInt(entry.getCounter());
+                out.writeDouble(entry.naturalOrder());
+
+                Map<String, List<PipelineTimelineEntry.Revision>> revisions = entry.revisions();
+                out.writeInt(revisions.size());
+                for (Map.Entry<String, List<PipelineTimelineEntry.Revision>> material : revisions.entrySet()) {
+                    writeString(material.getKey());
+                    out.writeInt(material.getValue().size());
+                    for (PipelineTimelineEntry.Revision revision : material.getValue()) {
+                        writeDate(revision.date);
+                        writeString(revision.revision);
+                        writeString(revision.folder);
+                        out.writeLong(revision.id);
+                    }
+                }
+            }
+        }
+
+        private void writeDate(Date date) throws IOException {
+            // the database hands out timestamps, which do not consider themselves equal to plain dates
+            out.writeLong(date.getTime());
+            out.writeInt(date instanceof Timestamp ? ((Timestamp) date).getNanos() : NOT_A_TIMESTAMP);
+        }
+
+        private void writeString(String value) throws IOException {
+            if (value == null) {
+                out.writeInt(NO_STRING);
+                return;
+            }
+            Integer index = strings.get(value);
+            if (index != null) {
+                out.writeInt(index);
+                return;
+            }
+            out.writeInt(strings.size());
+            out.writeUTF(value);
+            strings.put(value, strings.size());
+        }
+    }
+
+    private static class Reader {
+        private final DataInputStream in;
+        private final PipelineTimelineInterner interner;
+        private final List<String> strings = new ArrayList<>();
+
+        private Reader(DataInputStream in, PipelineTimelineInterner interner) {
+            this.in = in;
+            this.interner = interner;
+        }
+
+        private List<PipelineTimelineEntry> entries() throws IOException {
+            int size = in.readInt();
+            List<PipelineTimelineEntry> entries = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                String pipelineName = readString();
+                long id = in.readLong();
+                int counter = in.readInt();
+                double naturalOrder = in.readDouble();
+
+                int materials = in.readInt();
+                Map<String, List<PipelineTimelineEntry.Revision>> revisions = new HashMap<>();
+                for (int j = 0; j < materials; j++) {
+                    String fingerprint = readString();
+                    int revisionCount = in.readInt();
+                    List<PipelineTimelineEntry.Revision> revisionsOfMaterial = new ArrayList<>(revisionCount);
+                    for (int k = 0; k < revisionCount; k++) {
+                        Date date = readDate();
+                        revisionsOfMaterial.add(interner.revision(date, readString(), readString(), in.readLong()));
+                    }
+                    revisions.put(fingerprint, revisionsOfMaterial);
+                }
+                entries.add(interner.entry(pipelineName, id, counter, revisions, naturalOrder));
+            }
+            return entries;
+        }
+
+        private Date readDate() throws IOException {
+            long time = in.readLong();
+            int nanos = in.readInt();
+            if (nanos == NOT_A_TIMESTAMP) {
+                return new Date(time);
+            }
+            Timestamp timestamp = new Timestamp(time);
+            timestamp.setNanos(nanos);
+            return timestamp;
+        }
+
+        private String readString() throws IOException {
+            int index = in.readInt();
+            if (index == NO_STRING) {
+                return null;
+            }
+            if (index < strings.size()) {
+                return strings.get(index);
+            }
+            if (index != strings.size()) {
+                throw new IOException("Unexpected string reference " + index + " in pipeline timeline snapshot");
+            }
+            String value = interner.intern(in.readUTF());
+            strings.add(value);
+            return value;
+        }
+    }
+}
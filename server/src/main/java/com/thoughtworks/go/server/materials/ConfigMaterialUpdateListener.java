@@ -81,6 +81,10 @@ public class ConfigMaterialUpdateListener implements GoMessageListener<MaterialU
                 // this is fast, but we may need to consider only merging into the main config if different?
                 //
                 // Open to any better ideas :).
+                //
+                // The config repo data source does skip asking the plugin to parse a revision it parsed successfully
+                // a short while ago (see go.config.repo.parse.cache.ttl.seconds), so new branches are picked up
+                // within that time rather than on the very next poll.
                 updateConfigurationFromCheckout(folder, modification, material);
             }
             LOGGER.debug("[Config Material Update] Completed parsing of Config material {}.", material);
@@ -56,6 +56,15 @@ public class BuildRepositoryMessageProducer implements BuildRepositoryRemote {
         return work;
     }
 
+    public Work getWork(AgentRuntimeInfo runtimeInfo, long waitInMillis) throws InterruptedException {
+        long startTime = System.currentTimeMillis();
+
+        Work work = workAssignments.getWork(runtimeInfo, waitInMillis);
+
+        workAssignmentPerformanceLogger.retrievedWorkForAgent(runtimeInfo, work, startTime, System.currentTimeMillis());
+        return work;
+    }
+
     @Override
     public void reportCurrentStatus(AgentRuntimeInfo agentRuntimeInfo, JobIdentifier jobIdentifier, JobState jobState) {
         buildRepository.reportCurrentStatus(agentRuntimeInfo, jobIdentifier, jobState);
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.messaging;
+
+import com.thoughtworks.go.server.messaging.activemq.ActiveMqMessagingService;
+import com.thoughtworks.go.server.messaging.inmemory.InMemoryMessagingService;
+import com.thoughtworks.go.server.service.support.DaemonThreadStatsCollector;
+import com.thoughtworks.go.serverhealth.ServerHealthService;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.stereotype.Component;
+
+import static com.thoughtworks.go.util.SystemEnvironment.GO_MESSAGING_BACKEND;
+import static com.thoughtworks.go.util.SystemEnvironment.GO_MESSAGING_IN_MEMORY_CAPACITY;
+
+/**
+ * @understands which messaging backend the server passes its messages through
+ */
+@Component
+public class MessagingServiceFactory {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MessagingServiceFactory.class);
+    static final String IN_MEMORY_BACKEND = "inmemory";
+
+    private final DaemonThreadStatsCollector daemonThreadStatsCollector;
+    private final SystemEnvironment systemEnvironment;
+    private final ServerHealthService serverHealthService;
+
+    @Autowired
+    public MessagingServiceFactory(DaemonThreadStatsCollector daemonThreadStatsCollector, SystemEnvironment systemEnvironment, ServerHealthService serverHealthService) {
+        this.daemonThreadStatsCollector = daemonThreadStatsCollector;
+        this.systemEnvironment = systemEnvironment;
+        this.serverHealthService = serverHealthService;
+    }
+
+    @Bean(name = "messagingService")
+    public MessagingService createMessagingService() throws Exception {
+        if (IN_MEMORY_BACKEND.equalsIgnoreCase(systemEnvironment.get(GO_MESSAGING_BACKEND))) {
+            LOGGER.info("Using in-memory queues and topics for server messaging.");
+            return new InMemoryMessagingService(daemonThreadStatsCollector, systemEnvironment.get(GO_MESSAGING_IN_MEMORY_CAPACITY));
+        }
+        return new ActiveMqMessagingService(daemonThreadStatsCollector, systemEnvironment, serverHealthService);
+    }
+}
@@ -15,17 +15,13 @@
  */
 package com.thoughtworks.go.server.messaging;
 
-import com.thoughtworks.go.server.messaging.activemq.JMSMessageListenerAdapter;
 import org.slf4j.LoggerFactory;
 
-import javax.jms.JMSException;
 import java.util.ArrayList;
 import java.util.HashMap;
 
-import static com.thoughtworks.go.util.ExceptionUtils.bomb;
-
 public class PluginAwareMessageQueue extends GoMessageQueue {
-    protected final HashMap<String, ArrayList<JMSMessageListenerAdapter>> listeners = new HashMap<>();
+    protected final HashMap<String, ArrayList<GoMessageListenerAdapter>> listeners = new HashMap<>();
     private final String pluginId;
     private static final org.slf4j.Logger LOGGER = LoggerFactory.getLogger(PluginAwareMessageQueue.class.getName());
 
@@ -34,7 +30,7 @@ public class PluginAwareMessageQueue extends GoMessageQueue {
         super(messaging, queueName);
         this.pluginId = pluginId;
         for (int i = 0; i < numberOfListeners; i++) {
-            JMSMessageListenerAdapter listenerAdapter = this.addListener(listenerFactory.create());
+            GoMessageListenerAdapter listenerAdapter = this.addListener(listenerFactory.create());
             if (!listeners.containsKey(pluginId)) {
                 this.listeners.put(pluginId, new ArrayList<>());
             }
@@ -45,13 +41,13 @@ public class PluginAwareMessageQueue extends GoMessageQueue {
     @Override
     public void stop() {
         super.stop();
-        ArrayList<JMSMessageListenerAdapter> listenerAdapters = listeners.get(pluginId);
-        for (JMSMessageListenerAdapter listenerAdapter : listenerAdapters) {
+        ArrayList<GoMessageListenerAdapter> listenerAdapters = listeners.get(pluginId);
+        for (GoMessageListenerAdapter listenerAdapter : listenerAdapters) {
             try {
                 listenerAdapter.stop();
-            } catch (JMSException e) {
-                LOGGER.error("Unable to stop listener for {} {}, ERROR: {}", queueName, listenerAdapter.thread.getName(), e.getMessage(), e);
-                bomb(e);
+            } catch (RuntimeException e) {
+                LOGGER.error("Unable to stop listener for {} {}, ERROR: {}", queueName, listenerAdapter, e.getMessage(), e);
+                throw e;
             } finally {
                 this.listeners.remove(pluginId);
             }
@@ -17,6 +17,7 @@ package com.thoughtworks.go.server.messaging.activemq;
 
 import com.thoughtworks.go.server.messaging.GoMessage;
 import com.thoughtworks.go.server.messaging.GoMessageListener;
+import com.thoughtworks.go.server.messaging.GoMessageListenerAdapter;
 import com.thoughtworks.go.server.service.support.DaemonThreadStatsCollector;
 import com.thoughtworks.go.serverhealth.HealthStateType;
 import com.thoughtworks.go.serverhealth.ServerHealthService;
@@ -31,8 +32,9 @@ import javax.jms.MessageConsumer;
 import javax.jms.ObjectMessage;
 
 import static com.thoughtworks.go.serverhealth.HealthStateScope.GLOBAL;
+import static com.thoughtworks.go.util.ExceptionUtils.bomb;
 
-public class JMSMessageListenerAdapter implements Runnable {
+public class JMSMessageListenerAdapter implements Runnable, GoMessageListenerAdapter {
     private static final Logger LOG = LoggerFactory.getLogger(JMSMessageListenerAdapter.class);
 
     private final MessageConsumer consumer;
@@ -66,8 +68,18 @@ public class JMSMessageListenerAdapter implements Runnable {
         }
     }
 
-    public void stop() throws JMSException {
-        consumer.close();
+    @Override
+    public void stop() {
+        try {
+            consumer.close();
+        } catch (JMSException e) {
+            throw bomb(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return thread.getName();
     }
 
     protected boolean runImpl() {
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.messaging.inmemory;
+
+import com.thoughtworks.go.server.messaging.GoMessage;
+
+class Envelope {
+    private final GoMessage message;
+    private final long expiresAt;
+
+    Envelope(GoMessage message, long timeToLive) {
+        this.message = message;
+        this.expiresAt = timeToLive > 0 ? System.currentTimeMillis() + timeToLive : 0;
+    }
+
+    GoMessage message() {
+        return message;
+    }
+
+    boolean hasExpired() {
+        return expiresAt > 0 && System.currentTimeMillis() > expiresAt;
+    }
+}
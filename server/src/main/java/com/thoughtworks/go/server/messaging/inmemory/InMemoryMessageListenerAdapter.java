@@ -0,0 +1,132 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.messaging.inmemory;
+
+import com.thoughtworks.go.server.messaging.GoMessageListener;
+import com.thoughtworks.go.server.messaging.GoMessageListenerAdapter;
+import com.thoughtworks.go.server.service.support.DaemonThreadStatsCollector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * @understands taking messages off an in-memory queue, one at a time, and handing them to a listener on a thread of
+ * its own
+ */
+class InMemoryMessageListenerAdapter implements Runnable, GoMessageListenerAdapter {
+    private static final Logger LOG = LoggerFactory.getLogger(InMemoryMessageListenerAdapter.class);
+
+    private final BlockingQueue<Envelope> messages;
+    private final GoMessageListener listener;
+    private final DaemonThreadStatsCollector daemonThreadStatsCollector;
+    private final Thread thread;
+    private volatile boolean stopped;
+    // guards interrupting the thread on stop, so that only waiting for a message is interrupted, never handling one
+    private final Object waiting = new Object();
+    private boolean isWaiting;
+
+    InMemoryMessageListenerAdapter(BlockingQueue<Envelope> messages, GoMessageListener listener, DaemonThreadStatsCollector daemonThreadStatsCollector) {
+        this.messages = messages;
+        this.listener = listener;
+        this.daemonThreadStatsCollector = daemonThreadStatsCollector;
+
+        thread = new Thread(this);
+        thread.setName(thread.getId() + "@MessageListener for " + listener.getClass().getSimpleName());
+        thread.setDaemon(true);
+    }
+
+    InMemoryMessageListenerAdapter start() {
+        thread.start();
+        return this;
+    }
+
+    BlockingQueue<Envelope> messages() {
+        return messages;
+    }
+
+    @Override
+    public void run() {
+        while (!stopped) {
+            Envelope envelope;
+            try {
+                envelope = take();
+            } catch (InterruptedException e) {
+                break;
+            }
+
+            if (envelope == null || envelope.hasExpired()) {
+                continue;
+            }
+
+            try {
+                daemonThreadStatsCollector.captureStats(thread.getId());
+                listener.onMessage(envelope.message());
+            } catch (Exception e) {
+                LOG.error("Exception thrown in message handling by listener {}", listener, e);
+            } finally {
+                daemonThreadStatsCollector.clearStats(thread.getId());
+            }
+        }
+        LOG.debug("Message listener {} was stopped.", this);
+    }
+
+    private Envelope take() throws InterruptedException {
+        synchronized (waiting) {
+            if (stopped) {
+                return null;
+            }
+            isWaiting = true;
+        }
+        try {
+            return messages.take();
+        } finally {
+            synchronized (waiting) {
+                isWaiting = false;
+                // a stop that raced with taking a message must not interrupt handling it
+                Thread.interrupted();
+            }
+        }
+    }
+
+    /**
+     * Stops taking messages. A message that is being handled is handled to the end.
+     */
+    @Override
+    public void stop() {
+        synchronized (waiting) {
+            stopped = true;
+            if (isWaiting) {
+                thread.interrupt();
+            }
+        }
+    }
+
+    /**
+     * Waits for the thread of this listener to end after it has been stopped. Only meant for tests.
+     *
+     * @return whether the thread ended within the given time
+     */
+    boolean awaitStopped(long timeoutInMillis) throws InterruptedException {
+        thread.join(timeoutInMillis);
+        return !thread.isAlive();
+    }
+
+    @Override
+    public String toString() {
+        return thread.getName();
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.messaging.inmemory;
+
+import com.thoughtworks.go.server.messaging.GoMessage;
+import com.thoughtworks.go.server.messaging.GoMessageListener;
+import com.thoughtworks.go.server.messaging.GoMessageListenerAdapter;
+import com.thoughtworks.go.server.messaging.GoTextMessage;
+import com.thoughtworks.go.server.messaging.MessageSender;
+import com.thoughtworks.go.server.messaging.MessagingService;
+import com.thoughtworks.go.server.service.support.DaemonThreadStatsCollector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static com.thoughtworks.go.util.ExceptionUtils.bomb;
+
+/**
+ * @understands passing messages between parts of the server through bounded in-memory queues instead of a broker
+ * <p>
+ * Messages are handed to listeners as they were posted, without being serialized or copied, so every listener of a
+ * topic gets the very same instance. Messages must therefore not be modified once posted; a listener that needs to
+ * change one has to work on a copy of its own. A queue is one FIFO shared by all of its listeners, and a listener only
+ * takes a message once it is done with the previous one. This is the same as the broker with a queue prefetch of
+ * zero. Every listener of a topic gets a FIFO of its own, and messages posted to a topic nobody listens to are
+ * dropped. Messages whose time to live has passed are skipped.
+ * <p>
+ * A sender waits while a FIFO is full, like it would under the broker's producer flow control, but for no longer than
+ * {@link #SEND_TIMEOUT_MILLIS}. The message is dropped after that, so that a listener posting to its own full FIFO
+ * cannot wait for itself forever.
+ */
+public class InMemoryMessagingService implements MessagingService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(InMemoryMessagingService.class);
+    static final long SEND_TIMEOUT_MILLIS = 10 * 1000;
+
+    private final DaemonThreadStatsCollector daemonThreadStatsCollector;
+    private final int capacity;
+    private final long sendTimeoutMillis;
+    private final Map<String, BlockingQueue<Envelope>> queues = new ConcurrentHashMap<>();
+    private final Map<String, List<InMemoryMessageListenerAdapter>> queueListeners = new ConcurrentHashMap<>();
+    private final Map<String, List<InMemoryMessageListenerAdapter>> topicListeners = new ConcurrentHashMap<>();
+
+    public InMemoryMessagingService(DaemonThreadStatsCollector daemonThreadStatsCollector, int capacity) {
+        this(daemonThreadStatsCollector, capacity, SEND_TIMEOUT_MILLIS);
+    }
+
+    InMemoryMessagingService(DaemonThreadStatsCollector daemonThreadStatsCollector, int capacity, long sendTimeoutMillis) {
+        this.daemonThreadStatsCollector = daemonThreadStatsCollector;
+        this.capacity = capacity;
+        this.sendTimeoutMillis = sendTimeoutMillis;
+    }
+
+    @Override
+    public MessageSender createSender(String topic) {
+        return new Sender() {
+            @Override
+            protected void send(Envelope envelope) {
+                for (InMemoryMessageListenerAdapter listener : listenersOf(topicListeners, topic)) {
+                    put(listener.messages(), envelope, topic);
+                }
+            }
+        };
+    }
+
+    @Override
+    public GoMessageListenerAdapter addListener(String topic, GoMessageListener listener) {
+        InMemoryMessageListenerAdapter adapter = new InMemoryMessageListenerAdapter(new LinkedBlockingQueue<>(capacity), listener, daemonThreadStatsCollector);
+        listenersOf(topicListeners, topic).add(adapter);
+        return adapter.start();
+    }
+
+    @Override
+    public MessageSender createQueueSender(String queueName) {
+        return new Sender() {
+            @Override
+            protected void send(Envelope envelope) {
+                put(queue(queueName), envelope, queueName);
+            }
+        };
+    }
+
+    @Override
+    public GoMessageListenerAdapter addQueueListener(String queueName, GoMessageListener listener) {
+        InMemoryMessageListenerAdapter adapter = new InMemoryMessageListenerAdapter(queue(queueName), listener, daemonThreadStatsCollector);
+        listenersOf(queueListeners, queueName).add(adapter);
+        return adapter.start();
+    }
+
+    @Override
+    public void removeQueue(String queueName) {
+        queues.remove(queueName);
+        List<InMemoryMessageListenerAdapter> listeners = queueListeners.remove(queueName);
+        if (listeners != null) {
+            listeners.forEach(InMemoryMessageListenerAdapter::stop);
+        }
+    }
+
+    @Override
+    public void stop() {
+        queueListeners.values().forEach(listeners -> listeners.forEach(InMemoryMessageListenerAdapter::stop));
+        topicListeners.values().forEach(listeners -> listeners.forEach(InMemoryMessageListenerAdapter::stop));
+        queueListeners.clear();
+        topicListeners.clear();
+        queues.clear();
+    }
+
+    int pendingMessages(String queueName) {
+        BlockingQueue<Envelope> queue = queues.get(queueName);
+        return queue == null ? 0 : queue.size();
+    }
+
+    private BlockingQueue<Envelope> queue(String queueName) {
+        return queues.computeIfAbsent(queueName, name -> new LinkedBlockingQueue<>(capacity));
+    }
+
+    private static List<InMemoryMessageListenerAdapter> listenersOf(Map<String, List<InMemoryMessageListenerAdapter>> listeners, String name) {
+        return listeners.computeIfAbsent(name, key -> new CopyOnWriteArrayList<>());
+    }
+
+    private void put(BlockingQueue<Envelope> queue, Envelope envelope, String name) {
+        try {
+            if (!queue.offer(envelope, sendTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                LOGGER.error("Dropping message {} to '{}', as its listeners did not take any of the {} messages waiting for them within {}ms.",
+                        envelope.message(), name, queue.size(), sendTimeoutMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw bomb(e);
+        }
+    }
+
+    private abstract static class Sender implements MessageSender {
+        @Override
+        public void sendMessage(GoMessage goMessage) {
+            send(new Envelope(goMessage, 0));
+        }
+
+        @Override
+        public void sendMessage(GoMessage goMessage, long timeToLive) {
+            send(new Envelope(goMessage, timeToLive));
+        }
+
+        @Override
+        public void sendText(String message) {
+            sendMessage(new GoTextMessage(message));
+        }
+
+        protected abstract void send(Envelope envelope);
+    }
+}
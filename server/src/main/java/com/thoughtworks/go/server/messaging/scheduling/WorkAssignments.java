@@ -15,29 +15,75 @@
  */
 package com.thoughtworks.go.server.messaging.scheduling;
 
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
-
+import com.thoughtworks.go.domain.JobState;
+import com.thoughtworks.go.domain.Stage;
 import com.thoughtworks.go.remote.AgentIdentifier;
 import com.thoughtworks.go.remote.work.NoWork;
 import com.thoughtworks.go.remote.work.Work;
+import com.thoughtworks.go.server.domain.StageStatusListener;
 import com.thoughtworks.go.server.messaging.GoMessageChannel;
 import com.thoughtworks.go.server.messaging.GoMessageListener;
 import com.thoughtworks.go.server.service.AgentRuntimeInfo;
+import com.thoughtworks.go.server.service.BuildAssignmentService;
+import com.thoughtworks.go.server.service.StageService;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.thoughtworks.go.util.SystemEnvironment.AGENT_GET_WORK_MAX_WAITING_REQUESTS;
+import static com.thoughtworks.go.util.SystemEnvironment.AGENT_GET_WORK_MAX_WAIT_IN_SECONDS;
+
+/**
+ * @understands the work assigned to agents until they pick it up, and agents which are waiting for work
+ * <p>
+ * An agent may ask to wait for work instead of polling for it. Such a request is held (up to a limit on how many are
+ * held at once) until a job is assigned to the agent or the wait runs out. Whenever new jobs get scheduled, every
+ * waiting agent is offered them straight away, instead of on its next poll. Jobs scheduled by stage status changes are
+ * picked up by a single reload in the background, however many stages change while it is pending.
+ */
 @Service
-public class WorkAssignments implements GoMessageListener<WorkAssignedMessage> {
+public class WorkAssignments implements GoMessageListener<WorkAssignedMessage>, StageStatusListener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WorkAssignments.class);
     private GoMessageChannel<IdleAgentMessage> idleAgentsTopic;
     private ConcurrentMap<AgentIdentifier, Work> assignments;
+    private final ConcurrentMap<AgentIdentifier, WaitingAgent> waitingAgents = new ConcurrentHashMap<>();
+    private final BuildAssignmentService buildAssignmentService;
+    private final SystemEnvironment systemEnvironment;
+    private final Semaphore waitingRequests;
+    private final Executor reloadExecutor;
+    private final AtomicBoolean reloadPending = new AtomicBoolean();
     private static final NoWork NO_WORK = new NoWork();
 
     @Autowired
     public WorkAssignments(IdleAgentTopic idleAgentsTopic,
-                           WorkAssignedTopic assignedWorkTopic) {
+                           WorkAssignedTopic assignedWorkTopic,
+                           BuildAssignmentService buildAssignmentService,
+                           StageService stageService,
+                           SystemEnvironment systemEnvironment) {
+        this(idleAgentsTopic, assignedWorkTopic, buildAssignmentService, stageService, systemEnvironment,
+                Executors.newSingleThreadExecutor(new BasicThreadFactory.Builder().namingPattern("work-assignments-reload-%d").daemon(true).build()));
+    }
+
+    WorkAssignments(IdleAgentTopic idleAgentsTopic,
+                    WorkAssignedTopic assignedWorkTopic,
+                    BuildAssignmentService buildAssignmentService,
+                    StageService stageService,
+                    SystemEnvironment systemEnvironment,
+                    Executor reloadExecutor) {
         this.idleAgentsTopic = idleAgentsTopic;
+        this.buildAssignmentService = buildAssignmentService;
+        this.systemEnvironment = systemEnvironment;
+        this.waitingRequests = new Semaphore(systemEnvironment.get(AGENT_GET_WORK_MAX_WAITING_REQUESTS));
+        this.reloadExecutor = reloadExecutor;
         assignedWorkTopic.addListener(this);
+        buildAssignmentService.addNewJobPlansListener(this::offerNewJobsToWaitingAgents);
+        stageService.addStageStatusListener(this);
         this.assignments = new ConcurrentHashMap<>();
     }
 
@@ -59,6 +105,60 @@ public class WorkAssignments implements GoMessageListener<WorkAssignedMessage> {
         }
     }
 
+    /**
+     * Same as {@link #getWork(AgentRuntimeInfo)}, but waits for up to the given time (capped by the server) for work to
+     * be assigned, when there is none yet. Does not wait at all when too many agents are already waiting.
+     */
+    public Work getWork(AgentRuntimeInfo runtimeInfo, long waitInMillis) throws InterruptedException {
+        Work work = getWork(runtimeInfo);
+        long wait = Math.min(waitInMillis, TimeUnit.SECONDS.toMillis(systemEnvironment.get(AGENT_GET_WORK_MAX_WAIT_IN_SECONDS)));
+        if (!(work instanceof NoWork) || wait <= 0 || !waitingRequests.tryAcquire()) {
+            return work;
+        }
+
+        AgentIdentifier agent = runtimeInfo.getIdentifier();
+        WaitingAgent waitingAgent = new WaitingAgent(runtimeInfo);
+        waitingAgents.put(agent, waitingAgent);
+        try {
+            long deadline = System.currentTimeMillis() + wait;
+            do {
+                Work assigned = takeAssignedWork(agent);
+                if (assigned != null) {
+                    return assigned;
+                }
+            } while (waitingAgent.awaitWakeUp(deadline - System.currentTimeMillis()));
+            return NO_WORK;
+        } finally {
+            waitingAgents.remove(agent, waitingAgent);
+            waitingRequests.release();
+        }
+    }
+
+    private Work takeAssignedWork(AgentIdentifier agent) {
+        synchronized (agentMutex(agent)) {
+            Work work = assignments.get(agent);
+            if (work == null || work instanceof NoWork) {
+                return null;
+            }
+            return assignments.remove(agent);
+        }
+    }
+
+    void offerNewJobsToWaitingAgents() {
+        for (WaitingAgent waitingAgent : waitingAgents.values()) {
+            AgentIdentifier agent = waitingAgent.runtimeInfo.getIdentifier();
+            synchronized (agentMutex(agent)) {
+                if (assignments.putIfAbsent(agent, NO_WORK) == null) {
+                    idleAgentsTopic.post(new IdleAgentMessage(waitingAgent.runtimeInfo));
+                }
+            }
+        }
+    }
+
+    int numberOfWaitingAgents() {
+        return waitingAgents.size();
+    }
+
     private String agentMutex(AgentIdentifier agent) {
         return agent.getUuid().intern();
     }
@@ -75,7 +175,49 @@ public class WorkAssignments implements GoMessageListener<WorkAssignedMessage> {
             synchronized (agentMutex(agentIdentifier)) {
                 assignments.replace(agentIdentifier, NO_WORK, work);
             }
+            WaitingAgent waitingAgent = waitingAgents.get(agentIdentifier);
+            if (waitingAgent != null) {
+                waitingAgent.wakeUp();
+            }
+        }
+    }
+
+    @Override
+    public void stageStatusChanged(Stage stage) {
+        // pick up newly scheduled jobs now rather than on the next build assignment timer, but only if some agent
+        // is actually waiting for them
+        if (waitingAgents.isEmpty() || stage.getJobInstances().stream().noneMatch(job -> job.getState() == JobState.Scheduled)) {
+            return;
+        }
+        if (reloadPending.compareAndSet(false, true)) {
+            reloadExecutor.execute(this::reloadScheduledJobs);
         }
     }
 
+    private void reloadScheduledJobs() {
+        // cleared before reloading, so that a stage which changes during the reload gets another one
+        reloadPending.set(false);
+        try {
+            buildAssignmentService.onTimer();
+        } catch (Exception e) {
+            LOGGER.error("Failed to reload scheduled jobs for agents waiting for work", e);
+        }
+    }
+
+    private static class WaitingAgent {
+        private final AgentRuntimeInfo runtimeInfo;
+        private final Semaphore wakeUps = new Semaphore(0);
+
+        private WaitingAgent(AgentRuntimeInfo runtimeInfo) {
+            this.runtimeInfo = runtimeInfo;
+        }
+
+        private void wakeUp() {
+            wakeUps.release();
+        }
+
+        private boolean awaitWakeUp(long timeoutInMillis) throws InterruptedException {
+            return timeoutInMillis > 0 && wakeUps.tryAcquire(timeoutInMillis, TimeUnit.MILLISECONDS);
+        }
+    }
 }
@@ -24,6 +24,8 @@ import com.thoughtworks.go.domain.materials.*;
 import com.thoughtworks.go.domain.materials.dependency.DependencyMaterialInstance;
 import com.thoughtworks.go.server.cache.CacheKeyGenerator;
 import com.thoughtworks.go.server.cache.GoCache;
+import com.thoughtworks.go.server.cache.KeyedLockProvider;
+import com.thoughtworks.go.server.cache.KeyedLockProvider.KeyedLock;
 import com.thoughtworks.go.server.dao.FeedModifier;
 import com.thoughtworks.go.server.database.Database;
 import com.thoughtworks.go.server.database.QueryExtensions;
@@ -68,6 +70,7 @@ public class MaterialRepository extends HibernateDaoSupport {
     private static final Logger LOGGER = LoggerFactory.getLogger(MaterialRepository.class.getName());
 
     private final GoCache goCache;
+    private final KeyedLockProvider keyedLocks = KeyedLockProvider.shared();
     private final TransactionSynchronizationManager transactionSynchronizationManager;
     private final MaterialConfigConverter materialConfigConverter;
     private final QueryExtensions queryExtensions;
@@ -254,7 +257,7 @@ public class MaterialRepository extends HibernateDaoSupport {
 
     public List findPipelineMaterialRevisions(long pipelineId) {
         String cacheKey = pipelinePmrsKey(pipelineId);
-        synchronized (cacheKey) {
+        try (KeyedLock lock = keyedLocks.acquire(cacheKey)) {
             List results = (List) goCache.get(cacheKey);
             if (results != null) {
                 return results;
@@ -353,7 +356,7 @@ public class MaterialRepository extends HibernateDaoSupport {
     }
 
     private String pipelinePmrsKey(long pipelineId) {
-        return (MaterialRepository.class.getName() + "_pipelinePMRs_" + pipelineId).intern();
+        return MaterialRepository.class.getName() + "_pipelinePMRs_" + pipelineId;
     }
 
     List<Modification> findMaterialRevisionsForMaterial(long id) {
@@ -364,7 +367,7 @@ public class MaterialRepository extends HibernateDaoSupport {
         String cacheKey = pmrModificationsKey(pmr);
         List<Modification> modifications = (List<Modification>) goCache.get(cacheKey);
         if (modifications == null) {
-            synchronized (cacheKey) {
+            try (KeyedLock lock = keyedLocks.acquire(cacheKey)) {
                 modifications = (List<Modification>) goCache.get(cacheKey);
                 if (modifications == null) {
                     modifications = (List<Modification>) getHibernateTemplate().find(
@@ -378,8 +381,7 @@ public class MaterialRepository extends HibernateDaoSupport {
     }
 
     private String pmrModificationsKey(PipelineMaterialRevision pmr) {
-        // we intern() it because we might synchronize on the returned String
-        return (MaterialRepository.class.getName() + "_pmrModifications_" + pmr.getId()).intern();
+        return MaterialRepository.class.getName() + "_pmrModifications_" + pmr.getId();
     }
 
     private List<String> pmrModificationsKey(Modification modification, List<PipelineMaterialRevision> pmrs) {
@@ -399,18 +401,15 @@ public class MaterialRepository extends HibernateDaoSupport {
     }
 
     String latestMaterialModificationsKey(MaterialInstance materialInstance) {
-        // we intern() it because we might synchronize on the returned String
-        return (MaterialRepository.class.getName() + "_latestMaterialModifications_" + materialInstance.getId()).intern();
+        return MaterialRepository.class.getName() + "_latestMaterialModifications_" + materialInstance.getId();
     }
 
     String materialModificationCountKey(MaterialInstance materialInstance) {
-        // we intern() it because we might synchronize on the returned String
-        return (MaterialRepository.class.getName() + "_materialModificationCount_" + materialInstance.getId()).intern();
+        return MaterialRepository.class.getName() + "_materialModificationCount_" + materialInstance.getId();
     }
 
     String materialModificationsWithPaginationKey(MaterialInstance materialInstance) {
-        // we intern() it because we might synchronize on the returned String
-        return (MaterialRepository.class.getName() + "_materialModificationsWithPagination_" + materialInstance.getId()).intern();
+        return MaterialRepository.class.getName() + "_materialModificationsWithPagination_" + materialInstance.getId();
     }
 
     String materialModificationsWithPaginationSubKey(Pagination pagination) {
@@ -419,7 +418,7 @@ public class MaterialRepository extends HibernateDaoSupport {
 
     public void saveOrUpdate(MaterialInstance materialInstance) {
         String cacheKey = materialKey(materialInstance.getFingerprint());
-        synchronized (cacheKey) {
+        try (KeyedLock lock = keyedLocks.acquire(cacheKey)) {
             getHibernateTemplate().saveOrUpdate(materialInstance);
             goCache.remove(cacheKey);
             goCache.put(cacheKey, materialInstance);
@@ -454,7 +453,7 @@ public class MaterialRepository extends HibernateDaoSupport {
 
     public MaterialInstance findOrCreateFrom(Material material) {
         String cacheKey = materialKey(material);
-        synchronized (cacheKey) {
+        try (KeyedLock lock = keyedLocks.acquire(cacheKey)) {
             MaterialInstance materialInstance = findMaterialInstance(material);
             if (materialInstance == null) {
                 LOGGER.debug("Material instance for material '{}' not found in the database, creating a new instance now.", material);
@@ -466,19 +465,18 @@ public class MaterialRepository extends HibernateDaoSupport {
     }
 
     final String materialKey(Material material) {
-        // we intern() it because we synchronize on the returned String
         return materialKey(material.getFingerprint());
     }
 
     private String materialKey(String fingerprint) {
-        return (MaterialRepository.class.getName() + "_materialInstance_" + fingerprint).intern();
+        return MaterialRepository.class.getName() + "_materialInstance_" + fingerprint;
     }
 
     public MaterialInstance findMaterialInstance(Material material) {
         String cacheKey = materialKey(material);
         MaterialInstance materialInstance = (MaterialInstance) goCache.get(cacheKey);
         if (materialInstance == null) {
-            synchronized (cacheKey) {
+            try (KeyedLock lock = keyedLocks.acquire(cacheKey)) {
                 materialInstance = (MaterialInstance) goCache.get(cacheKey);
                 if (materialInstance == null) {
                     DetachedCriteria hibernateCriteria = DetachedCriteria.forClass(material.getInstanceType());
@@ -507,7 +505,7 @@ public class MaterialRepository extends HibernateDaoSupport {
         String cacheKey = materialKey(materialConfig.getFingerprint());
         MaterialInstance materialInstance = (MaterialInstance) goCache.get(cacheKey);
         if (materialInstance == null) {
-            synchronized (cacheKey) {
+            try (KeyedLock lock = keyedLocks.acquire(cacheKey)) {
                 materialInstance = (MaterialInstance) goCache.get(cacheKey);
                 if (materialInstance == null) {
                     DetachedCriteria hibernateCriteria = DetachedCriteria.forClass(materialConfigConverter.getInstanceType(materialConfig));
@@ -605,7 +603,7 @@ public class MaterialRepository extends HibernateDaoSupport {
             @Override
             public void afterCommit() {
                 String key = cacheKeyForLatestPmrForPipelineKey(pipelineMaterialRevision.getMaterialId(), pipelineName.toLowerCase());
-                synchronized (key) {
+                try (KeyedLock lock = keyedLocks.acquire(key)) {
                     goCache.remove(key);
                 }
             }
@@ -648,7 +646,7 @@ public class MaterialRepository extends HibernateDaoSupport {
     public List<Modification> findModificationsSince(Material material, MaterialRevision revision) {
         MaterialInstance materialInstance = findOrCreateFrom(material);
         String cacheKey = latestMaterialModificationsKey(materialInstance);
-        synchronized (cacheKey) {
+        try (KeyedLock lock = keyedLocks.acquire(cacheKey)) {
             long sinceModificationId = revision.getLatestModification().getId();
             Modifications modifications = cachedModifications(materialInstance);
             if (!modificationExists(sinceModificationId, modifications)) {
@@ -682,7 +680,7 @@ public class MaterialRepository extends HibernateDaoSupport {
             @Override
             public void afterCommit() {
                 String cacheKey = latestMaterialModificationsKey(materialInstance);
-                synchronized (cacheKey) {
+                try (KeyedLock lock = keyedLocks.acquire(cacheKey)) {
                     goCache.remove(cacheKey);
                 }
             }
@@ -694,7 +692,7 @@ public class MaterialRepository extends HibernateDaoSupport {
             @Override
             public void afterCommit() {
                 String key = materialModificationCountKey(materialInstance);
-                synchronized (key) {
+                try (KeyedLock lock = keyedLocks.acquire(key)) {
                     goCache.remove(key);
                 }
             }
@@ -706,7 +704,7 @@ public class MaterialRepository extends HibernateDaoSupport {
             @Override
             public void afterCommit() {
                 String key = materialModificationsWithPaginationKey(materialInstance);
-                synchronized (key) {
+                try (KeyedLock lock = keyedLocks.acquire(key)) {
                     goCache.remove(key);
                 }
             }
@@ -741,7 +739,7 @@ public class MaterialRepository extends HibernateDaoSupport {
             return modifications.get(0);
         }
         String cacheKey = latestMaterialModificationsKey(expandedInstance);
-        synchronized (cacheKey) {
+        try (KeyedLock lock = keyedLocks.acquire(cacheKey)) {
             Modification modification = (Modification) getHibernateTemplate().execute((HibernateCallback) session -> {
                 Query query = session.createQuery("FROM Modification WHERE materialId = ? ORDER BY id DESC");
                 query.setMaxResults(1);
@@ -828,7 +826,7 @@ public class MaterialRepository extends HibernateDaoSupport {
         String key = cacheKeyForModificationWithRevision(materialId, revision);
         modification = (Modification) goCache.get(key);
         if (modification == null) {
-            synchronized (key) {
+            try (KeyedLock lock = keyedLocks.acquire(key)) {
                 modification = (Modification) goCache.get(key);
                 if (modification == null) {
                     Query query = session.createQuery("FROM Modification WHERE materialId = ? and revision = ? ORDER BY id DESC");
@@ -923,7 +921,7 @@ public class MaterialRepository extends HibernateDaoSupport {
         String key = cacheKeyForModificationsForStageLocator(stageIdentifier);
         List<Modification> modifications = (List<Modification>) goCache.get(key);
         if (modifications == null) {
-            synchronized (key) {
+            try (KeyedLock lock = keyedLocks.acquire(key)) {
                 modifications = (List<Modification>) goCache.get(key);
                 if (modifications == null) {
                     modifications = (List<Modification>) getHibernateTemplate().execute((HibernateCallback) session -> {
@@ -944,7 +942,7 @@ public class MaterialRepository extends HibernateDaoSupport {
         String key = materialModificationCountKey(materialInstance);
         Long totalCount = (Long) goCache.get(key);
         if (totalCount == null || totalCount == 0) {
-            synchronized (key) {
+            try (KeyedLock lock = keyedLocks.acquire(key)) {
                 totalCount = (Long) goCache.get(key);
                 if (totalCount == null || totalCount == 0) {
                     totalCount = (Long) getHibernateTemplate().execute((HibernateCallback) session -> {
@@ -964,7 +962,7 @@ public class MaterialRepository extends HibernateDaoSupport {
         String subKey = materialModificationsWithPaginationSubKey(pagination);
         Modifications modifications = (Modifications) goCache.get(key, subKey);
         if (modifications == null) {
-            synchronized (key) {
+            try (KeyedLock lock = keyedLocks.acquire(key)) {
                 modifications = (Modifications) goCache.get(key, subKey);
                 if (modifications == null) {
                     List<Modification> modificationsList = (List<Modification>) getHibernateTemplate().execute((HibernateCallback) session -> {
@@ -989,7 +987,7 @@ public class MaterialRepository extends HibernateDaoSupport {
         String key = cacheKeyForLatestPmrForPipelineKey(materialId, pipelineName.toLower());
         Long modificationId = (Long) goCache.get(key);
         if (modificationId == null) {
-            synchronized (key) {
+            try (KeyedLock lock = keyedLocks.acquire(key)) {
                 modificationId = (Long) goCache.get(key);
                 if (modificationId == null) {
                     modificationId = (Long) getHibernateTemplate().execute((HibernateCallback) session -> {
@@ -17,6 +17,8 @@ package com.thoughtworks.go.server.persistence;
 
 import com.thoughtworks.go.domain.PipelineTimelineEntry;
 import com.thoughtworks.go.server.cache.GoCache;
+import com.thoughtworks.go.server.cache.KeyedLockProvider;
+import com.thoughtworks.go.server.cache.KeyedLockProvider.KeyedLock;
 import com.thoughtworks.go.server.database.Database;
 import com.thoughtworks.go.server.database.QueryExtensions;
 import com.thoughtworks.go.server.domain.PipelineTimeline;
@@ -44,6 +46,7 @@ public class PipelineRepository extends HibernateDaoSupport {
     private static final Logger LOGGER = LoggerFactory.getLogger(PipelineRepository.class);
     private final QueryExtensions queryExtensions;
     private GoCache goCache;
+    private final KeyedLockProvider keyedLocks = KeyedLockProvider.shared();
 
     @Autowired
     public PipelineRepository(SessionFactory sessionFactory, GoCache goCache, Database databaseStrategy) {
@@ -160,7 +163,7 @@ public void updatePipelineTimeline(final PipelineTimeline pipelineTimeline, fina
                     int nextI = i + 1;
                     if (((nextI < matches.size() && id(matches.get(nextI)) != curId) ||//new pipeline instance starts in next record, so capture this one
                             nextI == matches.size())) {//this is the last record, so capture it
-                        entry = new PipelineTimelineEntry(name, curId, counter, revisions, naturalOrder);
+                        entry = pipelineTimeline.interner().entry(name, curId, counter, revisions, naturalOrder);
                         newPipelines.add(entry);
                     }
                 }
@@ -172,7 +175,7 @@ public void updatePipelineTimeline(final PipelineTimeline pipelineTimeline, fina
             }
 
             private PipelineTimelineEntry.Revision rev(Object[] row) {
-                return new PipelineTimelineEntry.Revision(modifiedTime(row), stringRevision(row), folder(row), modId(row));
+                return pipelineTimeline.interner().revision(modifiedTime(row), stringRevision(row), folder(row), modId(row));
             }
 
             private long pmrId(Object[] row) {
@@ -213,6 +216,15 @@ public void updatePipelineTimeline(final PipelineTimeline pipelineTimeline, fina
         });
     }
 
+    public Integer findPipelineCounterById(final long pipelineId) {
+        return (Integer) getHibernateTemplate().execute((HibernateCallback) session -> {
+            SQLQuery query = session.createSQLQuery("SELECT counter FROM pipelines WHERE id = :pipelineId");
+            query.setLong("pipelineId", pipelineId);
+            Object counter = query.uniqueResult();
+            return counter == null ? null : ((Number) counter).intValue();
+        });
+    }
+
     private void addEntriesToPipelineTimeline(List<PipelineTimelineEntry> newEntries, PipelineTimeline pipelineTimeline, List<PipelineTimelineEntry> tempEntriesForRollback) {
         for (PipelineTimelineEntry newEntry : newEntries) {
             tempEntriesForRollback.add(newEntry);
@@ -235,7 +247,7 @@ public void updatePipelineTimeline(final PipelineTimeline pipelineTimeline, fina
             return (PipelineSelections) goCache.get(key);
         }
 
-        synchronized (key) {
+        try (KeyedLock lock = keyedLocks.acquire(key)) {
             if (goCache.isKeyInCache(key)) {
                 return (PipelineSelections) goCache.get(key);
             }
@@ -266,7 +278,7 @@ public void updatePipelineTimeline(final PipelineTimeline pipelineTimeline, fina
         if (goCache.isKeyInCache(key)) {
             return (PipelineSelections) goCache.get(key);
         }
-        synchronized (key) {
+        try (KeyedLock lock = keyedLocks.acquire(key)) {
             if (goCache.isKeyInCache(key)) {
                 return (PipelineSelections) goCache.get(key);
             }
@@ -284,23 +296,23 @@ public void updatePipelineTimeline(final PipelineTimeline pipelineTimeline, fina
 
     private void removePipelineSelectionFromCacheForCookie(PipelineSelections pipelineSelections) {
         String pipelineSelectionCookieKey = pipelineSelectionForCookieKey(pipelineSelections.getId());
-        synchronized (pipelineSelectionCookieKey) {
+        try (KeyedLock lock = keyedLocks.acquire(pipelineSelectionCookieKey)) {
             goCache.remove(pipelineSelectionCookieKey);
         }
     }
 
     private void removePipelineSelectionFromCacheForUserId(PipelineSelections pipelineSelections) {
         String pipelineSelectionUserIdKey = pipelineSelectionForUserIdKey(pipelineSelections.userId());
-        synchronized (pipelineSelectionUserIdKey) {
+        try (KeyedLock lock = keyedLocks.acquire(pipelineSelectionUserIdKey)) {
             goCache.remove(pipelineSelectionUserIdKey);
         }
     }
 
     String pipelineSelectionForUserIdKey(Long userId) {
-        return (PipelineRepository.class.getName() + "_userIdPipelineSelection_" + userId).intern();
+        return PipelineRepository.class.getName() + "_userIdPipelineSelection_" + userId;
     }
 
     String pipelineSelectionForCookieKey(long id) {
-        return (PipelineRepository.class.getName() + "_cookiePipelineSelection_" + id).intern();
+        return PipelineRepository.class.getName() + "_cookiePipelineSelection_" + id;
     }
 }
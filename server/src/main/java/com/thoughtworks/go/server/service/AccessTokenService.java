@@ -45,13 +45,15 @@ public class AccessTokenService {
 
     private final AccessTokenDao accessTokenDao;
     private final SecurityService securityService;
+    private final VerifiedAccessTokenCache verifiedAccessTokenCache;
     private final ConcurrentMap<Long, Timestamp> accessTokenIdToLastUsedTimestampCache = new ConcurrentHashMap<>();
 
     @Autowired
-    public AccessTokenService(AccessTokenDao accessTokenDao, Clock clock, SecurityService securityService) {
+    public AccessTokenService(AccessTokenDao accessTokenDao, Clock clock, SecurityService securityService, VerifiedAccessTokenCache verifiedAccessTokenCache) {
         this.accessTokenDao = accessTokenDao;
         this.timeProvider = clock;
         this.securityService = securityService;
+        this.verifiedAccessTokenCache = verifiedAccessTokenCache;
     }
 
     public AccessToken.AccessTokenWithDisplayValue create(String description, String username, String authConfigId) {
@@ -95,6 +97,10 @@ public class AccessTokenService {
             throw new InvalidAccessTokenException();
         }
 
+        return verifiedAccessTokenCache.get(actualToken, () -> verify(actualToken));
+    }
+
+    private AccessToken verify(String actualToken) {
         String saltId = StringUtils.substring(actualToken, 0, 8);
 
         AccessToken token = accessTokenDao.findAccessTokenBySaltId(saltId);
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.service;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * @understands storing identical artifact files only once. Every artifact file is hard linked to a blob named after
+ * the SHA-256 of its contents, so that the same content uploaded by many jobs shares a single copy on disk.
+ * <p>
+ * The file system keeps the reference count: a blob with a link count of one is no longer part of any job's
+ * artifacts and can be purged. Since a blob is shared, a linked artifact must be {@link #detach(File) detached} before
+ * it is written to. All operations touch only the files they are given, never the whole store or the whole job.
+ */
+class ArtifactBlobStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArtifactBlobStore.class);
+    static final String BLOBS_FOLDER = "blobs";
+    static final long MIN_SIZE = 64 * 1024;
+
+    private final Path root;
+
+    ArtifactBlobStore(File root) {
+        this.root = root.toPath();
+    }
+
+    static boolean isSupported() {
+        return FileSystems.getDefault().supportedFileAttributeViews().contains("unix");
+    }
+
+    /**
+     * Replaces each of the given files with a link to the blob holding the same content, adding blobs for content
+     * not seen before. Files smaller than {@link #MIN_SIZE} are left alone.
+     */
+    void deduplicate(Collection<File> files) {
+        for (File file : files) {
+            try {
+                if (Files.isRegularFile(file.toPath(), LinkOption.NOFOLLOW_LINKS)) {
+                    deduplicateFile(file.toPath());
+                }
+            } catch (IOException | UncheckedIOException | UnsupportedOperationException e) {
+                LOGGER.warn("Could not deduplicate artifact [{}]", file.getAbsolutePath(), e);
+            }
+        }
+    }
+
+    /**
+     * Gives {@code file} its own copy of the content if it is linked, so that it can be modified without modifying
+     * the blob. A blob left without any other artifact linking to it is released.
+     */
+    void detach(File file) throws IOException {
+        Path path = file.toPath();
+        if (!Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS)) {
+            return;
+        }
+        int links = linkCount(path);
+        if (links > 1) {
+            Path blob = links == 2 ? blobFor(path) : null;
+            Path copy = path.resolveSibling("." + path.getFileName() + ".detached");
+            Files.copy(path, copy, REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+            Files.move(copy, path, REPLACE_EXISTING, ATOMIC_MOVE);
+            if (blob != null) {
+                release(Collections.singleton(blob));
+            }
+        }
+    }
+
+    /**
+     * Finds the blobs the files under {@code artifact} link to, so that they can be {@link #release(Collection)
+     * released} once the artifact is deleted. Only linked files are read.
+     */
+    Set<Path> blobsLinkedFrom(File artifact) {
+        Set<Path> blobs = new HashSet<>();
+        try {
+            for (Path file : regularFilesUnder(artifact.toPath())) {
+                if (linkCount(file) > 1) {
+                    blobs.add(blobFor(file));
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            LOGGER.warn("Could not find the artifact blobs linked from [{}]", artifact.getAbsolutePath(), e);
+        }
+        return blobs;
+    }
+
+    /**
+     * Deletes those of the given blobs no artifact links to anymore.
+     *
+     * @return the number of blobs deleted
+     */
+    int release(Collection<Path> blobs) {
+        int purged = 0;
+        for (Path blob : blobs) {
+            try {
+                if (Files.exists(blob, LinkOption.NOFOLLOW_LINKS) && linkCount(blob) == 1 && Files.deleteIfExists(blob)) {
+                    purged++;
+                }
+            } catch (IOException | UncheckedIOException e) {
+                LOGGER.warn("Could not release artifact blob [{}]", blob, e);
+            }
+        }
+        return purged;
+    }
+
+    private void deduplicateFile(Path file) throws IOException {
+        if (Files.size(file) < MIN_SIZE || linkCount(file) > 1) {
+            return;
+        }
+
+        Path blob = blobFor(file);
+        Files.createDirectories(blob.getParent());
+        try {
+            Files.createLink(blob, file);
+            return;
+        } catch (FileAlreadyExistsException e) {
+            // the content is already known, share the existing blob
+        }
+
+        Path link = file.resolveSibling("." + file.getFileName() + ".blob");
+        try {
+            Files.createLink(link, blob);
+            Files.move(link, file, REPLACE_EXISTING, ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            // the blob was purged in the meantime, the file keeps its own copy
+            Files.deleteIfExists(link);
+        }
+    }
+
+    private Path blobFor(Path file) throws IOException {
+        String sha256;
+        try (InputStream content = Files.newInputStream(file)) {
+            sha256 = Hex.encodeHexString(DigestUtils.sha256(content));
+        }
+        return root.resolve(sha256.substring(0, 2)).resolve(sha256);
+    }
+
+    private static int linkCount(Path file) throws IOException {
+        return (Integer) Files.getAttribute(file, "unix:nlink", LinkOption.NOFOLLOW_LINKS);
+    }
+
+    private static List<Path> regularFilesUnder(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> paths = Files.walk(path)) {
+            return paths.filter(p -> Files.isRegularFile(p, LinkOption.NOFOLLOW_LINKS)).collect(Collectors.toList());
+        }
+    }
+}
@@ -36,6 +36,12 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.zip.ZipInputStream;
 
 import static java.lang.String.format;
@@ -46,22 +52,26 @@ public class ArtifactsService implements ArtifactUrlReader {
     private final ZipUtil zipUtil;
     private final JobResolverService jobResolverService;
     private final StageDao stageDao;
+    private final SystemEnvironment systemEnvironment;
     public static final Logger LOGGER = LoggerFactory.getLogger(ArtifactsService.class);
     public static final String LOG_XML_NAME = "log.xml";
     private ArtifactDirectoryChooser chooser;
+    private ArtifactBlobStore blobStore;
 
     @Autowired
     public ArtifactsService(JobResolverService jobResolverService, StageDao stageDao,
-                            ArtifactsDirHolder artifactsDirHolder, ZipUtil zipUtil) {
-        this(jobResolverService, stageDao, artifactsDirHolder, zipUtil, new ArtifactDirectoryChooser());
+                            ArtifactsDirHolder artifactsDirHolder, ZipUtil zipUtil, SystemEnvironment systemEnvironment) {
+        this(jobResolverService, stageDao, artifactsDirHolder, zipUtil, new ArtifactDirectoryChooser(), systemEnvironment);
     }
 
     protected ArtifactsService(JobResolverService jobResolverService, StageDao stageDao,
-                               ArtifactsDirHolder artifactsDirHolder, ZipUtil zipUtil, ArtifactDirectoryChooser chooser) {
+                               ArtifactsDirHolder artifactsDirHolder, ZipUtil zipUtil, ArtifactDirectoryChooser chooser,
+                               SystemEnvironment systemEnvironment) {
         this.artifactsDirHolder = artifactsDirHolder;
         this.zipUtil = zipUtil;
         this.jobResolverService = jobResolverService;
         this.stageDao = stageDao;
+        this.systemEnvironment = systemEnvironment;
 
         //This is a Chain of Responsibility to decide which view should be shown for a particular artifact URL
         this.chooser = chooser;
@@ -71,6 +81,18 @@ public class ArtifactsService implements ArtifactUrlReader {
     public void initialize() {
         chooser.add(new PathBasedArtifactsLocator(artifactsDirHolder.getArtifactsDir()));
         chooser.add(new BuildIdArtifactLocator(artifactsDirHolder.getArtifactsDir()));
+        initializeBlobStore();
+    }
+
+    private void initializeBlobStore() {
+        if (!systemEnvironment.get(SystemEnvironment.ARTIFACTS_DEDUPLICATION)) {
+            return;
+        }
+        if (!ArtifactBlobStore.isSupported()) {
+            LOGGER.warn("Artifact deduplication is enabled, but is not supported on this file system. Artifacts will not be deduplicated.");
+            return;
+        }
+        blobStore = new ArtifactBlobStore(new File(artifactsDirHolder.getArtifactsDir(), ArtifactBlobStore.BLOBS_FOLDER));
     }
 
     public boolean saveFile(File dest, InputStream stream, boolean shouldUnzip, int attempt) {
@@ -78,11 +100,15 @@ public class ArtifactsService implements ArtifactUrlReader {
         try {
             LOGGER.trace("Saving file [{}]", destPath);
             if (shouldUnzip) {
-                zipUtil.unzip(new ZipInputStream(stream), dest);
+                unzip(stream, dest);
             } else {
+                detachFromBlobStore(dest);
                 try (FileOutputStream out = FileUtils.openOutputStream(dest, true)) {
                     IOUtils.copyLarge(stream, out);
                 }
+                if (blobStore != null) {
+                    blobStore.deduplicate(Collections.singletonList(dest));
+                }
             }
             LOGGER.trace("File [{}] saved.", destPath);
             return true;
@@ -105,6 +131,7 @@ public class ArtifactsService implements ArtifactUrlReader {
         String destPath = dest.getAbsolutePath();
         try {
             LOGGER.trace("Appending file [{}]", destPath);
+            detachFromBlobStore(dest);
             try (FileOutputStream out = FileUtils.openOutputStream(dest, true)) {
                 IOUtils.copyLarge(stream, out);
             }
@@ -116,6 +143,25 @@ public class ArtifactsService implements ArtifactUrlReader {
         }
     }
 
+    private void unzip(InputStream stream, File dest) throws IOException {
+        if (blobStore == null) {
+            zipUtil.unzip(new ZipInputStream(stream), dest);
+            return;
+        }
+        List<File> unzippedFiles = new ArrayList<>();
+        zipUtil.unzip(new ZipInputStream(stream), dest, file -> {
+            blobStore.detach(file);
+            unzippedFiles.add(file);
+        });
+        blobStore.deduplicate(unzippedFiles);
+    }
+
+    private void detachFromBlobStore(File dest) throws IOException {
+        if (blobStore != null) {
+            blobStore.detach(dest);
+        }
+    }
+
     public File findArtifact(JobIdentifier identifier, String path) throws IllegalArtifactLocationException {
         return chooser.findArtifact(identifier, path);
     }
@@ -164,7 +210,12 @@ public class ArtifactsService implements ArtifactUrlReader {
             File stageRoot = chooser.findArtifact(stageIdentifier, "");
             File cachedStageRoot = chooser.findCachedArtifact(stageIdentifier);
             deleteFile(cachedStageRoot);
-            boolean didDelete = deleteArtifactsExceptCruiseOutputAndPluggableArtifactMetadata(stageRoot);
+            Set<Path> linkedBlobs = new HashSet<>();
+            boolean didDelete = deleteArtifactsExceptCruiseOutputAndPluggableArtifactMetadata(stageRoot, linkedBlobs);
+            if (blobStore != null) {
+                int purgedBlobs = blobStore.release(linkedBlobs);
+                LOGGER.debug("Purged {} artifact blobs no longer referenced after clearing artifacts for stage '{}'.", purgedBlobs, stageIdentifier.entityLocator());
+            }
 
             if (!didDelete) {
                 LOGGER.error("Artifacts for stage '{}' at path '{}' was not deleted", stageIdentifier.entityLocator(), stageRoot.getAbsolutePath());
@@ -176,7 +227,7 @@ public class ArtifactsService implements ArtifactUrlReader {
         LOGGER.debug("Marked stage '{}' as artifacts deleted.", stageIdentifier.entityLocator());
     }
 
-    private boolean deleteArtifactsExceptCruiseOutputAndPluggableArtifactMetadata(File stageRoot) throws IOException {
+    private boolean deleteArtifactsExceptCruiseOutputAndPluggableArtifactMetadata(File stageRoot, Set<Path> linkedBlobs) throws IOException {
         File[] jobs = stageRoot.listFiles();
         if (jobs == null) {  // null if security restricted
             throw new IOException("Failed to list contents of " + stageRoot);
@@ -193,6 +244,9 @@ public class ArtifactsService implements ArtifactUrlReader {
                 if (artifact.isDirectory() && (artifact.getName().equals(ArtifactLogUtil.CRUISE_OUTPUT_FOLDER) || artifact.getName().equals(ArtifactLogUtil.PLUGGABLE_ARTIFACT_METADATA_FOLDER))) {
                     continue;
                 }
+                if (blobStore != null) {
+                    linkedBlobs.addAll(blobStore.blobsLinkedFrom(artifact));
+                }
                 didDelete &= deleteFile(artifact);
             }
         }
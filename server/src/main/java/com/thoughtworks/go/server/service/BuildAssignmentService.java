@@ -15,7 +15,11 @@
  */
 package com.thoughtworks.go.server.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.thoughtworks.go.config.*;
+import com.thoughtworks.go.config.elastic.ClusterProfile;
+import com.thoughtworks.go.config.elastic.ElasticProfile;
 import com.thoughtworks.go.config.exceptions.RecordNotFoundException;
 import com.thoughtworks.go.config.materials.PackageMaterial;
 import com.thoughtworks.go.config.materials.PluggableSCMMaterial;
@@ -23,11 +27,12 @@ import com.thoughtworks.go.domain.*;
 import com.thoughtworks.go.domain.builder.Builder;
 import com.thoughtworks.go.domain.exception.IllegalArtifactLocationException;
 import com.thoughtworks.go.domain.materials.Material;
-import com.thoughtworks.go.listener.ConfigChangedListener;
+import com.thoughtworks.go.listener.ConfigChangeSetListener;
 import com.thoughtworks.go.listener.EntityConfigChangedListener;
 import com.thoughtworks.go.plugin.access.exceptions.SecretResolutionFailureException;
 import com.thoughtworks.go.remote.AgentIdentifier;
 import com.thoughtworks.go.remote.work.*;
+import com.thoughtworks.go.server.domain.ElasticAgentMetadata;
 import com.thoughtworks.go.server.exceptions.RulesViolationException;
 import com.thoughtworks.go.server.materials.StaleMaterialsOnBuildCause;
 import com.thoughtworks.go.server.messaging.JobStatusMessage;
@@ -43,14 +48,16 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import static com.thoughtworks.go.util.command.EnvironmentVariableContext.GO_ENVIRONMENT_NAME;
 import static java.lang.String.format;
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
 import static java.util.stream.StreamSupport.stream;
 import static org.apache.commons.collections4.CollectionUtils.forAllDo;
 
@@ -59,7 +66,7 @@ import static org.apache.commons.collections4.CollectionUtils.forAllDo;
  * @understands how to assign work to agents
  */
 @Service
-public class BuildAssignmentService implements ConfigChangedListener {
+public class BuildAssignmentService implements ConfigChangeSetListener {
     private static final org.slf4j.Logger LOGGER = LoggerFactory.getLogger(BuildAssignmentService.class.getName());
     public static final NoWork NO_WORK = new NoWork();
     public static final String GO_PIPELINE_GROUP_NAME = "GO_PIPELINE_GROUP_NAME";
@@ -73,7 +80,15 @@ public class BuildAssignmentService implements ConfigChangedListener {
     private TransactionTemplate transactionTemplate;
     private final ScheduledPipelineLoader scheduledPipelineLoader;
 
-    private List<JobPlan> jobPlans = new ArrayList<>();
+    private List<JobPlan> jobPlans = new CopyOnWriteArrayList<>();
+    /**
+     * Agents hold the read lock while they claim and assign a job, so that they do not wait for each other; a claimed
+     * job is only marked as assigned in the database at the end of that. Reloading the scheduled jobs from the database
+     * and removing jobs hold the write lock, so that a job which is claimed but not yet marked as assigned is never
+     * offered again by a freshly loaded index.
+     */
+    private final ReadWriteLock jobPlansLock = new ReentrantReadWriteLock();
+    private ScheduledJobPlanIndex jobPlanIndex = new ScheduledJobPlanIndex(jobPlans);
     private final UpstreamPipelineResolver resolver;
     private final BuilderFactory builderFactory;
     private MaintenanceModeService maintenanceModeService;
@@ -82,6 +97,8 @@ public class BuildAssignmentService implements ConfigChangedListener {
     private SecretParamResolver secretParamResolver;
     private JobStatusTopic jobStatusTopic;
     private ConsoleService consoleService;
+    private final List<Runnable> newJobPlansListeners = new CopyOnWriteArrayList<>();
+    private final Cache<ElasticJobGroup, Boolean> declinedElasticJobGroups;
 
     @Autowired
     public BuildAssignmentService(GoConfigService goConfigService, JobInstanceService jobInstanceService,
@@ -107,6 +124,10 @@ public class BuildAssignmentService implements ConfigChangedListener {
         this.secretParamResolver = secretParamResolver;
         this.jobStatusTopic = jobStatusTopic;
         this.consoleService = consoleService;
+        this.declinedElasticJobGroups = Caffeine.newBuilder()
+                .expireAfterWrite(systemEnvironment.getElasticAgentDeclinedWorkTtlInMillis(), TimeUnit.MILLISECONDS)
+                .maximumSize(10_000)
+                .build();
     }
 
     public void initialize() {
@@ -114,6 +135,14 @@ public class BuildAssignmentService implements ConfigChangedListener {
         goConfigService.register(pipelineConfigChangedListener());
     }
 
+    /**
+     * Registers a listener which is told whenever reloading the scheduled jobs turns up jobs that were not
+     * scheduled before, so that agents waiting for work can be offered them right away.
+     */
+    public void addNewJobPlansListener(Runnable listener) {
+        newJobPlansListeners.add(listener);
+    }
+
 
     protected EntityConfigChangedListener<PipelineConfig> pipelineConfigChangedListener() {
         return new EntityConfigChangedListener<PipelineConfig>() {
@@ -121,7 +150,8 @@ public class BuildAssignmentService implements ConfigChangedListener {
             public void onEntityConfigChange(PipelineConfig pipelineConfig) {
                 LOGGER.info("[Configuration Changed] Removing deleted jobs for pipeline {}.", pipelineConfig.name());
 
-                synchronized (BuildAssignmentService.this) {
+                jobPlansLock.writeLock().lock();
+                try {
                     List<JobPlan> jobsToRemove;
                     if (goConfigService.hasPipelineNamed(pipelineConfig.name())) {
                         jobsToRemove = getMismatchingJobPlansFromUpdatedPipeline(pipelineConfig, jobPlans);
@@ -130,6 +160,8 @@ public class BuildAssignmentService implements ConfigChangedListener {
                     }
 
                     IterableUtils.forEach(jobsToRemove, o -> removeJob(o));
+                } finally {
+                    jobPlansLock.writeLock().unlock();
                 }
             }
         };
@@ -174,39 +206,73 @@ public class BuildAssignmentService implements ConfigChangedListener {
             return new DeniedAgentWork(agent.getUuid());
         }
 
-        synchronized (this) {
-//          check to ensure agent is not disabled after entering the synchronized block
-            if (agent.isDisabled()) {
-                return new DeniedAgentWork(agent.getUuid());
-            }
-            //check if agent already has assigned build, if so, reschedule it
-            scheduleService.rescheduleAbandonedBuildIfNecessary(agent.getAgentIdentifier());
-            final JobPlan job = findMatchingJob(agent);
-            if (job != null) {
-                Work buildWork = createWork(agent, job);
-                AgentBuildingInfo buildingInfo = new AgentBuildingInfo(job.getIdentifier().buildLocatorForDisplay(),
-                        job.getIdentifier().buildLocator());
-                agentService.building(agent.getUuid(), buildingInfo);
-                LOGGER.info("[Agent Assignment] Assigned job [{}] to agent [{}]", job.getIdentifier(), agent.getAgent().getAgentIdentifier());
-
-                return buildWork;
+        final AssignedJob assignedJob;
+        // Agents only exclude reloads of the scheduled jobs here, not each other: a job goes to exactly one of them as
+        // only one can claim it from the index.
+        jobPlansLock.readLock().lock();
+        try {
+            synchronized (agent.getUuid().intern()) {
+//              check to ensure agent is not disabled after entering the synchronized block
+                if (agent.isDisabled()) {
+                    return new DeniedAgentWork(agent.getUuid());
+                }
+                //check if agent already has assigned build, if so, reschedule it
+                scheduleService.rescheduleAbandonedBuildIfNecessary(agent.getAgentIdentifier());
+                final JobPlan job = findMatchingJob(agent);
+                if (job == null) {
+                    return NO_WORK;
+                }
+                assignedJob = assign(agent, job);
+                if (assignedJob == null) {
+                    return NO_WORK;
+                }
             }
+        } finally {
+            jobPlansLock.readLock().unlock();
+        }
+
+        // The job is claimed and marked as assigned by now, so no other agent can be handed it. Secrets are looked up
+        // outside the lock, so that a slow secrets plugin does not hold up work assignment for every other agent.
+        final JobPlan job = assignedJob.job;
+        Work buildWork = createWork(agent, assignedJob);
+        if (buildWork == NO_WORK) {
+            return NO_WORK;
         }
-        return NO_WORK;
+        AgentBuildingInfo buildingInfo = new AgentBuildingInfo(job.getIdentifier().buildLocatorForDisplay(),
+                job.getIdentifier().buildLocator());
+        agentService.building(agent.getUuid(), buildingInfo);
+        LOGGER.info("[Agent Assignment] Assigned job [{}] to agent [{}]", job.getIdentifier(), agent.getAgent().getAgentIdentifier());
+
+        return buildWork;
     }
 
     JobPlan findMatchingJob(AgentInstance agent) {
-        List<JobPlan> filteredJobPlans = environmentConfigService.filterJobsByAgent(jobPlans, agent.getUuid());
         JobPlan match = null;
         if (!agent.isElastic()) {
-            match = agent.firstMatching(filteredJobPlans);
+            match = agent.firstMatching(jobPlanIndex.candidatesFor(agent, environmentConfigService::isAgentAllowedToRunPipeline));
         } else {
+            ElasticAgentMetadata metadata = agent.elasticAgentMetadata();
+            boolean oncePerProfile = systemEnvironment.shouldAskElasticAgentPluginOncePerProfile(metadata.elasticPluginId());
+            Set<ElasticJobGroup> declined = new HashSet<>();
+            List<JobPlan> filteredJobPlans = environmentConfigService.filterJobsByAgent(jobPlans, agent.getUuid());
             for (JobPlan jobPlan : filteredJobPlans) {
+                if (!jobPlan.requiresElasticAgent()) {
+                    continue;
+                }
+                String environment = environmentConfigService.envForPipeline(jobPlan.getPipelineName());
+                ElasticJobGroup group = oncePerProfile ? new ElasticJobGroup(agent.getUuid(), jobPlan, environment) : null;
+                if (group != null && (declined.contains(group) || declinedElasticJobGroups.getIfPresent(group) != null)) {
+                    continue;
+                }
                 try {
-                    if (jobPlan.requiresElasticAgent() && elasticAgentPluginService.shouldAssignWork(agent.elasticAgentMetadata(), environmentConfigService.envForPipeline(jobPlan.getPipelineName()), jobPlan.getElasticProfile(), jobPlan.getClusterProfile(), jobPlan.getIdentifier())) {
+                    if (elasticAgentPluginService.shouldAssignWork(metadata, environment, jobPlan.getElasticProfile(), jobPlan.getClusterProfile(), jobPlan.getIdentifier())) {
                         match = jobPlan;
                         break;
                     }
+                    if (group != null) {
+                        declined.add(group);
+                        declinedElasticJobGroups.put(group, Boolean.TRUE);
+                    }
                 } catch (RulesViolationException | SecretResolutionFailureException e) {
                     JobInstance instance = jobInstanceService.buildById(jobPlan.getJobId());
                     JobIdentifier jobIdentifier = jobPlan.getIdentifier();
@@ -218,6 +284,9 @@ public class BuildAssignmentService implements ConfigChangedListener {
             }
         }
         if (match != null) {
+            if (!jobPlanIndex.claim(match)) {
+                return null;
+            }
             jobPlans.remove(match);
         }
         return match;
@@ -233,23 +302,47 @@ public class BuildAssignmentService implements ConfigChangedListener {
     }
 
     private void reloadJobPlans() {
-        synchronized (this) {
+        boolean hasNewJobPlans;
+        jobPlansLock.writeLock().lock();
+        try {
             if (jobPlans == null) {
-                jobPlans = jobInstanceService.orderedScheduledBuilds();
+                jobPlans = new CopyOnWriteArrayList<>(jobInstanceService.orderedScheduledBuilds());
+                jobPlanIndex = new ScheduledJobPlanIndex(jobPlans);
                 elasticAgentPluginService.createAgentsFor(jobPlans, new ArrayList<>());
+                hasNewJobPlans = !jobPlans.isEmpty();
             } else {
                 List<JobPlan> old = jobPlans;
-                List<JobPlan> newPlan = jobInstanceService.orderedScheduledBuilds();
+                List<JobPlan> newPlan = new CopyOnWriteArrayList<>(jobInstanceService.orderedScheduledBuilds());
                 jobPlans = newPlan;
+                jobPlanIndex = new ScheduledJobPlanIndex(newPlan);
                 elasticAgentPluginService.createAgentsFor(old, newPlan);
+                hasNewJobPlans = hasNewJobPlans(old, newPlan);
             }
+        } finally {
+            jobPlansLock.writeLock().unlock();
         }
+
+        if (hasNewJobPlans) {
+            for (Runnable listener : newJobPlansListeners) {
+                try {
+                    listener.run();
+                } catch (Exception e) {
+                    LOGGER.error("Error notifying listener about newly scheduled jobs", e);
+                }
+            }
+        }
+    }
+
+    private boolean hasNewJobPlans(List<JobPlan> old, List<JobPlan> newPlan) {
+        Set<Long> oldJobIds = old.stream().map(JobPlan::getJobId).collect(toSet());
+        return newPlan.stream().anyMatch(jobPlan -> !oldJobIds.contains(jobPlan.getJobId()));
     }
 
     @Override
     public void onConfigChange(CruiseConfig newCruiseConfig) {
         LOGGER.info("[Configuration Changed] Removing jobs for pipelines that no longer exist in configuration.");
-        synchronized (this) {
+        jobPlansLock.writeLock().lock();
+        try {
             List<JobPlan> jobsToRemove = new ArrayList<>();
             for (JobPlan jobPlan : jobPlans) {
                 if (!newCruiseConfig.hasBuildPlan(new CaseInsensitiveString(jobPlan.getPipelineName()), new CaseInsensitiveString(jobPlan.getStageName()), jobPlan.getName(), true)) {
@@ -257,6 +350,32 @@ public class BuildAssignmentService implements ConfigChangedListener {
                 }
             }
             forAllDo(jobsToRemove, o -> removeJob((JobPlan) o));
+        } finally {
+            jobPlansLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onConfigChange(CruiseConfig newCruiseConfig, ConfigChangeSet changes) {
+        Set<CaseInsensitiveString> removedOrChangedPipelines = new HashSet<>(changes.pipelines().removed());
+        removedOrChangedPipelines.addAll(changes.pipelines().changed());
+        if (removedOrChangedPipelines.isEmpty()) {
+            return;
+        }
+
+        LOGGER.info("[Configuration Changed] Removing jobs that no longer exist in configuration from {} changed or deleted pipelines.", removedOrChangedPipelines.size());
+        jobPlansLock.writeLock().lock();
+        try {
+            List<JobPlan> jobsToRemove = new ArrayList<>();
+            for (JobPlan jobPlan : jobPlans) {
+                if (removedOrChangedPipelines.contains(new CaseInsensitiveString(jobPlan.getPipelineName()))
+                        && !newCruiseConfig.hasBuildPlan(new CaseInsensitiveString(jobPlan.getPipelineName()), new CaseInsensitiveString(jobPlan.getStageName()), jobPlan.getName(), true)) {
+                    jobsToRemove.add(jobPlan);
+                }
+            }
+            forAllDo(jobsToRemove, o -> removeJob((JobPlan) o));
+        } finally {
+            jobPlansLock.writeLock().unlock();
         }
     }
 
@@ -269,6 +388,7 @@ public class BuildAssignmentService implements ConfigChangedListener {
     private void removeJob(JobPlan jobPlan) {
         try {
             jobPlans.remove(jobPlan);
+            jobPlanIndex.remove(jobPlan);
             LOGGER.info("Removing job plan {} that no longer exists in the config", jobPlan);
             JobInstance instance = jobInstanceService.buildByIdWithTransitions(jobPlan.getJobId());
             //#2846 - remove this hack
@@ -281,9 +401,9 @@ public class BuildAssignmentService implements ConfigChangedListener {
         }
     }
 
-    private Work createWork(final AgentInstance agent, final JobPlan job) {
+    private AssignedJob assign(final AgentInstance agent, final JobPlan job) {
         try {
-            return (Work) transactionTemplate.transactionSurrounding(() -> {
+            return (AssignedJob) transactionTemplate.transactionSurrounding(() -> {
                 final String agentUuid = agent.getUuid();
 
                 //TODO: Use fullPipeline and get the Stage from it?
@@ -293,7 +413,7 @@ public class BuildAssignmentService implements ConfigChangedListener {
                 } catch (StaleMaterialsOnBuildCause e) {
                     // Detailed error msg is part of the exception object and it would be logged. Hence not adding msg while logging.
                     LOGGER.error("", e);
-                    return NO_WORK;
+                    return null;
                 }
 
                 List<Task> tasks = goConfigService.tasksForJob(pipeline.getName(), job.getIdentifier().getStageName(), job.getName());
@@ -301,30 +421,37 @@ public class BuildAssignmentService implements ConfigChangedListener {
 
                 return transactionTemplate.execute(status -> {
                     if (scheduleService.updateAssignedInfo(agentUuid, job)) {
-                        return NO_WORK;
-                    }
-
-                    final EnvironmentVariableContext environmentVariableContext = buildEnvVarContext(job.getIdentifier().getPipelineName());
-
-                    // Agent may have a NULL "resources"
-                    if (CollectionUtils.isNotEmpty(agent.getResourceConfigs())) {
-                        // Users relying on this env. var. can test for its existence rather than checking for an empty string
-                        environmentVariableContext.setProperty(GO_AGENT_RESOURCES, agent.getResourceConfigs().getCommaSeparatedResourceNames(), false);
+                        return null;
                     }
-                    // Reason to resolve them separately: the rules for pluggable scm material verifies `SCM` based rules
-                    // whereas the assignment considers `PipelineGroup` based rules
-                    resolveSecretsForMaterials(pipeline.getBuildCause().getMaterialRevisions());
-                    final ArtifactStores requiredArtifactStores = goConfigService.artifactStores().getArtifactStores(getArtifactStoreIdsRequiredByArtifactPlans(job.getArtifactPlans()));
-                    BuildAssignment buildAssignment = BuildAssignment.create(job, pipeline.getBuildCause(), builders, pipeline.defaultWorkingFolder(), environmentVariableContext, requiredArtifactStores);
-
-                    secretParamResolver.resolve(buildAssignment);
-
-                    return new BuildWork(buildAssignment, systemEnvironment.consoleLogCharset());
+                    return new AssignedJob(job, pipeline, builders);
                 });
             });
         } catch (RecordNotFoundException e) {
             removeJobIfNotPresentInCruiseConfig(goConfigService.getCurrentConfig(), job);
             throw e;
+        }
+    }
+
+    private Work createWork(final AgentInstance agent, final AssignedJob assignedJob) {
+        final JobPlan job = assignedJob.job;
+        final Pipeline pipeline = assignedJob.pipeline;
+        try {
+            final EnvironmentVariableContext environmentVariableContext = buildEnvVarContext(job.getIdentifier().getPipelineName());
+
+            // Agent may have a NULL "resources"
+            if (CollectionUtils.isNotEmpty(agent.getResourceConfigs())) {
+                // Users relying on this env. var. can test for its existence rather than checking for an empty string
+                environmentVariableContext.setProperty(GO_AGENT_RESOURCES, agent.getResourceConfigs().getCommaSeparatedResourceNames(), false);
+            }
+            // Reason to resolve them separately: the rules for pluggable scm material verifies `SCM` based rules
+            // whereas the assignment considers `PipelineGroup` based rules
+            resolveSecretsForMaterials(pipeline.getBuildCause().getMaterialRevisions());
+            final ArtifactStores requiredArtifactStores = goConfigService.artifactStores().getArtifactStores(getArtifactStoreIdsRequiredByArtifactPlans(job.getArtifactPlans()));
+            BuildAssignment buildAssignment = BuildAssignment.create(job, pipeline.getBuildCause(), assignedJob.builders, pipeline.defaultWorkingFolder(), environmentVariableContext, requiredArtifactStores);
+
+            secretParamResolver.resolve(buildAssignment);
+
+            return new BuildWork(buildAssignment, systemEnvironment.consoleLogCharset());
         } catch (SecretResolutionFailureException e) {
             JobInstance instance = jobInstanceService.buildById(job.getJobId());
             logSecretsResolutionFailure(job.getIdentifier(), e);
@@ -337,6 +464,14 @@ public class BuildAssignmentService implements ConfigChangedListener {
             scheduleService.failJob(instance);
             jobStatusTopic.post(new JobStatusMessage(job.getIdentifier(), instance.getState(), agent.getUuid()));
             throw e;
+        } catch (RuntimeException e) {
+            // the job is already marked as assigned, so it has to be failed, or it would never be handed out again
+            LOGGER.error("[Agent Assignment] Failed to create work for job [{}] assigned to agent [{}]", job.getIdentifier(), agent.getUuid(), e);
+            logToJobConsole(job.getIdentifier(), format("\nThis job was failed by GoCD, as there were errors while preparing it for the agent.\nReason: %s\n", e.getMessage()));
+            JobInstance instance = jobInstanceService.buildById(job.getJobId());
+            scheduleService.failJob(instance);
+            jobStatusTopic.post(new JobStatusMessage(job.getIdentifier(), instance.getState(), agent.getUuid()));
+            return NO_WORK;
         }
     }
 
@@ -411,4 +546,50 @@ public class BuildAssignmentService implements ConfigChangedListener {
                 .collect(toList());
         secretParamResolver.resolve(materials);
     }
+
+    private static class AssignedJob {
+        private final JobPlan job;
+        private final Pipeline pipeline;
+        private final List<Builder> builders;
+
+        private AssignedJob(JobPlan job, Pipeline pipeline, List<Builder> builders) {
+            this.job = job;
+            this.pipeline = pipeline;
+            this.builders = builders;
+        }
+    }
+
+    /**
+     * Jobs an elastic agent plugin would decide the same way about, for plugins configured to decide by profile
+     * rather than by job.
+     */
+    private static class ElasticJobGroup {
+        private final String agentUuid;
+        private final ElasticProfile elasticProfile;
+        private final ClusterProfile clusterProfile;
+        private final String environment;
+
+        private ElasticJobGroup(String agentUuid, JobPlan jobPlan, String environment) {
+            this.agentUuid = agentUuid;
+            this.elasticProfile = jobPlan.getElasticProfile();
+            this.clusterProfile = jobPlan.getClusterProfile();
+            this.environment = environment;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            ElasticJobGroup that = (ElasticJobGroup) o;
+            return Objects.equals(agentUuid, that.agentUuid) &&
+                    Objects.equals(elasticProfile, that.elasticProfile) &&
+                    Objects.equals(clusterProfile, that.clusterProfile) &&
+                    Objects.equals(environment, that.environment);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(agentUuid, elasticProfile, clusterProfile, environment);
+        }
+    }
 }
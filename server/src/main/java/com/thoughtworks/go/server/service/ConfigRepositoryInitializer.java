@@ -32,6 +32,7 @@ import com.thoughtworks.go.plugin.infra.PluginManager;
 import com.thoughtworks.go.plugin.infra.plugininfo.GoPluginDescriptor;
 import com.thoughtworks.go.server.persistence.MaterialRepository;
 import com.thoughtworks.go.util.SystemEnvironment;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -39,6 +40,14 @@ import org.springframework.stereotype.Service;
 
 import java.io.File;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static java.util.stream.Collectors.toList;
 
 import static com.thoughtworks.go.plugin.domain.common.PluginConstants.CONFIG_REPO_EXTENSION;
 
@@ -51,6 +60,7 @@ public class ConfigRepositoryInitializer implements ConfigChangedListener, Plugi
     private final ConfigRepoService configRepoService;
     private final MaterialRepository materialRepository;
     private final GoConfigRepoConfigDataSource goConfigRepoConfigDataSource;
+    private final SystemEnvironment systemEnvironment;
     private static final Logger LOGGER = LoggerFactory.getLogger(ConfigRepositoryInitializer.class);
 
     private boolean isConfigLoaded = false;
@@ -64,6 +74,7 @@ public class ConfigRepositoryInitializer implements ConfigChangedListener, Plugi
         this.configRepoService = configRepoService;
         this.materialRepository = materialRepository;
         this.goConfigRepoConfigDataSource = goConfigRepoConfigDataSource;
+        this.systemEnvironment = systemEnvironment;
 
         if (systemEnvironment.shouldInitializeConfigRepositoriesOnStartup()) {
             this.pluginManager.addPluginChangeListener(this);
@@ -106,14 +117,44 @@ public class ConfigRepositoryInitializer implements ConfigChangedListener, Plugi
             while (!pluginsQueue.isEmpty()) {
                 String pluginId = pluginsQueue.poll();
                 LOGGER.info("[Config Repository Initializer] Start initializing the config repositories for plugin '{}' ", pluginId);
-                this.configRepoService.getConfigRepos().stream()
+                List<ConfigRepoConfig> repos = this.configRepoService.getConfigRepos().stream()
                         .filter(configRepoConfig -> configRepoConfig.getPluginId().equalsIgnoreCase(pluginId))
-                        .forEach(this::initializeConfigRepository);
+                        .collect(toList());
+                initializeConfigRepositories(repos);
                 LOGGER.info("[Config Repository Initializer] Done initializing the config repositories for plugin '{}' ", pluginId);
             }
         }
     }
 
+    // config repos are independent of each other, so they are parsed side by side with as many threads as are used to
+    // parse config repos after a material update
+    private void initializeConfigRepositories(List<ConfigRepoConfig> repos) {
+        int threads = Math.min(repos.size(), systemEnvironment.getNumberOfConfigMaterialPostUpdateListeners());
+        if (threads <= 1) {
+            repos.forEach(this::initializeConfigRepository);
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new BasicThreadFactory.Builder().namingPattern("config-repo-initializer-%d").daemon(true).build());
+        try {
+            List<Future<Void>> initializations = executor.invokeAll(repos.stream().map(repo -> (Callable<Void>) () -> {
+                initializeConfigRepository(repo);
+                return null;
+            }).collect(toList()));
+            for (int i = 0; i < initializations.size(); i++) {
+                try {
+                    initializations.get(i).get();
+                } catch (ExecutionException e) {
+                    LOGGER.error(String.format("[Config Repository Initializer] an error occurred while initializing '%s' config repository.", repos.get(i).getId()), e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     private void initializeConfigRepository(ConfigRepoConfig repo) {
         MaterialConfig materialConfig = repo.getRepo();
         Material material = new Materials(new MaterialConfigs(materialConfig)).first();
@@ -16,6 +16,7 @@
 package com.thoughtworks.go.server.service;
 
 import com.thoughtworks.go.domain.ConsoleConsumer;
+import com.thoughtworks.go.domain.ConsoleLogLineIndex;
 import com.thoughtworks.go.domain.ConsoleStreamer;
 import com.thoughtworks.go.domain.JobIdentifier;
 import com.thoughtworks.go.domain.LocatableEntity;
@@ -24,6 +25,7 @@ import com.thoughtworks.go.server.dao.JobInstanceDao;
 import com.thoughtworks.go.server.view.artifacts.ArtifactDirectoryChooser;
 import com.thoughtworks.go.server.view.artifacts.BuildIdArtifactLocator;
 import com.thoughtworks.go.server.view.artifacts.PathBasedArtifactsLocator;
+import com.thoughtworks.go.util.SystemEnvironment;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
@@ -33,6 +35,8 @@ import org.springframework.stereotype.Component;
 
 import java.io.*;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import static com.thoughtworks.go.util.ArtifactLogUtil.getConsoleOutputFolderAndFileName;
 
@@ -43,18 +47,24 @@ public class ConsoleService {
     private ArtifactDirectoryChooser chooser;
     public static final int DEFAULT_CONSOLE_LOG_LINE_BUFFER_SIZE = 1024;
     private ArtifactsDirHolder artifactsDirHolder;
+    private final SystemEnvironment systemEnvironment;
+    private final List<AppendListener> appendListeners = new CopyOnWriteArrayList<>();
 
-
-    public ConsoleService(ArtifactDirectoryChooser chooser) {
+    public ConsoleService(ArtifactDirectoryChooser chooser, SystemEnvironment systemEnvironment) {
         this.chooser = chooser;
+        this.systemEnvironment = systemEnvironment;
     }
 
     @Autowired
-    public ConsoleService(ArtifactsDirHolder artifactsDirHolder, JobInstanceDao jobInstanceDao) {
-        this(new ArtifactDirectoryChooser());
+    public ConsoleService(ArtifactsDirHolder artifactsDirHolder, JobInstanceDao jobInstanceDao, SystemEnvironment systemEnvironment) {
+        this(new ArtifactDirectoryChooser(), systemEnvironment);
         this.artifactsDirHolder = artifactsDirHolder;
     }
 
+    public void addAppendListener(AppendListener listener) {
+        appendListeners.add(listener);
+    }
+
     public void initialize() {
         chooser.add(new PathBasedArtifactsLocator(artifactsDirHolder.getArtifactsDir()));
         chooser.add(new BuildIdArtifactLocator(artifactsDirHolder.getArtifactsDir()));
@@ -62,7 +72,19 @@ public class ConsoleService {
 
     public ConsoleConsumer getStreamer(long startingLine, JobIdentifier identifier) throws IllegalArtifactLocationException {
         Path path = consoleLogFile(identifier).toPath();
-        return new ConsoleStreamer(path, startingLine);
+        if (startingLine < ConsoleLogLineIndex.LINES_PER_ENTRY || !isLineIndexSupported()) {
+            return new ConsoleStreamer(path, startingLine);
+        }
+
+        ConsoleLogLineIndex lineIndex = new ConsoleLogLineIndex(path);
+        try {
+            // builds the index of logs that were never indexed, and catches up on anything appended since
+            lineIndex.update();
+        } catch (IOException e) {
+            LOGGER.warn("Failed to index console log [{}], it will be read from the beginning.", path, e);
+            return new ConsoleStreamer(path, startingLine);
+        }
+        return new ConsoleStreamer(path, startingLine, lineIndex);
     }
 
     public File consoleLogArtifact(LocatableEntity jobIdentifier) throws IllegalArtifactLocationException {
@@ -97,10 +119,22 @@ public class ConsoleService {
             LOGGER.error("Failed to update console log at : [{}]", dest.getAbsolutePath(), e);
             return false;
         }
+        updateLineIndex(dest);
         LOGGER.trace("Console log [{}] saved.", dest.getAbsolutePath());
+        notifyAppended(dest);
         return true;
     }
 
+    private void notifyAppended(File consoleLog) {
+        for (AppendListener listener : appendListeners) {
+            try {
+                listener.consoleLogAppended(consoleLog);
+            } catch (Exception e) {
+                LOGGER.warn("Failed to notify {} about update of console log [{}]", listener, consoleLog.getAbsolutePath(), e);
+            }
+        }
+    }
+
     public void moveConsoleArtifacts(LocatableEntity locatableEntity) {
         try {
             File from = chooser.temporaryConsoleFile(locatableEntity);
@@ -110,8 +144,43 @@ public class ConsoleService {
 
             File to = consoleLogArtifact(locatableEntity);
             FileUtils.moveFile(from, to);
+            moveLineIndex(from, to);
         } catch (IOException | IllegalArtifactLocationException e) {
             throw new RuntimeException(e);
         }
     }
+
+    private void updateLineIndex(File consoleLog) {
+        if (!isLineIndexSupported()) {
+            return;
+        }
+
+        try {
+            new ConsoleLogLineIndex(consoleLog.toPath()).update();
+        } catch (IOException e) {
+            LOGGER.warn("Failed to update line index of console log [{}]", consoleLog.getAbsolutePath(), e);
+        }
+    }
+
+    private void moveLineIndex(File from, File to) {
+        try {
+            ConsoleLogLineIndex.move(from.toPath(), to.toPath());
+        } catch (IOException e) {
+            // the index will be rebuilt the next time someone asks for the log from far enough into it
+            LOGGER.warn("Failed to move line index of console log [{}] to [{}]", from.getAbsolutePath(), to.getAbsolutePath(), e);
+            FileUtils.deleteQuietly(ConsoleLogLineIndex.indexFileFor(from.toPath()).toFile());
+        }
+    }
+
+    private boolean isLineIndexSupported() {
+        return ConsoleLogLineIndex.supports(systemEnvironment.consoleLogCharsetAsCharset());
+    }
+
+    /**
+     * Notified on the appending thread every time content has been appended to a console log. Implementations are
+     * expected to return quickly.
+     */
+    public interface AppendListener {
+        void consoleLogAppended(File consoleLog);
+    }
 }
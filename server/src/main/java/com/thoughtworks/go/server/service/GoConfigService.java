@@ -854,7 +854,7 @@ public class GoConfigService implements Initializer, CruiseConfigProvider {
     }
 
     public CruiseConfig preprocessedCruiseConfigForPipelineUpdate(PipelineConfigCommand command) throws Exception {
-        CruiseConfig config = clonedConfigForEdit();
+        CruiseConfig config = cloner.deepCloneSharingPartials(getConfigForEditing());
         command.update(config);
         config.setPartials(cachedGoPartials.lastValidPartials());
         MagicalGoConfigXmlLoader.preprocess(config);
@@ -21,47 +21,72 @@ import com.thoughtworks.go.config.security.Permissions;
 import com.thoughtworks.go.config.security.users.AllowedUsers;
 import com.thoughtworks.go.config.security.users.Everyone;
 import com.thoughtworks.go.config.security.users.Users;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.thoughtworks.go.listener.EntityConfigChangedListener;
 import com.thoughtworks.go.server.dashboard.*;
+import com.thoughtworks.go.server.dashboard.GoDashboardSnapshot.Section;
 import com.thoughtworks.go.server.domain.Username;
 import com.thoughtworks.go.server.domain.user.DashboardFilter;
+import com.thoughtworks.go.util.Clock;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 import static com.thoughtworks.go.config.security.util.SecurityConfigUtils.*;
 
 /* Understands how to interact with the GoDashboardCache cache. */
 @Service
 public class GoDashboardService {
+    // plugin role memberships change without the config changing, so snapshots are built again once in a while
+    private static final long SNAPSHOT_MAX_AGE_IN_MILLIS = 60 * 1000;
+    private static final int MAX_SNAPSHOTS = 10_000;
+
     private final GoDashboardCache cache;
     private final GoDashboardCurrentStateLoader dashboardCurrentStateLoader;
     private final GoConfigService goConfigService;
+    private final Clock clock;
     private GoConfigPipelinePermissionsAuthority permissionsAuthority;
 
+    private final AtomicLong configVersion = new AtomicLong();
+    private final Cache<SnapshotKey, GoDashboardSnapshot<GoDashboardPipelineGroup>> pipelineGroupSnapshots = newSnapshotCache();
+    private final Cache<SnapshotKey, GoDashboardSnapshot<GoDashboardEnvironment>> environmentSnapshots = newSnapshotCache();
+
     @Autowired
-    public GoDashboardService(GoDashboardCache cache, GoDashboardCurrentStateLoader dashboardCurrentStateLoader, GoConfigPipelinePermissionsAuthority permissionsAuthority, GoConfigService goConfigService) {
+    public GoDashboardService(GoDashboardCache cache, GoDashboardCurrentStateLoader dashboardCurrentStateLoader, GoConfigPipelinePermissionsAuthority permissionsAuthority, GoConfigService goConfigService, Clock clock) {
         this.cache = cache;
         this.dashboardCurrentStateLoader = dashboardCurrentStateLoader;
         this.permissionsAuthority = permissionsAuthority;
         this.goConfigService = goConfigService;
-    }
+        this.clock = clock;
 
-    public List<GoDashboardEnvironment> allEnvironmentsForDashboard(DashboardFilter filter, Username user) {
-        GoDashboardPipelines allPipelines = cache.allEntries();
-        List<GoDashboardEnvironment> environments = new ArrayList<>();
-
-        final Users admins = superAdmins();
-
-        goConfigService.getEnvironments().forEach(environment -> {
-            GoDashboardEnvironment env = dashboardEnvironmentFor(environment, filter, user, admins, allPipelines);
+        goConfigService.register(new EntityConfigChangedListener<Object>() {
+            @Override
+            public void onConfigChange(CruiseConfig newCruiseConfig) {
+                configVersion.incrementAndGet();
+            }
 
-            if (env.hasPipelines()) {
-                environments.add(env);
+            @Override
+            public void onEntityConfigChange(Object entity) {
+                configVersion.incrementAndGet();
             }
         });
+    }
 
-        return environments;
+    public List<GoDashboardEnvironment> allEnvironmentsForDashboard(DashboardFilter filter, Username user) {
+        return dashboardFor(environmentSnapshots, new SnapshotKey(user, filter, false), allPipelines -> {
+            final Users admins = superAdmins();
+            List<Section<GoDashboardEnvironment>> sections = new ArrayList<>();
+            goConfigService.getEnvironments().forEach(environment -> sections.add(new Section<>(environment.getPipelineNames(), pipelines -> {
+                GoDashboardEnvironment env = dashboardEnvironmentFor(environment, filter, user, admins, pipelines);
+                return env.hasPipelines() ? env : null;
+            }, allPipelines)));
+            return sections;
+        });
     }
 
     public List<GoDashboardPipelineGroup> allPipelineGroupsForDashboard(DashboardFilter filter, Username user) {
@@ -69,17 +94,14 @@ public class GoDashboardService {
     }
 
     public List<GoDashboardPipelineGroup> allPipelineGroupsForDashboard(DashboardFilter filter, Username user, final boolean allowEmpty) {
-        GoDashboardPipelines allPipelines = cache.allEntries();
-        List<GoDashboardPipelineGroup> pipelineGroups = new ArrayList<>();
-
-        goConfigService.groups().accept(group -> {
-            GoDashboardPipelineGroup dashboardPipelineGroup = dashboardPipelineGroupFor(group, filter, user, allPipelines);
-            if (forceIncludeEmptyGroup(allowEmpty, dashboardPipelineGroup, user) || dashboardPipelineGroup.hasPipelines()) {
-                pipelineGroups.add(dashboardPipelineGroup);
-            }
+        return dashboardFor(pipelineGroupSnapshots, new SnapshotKey(user, filter, allowEmpty), allPipelines -> {
+            List<Section<GoDashboardPipelineGroup>> sections = new ArrayList<>();
+            goConfigService.groups().accept(group -> sections.add(new Section<>(pipelineNamesIn(group), pipelines -> {
+                GoDashboardPipelineGroup dashboardPipelineGroup = dashboardPipelineGroupFor(group, filter, user, pipelines);
+                return forceIncludeEmptyGroup(allowEmpty, dashboardPipelineGroup, user) || dashboardPipelineGroup.hasPipelines() ? dashboardPipelineGroup : null;
+            }, allPipelines)));
+            return sections;
         });
-
-        return pipelineGroups;
     }
 
     public void updateCacheForPipeline(CaseInsensitiveString pipelineName) {
@@ -105,6 +127,40 @@ public class GoDashboardService {
         return dashboardCurrentStateLoader.hasEverLoadedCurrentState();
     }
 
+    /**
+     * Builds the dashboard of a user from the config only when the config has changed since it was last asked for.
+     * Otherwise the last one is brought up to date with the dashboard cache, which only rebuilds the groups whose
+     * pipelines have changed, and keeps the etags of all others.
+     */
+    private <T extends DashboardGroup> List<T> dashboardFor(Cache<SnapshotKey, GoDashboardSnapshot<T>> snapshots, SnapshotKey key,
+                                                            Function<GoDashboardPipelines, List<Section<T>>> sectionsFromConfig) {
+        long version = configVersion.get();
+        long now = clock.currentTimeMillis();
+        GoDashboardPipelines allPipelines = cache.allEntries();
+
+        GoDashboardSnapshot<T> snapshot = snapshots.getIfPresent(key);
+        if (snapshot != null && snapshot.isFor(version, now - SNAPSHOT_MAX_AGE_IN_MILLIS)) {
+            snapshot = snapshot.refreshedWith(allPipelines);
+        } else {
+            snapshot = new GoDashboardSnapshot<>(version, now, allPipelines, sectionsFromConfig.apply(allPipelines));
+        }
+        snapshots.put(key, snapshot);
+        return snapshot.groups();
+    }
+
+    private static <T extends DashboardGroup> Cache<SnapshotKey, GoDashboardSnapshot<T>> newSnapshotCache() {
+        return Caffeine.newBuilder()
+                .maximumSize(MAX_SNAPSHOTS)
+                .expireAfterAccess(10, TimeUnit.MINUTES)
+                .build();
+    }
+
+    private List<CaseInsensitiveString> pipelineNamesIn(PipelineConfigs group) {
+        List<CaseInsensitiveString> pipelineNames = new ArrayList<>();
+        group.accept(pipelineConfig -> pipelineNames.add(pipelineConfig.name()));
+        return pipelineNames;
+    }
+
     private GoDashboardEnvironment dashboardEnvironmentFor(EnvironmentConfig environment, DashboardFilter filter, Username user, Users allowedUsers, GoDashboardPipelines allPipelines) {
         List<CaseInsensitiveString> pipelinesInEnv = environment.getPipelineNames();
         GoDashboardEnvironment env = new GoDashboardEnvironment(environment.name().toString(), allowedUsers, !pipelinesInEnv.isEmpty());
@@ -187,4 +243,31 @@ public class GoDashboardService {
         cache.remove(pipelineName);
         dashboardCurrentStateLoader.clearEntryFor(pipelineName);
     }
+
+    private static class SnapshotKey {
+        private final CaseInsensitiveString username;
+        private final DashboardFilter filter;
+        private final boolean allowEmpty;
+
+        private SnapshotKey(Username user, DashboardFilter filter, boolean allowEmpty) {
+            this.username = user.getUsername();
+            this.filter = filter;
+            this.allowEmpty = allowEmpty;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            SnapshotKey that = (SnapshotKey) o;
+            return allowEmpty == that.allowEmpty &&
+                    Objects.equals(username, that.username) &&
+                    Objects.equals(filter, that.filter);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(username, filter, allowEmpty);
+        }
+    }
 }
@@ -26,6 +26,8 @@ import com.thoughtworks.go.domain.materials.svn.SvnCommand;
 import com.thoughtworks.go.domain.materials.svn.SvnExternal;
 import com.thoughtworks.go.server.cache.CacheKeyGenerator;
 import com.thoughtworks.go.server.cache.GoCache;
+import com.thoughtworks.go.server.cache.KeyedLockProvider;
+import com.thoughtworks.go.server.cache.KeyedLockProvider.KeyedLock;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -36,6 +38,7 @@ public class MaterialExpansionService {
 
     private final CacheKeyGenerator cacheKeyGenerator;
     private GoCache goCache;
+    private final KeyedLockProvider keyedLocks = KeyedLockProvider.shared();
     private MaterialConfigConverter materialConfigConverter;
     private SecretParamResolver secretParamResolver;
 
@@ -102,7 +105,7 @@ public class MaterialExpansionService {
         String cacheKey = cacheKeyForSubversionMaterialCommand(materialConfig.getFingerprint());
         Subversion svnLazyLoaded = (SvnCommand) goCache.get(cacheKey);
         if (svnLazyLoaded == null || !svnLazyLoaded.getUrl().originalArgument().equals(materialConfig.getUrl())) {
-            synchronized (cacheKey) {
+            try (KeyedLock lock = keyedLocks.acquire(cacheKey)) {
                 svnLazyLoaded = (SvnCommand) goCache.get(cacheKey);
                 if (svnLazyLoaded == null || !svnLazyLoaded.getUrl().originalArgument().equals(materialConfig.getUrl())) {
                     svnLazyLoaded = new SvnCommand(materialConfig.getFingerprint(), materialConfig.getUrl(),
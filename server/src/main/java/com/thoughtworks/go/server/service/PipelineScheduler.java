@@ -18,7 +18,7 @@ package com.thoughtworks.go.server.service;
 import com.thoughtworks.go.config.*;
 import com.thoughtworks.go.config.remote.ConfigRepoConfig;
 import com.thoughtworks.go.domain.PiplineConfigVisitor;
-import com.thoughtworks.go.listener.ConfigChangedListener;
+import com.thoughtworks.go.listener.ConfigChangeSetListener;
 import com.thoughtworks.go.listener.EntityConfigChangedListener;
 import com.thoughtworks.go.server.domain.Username;
 import com.thoughtworks.go.server.messaging.GoMessageListener;
@@ -43,7 +43,7 @@ import java.util.Map;
 import java.util.function.Consumer;
 
 @Service
-public class PipelineScheduler implements ConfigChangedListener, GoMessageListener<ScheduleCheckCompletedMessage> {
+public class PipelineScheduler implements ConfigChangeSetListener, GoMessageListener<ScheduleCheckCompletedMessage> {
     private static final Logger LOGGER = LoggerFactory.getLogger(PipelineScheduler.class);
 
     private GoConfigService goConfigService;
@@ -230,6 +230,19 @@ public class PipelineScheduler implements ConfigChangedListener, GoMessageListen
         }
     }
 
+    @Override
+    public void onConfigChange(CruiseConfig newCruiseConfig, ConfigChangeSet changes) {
+        synchronized (pipelines) {
+            for (CaseInsensitiveString pipelineName : changes.pipelines().added()) {
+                addPipelineIfNotPresent(newCruiseConfig.pipelineConfigByName(pipelineName), pipelines);
+            }
+
+            for (CaseInsensitiveString pipelineName : changes.pipelines().removed()) {
+                pipelines.remove(CaseInsensitiveString.str(pipelineName));
+            }
+        }
+    }
+
     private void addPipelineIfNotPresent(PipelineConfig pipelineConfig, Map<String, ScheduleCheckState> pipelines) {
         if (!pipelines.containsKey(CaseInsensitiveString.str(pipelineConfig.name()))) {
             pipelines.put(CaseInsensitiveString.str(pipelineConfig.name()), ScheduleCheckState.IDLE);
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.service;
+
+import com.thoughtworks.go.domain.AgentInstance;
+import com.thoughtworks.go.domain.JobPlan;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiPredicate;
+
+/**
+ * @understands scheduled job plans grouped by what an agent needs to have in order to run them, so that a
+ * non-elastic agent only has to look at the groups it is compatible with instead of every scheduled job.
+ * <p>
+ * Jobs are grouped by pipeline (which decides the environment), the sorted set of required resources, the
+ * elastic and cluster profile and the agent a job may be pinned to. Within a group, jobs are kept in their
+ * scheduling order, so only the head of each compatible group is a candidate for an agent. A job is handed out at
+ * most once by claiming it with a compare-and-set. Claimed jobs are remembered until they are removed, so that a
+ * second claim of the same job fails.
+ */
+class ScheduledJobPlanIndex {
+    private final Map<Bucket, ConcurrentSkipListMap<Long, Entry>> buckets = new ConcurrentHashMap<>();
+    private final Map<JobPlan, Entry> entries = new ConcurrentHashMap<>();
+
+    ScheduledJobPlanIndex(List<JobPlan> jobPlans) {
+        long sequence = 0;
+        for (JobPlan jobPlan : jobPlans) {
+            Entry entry = new Entry(jobPlan, sequence++);
+            entries.put(jobPlan, entry);
+            buckets.computeIfAbsent(entry.bucket, bucket -> new ConcurrentSkipListMap<>()).put(entry.sequence, entry);
+        }
+    }
+
+    /**
+     * The earliest scheduled job of every group a non-elastic agent is compatible with, in scheduling order. The
+     * {@code environmentMatcher} is consulted at most once per pipeline, with the pipeline name and the agent uuid.
+     */
+    List<JobPlan> candidatesFor(AgentInstance agent, BiPredicate<String, String> environmentMatcher) {
+        String agentUuid = agent.getUuid();
+        Map<String, Boolean> environmentMatches = new HashMap<>();
+        TreeMap<Long, JobPlan> candidates = new TreeMap<>();
+
+        for (Map.Entry<Bucket, ConcurrentSkipListMap<Long, Entry>> bucketAndEntries : buckets.entrySet()) {
+            Bucket bucket = bucketAndEntries.getKey();
+            if (!bucket.canBeRunBy(agent)) {
+                continue;
+            }
+
+            Map.Entry<Long, Entry> head = bucketAndEntries.getValue().firstEntry();
+            if (head == null) {
+                continue;
+            }
+
+            if (environmentMatches.computeIfAbsent(bucket.pipelineName, pipelineName -> environmentMatcher.test(pipelineName, agentUuid))) {
+                candidates.put(head.getKey(), head.getValue().jobPlan);
+            }
+        }
+
+        return new ArrayList<>(candidates.values());
+    }
+
+    /**
+     * Claims a job so that it is never handed out again.
+     *
+     * @return {@code false} if the job was already claimed or this index does not know about it (anymore)
+     */
+    boolean claim(JobPlan jobPlan) {
+        Entry entry = entries.get(jobPlan);
+        if (entry == null || !entry.claim()) {
+            return false;
+        }
+
+        removeFromBucket(entry);
+        return true;
+    }
+
+    void remove(JobPlan jobPlan) {
+        Entry entry = entries.remove(jobPlan);
+        if (entry != null) {
+            removeFromBucket(entry);
+        }
+    }
+
+    /**
+     * @return the number of jobs which have not been claimed yet
+     */
+    int size() {
+        return (int) entries.values().stream().filter(entry -> !entry.isClaimed()).count();
+    }
+
+    private void removeFromBucket(Entry entry) {
+        ConcurrentSkipListMap<Long, Entry> bucketEntries = buckets.get(entry.bucket);
+        if (bucketEntries != null) {
+            bucketEntries.remove(entry.sequence, entry);
+        }
+    }
+
+    private static class Entry {
+        private final JobPlan jobPlan;
+        private final long sequence;
+        private final Bucket bucket;
+        private final AtomicBoolean claimed = new AtomicBoolean(false);
+
+        private Entry(JobPlan jobPlan, long sequence) {
+            this.jobPlan = jobPlan;
+            this.sequence = sequence;
+            this.bucket = new Bucket(jobPlan);
+        }
+
+        private boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        private boolean isClaimed() {
+            return claimed.get();
+        }
+    }
+
+    private static class Bucket {
+        private final String pipelineName;
+        private final List<String> resources;
+        private final String elasticProfileId;
+        private final String clusterProfileId;
+        private final String pinnedAgentUuid;
+
+        private Bucket(JobPlan jobPlan) {
+            this.pipelineName = jobPlan.getPipelineName();
+            this.resources = jobPlan.getResources().toResourceConfigs().resourceNames();
+            this.elasticProfileId = jobPlan.requiresElasticAgent() ? jobPlan.getElasticProfile().getId() : null;
+            this.clusterProfileId = jobPlan.getClusterProfile() == null ? null : jobPlan.getClusterProfile().getId();
+            this.pinnedAgentUuid = jobPlan.getAgentUuid();
+        }
+
+        private boolean canBeRunBy(AgentInstance agent) {
+            if (elasticProfileId != null || agent.isElastic()) {
+                return false;
+            }
+
+            if (pinnedAgentUuid != null) {
+                return pinnedAgentUuid.equals(agent.getUuid());
+            }
+
+            return agent.getAgent().hasAllResources(resources);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Bucket bucket = (Bucket) o;
+            return Objects.equals(pipelineName, bucket.pipelineName) &&
+                    Objects.equals(resources, bucket.resources) &&
+                    Objects.equals(elasticProfileId, bucket.elasticProfileId) &&
+                    Objects.equals(clusterProfileId, bucket.clusterProfileId) &&
+                    Objects.equals(pinnedAgentUuid, bucket.pinnedAgentUuid);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(pipelineName, resources, elasticProfileId, clusterProfileId, pinnedAgentUuid);
+        }
+    }
+}
@@ -15,6 +15,9 @@
  */
 package com.thoughtworks.go.server.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.thoughtworks.go.config.*;
 import com.thoughtworks.go.config.elastic.ClusterProfile;
 import com.thoughtworks.go.config.elastic.ElasticProfile;
@@ -28,32 +31,58 @@ import com.thoughtworks.go.domain.scm.SCM;
 import com.thoughtworks.go.plugin.access.secrets.SecretsExtension;
 import com.thoughtworks.go.plugin.domain.secrets.Secret;
 import com.thoughtworks.go.remote.work.BuildAssignment;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.*;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static java.lang.String.format;
 import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toList;
 
+/**
+ * @understands resolving secret params by looking them up with the secrets plugins
+ * <p>
+ * Params referring to different secret configs are looked up in parallel. Resolved values are kept in memory for a
+ * while only if a TTL is configured (see {@link SystemEnvironment#getSecretsCacheTtlInMillis(String)}); a change to a
+ * secret config makes its cached values unreachable.
+ */
 @Component
-public class SecretParamResolver {
+public class SecretParamResolver implements DisposableBean {
     private static final Logger LOGGER = LoggerFactory.getLogger(SecretParamResolver.class);
     private SecretsExtension secretsExtension;
     private GoConfigService goConfigService;
     private RulesService rulesService;
+    private final SystemEnvironment systemEnvironment;
+    private final Cache<CachedSecret, String> cachedSecrets;
+    private final ExecutorService lookupExecutor;
 
     @Autowired
-    public SecretParamResolver(SecretsExtension secretsExtension, GoConfigService goConfigService, RulesService rulesService) {
+    public SecretParamResolver(SecretsExtension secretsExtension, GoConfigService goConfigService, RulesService rulesService, SystemEnvironment systemEnvironment) {
         this.secretsExtension = secretsExtension;
         this.goConfigService = goConfigService;
         this.rulesService = rulesService;
+        this.systemEnvironment = systemEnvironment;
+        this.cachedSecrets = Caffeine.newBuilder()
+                .maximumSize(Math.max(0, systemEnvironment.getSecretsCacheMaxEntries()))
+                .expireAfter(new CachedSecretExpiry())
+                .build();
+        this.lookupExecutor = Executors.newFixedThreadPool(Math.max(1, systemEnvironment.getNumberOfSecretsLookupThreads()),
+                new BasicThreadFactory.Builder().namingPattern("secrets-lookup-%d").daemon(true).build());
+    }
+
+    @Override
+    public void destroy() {
+        lookupExecutor.shutdownNow();
     }
 
     public void resolve(List<Material> materials) {
@@ -175,25 +204,109 @@ public class SecretParamResolver {
     }
 
     protected void resolve(SecretParams secretParams) {
-        secretParams.groupBySecretConfigId().forEach(lookupAndUpdateSecretParamsValue());
+        Map<String, SecretParams> secretParamsBySecretConfig = secretParams.groupBySecretConfigId();
+        if (secretParamsBySecretConfig.size() <= 1) {
+            secretParamsBySecretConfig.forEach(lookupAndUpdateSecretParamsValue());
+            return;
+        }
+
+        BiConsumer<String, SecretParams> lookup = lookupAndUpdateSecretParamsValue();
+        List<CompletableFuture<Void>> lookups = secretParamsBySecretConfig.entrySet().stream()
+                .map(entry -> CompletableFuture.runAsync(() -> lookup.accept(entry.getKey(), entry.getValue()), lookupExecutor))
+                .collect(toList());
+
+        for (CompletableFuture<Void> pendingLookup : lookups) {
+            try {
+                pendingLookup.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
     }
 
     private BiConsumer<String, SecretParams> lookupAndUpdateSecretParamsValue() {
         return (secretConfigId, secretParamsToResolve) -> {
             Map<String, List<SecretParam>> secretParamMap = secretParamsToResolve.stream().collect(groupingBy(SecretParam::getKey, Collectors.toList()));
             final SecretConfig secretConfig = goConfigService.cruiseConfig().getSecretConfigs().find(secretConfigId);
+            final long cacheTtlInMillis = systemEnvironment.getSecretsCacheTtlInMillis(secretConfigId);
+
+            Set<String> keysToLookup = new HashSet<>(secretParamMap.keySet());
+            if (cacheTtlInMillis > 0) {
+                for (String key : secretParamMap.keySet()) {
+                    String value = cachedSecrets.getIfPresent(new CachedSecret(secretConfig, key, cacheTtlInMillis));
+                    if (value != null) {
+                        secretParamMap.get(key).forEach(secretParam -> secretParam.setValue(value));
+                        keysToLookup.remove(key);
+                    }
+                }
+                if (keysToLookup.isEmpty()) {
+                    LOGGER.debug("Secret params '{}' updated with cached values.", secretParamMap.keySet());
+                    return;
+                }
+            }
 
-            LOGGER.debug("Resolving secret params '{}' using secret config '{}'", secretParamMap.keySet(), secretConfig.getId());
-            List<Secret> resolvedSecrets = secretsExtension.lookupSecrets(secretConfig.getPluginId(), secretConfig, secretParamMap.keySet());
+            LOGGER.debug("Resolving secret params '{}' using secret config '{}'", keysToLookup, secretConfig.getId());
+            List<Secret> resolvedSecrets = secretsExtension.lookupSecrets(secretConfig.getPluginId(), secretConfig, keysToLookup);
             LOGGER.debug("Resolved secret size '{}'", resolvedSecrets.size());
 
-            LOGGER.debug("Updating secret params '{}' with values.", secretParamMap.keySet());
+            LOGGER.debug("Updating secret params '{}' with values.", keysToLookup);
             resolvedSecrets.forEach(assignValue(secretParamMap));
-            LOGGER.debug("Secret params '{}' updated with values.", secretParamMap.keySet());
+            LOGGER.debug("Secret params '{}' updated with values.", keysToLookup);
+
+            if (cacheTtlInMillis > 0) {
+                resolvedSecrets.stream()
+                        .filter(secret -> secret.getValue() != null)
+                        .forEach(secret -> cachedSecrets.put(new CachedSecret(secretConfig, secret.getKey(), cacheTtlInMillis), secret.getValue()));
+            }
         };
     }
 
     private Consumer<Secret> assignValue(Map<String, List<SecretParam>> secretParamMap) {
         return secret -> secretParamMap.get(secret.getKey()).forEach(secretParam -> secretParam.setValue(secret.getValue()));
     }
+
+    private static class CachedSecret {
+        private final SecretConfig secretConfig;
+        private final String key;
+        private final long ttlInMillis;
+
+        private CachedSecret(SecretConfig secretConfig, String key, long ttlInMillis) {
+            this.secretConfig = secretConfig;
+            this.key = key;
+            this.ttlInMillis = ttlInMillis;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            CachedSecret that = (CachedSecret) o;
+            return Objects.equals(secretConfig, that.secretConfig) && Objects.equals(key, that.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(secretConfig, key);
+        }
+    }
+
+    private static class CachedSecretExpiry implements Expiry<CachedSecret, String> {
+        @Override
+        public long expireAfterCreate(CachedSecret cachedSecret, String value, long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(cachedSecret.ttlInMillis);
+        }
+
+        @Override
+        public long expireAfterUpdate(CachedSecret cachedSecret, String value, long currentTime, long currentDuration) {
+            return TimeUnit.MILLISECONDS.toNanos(cachedSecret.ttlInMillis);
+        }
+
+        @Override
+        public long expireAfterRead(CachedSecret cachedSecret, String value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
@@ -32,6 +32,8 @@ import com.thoughtworks.go.presentation.pipelinehistory.StageHistoryPage;
 import com.thoughtworks.go.presentation.pipelinehistory.StageInstanceModels;
 import com.thoughtworks.go.server.cache.CacheKeyGenerator;
 import com.thoughtworks.go.server.cache.GoCache;
+import com.thoughtworks.go.server.cache.KeyedLockProvider;
+import com.thoughtworks.go.server.cache.KeyedLockProvider.KeyedLock;
 import com.thoughtworks.go.server.dao.FeedModifier;
 import com.thoughtworks.go.server.dao.PipelineDao;
 import com.thoughtworks.go.server.dao.StageDao;
@@ -87,6 +89,7 @@ public class StageService implements StageFinder {
     private StageStatusCache stageStatusCache;
     private Cloner cloner = ClonerFactory.instance();
     private GoCache goCache;
+    private final KeyedLockProvider keyedLocks = KeyedLockProvider.shared();
     private static final String NOT_AUTHORIZED_TO_VIEW_PIPELINE = "Not authorized to view pipeline";
 
     @Autowired
@@ -354,7 +357,7 @@ public class StageService implements StageFinder {
         String key = cacheKeyForLatestStageFeedForPipeline(pipelineName);
         List<StageFeedEntry> feedEntries = (List<StageFeedEntry>) goCache.get(key);
         if (feedEntries == null) {
-            synchronized (key) {
+            try (KeyedLock lock = keyedLocks.acquire(key)) {
                 feedEntries = (List<StageFeedEntry>) goCache.get(key);//Double check locking is done because the query is expensive (takes about 2 seconds)
                 if (feedEntries == null) {
                     feedEntries = stageDao.findCompletedStagesFor(pipelineName, FeedModifier.Latest, -1, FEED_PAGE_SIZE);
@@ -379,7 +382,7 @@ public class StageService implements StageFinder {
         List<StageFeedEntry> feedEntries = (List<StageFeedEntry>) goCache.get(key);
 
         if (feedEntries == null) {
-            synchronized (key) {
+            try (KeyedLock lock = keyedLocks.acquire(key)) {
                 feedEntries = (List<StageFeedEntry>) goCache.get(key);
                 if (feedEntries == null) {
                     feedEntries = stageDao.findStageFeedBy(pipelineName, pipelineCounter, null, FEED_PAGE_SIZE);
@@ -402,12 +405,12 @@ public class StageService implements StageFinder {
 
     private void clearCachedCompletedStageFeeds(String pipelineName) {
         String key = cacheKeyForLatestStageFeedForPipeline(pipelineName);
-        synchronized (key) {
+        try (KeyedLock lock = keyedLocks.acquire(key)) {
             goCache.remove(key);
         }
 
         key = cacheKeyForLatestStageFeedForPipelineSortedByPipelineCounter(pipelineName);
-        synchronized (key) {
+        try (KeyedLock lock = keyedLocks.acquire(key)) {
             goCache.remove(key);
         }
     }
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.thoughtworks.go.domain.AccessToken;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.apache.commons.codec.binary.Hex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * @understands access tokens that have recently been verified, so that the same bearer token does not have to be
+ * looked up and hashed again on every API request
+ * <p>
+ * Entries are keyed by an HMAC of the presented token, with a key that is generated when the server starts and never
+ * leaves memory, so neither the token nor anything that can be checked against it offline is kept. Only tokens that
+ * were found to be valid and not revoked are cached, for a bounded number of tokens and a bounded amount of time.
+ */
+@Component
+public class VerifiedAccessTokenCache {
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final Cache<String, AccessToken> verifiedTokens;
+    private final SecretKeySpec key;
+    private final boolean enabled;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @Autowired
+    public VerifiedAccessTokenCache(SystemEnvironment systemEnvironment) {
+        this(systemEnvironment.get(SystemEnvironment.ACCESS_TOKEN_VERIFICATION_CACHE_TTL_IN_SECONDS),
+                systemEnvironment.get(SystemEnvironment.ACCESS_TOKEN_VERIFICATION_CACHE_MAX_ENTRIES),
+                Ticker.systemTicker());
+    }
+
+    VerifiedAccessTokenCache(int ttlInSeconds, int maxEntries, Ticker ticker) {
+        this.enabled = ttlInSeconds > 0 && maxEntries > 0;
+        this.verifiedTokens = Caffeine.newBuilder()
+                .expireAfterWrite(Math.max(ttlInSeconds, 0), TimeUnit.SECONDS)
+                .maximumSize(Math.max(maxEntries, 0))
+                .ticker(ticker)
+                .recordStats()
+                .build();
+
+        byte[] keyBytes = new byte[32];
+        new SecureRandom().nextBytes(keyBytes);
+        this.key = new SecretKeySpec(keyBytes, HMAC_ALGORITHM);
+    }
+
+    /**
+     * @param presentedToken the token as sent by the client
+     * @param verify         looks up and verifies the token, throwing if it is not valid
+     * @return the cached token if it was verified recently, otherwise whatever {@code verify} returns
+     */
+    public AccessToken get(String presentedToken, Supplier<AccessToken> verify) {
+        if (!enabled) {
+            return verify.get();
+        }
+
+        String cacheKey = keyFor(presentedToken);
+        AccessToken cached = verifiedTokens.getIfPresent(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+
+        long invalidationsBeforeVerifying = invalidations.get();
+        AccessToken verified = verify.get();
+        verifiedTokens.put(cacheKey, verified);
+        if (invalidations.get() != invalidationsBeforeVerifying) {
+            // a token was revoked while this one was being verified, it may have been this one
+            verifiedTokens.invalidate(cacheKey);
+        }
+        return verified;
+    }
+
+    public void invalidate(long tokenId) {
+        invalidateIf(token -> token.getId() == tokenId);
+    }
+
+    public void invalidateTokensOf(Collection<String> usernames) {
+        invalidateIf(token -> usernames.contains(token.getUsername()));
+    }
+
+    public Map<String, Object> statistics() {
+        LinkedHashMap<String, Object> json = new LinkedHashMap<>();
+        CacheStats stats = verifiedTokens.stats();
+        json.put("Enabled", enabled);
+        json.put("Entries", verifiedTokens.estimatedSize());
+        json.put("Hits", stats.hitCount());
+        json.put("Miss", stats.missCount());
+        json.put("Hit Ratio", stats.hitRate());
+        json.put("Miss Ratio", stats.missRate());
+        json.put("Eviction", stats.evictionCount());
+        json.put("Invalidations", invalidations.get());
+        return json;
+    }
+
+    private void invalidateIf(Predicate<AccessToken> predicate) {
+        invalidations.incrementAndGet();
+        verifiedTokens.asMap().values().removeIf(predicate);
+    }
+
+    private String keyFor(String presentedToken) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            return Hex.encodeHexString(mac.doFinal(presentedToken.getBytes(UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
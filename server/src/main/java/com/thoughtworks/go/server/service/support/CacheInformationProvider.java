@@ -15,6 +15,9 @@
  */
 package com.thoughtworks.go.server.service.support;
 
+import com.thoughtworks.go.server.cache.GoCache;
+import com.thoughtworks.go.server.cache.KeyedLockProvider;
+import com.thoughtworks.go.server.service.VerifiedAccessTokenCache;
 import net.sf.ehcache.Cache;
 import net.sf.ehcache.CacheManager;
 import net.sf.ehcache.config.CacheConfiguration;
@@ -28,9 +31,13 @@ import java.util.Map;
 
 @Component
 public class CacheInformationProvider implements ServerInfoProvider {
+    private final GoCache goCache;
+    private final VerifiedAccessTokenCache verifiedAccessTokenCache;
 
     @Autowired
-    public CacheInformationProvider() {
+    public CacheInformationProvider(GoCache goCache, VerifiedAccessTokenCache verifiedAccessTokenCache) {
+        this.goCache = goCache;
+        this.verifiedAccessTokenCache = verifiedAccessTokenCache;
     }
 
     @Override
@@ -42,6 +49,8 @@ public class CacheInformationProvider implements ServerInfoProvider {
     public Map<String, Object> asJson() {
         LinkedHashMap<String, Object> json = new LinkedHashMap<>();
 
+        json.put("goCache", goCache.statistics());
+
         for (CacheManager cacheManager : CacheManager.ALL_CACHE_MANAGERS) {
             LinkedHashMap<String, Object> jsonForManager = new LinkedHashMap<>();
             json.put(cacheManager.getName(), jsonForManager);
@@ -56,6 +65,9 @@ public class CacheInformationProvider implements ServerInfoProvider {
             }
         }
 
+        json.put("Cache key locks", KeyedLockProvider.shared().statistics());
+        json.put("Verified access tokens", verifiedAccessTokenCache.statistics());
+
         return json;
     }
 
@@ -15,6 +15,7 @@
  */
 package com.thoughtworks.go.server.transaction;
 
+import com.thoughtworks.go.server.cache.KeyedLockProvider;
 import com.thoughtworks.go.server.database.Database;
 import com.thoughtworks.go.server.cache.GoCache;
 import com.thoughtworks.go.util.SystemEnvironment;
@@ -23,6 +24,7 @@ import org.springframework.beans.factory.InitializingBean;
 
 public abstract class SqlMapClientDaoSupport implements InitializingBean {
     protected final GoCache goCache;
+    protected final KeyedLockProvider keyedLocks = KeyedLockProvider.shared();
     private final SqlSessionFactory sqlSessionFactory;
     private SqlMapClientTemplate sqlSession;
     private SystemEnvironment systemEnvironment;
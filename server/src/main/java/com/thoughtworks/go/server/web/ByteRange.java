@@ -0,0 +1,108 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.web;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+
+import static java.time.format.DateTimeFormatter.RFC_1123_DATE_TIME;
+
+/**
+ * @understands the single range of bytes of a file that a request asks for with its <code>Range</code> header, which
+ * is only honoured while the validator in its <code>If-Range</code> header, if any, still matches the file
+ */
+class ByteRange {
+    static final ByteRange UNSATISFIABLE = new ByteRange(-1, -1);
+
+    private static final String BYTES_UNIT = "bytes=";
+
+    private final long first;
+    private final long last;
+
+    private ByteRange(long first, long last) {
+        this.first = first;
+        this.last = last;
+    }
+
+    /**
+     * @return the range to send, {@link #UNSATISFIABLE} if none of the requested bytes exist, or <code>null</code>
+     * if the whole file should be sent
+     */
+    static ByteRange requested(String range, String ifRange, String entityTag, long lastModified, long length) {
+        if (range == null || !range.startsWith(BYTES_UNIT) || !validatorMatches(ifRange, entityTag, lastModified)) {
+            return null;
+        }
+
+        String spec = range.substring(BYTES_UNIT.length()).trim();
+        int dash = spec.indexOf('-');
+        if (spec.contains(",") || dash < 0) {
+            // multiple ranges are allowed to be answered with the whole file
+            return null;
+        }
+
+        try {
+            if (dash == 0) {
+                long suffixLength = Long.parseLong(spec.substring(1));
+                if (suffixLength <= 0 || length == 0) {
+                    return UNSATISFIABLE;
+                }
+                return new ByteRange(Math.max(0, length - suffixLength), length - 1);
+            }
+
+            long first = Long.parseLong(spec.substring(0, dash));
+            long last = dash == spec.length() - 1 ? length - 1 : Long.parseLong(spec.substring(dash + 1));
+            if (last < first) {
+                return null;
+            }
+            if (first >= length) {
+                return UNSATISFIABLE;
+            }
+            return new ByteRange(first, Math.min(last, length - 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    static String entityTag(long lastModified, long length) {
+        return "\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(length) + "\"";
+    }
+
+    private static boolean validatorMatches(String ifRange, String entityTag, long lastModified) {
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"")) {
+            return ifRange.equals(entityTag);
+        }
+        try {
+            return ZonedDateTime.parse(ifRange, RFC_1123_DATE_TIME).toEpochSecond() == lastModified / 1000;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    long first() {
+        return first;
+    }
+
+    long length() {
+        return last - first + 1;
+    }
+
+    String contentRange(long totalLength) {
+        return "bytes " + first + "-" + last + "/" + totalLength;
+    }
+}
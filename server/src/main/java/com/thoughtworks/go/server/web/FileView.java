@@ -56,14 +56,52 @@ public class FileView implements View, ServletContextAware {
         return "application/octet-stream";
     }
 
-    private void handleFile(File file, boolean needToZip, HttpServletResponse response) throws Exception {
+    private void handleFile(File file, boolean needToZip, HttpServletRequest request, HttpServletResponse response) throws Exception {
         String filename = file.getName();
         seContentType(needToZip, response, filename);
         setHeaders(response, filename);
+        if (!needToZip && handleRange(file, request, response)) {
+            return;
+        }
         setContentLength(needToZip, file, response);
         setOutput(needToZip, file, response);
     }
 
+    /**
+     * Sends only the part of the file asked for, so that an interrupted download can be continued, or a large file
+     * be downloaded in several parts at once.
+     *
+     * @return <code>false</code> if the whole file should be sent instead
+     */
+    private boolean handleRange(File file, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        long length = file.length();
+        long lastModified = file.lastModified();
+        String entityTag = ByteRange.entityTag(lastModified, length);
+        response.setHeader("Accept-Ranges", "bytes");
+        response.setHeader("ETag", entityTag);
+        response.setDateHeader("Last-Modified", lastModified);
+
+        ByteRange range = ByteRange.requested(request.getHeader("Range"), request.getHeader("If-Range"), entityTag, lastModified, length);
+        if (range == null) {
+            return false;
+        }
+        if (range == ByteRange.UNSATISFIABLE) {
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.setHeader("Content-Range", "bytes */" + length);
+            return true;
+        }
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        response.setHeader("Content-Range", range.contentRange(length));
+        response.addHeader("Content-Length", Long.toString(range.length()));
+        ServletOutputStream out = response.getOutputStream();
+        try (FileInputStream input = new FileInputStream(file)) {
+            IOUtils.copyLarge(input, out, range.first(), range.length(), new byte[32 * 1024]);
+        }
+        out.flush();
+        return true;
+    }
+
     private void setOutput(boolean needToZip, File file, HttpServletResponse response) throws IOException {
         ServletOutputStream out = response.getOutputStream();
         if (needToZip) {
@@ -108,14 +146,14 @@ public class FileView implements View, ServletContextAware {
     public void render(Map map, HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse) throws Exception {
         File file = (File) map.get("targetFile");
         boolean needToZip = map.containsKey(NEED_TO_ZIP);
-        handleFileWithLogging(httpServletResponse, file, needToZip);
+        handleFileWithLogging(httpServletRequest, httpServletResponse, file, needToZip);
     }
 
-    private void handleFileWithLogging(HttpServletResponse httpServletResponse, File file, boolean needToZip) throws Exception {
+    private void handleFileWithLogging(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse, File file, boolean needToZip) throws Exception {
         LOGGER.info("[Artifact Download] About to download: {}. ShouldZip? = {}", file.getAbsolutePath(), needToZip);
         long before = System.currentTimeMillis();
 
-        handleFile(file, needToZip, httpServletResponse);
+        handleFile(file, needToZip, httpServletRequest, httpServletResponse);
 
         long timeTaken = System.currentTimeMillis() - before;
         LOGGER.info("[Artifact Download] Finished downloading: {}. ShouldZip? = {}. The time taken is: {}ms", file.getAbsolutePath(), needToZip, timeTaken);
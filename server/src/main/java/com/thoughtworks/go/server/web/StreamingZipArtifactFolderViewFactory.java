@@ -0,0 +1,39 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.web;
+
+import com.thoughtworks.go.domain.JobIdentifier;
+import org.springframework.web.servlet.ModelAndView;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @understands serving an artifact folder as a zip that is written straight to the response as it is being created
+ */
+public class StreamingZipArtifactFolderViewFactory implements ArtifactFolderViewFactory {
+    @Override
+    public ModelAndView createView(JobIdentifier identifier, ArtifactFolder artifactFolder) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("targetFile", artifactFolder.getRootFolder());
+        data.put(FileView.NEED_TO_ZIP, true);
+        return new ModelAndView("fileView", data);
+    }
+
+    public static ArtifactFolderViewFactory streamingZipViewFactory() {
+        return new StreamingZipArtifactFolderViewFactory();
+    }
+}
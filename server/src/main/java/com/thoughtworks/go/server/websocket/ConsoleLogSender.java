@@ -18,41 +18,74 @@ package com.thoughtworks.go.server.websocket;
 import com.thoughtworks.go.domain.ConsoleConsumer;
 import com.thoughtworks.go.domain.JobIdentifier;
 import com.thoughtworks.go.server.dao.JobInstanceDao;
+import com.thoughtworks.go.server.messaging.GoMessageListener;
+import com.thoughtworks.go.server.messaging.JobStatusMessage;
+import com.thoughtworks.go.server.messaging.JobStatusTopic;
 import com.thoughtworks.go.server.service.ConsoleService;
 import com.thoughtworks.go.server.util.Retryable;
 import com.thoughtworks.go.util.SystemEnvironment;
 import org.apache.commons.io.output.ProxyOutputStream;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.zip.GZIPOutputStream;
 
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Sends console logs to websockets. Logs of completed jobs are sent in one go. Logs of running jobs are tailed by a
+ * single {@link JobTail} per job, no matter how many websockets watch it: new content is read once, when the
+ * {@link ConsoleService} reports that something was appended, gzipped once and the same bytes are sent to every
+ * websocket, without waiting for a slow websocket. Tails are finished when a {@link JobStatusMessage} reports the job
+ * as completed.
+ */
 @Component
-public class ConsoleLogSender {
+public class ConsoleLogSender implements GoMessageListener<JobStatusMessage>, ConsoleService.AppendListener {
     private static final Logger LOGGER = LoggerFactory.getLogger(ConsoleLogSender.class);
 
     private static final int LOG_DOES_NOT_EXIST = 4004;
     private static final int LOG_FILE_DOES_NOT_EXIST = 4410;
     private static final int BUF_SIZE = 1024 * 1024; // 1MB
     private static final int FILL_INTERVAL = 500;
+    private static final long MAX_BACKLOG = 8L * BUF_SIZE;
+    // safety net for jobs whose completion we never heard about, e.g. completed before the tail was created
+    private static final int IDLE_CHECK_INTERVAL = 30 * 1000;
     private final Charset charset;
 
     private ConsoleService consoleService;
 
     private JobInstanceDao jobInstanceDao;
 
+    private final Map<String, JobTail> tails = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService executor;
+
     @Autowired
-    ConsoleLogSender(ConsoleService consoleService, JobInstanceDao jobInstanceDao, SystemEnvironment systemEnvironment) {
+    ConsoleLogSender(ConsoleService consoleService, JobInstanceDao jobInstanceDao, SystemEnvironment systemEnvironment, JobStatusTopic jobStatusTopic) {
+        this(consoleService, jobInstanceDao, systemEnvironment, jobStatusTopic,
+                new ScheduledThreadPoolExecutor(2, new BasicThreadFactory.Builder().namingPattern("console-log-tail-%d").daemon(true).build()));
+    }
+
+    ConsoleLogSender(ConsoleService consoleService, JobInstanceDao jobInstanceDao, SystemEnvironment systemEnvironment, JobStatusTopic jobStatusTopic, ScheduledExecutorService executor) {
         this.consoleService = consoleService;
         this.jobInstanceDao = jobInstanceDao;
         this.charset = systemEnvironment.consoleLogCharsetAsCharset();
+        this.executor = executor;
+        consoleService.addAppendListener(this);
+        jobStatusTopic.addListener(this);
+        executor.scheduleWithFixedDelay(this::checkIdleTails, IDLE_CHECK_INTERVAL, IDLE_CHECK_INTERVAL, MILLISECONDS);
     }
 
     public void process(final SocketEndpoint webSocket, JobIdentifier jobIdentifier, long start) throws Exception {
@@ -66,8 +99,6 @@ public class ConsoleLogSender {
             return;
         }
 
-        boolean isRunningBuild = !detectCompleted;
-
         // Sometimes the log file may not have been created yet; leave it up to the client to handle reconnect logic.
         try {
             waitForLogToExist(webSocket, jobIdentifier);
@@ -76,32 +107,58 @@ public class ConsoleLogSender {
             return;
         }
 
+        if (detectCompleted) {
+            try (ConsoleConsumer streamer = consoleService.getStreamer(start, jobIdentifier)) {
+                sendLogs(webSocket, streamer, jobIdentifier, Long.MAX_VALUE, false);
+                LOGGER.debug("Sent {} log lines for {} from {}", streamer.totalLinesConsumed(), jobIdentifier, consoleService.consoleLogFile(jobIdentifier).toPath());
+            } finally {
+                webSocket.close();
+            }
+            return;
+        }
+
+        // send whatever is already there without holding up anybody else, then join the tail of the running job
         try (ConsoleConsumer streamer = consoleService.getStreamer(start, jobIdentifier)) {
-            do {
-                start += sendLogs(webSocket, streamer, jobIdentifier);
+            start += sendLogs(webSocket, streamer, jobIdentifier, Long.MAX_VALUE, true);
+        }
 
-                // allow buffers to fill to avoid sending 1 line at a time for running builds
-                if (isRunningBuild) {
-                    Thread.sleep(FILL_INTERVAL);
-                }
-            } while (webSocket.isOpen() && !detectCompleted(jobIdentifier));
-
-            LOGGER.debug("Sent {} log lines for {} from {}", streamer.totalLinesConsumed(), jobIdentifier, consoleService.consoleLogFile(jobIdentifier).toPath());
-            // empty the tail end of the file because the build could have been marked completed, and exited the
-            // loop before we've seen the last content update
-            if (isRunningBuild) sendLogs(webSocket, streamer, jobIdentifier);
-
-            //send the remaining logs if any
-            if (detectCompleted(jobIdentifier)) {
-                try (ConsoleConsumer consoleFileStreamer = consoleService.getStreamer(start, jobIdentifier)) {
-                    start += sendLogs(webSocket, consoleFileStreamer, jobIdentifier);
-                    LOGGER.debug("Sent {} log lines for {} from {}", streamer.totalLinesConsumed(), jobIdentifier, consoleService.consoleLogFile(jobIdentifier).toPath());
-                }
+        while (!tails.computeIfAbsent(jobIdentifier.buildLocator(), locator -> new JobTail(jobIdentifier)).subscribe(webSocket, start)) {
+            // the tail was finished while we were subscribing, a new one will be created
+        }
+    }
+
+    @Override
+    public void consoleLogAppended(File consoleLog) {
+        for (JobTail tail : tails.values()) {
+            if (tail.isTailing(consoleLog)) {
+                tail.schedulePump();
             }
+        }
+    }
+
+    @Override
+    public void onMessage(JobStatusMessage message) {
+        if (!message.getJobState().isCompleted()) {
+            return;
+        }
+
+        JobTail tail = tails.get(message.getJobIdentifier().buildLocator());
+        if (tail != null) {
+            executor.schedule(tail::finish, FILL_INTERVAL, MILLISECONDS);
+        }
+    }
 
-            LOGGER.debug("Sent {} log lines for {} from all sources", start, jobIdentifier);
-        } finally {
-            webSocket.close();
+    int numberOfTails() {
+        return tails.size();
+    }
+
+    private void checkIdleTails() {
+        for (JobTail tail : tails.values()) {
+            try {
+                tail.checkIdle();
+            } catch (Exception e) {
+                LOGGER.warn("Failed to check console log tail of {}", tail.jobIdentifier, e);
+            }
         }
     }
 
@@ -117,28 +174,44 @@ public class ConsoleLogSender {
         return jobInstanceDao.isJobCompleted(jobIdentifier);
     }
 
-    private long sendLogs(final SocketEndpoint webSocket, final ConsoleConsumer console, final JobIdentifier jobIdentifier) throws IOException {
+    private long sendLogs(final SocketEndpoint webSocket, final ConsoleConsumer console, final JobIdentifier jobIdentifier, long maxLines, boolean completeLinesOnly) throws IOException {
         final ByteArrayOutputStream buffer = new ByteArrayOutputStream(BUF_SIZE);
-        final OutputStream proxyOutputStream = new AutoFlushingStream(buffer, webSocket, BUF_SIZE);
-        long linesProcessed = console.stream(line -> {
+        final OutputStream proxyOutputStream = new AutoFlushingStream(buffer, bytes -> webSocket.send(ByteBuffer.wrap(bytes)), BUF_SIZE);
+        long linesProcessed = writeLines(console, jobIdentifier, proxyOutputStream, maxLines, completeLinesOnly);
+
+        flushBuffer(buffer, bytes -> webSocket.send(ByteBuffer.wrap(bytes)));
+        return linesProcessed;
+    }
+
+    // a log that is still being written may end in a line cut short, which must only be sent once it is complete
+    private long writeLines(ConsoleConsumer console, JobIdentifier jobIdentifier, OutputStream out, long maxLines, boolean completeLinesOnly) throws IOException {
+        final long[] written = {0L};
+        Consumer<String> writeLine = line -> {
+            if (written[0] >= maxLines) {
+                return;
+            }
             try {
                 byte[] bytes = line.getBytes(charset);
-                ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(bytes.length);
+                ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(bytes.length + 1);
                 byteArrayOutputStream.write(bytes);
                 byteArrayOutputStream.write('\n');
-                proxyOutputStream.write(byteArrayOutputStream.toByteArray());
+                out.write(byteArrayOutputStream.toByteArray());
+                written[0]++;
             } catch (IOException e) {
                 LOGGER.error("Failed to send log line {} for {}", console.totalLinesConsumed(), jobIdentifier, e);
             }
-        });
-
-        flushBuffer(buffer, webSocket);
-        return linesProcessed;
+        };
+        if (completeLinesOnly) {
+            console.streamCompleteLines(writeLine);
+        } else {
+            console.stream(writeLine);
+        }
+        return written[0];
     }
 
-    private void flushBuffer(ByteArrayOutputStream buffer, SocketEndpoint webSocket) throws IOException {
+    private void flushBuffer(ByteArrayOutputStream buffer, ChunkSink sink) throws IOException {
         if (buffer.size() == 0) return;
-        webSocket.send(ByteBuffer.wrap(maybeGzipIfLargeEnough(buffer.toByteArray())));
+        sink.send(maybeGzipIfLargeEnough(buffer.toByteArray()));
         buffer.reset();
     }
 
@@ -159,13 +232,13 @@ public class ConsoleLogSender {
     // Flushes stream just before it becomes larger than `bufSize`
     private class AutoFlushingStream extends ProxyOutputStream {
         private final ByteArrayOutputStream buffer;
-        private final SocketEndpoint webSocket;
+        private final ChunkSink sink;
         private final int bufSize;
 
-        public AutoFlushingStream(ByteArrayOutputStream buffer, SocketEndpoint webSocket, int bufSize) {
+        public AutoFlushingStream(ByteArrayOutputStream buffer, ChunkSink sink, int bufSize) {
             super(buffer);
             this.buffer = buffer;
-            this.webSocket = webSocket;
+            this.sink = sink;
             this.bufSize = bufSize;
         }
 
@@ -181,7 +254,294 @@ public class ConsoleLogSender {
 
         private void maybeFlush(int n) throws IOException {
             if (buffer.size() + n >= bufSize) {
-                flushBuffer(buffer, webSocket);
+                flushBuffer(buffer, sink);
+            }
+        }
+    }
+
+    private interface ChunkSink {
+        void send(byte[] chunk) throws IOException;
+    }
+
+    /**
+     * Tails the console log of one running job on behalf of all websockets watching it.
+     * <p>
+     * New content is read and queued for every subscriber while holding the lock on the tail, but it is only sent
+     * once the lock has been released, and then without waiting for it to be written. A slow websocket can therefore
+     * only hold up itself: once more than {@link #MAX_BACKLOG} bytes are waiting to be sent to it, it is disconnected.
+     */
+    private class JobTail {
+        private final JobIdentifier jobIdentifier;
+        private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+        private final Queue<Subscriber> readyToSend = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean pumpScheduled = new AtomicBoolean(false);
+        private ConsoleConsumer streamer;
+        private File consoleLog;
+        private long position = -1;
+        private volatile long lastActivity = System.currentTimeMillis();
+        private boolean finished;
+
+        private JobTail(JobIdentifier jobIdentifier) {
+            this.jobIdentifier = jobIdentifier;
+        }
+
+        /**
+         * @return {@code false} if this tail has already finished and the subscriber should find another one
+         */
+        private boolean subscribe(SocketEndpoint webSocket, long caughtUpTo) throws Exception {
+            try {
+                return subscribeLocked(webSocket, caughtUpTo);
+            } finally {
+                sendQueuedChunks();
+            }
+        }
+
+        private synchronized boolean subscribeLocked(SocketEndpoint webSocket, long caughtUpTo) throws Exception {
+            if (finished) {
+                return false;
+            }
+
+            if (streamer == null) {
+                consoleLog = consoleService.consoleLogFile(jobIdentifier);
+                streamer = consoleService.getStreamer(caughtUpTo, jobIdentifier);
+                position = caughtUpTo;
+            }
+
+            // bring everyone up to date, so the only gap left for the new subscriber is between its own read and now
+            pump(true);
+            Subscriber subscriber = new Subscriber(webSocket);
+            if (position > caughtUpTo) {
+                try (ConsoleConsumer gap = consoleService.getStreamer(caughtUpTo, jobIdentifier)) {
+                    ByteArrayOutputStream buffer = new ByteArrayOutputStream(BUF_SIZE);
+                    ChunkSink sink = chunk -> queue(subscriber, ByteBuffer.wrap(chunk));
+                    writeLines(gap, jobIdentifier, new AutoFlushingStream(buffer, sink, BUF_SIZE), position - caughtUpTo, true);
+                    flushBuffer(buffer, sink);
+                }
+            }
+
+            if (!subscriber.isDisconnected()) {
+                subscribers.add(subscriber);
+            }
+            return true;
+        }
+
+        private boolean isTailing(File appendedLog) {
+            return appendedLog.equals(consoleLog);
+        }
+
+        private void schedulePump() {
+            lastActivity = System.currentTimeMillis();
+            // allow buffers to fill to avoid sending 1 line at a time
+            if (pumpScheduled.compareAndSet(false, true)) {
+                executor.schedule(() -> {
+                    pumpScheduled.set(false);
+                    synchronized (this) {
+                        pumpQuietly(true);
+                    }
+                    sendQueuedChunks();
+                }, FILL_INTERVAL, MILLISECONDS);
+            }
+        }
+
+        private void finish() {
+            finishLocked();
+            sendQueuedChunks();
+        }
+
+        private synchronized void finishLocked() {
+            if (finished) {
+                return;
+            }
+
+            pumpQuietly(true);
+            // the log may have moved from its temporary location when the job completed, send whatever is left,
+            // including a last line without a newline
+            closeStreamer();
+            try {
+                streamer = consoleService.getStreamer(position, jobIdentifier);
+                pumpQuietly(false);
+            } catch (Exception e) {
+                LOGGER.warn("Failed to send the remaining console log of {}", jobIdentifier, e);
+            }
+            LOGGER.debug("Sent {} log lines for {} from all sources", position, jobIdentifier);
+
+            finished = true;
+            closeStreamer();
+            tails.remove(jobIdentifier.buildLocator(), this);
+            for (Subscriber subscriber : subscribers) {
+                subscriber.closeWhenSent();
+                readyToSend.add(subscriber);
+            }
+            subscribers.clear();
+        }
+
+        private void checkIdle() {
+            subscribers.removeIf(subscriber -> !subscriber.isOpen());
+            if (subscribers.isEmpty() || System.currentTimeMillis() - lastActivity >= IDLE_CHECK_INTERVAL) {
+                if (subscribers.isEmpty() || detectCompleted(jobIdentifier)) {
+                    finish();
+                }
+            }
+        }
+
+        private void pumpQuietly(boolean completeLinesOnly) {
+            try {
+                pump(completeLinesOnly);
+            } catch (Exception e) {
+                LOGGER.error("Failed to send console log of {}", jobIdentifier, e);
+            }
+        }
+
+        // must be called while holding the lock on this tail; only queues what is read, see sendQueuedChunks()
+        private void pump(boolean completeLinesOnly) throws IOException {
+            if (finished || streamer == null) {
+                return;
+            }
+
+            subscribers.removeIf(subscriber -> !subscriber.isOpen());
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(BUF_SIZE);
+            position += writeLines(streamer, jobIdentifier, new AutoFlushingStream(buffer, this::fanOut, BUF_SIZE), Long.MAX_VALUE, completeLinesOnly);
+            flushBuffer(buffer, this::fanOut);
+        }
+
+        private void fanOut(byte[] chunk) {
+            ByteBuffer data = ByteBuffer.wrap(chunk).asReadOnlyBuffer();
+            for (Subscriber subscriber : subscribers) {
+                queue(subscriber, data.duplicate());
+            }
+        }
+
+        private void queue(Subscriber subscriber, ByteBuffer chunk) {
+            if (!subscriber.queue(chunk)) {
+                LOGGER.warn("Disconnecting websocket {} watching {} as more than {} bytes are waiting to be sent to it", subscriber.socket.key(), jobIdentifier, MAX_BACKLOG);
+                subscribers.remove(subscriber);
+            }
+            readyToSend.add(subscriber);
+        }
+
+        // must be called without holding the lock on this tail
+        private void sendQueuedChunks() {
+            Subscriber subscriber;
+            while ((subscriber = readyToSend.poll()) != null) {
+                subscriber.sendQueuedChunks();
+            }
+        }
+
+        private void closeStreamer() {
+            if (streamer != null) {
+                try {
+                    streamer.close();
+                } catch (Exception e) {
+                    LOGGER.debug("Failed to close console log streamer of {}", jobIdentifier, e);
+                }
+                streamer = null;
+            }
+        }
+    }
+
+    /**
+     * A websocket subscribed to a {@link JobTail}, with the chunks still to be sent to it. Chunks are sent one at a
+     * time, without waiting for them to be written.
+     */
+    private static class Subscriber {
+        private final SocketEndpoint socket;
+        private final Deque<ByteBuffer> backlog = new ArrayDeque<>();
+        private long backlogSize;
+        private boolean sending;
+        private boolean closeWhenSent;
+        private boolean disconnected;
+        private boolean closed;
+
+        private Subscriber(SocketEndpoint socket) {
+            this.socket = socket;
+        }
+
+        private boolean isOpen() {
+            return !isDisconnected() && socket.isOpen();
+        }
+
+        private synchronized boolean isDisconnected() {
+            return disconnected;
+        }
+
+        /**
+         * @return {@code false} if the backlog of this subscriber is too large and it is to be disconnected
+         */
+        private synchronized boolean queue(ByteBuffer chunk) {
+            if (disconnected) {
+                return true;
+            }
+            if (backlogSize + chunk.remaining() > MAX_BACKLOG) {
+                disconnected = true;
+                backlog.clear();
+                backlogSize = 0;
+                return false;
+            }
+            backlog.add(chunk);
+            backlogSize += chunk.remaining();
+            return true;
+        }
+
+        private synchronized void closeWhenSent() {
+            closeWhenSent = true;
+        }
+
+        private void sendQueuedChunks() {
+            while (true) {
+                ByteBuffer chunk;
+                synchronized (this) {
+                    if (sending) {
+                        return;
+                    }
+                    chunk = backlog.poll();
+                    if (chunk == null) {
+                        if ((disconnected || closeWhenSent) && !closed) {
+                            closed = true;
+                            socket.close();
+                        }
+                        return;
+                    }
+                    backlogSize -= chunk.remaining();
+                    sending = true;
+                }
+
+                CompletableFuture<Void> sent = socket.sendAsync(chunk);
+                if (!sent.isDone()) {
+                    sent.whenComplete((result, error) -> {
+                        if (sent(error)) {
+                            sendQueuedChunks();
+                        }
+                    });
+                    return;
+                }
+                if (!sent(sent.isCompletedExceptionally() ? failureOf(sent) : null)) {
+                    return;
+                }
+            }
+        }
+
+        private synchronized boolean sent(Throwable error) {
+            sending = false;
+            if (error != null) {
+                LOGGER.debug("Dropping websocket {} as sending to it failed", socket.key(), error);
+                disconnected = true;
+                backlog.clear();
+                backlogSize = 0;
+                if (!closed) {
+                    closed = true;
+                    socket.close();
+                }
+                return false;
+            }
+            return true;
+        }
+
+        private static Throwable failureOf(CompletableFuture<Void> sent) {
+            try {
+                sent.join();
+                return null;
+            } catch (CompletionException | CancellationException e) {
+                return e.getCause() == null ? e : e.getCause();
             }
         }
     }
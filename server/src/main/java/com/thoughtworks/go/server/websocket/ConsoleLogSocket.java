@@ -22,6 +22,7 @@ import org.apache.http.client.utils.URLEncodedUtils;
 import org.eclipse.jetty.websocket.api.Session;
 import org.eclipse.jetty.websocket.api.StatusCode;
 import org.eclipse.jetty.websocket.api.UpgradeRequest;
+import org.eclipse.jetty.websocket.api.WriteCallback;
 import org.eclipse.jetty.websocket.api.annotations.OnWebSocketClose;
 import org.eclipse.jetty.websocket.api.annotations.OnWebSocketConnect;
 import org.eclipse.jetty.websocket.api.annotations.OnWebSocketError;
@@ -33,6 +34,7 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.Collections;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @WebSocket
 public class ConsoleLogSocket implements SocketEndpoint {
@@ -98,6 +100,23 @@ public class ConsoleLogSocket implements SocketEndpoint {
         session.getRemote().sendBytes(data);
     }
 
+    @Override
+    public CompletableFuture<Void> sendAsync(ByteBuffer data) {
+        CompletableFuture<Void> sent = new CompletableFuture<>();
+        session.getRemote().sendBytes(data, new WriteCallback() {
+            @Override
+            public void writeFailed(Throwable error) {
+                sent.completeExceptionally(error);
+            }
+
+            @Override
+            public void writeSuccess() {
+                sent.complete(null);
+            }
+        });
+        return sent;
+    }
+
     @Override
     public void ping() throws IOException {
         session.getRemote().sendString(WebsocketMessages.PING);
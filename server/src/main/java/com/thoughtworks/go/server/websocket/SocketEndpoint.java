@@ -17,10 +17,18 @@ package com.thoughtworks.go.server.websocket;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
 
 public interface SocketEndpoint {
     void send(ByteBuffer data) throws IOException;
 
+    /**
+     * Starts sending {@code data} without waiting for it to be written.
+     *
+     * @return a future completed once the data has been written, or completed exceptionally if writing it failed
+     */
+    CompletableFuture<Void> sendAsync(ByteBuffer data);
+
     void ping() throws IOException;
 
     boolean isOpen();
@@ -17,6 +17,8 @@ package com.thoughtworks.go.config;
 
 import com.thoughtworks.go.config.commands.EntityConfigUpdateCommand;
 import com.thoughtworks.go.config.update.FullConfigUpdateCommand;
+import com.thoughtworks.go.helper.GoConfigMother;
+import com.thoughtworks.go.listener.ConfigChangeSetListener;
 import com.thoughtworks.go.listener.ConfigChangedListener;
 import com.thoughtworks.go.listener.EntityConfigChangedListener;
 import com.thoughtworks.go.server.domain.Username;
@@ -26,8 +28,12 @@ import com.thoughtworks.go.serverhealth.ServerHealthState;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.*;
@@ -103,6 +109,23 @@ public class CachedGoConfigTest {
         verify(listener, times(2)).onConfigChange(any(BasicCruiseConfig.class));
     }
 
+    @Test
+    public void shouldTellChangeSetListenersWhatChangedOnceThePreviousConfigIsKnown() throws Exception {
+        BasicCruiseConfig updatedConfig = GoConfigMother.configWithPipelines("p1");
+        GoConfigHolder updatedHolder = new GoConfigHolder(updatedConfig, updatedConfig);
+        when(dataSource.writeWithLock(any(UpdateConfigCommand.class), any(GoConfigHolder.class))).thenReturn(new GoFileConfigDataSource.GoConfigSaveResult(updatedHolder, ConfigSaveState.UPDATED));
+        final ConfigChangeSetListener listener = mock(ConfigChangeSetListener.class);
+        cachedGoConfig.registerListener(listener);
+        cachedGoConfig.forceReload();
+
+        cachedGoConfig.writeWithLock(cruiseConfig -> cruiseConfig);
+
+        verify(listener).onConfigChange(configHolder.config);
+        ArgumentCaptor<ConfigChangeSet> changes = ArgumentCaptor.forClass(ConfigChangeSet.class);
+        verify(listener).onConfigChange(eq(updatedConfig), changes.capture());
+        assertThat(changes.getValue().pipelines().added(), is(Collections.singleton(new CaseInsensitiveString("p1"))));
+    }
+
     @Test
     public void shouldNotNotifyWhenConfigIsNullDuringRegistration() throws Exception {
         final ConfigChangedListener listener = mock(ConfigChangedListener.class);
@@ -171,7 +194,7 @@ public class CachedGoConfigTest {
         BasicCruiseConfig configForEdit = mock(BasicCruiseConfig.class);
         BasicCruiseConfig mergedConfigForEdit = mock(BasicCruiseConfig.class);
         GoConfigHolder goConfigHolder = new GoConfigHolder(config, configForEdit);
-        goConfigHolder.mergedConfigForEdit = mergedConfigForEdit;
+        goConfigHolder.setMergedConfigForEdit(mergedConfigForEdit);
         ConfigSaveState configSaveState = ConfigSaveState.UPDATED;
 
         when(dataSource.writeFullConfigWithLock(any(FullConfigUpdateCommand.class), any(GoConfigHolder.class)))
@@ -188,6 +211,27 @@ public class CachedGoConfigTest {
         verify(serverHealthService, times(2)).update(any(ServerHealthState.class));
     }
 
+    @Test
+    public void shouldMergeConfigForEditOnlyWhenItIsFirstAskedFor() {
+        BasicCruiseConfig config = mock(BasicCruiseConfig.class);
+        BasicCruiseConfig configForEdit = mock(BasicCruiseConfig.class);
+        BasicCruiseConfig mergedConfigForEdit = mock(BasicCruiseConfig.class);
+        GoConfigHolder goConfigHolder = new GoConfigHolder(config, configForEdit);
+        AtomicInteger merges = new AtomicInteger();
+        goConfigHolder.mergeConfigForEditOnFirstUse(() -> {
+            merges.incrementAndGet();
+            return mergedConfigForEdit;
+        });
+
+        when(goConfigMigrator.migrate()).thenReturn(goConfigHolder);
+        cachedGoConfig.upgradeConfig();
+
+        assertThat(merges.get(), is(0));
+        assertThat(cachedGoConfig.loadMergedForEditing(), is(mergedConfigForEdit));
+        assertThat(cachedGoConfig.loadMergedForEditing(), is(mergedConfigForEdit));
+        assertThat(merges.get(), is(1));
+    }
+
     @Test
     public void shouldUpgradeConfigFile() throws Exception {
         cachedGoConfig.upgradeConfig();
@@ -201,7 +245,7 @@ public class CachedGoConfigTest {
         BasicCruiseConfig configForEdit = mock(BasicCruiseConfig.class);
         BasicCruiseConfig mergedConfigForEdit = mock(BasicCruiseConfig.class);
         GoConfigHolder goConfigHolder = new GoConfigHolder(config, configForEdit);
-        goConfigHolder.mergedConfigForEdit = mergedConfigForEdit;
+        goConfigHolder.setMergedConfigForEdit(mergedConfigForEdit);
 
         when(goConfigMigrator.migrate()).thenReturn(goConfigHolder);
 
@@ -30,6 +30,8 @@ import com.thoughtworks.go.serverhealth.HealthStateScope;
 import com.thoughtworks.go.serverhealth.HealthStateType;
 import com.thoughtworks.go.serverhealth.ServerHealthService;
 import com.thoughtworks.go.serverhealth.ServerHealthState;
+import com.thoughtworks.go.util.SystemEnvironment;
+import com.thoughtworks.go.util.TestingClock;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -69,7 +71,7 @@ public class GoConfigRepoConfigDataSourceTest {
         when(cachedGoConfig.currentConfig()).thenReturn(cruiseConfig);
 
         configWatchList = new GoConfigWatchList(cachedGoConfig, mock(GoConfigService.class));
-        repoConfigDataSource = new GoConfigRepoConfigDataSource(configWatchList, configPluginService, serverHealthService, configRepoService, goConfigService);
+        repoConfigDataSource = new GoConfigRepoConfigDataSource(configWatchList, configPluginService, serverHealthService, configRepoService, goConfigService, new SystemEnvironment());
 
         ScmMaterialConfig material = git("http://my.git");
         ConfigRepoConfig configRepoConfig = ConfigRepoConfig.createConfigRepoConfig(material, "myplugin", "id");
@@ -338,7 +340,7 @@ public class GoConfigRepoConfigDataSourceTest {
         GitMaterialConfig material = git("http://my.git");
         ConfigRepoConfig configRepoConfig = ConfigRepoConfig.createConfigRepoConfig(material, "myplugin", "id");
         GoConfigWatchList goConfigWatchList = mock(GoConfigWatchList.class);
-        repoConfigDataSource = new GoConfigRepoConfigDataSource(goConfigWatchList, configPluginService, serverHealthService, configRepoService, goConfigService);
+        repoConfigDataSource = new GoConfigRepoConfigDataSource(goConfigWatchList, configPluginService, serverHealthService, configRepoService, goConfigService, new SystemEnvironment());
 
         when(goConfigWatchList.getConfigRepoForMaterial(material)).thenReturn(configRepoConfig);
 
@@ -352,7 +354,7 @@ public class GoConfigRepoConfigDataSourceTest {
         GitMaterialConfig material = git("http://my.git");
         ConfigRepoConfig configRepoConfig = ConfigRepoConfig.createConfigRepoConfig(material, "myplugin", "id");
         GoConfigWatchList goConfigWatchList = mock(GoConfigWatchList.class);
-        repoConfigDataSource = new GoConfigRepoConfigDataSource(goConfigWatchList, configPluginService, serverHealthService, configRepoService, goConfigService);
+        repoConfigDataSource = new GoConfigRepoConfigDataSource(goConfigWatchList, configPluginService, serverHealthService, configRepoService, goConfigService, new SystemEnvironment());
 
         when(goConfigWatchList.getConfigRepoForMaterial(material)).thenReturn(configRepoConfig);
         when(goConfigWatchList.hasConfigRepoWithFingerprint(material.getFingerprint())).thenReturn(true);
@@ -366,6 +368,65 @@ public class GoConfigRepoConfigDataSourceTest {
         assertFalse(repoConfigDataSource.hasConfigRepoConfigChangedSinceLastUpdate(material));
     }
 
+    @Test
+    public void shouldNotAskPluginToParseARevisionItParsedRecently() {
+        TestingClock clock = new TestingClock();
+        repoConfigDataSource = dataSourceWithParseCacheTtl(60_000, clock);
+        ScmMaterialConfig material = git("http://my.git");
+        cruiseConfig.setConfigRepos(new ConfigReposConfig(ConfigRepoConfig.createConfigRepoConfig(material, "myplugin", "id")));
+        configWatchList.onConfigChange(cruiseConfig);
+        PartialConfigUpdateCompletedListener listener = mock(PartialConfigUpdateCompletedListener.class);
+        repoConfigDataSource.registerListener(listener);
+        PartialConfig partialConfig = PartialConfigMother.withPipeline("pipe1");
+        when(plugin.load(any(File.class), any(PartialConfigLoadContext.class))).thenReturn(partialConfig);
+
+        repoConfigDataSource.onCheckoutComplete(material, folder, getModificationFor("7a8f"));
+        clock.addSeconds(59);
+        repoConfigDataSource.onCheckoutComplete(material, folder, getModificationFor("7a8f"));
+
+        verify(plugin, times(1)).load(eq(folder), any(PartialConfigLoadContext.class));
+        verify(listener, times(2)).onSuccessPartialConfig(any(ConfigRepoConfig.class), eq(partialConfig));
+    }
+
+    @Test
+    public void shouldAskPluginToParseAgainWhenRevisionChangesOrTheParseCacheExpires() {
+        TestingClock clock = new TestingClock();
+        repoConfigDataSource = dataSourceWithParseCacheTtl(60_000, clock);
+        ScmMaterialConfig material = git("http://my.git");
+        cruiseConfig.setConfigRepos(new ConfigReposConfig(ConfigRepoConfig.createConfigRepoConfig(material, "myplugin", "id")));
+        configWatchList.onConfigChange(cruiseConfig);
+
+        repoConfigDataSource.onCheckoutComplete(material, folder, getModificationFor("7a8f"));
+        repoConfigDataSource.onCheckoutComplete(material, folder, getModificationFor("8b9c"));
+        clock.addSeconds(60);
+        repoConfigDataSource.onCheckoutComplete(material, folder, getModificationFor("8b9c"));
+
+        verify(plugin, times(3)).load(eq(folder), any(PartialConfigLoadContext.class));
+    }
+
+    @Test
+    public void shouldAskPluginToParseAgainWhenConfigRepoConfigChangedOrParseFailed() {
+        repoConfigDataSource = dataSourceWithParseCacheTtl(60_000, new TestingClock());
+        ScmMaterialConfig material = git("http://my.git");
+        ConfigRepoConfig configRepoConfig = ConfigRepoConfig.createConfigRepoConfig(material, "myplugin", "id");
+        cruiseConfig.setConfigRepos(new ConfigReposConfig(configRepoConfig));
+        configWatchList.onConfigChange(cruiseConfig);
+
+        repoConfigDataSource.onCheckoutComplete(material, folder, getModificationFor("7a8f"));
+        repoConfigDataSource.onConfigRepoConfigChange(configRepoConfig);
+        when(plugin.load(any(File.class), any(PartialConfigLoadContext.class))).thenThrow(new RuntimeException("Parse failed"));
+        repoConfigDataSource.onCheckoutComplete(material, folder, getModificationFor("7a8f"));
+        repoConfigDataSource.onCheckoutComplete(material, folder, getModificationFor("7a8f"));
+
+        verify(plugin, times(3)).load(eq(folder), any(PartialConfigLoadContext.class));
+    }
+
+    private GoConfigRepoConfigDataSource dataSourceWithParseCacheTtl(long ttlInMillis, TestingClock clock) {
+        SystemEnvironment systemEnvironment = mock(SystemEnvironment.class);
+        when(systemEnvironment.getConfigRepoParseCacheTtlInMillis()).thenReturn(ttlInMillis);
+        return new GoConfigRepoConfigDataSource(configWatchList, configPluginService, serverHealthService, configRepoService, goConfigService, systemEnvironment, clock);
+    }
+
     private Modification getModificationFor(String revision) {
         Modification modification = new Modification();
         modification.setRevision(revision);
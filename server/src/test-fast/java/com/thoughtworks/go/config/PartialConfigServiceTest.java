@@ -28,11 +28,15 @@ import com.thoughtworks.go.domain.materials.Modification;
 import com.thoughtworks.go.server.service.ConfigRepoService;
 import com.thoughtworks.go.server.service.GoConfigService;
 import com.thoughtworks.go.serverhealth.ServerHealthService;
+import com.thoughtworks.go.util.SystemEnvironment;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.thoughtworks.go.helper.MaterialConfigsMother.git;
 import static com.thoughtworks.go.helper.PartialConfigMother.*;
@@ -71,7 +75,7 @@ public class PartialConfigServiceTest {
 
         configWatchList = new GoConfigWatchList(cachedGoConfig, mock(GoConfigService.class));
         goConfigService = mock(GoConfigService.class);
-        repoConfigDataSource = new GoConfigRepoConfigDataSource(configWatchList, configPluginService, serverHealthService, configRepoService, goConfigService);
+        repoConfigDataSource = new GoConfigRepoConfigDataSource(configWatchList, configPluginService, serverHealthService, configRepoService, goConfigService, new SystemEnvironment());
         cachedGoPartials = new CachedGoPartials(serverHealthService);
         serverHealthService = mock(ServerHealthService.class);
 
@@ -241,6 +245,85 @@ public class PartialConfigServiceTest {
         verify(goConfigService).updateConfig(any(UpdateConfigCommand.class));
     }
 
+    @Test
+    void mergesPartialsWhichArriveDuringAMergeTogether() throws Exception {
+        ConfigRepoConfig second = ConfigRepoConfig.createConfigRepoConfig(git("url2"), "plugin", "id2");
+        ConfigRepoConfig third = ConfigRepoConfig.createConfigRepoConfig(git("url3"), "plugin", "id3");
+        cruiseConfig.setConfigRepos(new ConfigReposConfig(configRepoConfig, second, third));
+        configWatchList.onConfigChange(cruiseConfig);
+
+        List<Thread> arrivedDuringMerge = new CopyOnWriteArrayList<>();
+        when(goConfigService.updateConfig(any(UpdateConfigCommand.class))).thenAnswer(invocation -> {
+            if (arrivedDuringMerge.isEmpty()) {
+                arrivedDuringMerge.add(mergeInBackground(second, withPipeline("p2", new RepoConfigOrigin(second, "1"))));
+                arrivedDuringMerge.add(mergeInBackground(third, withPipeline("p3", new RepoConfigOrigin(third, "1"))));
+                waitUntilBlocked(arrivedDuringMerge);
+            }
+            UpdateConfigCommand command = invocation.getArgument(0);
+            command.update(cruiseConfig);
+            return ConfigSaveState.UPDATED;
+        });
+
+        service.onSuccessPartialConfig(configRepoConfig, withPipeline("p1", new RepoConfigOrigin(configRepoConfig, "1")));
+        for (Thread thread : arrivedDuringMerge) {
+            thread.join();
+        }
+
+        verify(goConfigService, times(2)).updateConfig(any(UpdateConfigCommand.class));
+        assertEquals(3, cruiseConfig.getPartials().size());
+        assertEquals(3, cachedGoPartials.lastValidPartials().size());
+    }
+
+    @Test
+    void mergesPartialsOneAtATimeWhenMergingThemTogetherFails() throws Exception {
+        ConfigRepoConfig second = ConfigRepoConfig.createConfigRepoConfig(git("url2"), "plugin", "id2");
+        ConfigRepoConfig third = ConfigRepoConfig.createConfigRepoConfig(git("url3"), "plugin", "id3");
+        cruiseConfig.setConfigRepos(new ConfigReposConfig(configRepoConfig, second, third));
+        configWatchList.onConfigChange(cruiseConfig);
+
+        List<Thread> arrivedDuringMerge = new CopyOnWriteArrayList<>();
+        AtomicInteger merges = new AtomicInteger();
+        when(goConfigService.updateConfig(any(UpdateConfigCommand.class))).thenAnswer(invocation -> {
+            int merge = merges.incrementAndGet();
+            if (merge == 1) {
+                arrivedDuringMerge.add(mergeInBackground(second, withPipeline("p2", new RepoConfigOrigin(second, "1"))));
+                arrivedDuringMerge.add(mergeInBackground(third, withPipeline("p3", new RepoConfigOrigin(third, "1"))));
+                waitUntilBlocked(arrivedDuringMerge);
+            }
+            if (merge == 2) {
+                throw new RuntimeException("Nope");
+            }
+            UpdateConfigCommand command = invocation.getArgument(0);
+            command.update(cruiseConfig);
+            return ConfigSaveState.UPDATED;
+        });
+
+        service.onSuccessPartialConfig(configRepoConfig, withPipeline("p1", new RepoConfigOrigin(configRepoConfig, "1")));
+        for (Thread thread : arrivedDuringMerge) {
+            thread.join();
+        }
+
+        verify(goConfigService, times(4)).updateConfig(any(UpdateConfigCommand.class));
+        assertEquals(3, cruiseConfig.getPartials().size());
+        assertEquals(3, cachedGoPartials.lastValidPartials().size());
+    }
+
+    private Thread mergeInBackground(ConfigRepoConfig repoConfig, PartialConfig partial) {
+        Thread thread = new Thread(() -> service.onSuccessPartialConfig(repoConfig, partial));
+        thread.start();
+        return thread;
+    }
+
+    private void waitUntilBlocked(List<Thread> threads) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!threads.stream().allMatch(thread -> thread.getState() == Thread.State.BLOCKED)) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Partials did not arrive while merging");
+            }
+            Thread.sleep(10);
+        }
+    }
+
     @Nested
     class WatchList {
         private ScmMaterialConfig material;
@@ -355,10 +355,10 @@ class BuildWorkTest {
 
         assertThat(actual.toLowerCase()).contains(("Uploading artifacts from " + new File(basedir, artifactFile).getCanonicalPath()).toLowerCase());
 
-        Map<String, File> uploadedFiles = httpService.getUploadedFiles();
+        Map<String, String> uploadedFiles = httpService.getUploadedFiles();
 
         assertThat(uploadedFiles.size()).isEqualTo(1);
-        assertThat(uploadedFiles.get(url).getAbsolutePath()).contains(artifactFile + ".zip");
+        assertThat(uploadedFiles.get(url)).isEqualTo(artifactFile + ".zip");
     }
 
     @Test
@@ -50,10 +50,9 @@ class CacheKeyGeneratorTest {
     }
 
     @Test
-    void shouldAlwaysReturnInternedString() {
+    void shouldAllowCaseInsensitiveStringAndLongInArgs() {
         final String generatedCacheKey = cacheKeyGenerator.generate("foo", "bar", new CaseInsensitiveString("1"), 1L);
-        assertThat(generatedCacheKey == "com.thoughtworks.go.domain.Pipeline.$foo.$bar.$1.$1")
-                .describedAs("Using '==' to check returned key is interned String").isTrue();
+        assertThat(generatedCacheKey).isEqualTo("com.thoughtworks.go.domain.Pipeline.$foo.$bar.$1.$1");
     }
 
     @Test
@@ -81,4 +80,15 @@ class CacheKeyGeneratorTest {
         final String generatedCacheKey = cacheKeyGenerator.generate("Foo", "bAR", new CaseInsensitiveString("FAST"), 1L);
         assertThat(generatedCacheKey).isEqualTo("com.thoughtworks.go.domain.Pipeline.$Foo.$bAR.$fast.$1");
     }
+
+    @Test
+    void shouldTellTheNamespaceOfAGeneratedKey() {
+        assertThat(CacheKeyGenerator.namespaceOf(cacheKeyGenerator.generate("foo", "bar", 1L))).isEqualTo("Pipeline.foo");
+        assertThat(CacheKeyGenerator.namespaceOf(cacheKeyGenerator.generate("foo"))).isEqualTo("Pipeline.foo");
+    }
+
+    @Test
+    void shouldPutKeysThatWereNotGeneratedIntoTheDefaultNamespace() {
+        assertThat(CacheKeyGenerator.namespaceOf("com.thoughtworks.go.server.persistence.MaterialRepository_materialInstance_abc")).isEqualTo("default");
+    }
 }
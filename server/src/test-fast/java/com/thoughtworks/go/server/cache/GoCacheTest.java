@@ -44,6 +44,7 @@ import static org.mockito.Mockito.mock;
 public class GoCacheTest {
 
     private static CacheManager cacheManager;
+    private Cache cache;
     private GoCache goCache;
     private String largeObject;
 
@@ -54,7 +55,7 @@ public class GoCacheTest {
 
     @Before
     public void setUp() throws Exception {
-        Cache cache = new Cache(new CacheConfiguration(getClass().getName(), 100).memoryStoreEvictionPolicy(MemoryStoreEvictionPolicy.LRU));
+        cache = new Cache(new CacheConfiguration(getClass().getName(), 100).memoryStoreEvictionPolicy(MemoryStoreEvictionPolicy.LRU));
         cacheManager.addCache(cache);
         this.goCache = new GoCache(cache, mock(TransactionSynchronizationManager.class));
     }
@@ -236,7 +237,7 @@ public class GoCacheTest {
 
     @Test
     public void shouldEvictSubkeyFromParentCacheWhenTheSubkeyEntryGetsEvicted() throws InterruptedException {
-        goCache.configuration().setMaxEntriesLocalHeap(2);
+        cache.getCacheConfiguration().setMaxEntriesLocalHeap(2);
         String parentKey = "parent";
         goCache.put(parentKey, "child1", "value");
         assertThat(goCache.get(parentKey), is(not(nullValue())));
@@ -254,8 +255,8 @@ public class GoCacheTest {
 
     @Test
     public void shouldEvictSubkeyFromParentCacheWhenTheSubkeyEntryGetsExpired() throws InterruptedException {
-        goCache.configuration().setEternal(false);
-        goCache.configuration().setTimeToLiveSeconds(1);
+        cache.getCacheConfiguration().setEternal(false);
+        cache.getCacheConfiguration().setTimeToLiveSeconds(1);
         String parentKey = "parent";
         goCache.put(parentKey, "child1", "value");
         assertThat(goCache.get(parentKey), is(not(nullValue())));
@@ -273,7 +274,7 @@ public class GoCacheTest {
 
     @Test
     public void shouldEvictAllSubkeyCacheEntriesWhenTheParentEntryGetsEvicted() throws InterruptedException {
-        goCache.configuration().setMaxEntriesLocalHeap(2);
+        cache.getCacheConfiguration().setMaxEntriesLocalHeap(2);
         String parentKey = "parent";
         goCache.put(parentKey, new GoCache.KeyList());
         assertThat(goCache.get(parentKey), is(not(nullValue())));
@@ -289,7 +290,7 @@ public class GoCacheTest {
 
     @Test
     public void shouldHandleNonSerializableValuesDuringEviction() throws InterruptedException {
-        goCache.configuration().setMaxEntriesLocalHeap(1);
+        cache.getCacheConfiguration().setMaxEntriesLocalHeap(1);
         NonSerializableClass value = new NonSerializableClass();
         String key = "key";
         goCache.put(key, value);
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.cache;
+
+import com.thoughtworks.go.server.cache.KeyedLockProvider.KeyedLock;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeyedLockProviderTest {
+    private final KeyedLockProvider provider = new KeyedLockProvider();
+
+    @Test
+    void shouldForgetAboutALockOnceNobodyHoldsIt() {
+        try (KeyedLock lock = provider.acquire("foo")) {
+            assertThat(provider.numberOfLiveLocks()).isEqualTo(1);
+        }
+
+        assertThat(provider.numberOfLiveLocks()).isEqualTo(0);
+    }
+
+    @Test
+    void shouldAllowTheSameThreadToAcquireTheLockOfAKeyAgain() {
+        try (KeyedLock outer = provider.acquire("foo")) {
+            try (KeyedLock inner = provider.acquire(new String("foo"))) {
+                assertThat(provider.numberOfLiveLocks()).isEqualTo(1);
+            }
+            assertThat(provider.numberOfLiveLocks()).isEqualTo(1);
+        }
+
+        assertThat(provider.numberOfLiveLocks()).isEqualTo(0);
+        assertThat(provider.statistics()).containsEntry("Acquisitions", 2L).containsEntry("Contended acquisitions", 0L);
+    }
+
+    @Test
+    void shouldMakeOtherThreadsWaitForTheLockOfAnEqualKey() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> waiter;
+            try (KeyedLock lock = provider.acquire("foo")) {
+                waiter = executor.submit(() -> {
+                    try (KeyedLock other = provider.acquire(new String("foo"))) {
+                        return null;
+                    }
+                });
+                Thread.sleep(100);
+                assertThat(waiter.isDone()).isFalse();
+            }
+
+            waiter.get(10, TimeUnit.SECONDS);
+            assertThat(provider.statistics()).containsEntry("Acquisitions", 2L).containsEntry("Contended acquisitions", 1L);
+            assertThat(provider.numberOfLiveLocks()).isEqualTo(0);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldNotMakeThreadsWaitForTheLockOfADifferentKey() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch acquired = new CountDownLatch(1);
+        try {
+            try (KeyedLock lock = provider.acquire("foo")) {
+                executor.submit(() -> {
+                    try (KeyedLock other = provider.acquire("bar")) {
+                        acquired.countDown();
+                    }
+                });
+
+                assertThat(acquired.await(10, TimeUnit.SECONDS)).isTrue();
+            }
+            assertThat(provider.statistics()).containsEntry("Contended acquisitions", 0L);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.cache;
+
+import com.thoughtworks.go.domain.Pipeline;
+import com.thoughtworks.go.domain.Stage;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RegionedCacheStoreTest {
+    private final Map<String, String> properties = new HashMap<>();
+    private final RegionedCacheStore store = new RegionedCacheStore(100, properties::get, Runnable::run);
+    private final CacheKeyGenerator pipelineKeys = new CacheKeyGenerator(Pipeline.class);
+    private final CacheKeyGenerator stageKeys = new CacheKeyGenerator(Stage.class);
+
+    @Test
+    void shouldKeepEntriesOfNamespacesWithALimitOfTheirOwnInARegionOfTheirOwn() {
+        properties.put("go.cache.region.Pipeline.history.max.entries", "10");
+        properties.put("go.cache.region.Stage.history.max.weight", "10");
+        store.put(pipelineKeys.generate("history", "up42"), "pipeline history");
+        store.put(stageKeys.generate("history", "up42", "build"), "stage history");
+        store.put("some-other-key", "something else");
+
+        assertThat(store.get(pipelineKeys.generate("history", "up42"))).isEqualTo("pipeline history");
+        assertThat(store.get(stageKeys.generate("history", "up42", "build"))).isEqualTo("stage history");
+        assertThat(store.statistics()).containsOnlyKeys("Backend", "Pipeline.history", "Stage.history", "default");
+        assertThat(store.keys()).hasSize(3);
+    }
+
+    @Test
+    void shouldKeepSubKeysInTheRegionOfTheirParent() {
+        properties.put("go.cache.region.Pipeline.history.max.entries", "10");
+        String parent = pipelineKeys.generate("history", "up42");
+        store.put(parent, new GoCache.KeyList());
+        store.put(parent + GoCache.SUB_KEY_DELIMITER + "1", "value");
+
+        assertThat((Map<String, Object>) store.statistics().get("Pipeline.history")).containsEntry("Entries", 2L);
+        assertThat((Map<String, Object>) store.statistics().get("default")).containsEntry("Entries", 0L);
+        assertThat(store.get(parent + GoCache.SUB_KEY_DELIMITER + "1")).isEqualTo("value");
+    }
+
+    @Test
+    void shouldNotEvictEntriesOfOtherRegionsWhenARegionIsFull() {
+        properties.put("go.cache.region.Stage.history.max.entries", "5");
+        List<String> evicted = new ArrayList<>();
+        store.onEviction((key, value) -> evicted.add(key));
+
+        String pipelineKey = pipelineKeys.generate("history", "up42");
+        store.put(pipelineKey, "pipeline history");
+        for (int i = 0; i < 100; i++) {
+            store.put(stageKeys.generate("history", "up42", String.valueOf(i)), "stage history");
+        }
+        store.cleanUp();
+
+        assertThat(store.get(pipelineKey)).isEqualTo("pipeline history");
+        assertThat(store.keys()).hasSize(6);
+        assertThat(evicted).hasSize(95).doesNotContain(pipelineKey);
+    }
+
+    @Test
+    void shouldLimitRegionsByTheWeightOfTheirEntriesWhenConfigured() {
+        properties.put("go.cache.region.Stage.history.max.weight", "10");
+        store.put(stageKeys.generate("history", "up42", "1"), Arrays.asList(1, 2, 3, 4, 5, 6));
+        store.put(stageKeys.generate("history", "up42", "2"), Arrays.asList(1, 2, 3, 4, 5, 6));
+        store.cleanUp();
+
+        assertThat(store.keys()).hasSize(1);
+        assertThat((Map<String, Object>) store.statistics().get("Stage.history"))
+                .containsEntry("Maximum weight", 10L)
+                .containsEntry("Weight", 6L)
+                .containsEntry("Eviction", 1L)
+                .containsEntry("Evicted weight", 6L);
+    }
+
+    @Test
+    void shouldUseTheDefaultLimitWhenTheConfiguredOneIsNotANumber() {
+        properties.put("go.cache.region.Stage.history.max.entries", "lots");
+        store.put(stageKeys.generate("history", "up42", "1"), "value");
+
+        assertThat(store.statistics()).doesNotContainKey("Stage.history");
+        assertThat((Map<String, Object>) store.statistics().get("default"))
+                .containsEntry("Maximum entries", 100L)
+                .containsEntry("Entries", 1L);
+    }
+
+    @Test
+    void shouldKeepNamespacesWithoutALimitOfTheirOwnInTheDefaultRegion() {
+        properties.put("go.cache.region.Stage.history.max.entries", "5");
+        for (int namespace = 0; namespace < 50; namespace++) {
+            for (int i = 0; i < 100; i++) {
+                store.put(pipelineKeys.generate("namespace" + namespace, i), "value");
+            }
+        }
+        for (int i = 0; i < 100; i++) {
+            store.put(stageKeys.generate("history", "up42", String.valueOf(i)), "stage history");
+        }
+        store.cleanUp();
+
+        assertThat(store.keys()).hasSizeLessThanOrEqualTo(100 + 5);
+        assertThat(store.statistics()).containsOnlyKeys("Backend", "Stage.history", "default");
+        assertThat((Map<String, Object>) store.statistics().get("default")).containsEntry("Maximum entries", 100L);
+        assertThat((Map<String, Object>) store.statistics().get("Stage.history")).containsEntry("Maximum entries", 5L);
+    }
+
+    @Test
+    void shouldLetKeysNotGeneratedByTheKeyGeneratorUseTheWholeDefaultLimitWhileOtherNamespacesAreCached() {
+        properties.put("go.cache.region.Stage.history.max.entries", "5");
+        List<String> evicted = new ArrayList<>();
+        store.onEviction((key, value) -> evicted.add(key));
+
+        for (int i = 0; i < 5; i++) {
+            store.put(pipelineKeys.generate("namespace" + i, i), "value");
+        }
+        for (int i = 0; i < 100; i++) {
+            store.put(stageKeys.generate("history", "up42", String.valueOf(i)), "stage history");
+        }
+        for (int i = 0; i < 90; i++) {
+            store.put("material-" + i, "material");
+        }
+        store.cleanUp();
+
+        for (int i = 0; i < 90; i++) {
+            assertThat(store.get("material-" + i)).isEqualTo("material");
+        }
+        assertThat(evicted).hasSize(95).allMatch(key -> key.startsWith(stageKeys.generate("history", "up42", "")));
+    }
+
+    @Test
+    void shouldRememberNullValues() {
+        store.put("key", null);
+
+        assertThat(store.containsKey("key")).isTrue();
+        assertThat(store.get("key")).isNull();
+        assertThat(store.remove("key")).isTrue();
+        assertThat(store.containsKey("key")).isFalse();
+    }
+
+    @Test
+    void shouldNotReportExplicitlyRemovedEntriesAsEvicted() {
+        List<String> evicted = new ArrayList<>();
+        store.onEviction((key, value) -> evicted.add(key));
+        store.put("foo", "1");
+        store.put("bar", "2");
+
+        store.remove("foo");
+        store.clear();
+        store.cleanUp();
+
+        assertThat(store.keys()).isEmpty();
+        assertThat(evicted).isEmpty();
+    }
+
+    @Test
+    void shouldCountHitsAndMissesPerRegion() {
+        store.put("foo", "1");
+        store.get("foo");
+        store.get("foo");
+        store.get("bar");
+
+        assertThat((Map<String, Object>) store.statistics().get("default"))
+                .containsEntry("Entries", 1L)
+                .containsEntry("Hits", 2L)
+                .containsEntry("Miss", 1L);
+    }
+}
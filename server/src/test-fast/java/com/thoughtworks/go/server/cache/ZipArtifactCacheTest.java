@@ -18,6 +18,7 @@ package com.thoughtworks.go.server.cache;
 import com.thoughtworks.go.domain.JobIdentifier;
 import com.thoughtworks.go.server.service.ArtifactsDirHolder;
 import com.thoughtworks.go.server.web.ArtifactFolder;
+import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.util.TestFileUtil;
 import com.thoughtworks.go.util.ZipUtil;
 import org.apache.commons.io.FileUtils;
@@ -55,7 +56,7 @@ public class ZipArtifactCacheTest {
 
         artifactsDirHolder = mock(ArtifactsDirHolder.class);
         when(artifactsDirHolder.getArtifactsDir()).thenReturn(folder);
-        zipArtifactCache = new ZipArtifactCache(this.artifactsDirHolder, new ZipUtil());
+        zipArtifactCache = new ZipArtifactCache(this.artifactsDirHolder, new ZipUtil(), new SystemEnvironment());
         artifactFolder = new ArtifactFolder(JOB_IDENTIFIER, new File(artifact, "dir"), "dir");
     }
 
@@ -105,6 +106,36 @@ public class ZipArtifactCacheTest {
         assertThat(new File(cacheDir, "dir/file1"), exists());
     }
 
+    @Test public void shouldEvictLeastRecentlyUsedZipsWhenCacheGrowsBeyondItsMaxSize() throws Exception {
+        File cacheDir = new File(folder, "cache/artifacts/" + JOB_FOLDERS);
+        cacheDir.mkdirs();
+        File older = new File(cacheDir, "older.zip");
+        File newer = new File(cacheDir, "newer.zip");
+        FileUtils.writeByteArrayToFile(older, new byte[600 * 1024]);
+        FileUtils.writeByteArrayToFile(newer, new byte[600 * 1024]);
+        older.setLastModified(System.currentTimeMillis() - 60000);
+
+        zipArtifactCache = new ZipArtifactCache(artifactsDirHolder, new ZipUtil(), Runnable::run, 1024 * 1024);
+        assertThat(zipArtifactCache.cacheCreated(artifactFolder), is(false));
+
+        assertThat(zipArtifactCache.cacheCreated(artifactFolder), is(true));
+        assertThat(older, not(exists()));
+        assertThat(newer, exists());
+    }
+
+    @Test public void shouldNotEvictAnythingWhenMaxSizeIsNotPositive() throws Exception {
+        File cacheDir = new File(folder, "cache/artifacts/" + JOB_FOLDERS);
+        cacheDir.mkdirs();
+        File other = new File(cacheDir, "other.zip");
+        FileUtils.writeByteArrayToFile(other, new byte[1024]);
+
+        zipArtifactCache = new ZipArtifactCache(artifactsDirHolder, new ZipUtil(), Runnable::run, 0);
+        zipArtifactCache.cacheCreated(artifactFolder);
+
+        assertThat(zipArtifactCache.cacheCreated(artifactFolder), is(true));
+        assertThat(other, exists());
+    }
+
     private void waitForCacheCreated() throws Exception {
         int timesTried = 10;
         while (timesTried > 0 && !zipArtifactCache.cacheCreated(artifactFolder)) {
@@ -15,15 +15,15 @@
  */
 package com.thoughtworks.go.server.dashboard;
 
-import com.thoughtworks.go.config.BasicCruiseConfig;
-import com.thoughtworks.go.config.CruiseConfig;
-import com.thoughtworks.go.config.PipelineConfig;
+import com.thoughtworks.go.config.*;
 import com.thoughtworks.go.helper.GoConfigMother;
 import com.thoughtworks.go.server.service.GoDashboardService;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.MockitoAnnotations.initMocks;
 
@@ -57,4 +57,30 @@ public class GoDashboardConfigChangeHandlerTest {
 
         verify(cacheUpdateService).updateCacheForPipeline(pipelineConfig);
     }
+
+    @Test
+    public void shouldUpdateOnlyTheAddedChangedAndRemovedPipelinesWhenGivenAConfigChangeSet() {
+        BasicCruiseConfig previous = GoConfigMother.configWithPipelines("p1", "p2", "p3", "p4", "p5", "p6");
+        BasicCruiseConfig current = GoConfigMother.configWithPipelines("p1", "p2", "p3", "p4", "p5", "p7");
+        current.pipelineConfigByName(new CaseInsensitiveString("p1")).setLabelTemplate("${COUNT}-changed");
+
+        handler.call(current, ConfigChangeSet.between(previous, current));
+
+        verify(cacheUpdateService).updateCacheForPipeline(new CaseInsensitiveString("p1"));
+        verify(cacheUpdateService).updateCacheForPipeline(new CaseInsensitiveString("p6"));
+        verify(cacheUpdateService).updateCacheForPipeline(new CaseInsensitiveString("p7"));
+        verify(cacheUpdateService, never()).updateCacheForPipeline(new CaseInsensitiveString("p2"));
+        verify(cacheUpdateService, never()).updateCacheForAllPipelinesIn(any(CruiseConfig.class));
+    }
+
+    @Test
+    public void shouldReplaceAllEntriesInCacheWhenSecurityHasChanged() {
+        BasicCruiseConfig previous = GoConfigMother.configWithPipelines("p1", "p2");
+        BasicCruiseConfig current = GoConfigMother.configWithPipelines("p1", "p2");
+        current.server().security().adminsConfig().add(new AdminUser(new CaseInsensitiveString("admin")));
+
+        handler.call(current, ConfigChangeSet.between(previous, current));
+
+        verify(cacheUpdateService).updateCacheForAllPipelinesIn(current);
+    }
 }
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.domain;
+
+import com.thoughtworks.go.config.CaseInsensitiveString;
+import com.thoughtworks.go.domain.PipelineTimelineEntry;
+import com.thoughtworks.go.server.persistence.PipelineRepository;
+import com.thoughtworks.go.server.transaction.TransactionSynchronizationManager;
+import com.thoughtworks.go.server.transaction.TransactionTemplate;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class PipelineTimelineSnapshotTest {
+    @TempDir
+    Path tempDir;
+    private File file;
+    private PipelineTimelineSnapshot snapshot;
+    private PipelineTimelineInterner interner;
+    private PipelineRepository pipelineRepository;
+
+    @BeforeEach
+    void setUp() {
+        file = tempDir.resolve("timeline.snapshot").toFile();
+        snapshot = new PipelineTimelineSnapshot(file, 0);
+        interner = new PipelineTimelineInterner();
+        pipelineRepository = mock(PipelineRepository.class);
+    }
+
+    @Test
+    void shouldReadBackWhatWasSaved() throws Exception {
+        Timestamp modifiedTime = new Timestamp(1000L);
+        modifiedTime.setNanos(123456789);
+        PipelineTimelineEntry first = entry("up42", 1, 1, 1.0, revision(modifiedTime, "abc", "dest", 10));
+        PipelineTimelineEntry second = entry("up42", 2, 2, 2.0, revision(new Date(2000L), "def", null, 11));
+
+        snapshot.saveAsync(Arrays.asList(second, first)).get();
+        List<PipelineTimelineEntry> entries = snapshot.load(interner);
+
+        assertThat(entries).containsExactly(first, second);
+        assertThat(entries.get(0).getPipelineName()).isEqualTo("up42");
+        assertThat(entries.get(0).getCounter()).isEqualTo(1);
+        assertThat(entries.get(0).naturalOrder()).isEqualTo(1.0);
+        assertThat(entries.get(0).revisions()).isEqualTo(first.revisions());
+        assertThat(entries.get(0).revisions().get("git").get(0).date).isEqualTo(modifiedTime);
+        assertThat(entries.get(0).revisions().get("git").get(0).folder).isEqualTo("dest");
+        assertThat(entries.get(0).revisions().get("git").get(0).id).isEqualTo(10);
+        assertThat(entries.get(1).revisions()).isEqualTo(second.revisions());
+        assertThat(entries.get(1).revisions().get("git").get(0).folder).isNull();
+        assertThat(entries.get(1).getPipelineName()).isSameAs(entries.get(0).getPipelineName());
+    }
+
+    @Test
+    void shouldIgnoreASnapshotThatCannotBeRead() throws Exception {
+        Files.write(file.toPath(), "not a snapshot".getBytes());
+
+        assertThat(snapshot.load(interner)).isEmpty();
+    }
+
+    @Test
+    void shouldIgnoreAMissingSnapshot() {
+        assertThat(snapshot.load(interner)).isEmpty();
+        assertThat(new PipelineTimelineSnapshot(null, 0).load(interner)).isEmpty();
+    }
+
+    @Test
+    void shouldOnlyReplayPipelinesNewerThanTheSnapshotOnStartup() throws Exception {
+        snapshot.saveAsync(Arrays.asList(entry("up42", 1, 1, 1.0, revision(new Date(1000L), "abc", null, 10)),
+                entry("up42", 2, 2, 2.0, revision(new Date(2000L), "def", null, 11)))).get();
+        when(pipelineRepository.findPipelineCounterById(2L)).thenReturn(2);
+        List<Long> replayedAfter = new ArrayList<>();
+        doAnswer(invocation -> {
+            PipelineTimeline timeline = invocation.getArgument(0);
+            replayedAfter.add(timeline.maximumId());
+            timeline.add(entry("up42", 3, 3, 0.0, revision(new Date(3000L), "ghi", null, 12)));
+            return null;
+        }).when(pipelineRepository).updatePipelineTimeline(any(PipelineTimeline.class), any());
+
+        PipelineTimeline timeline = timeline();
+        timeline.updateTimelineOnInit();
+
+        assertThat(replayedAfter).containsExactly(2L);
+        assertThat(timeline.maximumId()).isEqualTo(3L);
+        assertThat(timeline.instanceCount(new CaseInsensitiveString("up42"))).isEqualTo(3);
+        assertThat(timeline.runBefore(3, new CaseInsensitiveString("up42")).getId()).isEqualTo(2L);
+        assertThat(timeline.getEntryFor(new CaseInsensitiveString("up42"), 3).naturalOrder()).isEqualTo(3.0);
+        assertThat(waitForSnapshotOf(3)).extracting(PipelineTimelineEntry::getId).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void shouldRebuildTheTimelineFromTheDatabaseWhenTheSnapshotDoesNotMatchIt() throws Exception {
+        snapshot.saveAsync(Collections.singletonList(entry("up42", 1, 1, 1.0, revision(new Date(1000L), "abc", null, 10)))).get();
+        when(pipelineRepository.findPipelineCounterById(anyLong())).thenReturn(null);
+        List<Long> replayedAfter = new ArrayList<>();
+        doAnswer(invocation -> {
+            replayedAfter.add(((PipelineTimeline) invocation.getArgument(0)).maximumId());
+            return null;
+        }).when(pipelineRepository).updatePipelineTimeline(any(PipelineTimeline.class), any());
+
+        timeline().updateTimelineOnInit();
+
+        assertThat(replayedAfter).containsExactly(-1L);
+        assertThat(file).doesNotExist();
+    }
+
+    private List<PipelineTimelineEntry> waitForSnapshotOf(int size) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        List<PipelineTimelineEntry> entries = snapshot.load(interner);
+        while (entries.size() != size && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            entries = snapshot.load(interner);
+        }
+        return entries;
+    }
+
+    private PipelineTimeline timeline() {
+        SystemEnvironment systemEnvironment = mock(SystemEnvironment.class);
+        when(systemEnvironment.getPipelineTimelineSnapshotFile()).thenReturn(file);
+        return new PipelineTimeline(pipelineRepository, mock(TransactionTemplate.class), mock(TransactionSynchronizationManager.class), systemEnvironment);
+    }
+
+    private PipelineTimelineEntry entry(String pipelineName, long id, int counter, double naturalOrder, PipelineTimelineEntry.Revision revision) {
+        Map<String, List<PipelineTimelineEntry.Revision>> revisions = new HashMap<>();
+        revisions.put("git", Collections.singletonList(revision));
+        return new PipelineTimelineEntry(pipelineName, id, counter, revisions, naturalOrder);
+    }
+
+    private PipelineTimelineEntry.Revision revision(Date date, String revision, String folder, long id) {
+        return new PipelineTimelineEntry.Revision(date, revision, folder, id);
+    }
+}
@@ -19,12 +19,10 @@ package com.thoughtworks.go.server.messaging;
 import com.thoughtworks.go.plugin.access.common.settings.GoPluginExtension;
 import com.thoughtworks.go.plugin.infra.PluginManager;
 import com.thoughtworks.go.plugin.infra.plugininfo.GoPluginDescriptor;
-import com.thoughtworks.go.server.messaging.activemq.JMSMessageListenerAdapter;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 
-import javax.jms.JMSException;
 import java.util.ArrayList;
 
 import static org.hamcrest.Matchers.is;
@@ -55,12 +53,12 @@ public class PluginMessageQueueHandlerTest {
         String pluginId = PLUGIN_ID;
         String queueName = QUEUE_NAME_PREFIX + pluginId;
         when(extension.canHandlePlugin(pluginId)).thenReturn(true);
-        when(messaging.addQueueListener(eq(queueName), any(GoMessageListener.class))).thenReturn(mock(JMSMessageListenerAdapter.class));
+        when(messaging.addQueueListener(eq(queueName), any(GoMessageListener.class))).thenReturn(mock(GoMessageListenerAdapter.class));
         handler.pluginLoaded(GoPluginDescriptor.builder().id(pluginId).build());
 
         assertThat(handler.queues.containsKey(pluginId), is(true));
         assertThat(handler.queues.get(pluginId).listeners.containsKey(pluginId), is(true));
-        ArrayList<JMSMessageListenerAdapter> listeners = handler.queues.get(pluginId).listeners.get(pluginId);
+        ArrayList<GoMessageListenerAdapter> listeners = handler.queues.get(pluginId).listeners.get(pluginId);
         assertThat(listeners.size(), is(10));
         ArgumentCaptor<GoMessageListener> argumentCaptor = ArgumentCaptor.forClass(GoMessageListener.class);
         verify(messaging, times(10)).addQueueListener(eq(queueName), argumentCaptor.capture());
@@ -68,11 +66,11 @@ public class PluginMessageQueueHandlerTest {
     }
 
     @Test
-    public void shouldRemoveListenerWhenAPluginIsUnloaded() throws JMSException {
+    public void shouldRemoveListenerWhenAPluginIsUnloaded() {
         String pluginId = PLUGIN_ID;
         String queueName = QUEUE_NAME_PREFIX + pluginId;
         when(extension.canHandlePlugin(pluginId)).thenReturn(true);
-        JMSMessageListenerAdapter listenerAdapter = mock(JMSMessageListenerAdapter.class);
+        GoMessageListenerAdapter listenerAdapter = mock(GoMessageListenerAdapter.class);
         when(messaging.addQueueListener(eq(queueName), any(GoMessageListener.class))).thenReturn(listenerAdapter);
         GoPluginDescriptor pluginDescriptor = GoPluginDescriptor.builder().id(pluginId).build();
 
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.messaging.inmemory;
+
+import com.thoughtworks.go.server.messaging.*;
+import com.thoughtworks.go.server.service.support.DaemonThreadStatsCollector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryMessagingServiceTest {
+    private InMemoryMessagingService messaging;
+
+    @BeforeEach
+    void setUp() {
+        messaging = new InMemoryMessagingService(new DaemonThreadStatsCollector(), 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        messaging.stop();
+    }
+
+    @Test
+    void shouldDeliverTopicMessagesToEveryListener() throws Exception {
+        GoMessageTopic<GoTextMessage> topic = new GoMessageTopic<GoTextMessage>(messaging, "topic") {};
+        RecordingListener first = new RecordingListener(1);
+        RecordingListener second = new RecordingListener(1);
+        topic.addListener(first);
+        topic.addListener(second);
+
+        topic.post(new GoTextMessage("Hello World!"));
+
+        assertThat(first.await()).containsExactly("Hello World!");
+        assertThat(second.await()).containsExactly("Hello World!");
+    }
+
+    @Test
+    void shouldHandTheSameMessageInstanceToTheListener() throws Exception {
+        GoMessageQueue<GoTextMessage> queue = new GoMessageQueue<GoTextMessage>(messaging, "queue") {};
+        GoTextMessage message = new GoTextMessage("Hello World!");
+        CountDownLatch received = new CountDownLatch(1);
+        List<GoMessage> messages = new CopyOnWriteArrayList<>();
+        queue.addListener(m -> {
+            messages.add(m);
+            received.countDown();
+        });
+
+        queue.post(message);
+
+        assertThat(received.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(messages.get(0)).isSameAs(message);
+    }
+
+    @Test
+    void shouldSupportCompetingConsumers() throws Exception {
+        CountDownLatch finish = new CountDownLatch(1);
+        CountDownLatch hangingStarted = new CountDownLatch(1);
+        GoMessageQueue<GoTextMessage> queue = new GoMessageQueue<GoTextMessage>(messaging, "queue") {};
+        queue.addListener(message -> {
+            hangingStarted.countDown();
+            try {
+                finish.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        queue.post(new GoTextMessage("Hello World1"));
+        assertThat(hangingStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        RecordingListener fast = new RecordingListener(4);
+        queue.addListener(fast);
+        queue.post(new GoTextMessage("Hello World2"));
+        queue.post(new GoTextMessage("Hello World3"));
+        queue.post(new GoTextMessage("Hello World4"));
+        queue.post(new GoTextMessage("Hello World5"));
+
+        assertThat(fast.await()).containsExactly("Hello World2", "Hello World3", "Hello World4", "Hello World5");
+        finish.countDown();
+    }
+
+    @Test
+    void shouldKeepQueueMessagesPostedBeforeAnyoneListens() throws Exception {
+        GoMessageQueue<GoTextMessage> queue = new GoMessageQueue<GoTextMessage>(messaging, "queue") {};
+        queue.post(new GoTextMessage("Hello World!"));
+        assertThat(messaging.pendingMessages("queue")).isEqualTo(1);
+
+        RecordingListener listener = new RecordingListener(1);
+        queue.addListener(listener);
+
+        assertThat(listener.await()).containsExactly("Hello World!");
+    }
+
+    @Test
+    void shouldStillReceiveMessagesIfAnExceptionIsThrown() throws Exception {
+        GoMessageQueue<GoTextMessage> queue = new GoMessageQueue<GoTextMessage>(messaging, "queue") {};
+        RecordingListener listener = new RecordingListener(5) {
+            @Override
+            public void onMessage(GoTextMessage message) {
+                super.onMessage(message);
+                throw new RuntimeException("should swallow me");
+            }
+        };
+        queue.addListener(listener);
+
+        for (int i = 1; i <= 5; i++) {
+            queue.post(new GoTextMessage("Hello World" + i));
+        }
+
+        assertThat(listener.await()).hasSize(5);
+    }
+
+    @Test
+    void shouldSkipMessagesWhoseTimeToLiveHasPassed() throws Exception {
+        GoMessageQueue<GoTextMessage> queue = new GoMessageQueue<GoTextMessage>(messaging, "queue") {};
+        queue.post(new GoTextMessage("expired"), 1);
+        Thread.sleep(50);
+        queue.post(new GoTextMessage("alive"), 60000);
+
+        RecordingListener listener = new RecordingListener(1);
+        queue.addListener(listener);
+
+        assertThat(listener.await()).containsExactly("alive");
+        assertThat(messaging.pendingMessages("queue")).isZero();
+    }
+
+    @Test
+    void shouldStopListenersWhenTheirQueueIsRemoved() throws Exception {
+        GoMessageQueue<GoTextMessage> queue = new GoMessageQueue<GoTextMessage>(messaging, "queue") {};
+        RecordingListener listener = new RecordingListener(1);
+        queue.addListener(listener);
+
+        messaging.removeQueue("queue");
+        queue.post(new GoTextMessage("Hello World!"));
+        Thread.sleep(200);
+
+        assertThat(listener.messages).isEmpty();
+        assertThat(messaging.pendingMessages("queue")).isEqualTo(1);
+    }
+
+    @Test
+    void shouldHandTheSameMessageInstanceToEveryTopicListener() throws Exception {
+        GoMessageTopic<GoTextMessage> topic = new GoMessageTopic<GoTextMessage>(messaging, "topic") {};
+        GoTextMessage message = new GoTextMessage("Hello World!");
+        CountDownLatch received = new CountDownLatch(2);
+        List<GoMessage> messages = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            topic.addListener(m -> {
+                messages.add(m);
+                received.countDown();
+            });
+        }
+
+        topic.post(message);
+
+        assertThat(received.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(messages).hasSize(2).allSatisfy(m -> assertThat(m).isSameAs(message));
+    }
+
+    @Test
+    void shouldDropMessagesRatherThanWaitForeverWhenAListenerPostsToItsOwnFullQueue() throws Exception {
+        messaging.stop();
+        messaging = new InMemoryMessagingService(new DaemonThreadStatsCollector(), 1, 50);
+        GoMessageQueue<GoTextMessage> queue = new GoMessageQueue<GoTextMessage>(messaging, "queue") {};
+        CountDownLatch handled = new CountDownLatch(1);
+        queue.addListener(message -> {
+            if ("first".equals(message.getText())) {
+                queue.post(new GoTextMessage("second"));
+                queue.post(new GoTextMessage("third"));
+                handled.countDown();
+            }
+        });
+
+        queue.post(new GoTextMessage("first"));
+
+        assertThat(handled.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void shouldEndTheThreadOfAnIdleListenerAsSoonAsItIsStopped() throws Exception {
+        GoMessageQueue<GoTextMessage> queue = new GoMessageQueue<GoTextMessage>(messaging, "queue") {};
+        InMemoryMessageListenerAdapter adapter = (InMemoryMessageListenerAdapter) messaging.addQueueListener("queue", new RecordingListener(1));
+        Thread.sleep(50);
+
+        adapter.stop();
+
+        assertThat(adapter.awaitStopped(500)).isTrue();
+        queue.post(new GoTextMessage("Hello World!"));
+        assertThat(messaging.pendingMessages("queue")).isEqualTo(1);
+    }
+
+    private static class RecordingListener implements GoMessageListener<GoTextMessage> {
+        private final List<String> messages = new CopyOnWriteArrayList<>();
+        private final CountDownLatch expected;
+
+        private RecordingListener(int expectedMessages) {
+            this.expected = new CountDownLatch(expectedMessages);
+        }
+
+        @Override
+        public void onMessage(GoTextMessage message) {
+            messages.add(message.getText());
+            expected.countDown();
+        }
+
+        private List<String> await() throws InterruptedException {
+            assertThat(expected.await(5, TimeUnit.SECONDS)).isTrue();
+            return messages;
+        }
+    }
+}
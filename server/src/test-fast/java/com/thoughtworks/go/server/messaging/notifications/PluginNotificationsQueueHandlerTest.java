@@ -18,9 +18,9 @@ package com.thoughtworks.go.server.messaging.notifications;
 import com.thoughtworks.go.plugin.access.notification.NotificationExtension;
 import com.thoughtworks.go.plugin.infra.PluginManager;
 import com.thoughtworks.go.plugin.infra.plugininfo.GoPluginDescriptor;
+import com.thoughtworks.go.server.messaging.GoMessageListenerAdapter;
 import com.thoughtworks.go.server.messaging.MessagingService;
 import com.thoughtworks.go.server.messaging.PluginAwareMessageQueue;
-import com.thoughtworks.go.server.messaging.activemq.JMSMessageListenerAdapter;
 import com.thoughtworks.go.serverhealth.ServerHealthService;
 import com.thoughtworks.go.util.ReflectionUtil;
 import com.thoughtworks.go.util.SystemEnvironment;
@@ -71,11 +71,11 @@ public class PluginNotificationsQueueHandlerTest {
         handler.pluginLoaded(getPluginDescriptor(pluginId3));
         assertThat(handler.getQueues().size(), is(2));
         PluginAwareMessageQueue queueForPlugin1 = handler.getQueues().get(pluginId1);
-        HashMap<String, ArrayList<JMSMessageListenerAdapter>> listenersForPlugin1 = (HashMap<String, ArrayList<JMSMessageListenerAdapter>>) ReflectionUtil.getField(queueForPlugin1, "listeners");
+        HashMap<String, ArrayList<GoMessageListenerAdapter>> listenersForPlugin1 = (HashMap<String, ArrayList<GoMessageListenerAdapter>>) ReflectionUtil.getField(queueForPlugin1, "listeners");
         assertThat(listenersForPlugin1.get(pluginId1).size(), is(10));
         assertFalse(handler.getQueues().containsKey(pluginId2));
         PluginAwareMessageQueue queueForPlugin3 = handler.getQueues().get(pluginId3);
-        HashMap<String, ArrayList<JMSMessageListenerAdapter>> listenersForPlugin3 = (HashMap<String, ArrayList<JMSMessageListenerAdapter>>) ReflectionUtil.getField(queueForPlugin3, "listeners");
+        HashMap<String, ArrayList<GoMessageListenerAdapter>> listenersForPlugin3 = (HashMap<String, ArrayList<GoMessageListenerAdapter>>) ReflectionUtil.getField(queueForPlugin3, "listeners");
         assertThat(listenersForPlugin3.get(pluginId3).size(), is(2));
     }
 
@@ -16,22 +16,33 @@
 package com.thoughtworks.go.server.messaging.scheduling;
 
 import com.thoughtworks.go.domain.AgentRuntimeStatus;
+import com.thoughtworks.go.domain.JobInstance;
+import com.thoughtworks.go.domain.JobInstances;
+import com.thoughtworks.go.domain.JobState;
+import com.thoughtworks.go.domain.Stage;
 import com.thoughtworks.go.remote.AgentIdentifier;
 import com.thoughtworks.go.remote.work.NoWork;
 import com.thoughtworks.go.remote.work.Work;
 import com.thoughtworks.go.server.service.AgentRuntimeInfo;
+import com.thoughtworks.go.server.service.BuildAssignmentService;
+import com.thoughtworks.go.server.service.StageService;
+import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.work.FakeWork;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static com.thoughtworks.go.util.SystemEnvironment.AGENT_GET_WORK_MAX_WAITING_REQUESTS;
+import static com.thoughtworks.go.util.SystemEnvironment.AGENT_GET_WORK_MAX_WAIT_IN_SECONDS;
 import static com.thoughtworks.go.util.SystemUtil.currentWorkingDirectory;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.times;
-import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.*;
 
 public class WorkAssignmentsTest {
     private static final Work NO_WORK = new NoWork();
@@ -42,19 +53,34 @@ public class WorkAssignmentsTest {
     private IdleAgentTopic idleAgentsTopic;
     private AgentIdentifier agentIdentifier;
     private WorkAssignedTopic assignedWorkTopic;
+    private BuildAssignmentService buildAssignmentService;
+    private StageService stageService;
+    private SystemEnvironment systemEnvironment;
+    private ExecutorService executor;
+    private List<Runnable> reloads;
 
     @Before
     public void setup() {
         idleAgentsTopic = mock(IdleAgentTopic.class, "idle_topic");
         assignedWorkTopic = mock(WorkAssignedTopic.class, "assigned_work_topic");
-        assignments = new WorkAssignments(idleAgentsTopic, assignedWorkTopic);
+        buildAssignmentService = mock(BuildAssignmentService.class);
+        stageService = mock(StageService.class);
+        systemEnvironment = mock(SystemEnvironment.class);
+        when(systemEnvironment.get(AGENT_GET_WORK_MAX_WAIT_IN_SECONDS)).thenReturn(20);
+        when(systemEnvironment.get(AGENT_GET_WORK_MAX_WAITING_REQUESTS)).thenReturn(1);
+        reloads = new ArrayList<>();
+        assignments = new WorkAssignments(idleAgentsTopic, assignedWorkTopic, buildAssignmentService, stageService, systemEnvironment, reloads::add);
         agentIdentifier = new AgentIdentifier("localhost", "127.0.0.1", "uuid");
         agent = new AgentRuntimeInfo(agentIdentifier, AgentRuntimeStatus.Idle, currentWorkingDirectory(), "cookie");
+        executor = Executors.newSingleThreadExecutor();
     }
 
     @After
     public void tearDown() throws Exception {
+        executor.shutdownNow();
         verify(assignedWorkTopic).addListener(any(WorkAssignments.class));
+        verify(buildAssignmentService).addNewJobPlansListener(any(Runnable.class));
+        verify(stageService).addStageStatusListener(assignments);
     }
 
     @Test
@@ -103,4 +129,82 @@ public class WorkAssignmentsTest {
         assertThat(assignments.getWork(agent), is(NO_WORK));
         verify(idleAgentsTopic, times(2)).post(new IdleAgentMessage(agent));
     }
+
+    @Test
+    public void shouldHandWorkToAnAgentWaitingForIt() throws Exception {
+        Future<Work> work = executor.submit(() -> assignments.getWork(agent, 10000));
+        waitUntilAgentsAreWaiting(1);
+
+        assignments.onMessage(new WorkAssignedMessage(agentIdentifier, REAL_WORK));
+
+        assertThat(work.get(5, TimeUnit.SECONDS), is(REAL_WORK));
+        assertThat(assignments.numberOfWaitingAgents(), is(0));
+        verify(idleAgentsTopic).post(new IdleAgentMessage(agent));
+    }
+
+    @Test
+    public void shouldReturnNoWorkWhenNothingIsAssignedWhileWaiting() throws Exception {
+        assertThat(assignments.getWork(agent, 50), is(NO_WORK));
+        assertThat(assignments.numberOfWaitingAgents(), is(0));
+    }
+
+    @Test
+    public void shouldNotWaitWhenTooManyAgentsAreAlreadyWaiting() throws Exception {
+        AgentIdentifier otherAgentIdentifier = new AgentIdentifier("otherhost", "127.0.0.2", "other-uuid");
+        AgentRuntimeInfo otherAgent = new AgentRuntimeInfo(otherAgentIdentifier, AgentRuntimeStatus.Idle, currentWorkingDirectory(), "cookie");
+        executor.submit(() -> assignments.getWork(otherAgent, 10000));
+        waitUntilAgentsAreWaiting(1);
+
+        long start = System.currentTimeMillis();
+        assertThat(assignments.getWork(agent, 10000), is(NO_WORK));
+        assertThat(System.currentTimeMillis() - start < 5000, is(true));
+    }
+
+    @Test
+    public void shouldOfferNewJobsToAgentsWhichAreWaitingForWork() throws Exception {
+        Future<Work> work = executor.submit(() -> assignments.getWork(agent, 10000));
+        waitUntilAgentsAreWaiting(1);
+        assignments.onMessage(new WorkAssignedMessage(agentIdentifier, NO_WORK));
+
+        assignments.offerNewJobsToWaitingAgents();
+        verify(idleAgentsTopic, times(2)).post(new IdleAgentMessage(agent));
+
+        assignments.offerNewJobsToWaitingAgents();
+        verify(idleAgentsTopic, times(2)).post(new IdleAgentMessage(agent));
+
+        assignments.onMessage(new WorkAssignedMessage(agentIdentifier, REAL_WORK));
+        assertThat(work.get(5, TimeUnit.SECONDS), is(REAL_WORK));
+    }
+
+    @Test
+    public void shouldReloadScheduledJobsOnceInTheBackgroundWhenStagesChangeWhileAgentsWait() throws Exception {
+        Future<Work> work = executor.submit(() -> assignments.getWork(agent, 10000));
+        waitUntilAgentsAreWaiting(1);
+        JobInstance job = mock(JobInstance.class);
+        when(job.getState()).thenReturn(JobState.Scheduled);
+        Stage stage = mock(Stage.class);
+        when(stage.getJobInstances()).thenReturn(new JobInstances(job));
+
+        assignments.stageStatusChanged(stage);
+        assignments.stageStatusChanged(stage);
+        verify(buildAssignmentService, never()).onTimer();
+        assertThat(reloads.size(), is(1));
+
+        reloads.remove(0).run();
+        verify(buildAssignmentService).onTimer();
+
+        assignments.stageStatusChanged(stage);
+        assertThat(reloads.size(), is(1));
+
+        assignments.onMessage(new WorkAssignedMessage(agentIdentifier, REAL_WORK));
+        assertThat(work.get(5, TimeUnit.SECONDS), is(REAL_WORK));
+    }
+
+    private void waitUntilAgentsAreWaiting(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (assignments.numberOfWaitingAgents() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(assignments.numberOfWaitingAgents(), is(count));
+    }
 }
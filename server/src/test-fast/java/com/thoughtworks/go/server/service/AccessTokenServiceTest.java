@@ -15,6 +15,7 @@
  */
 package com.thoughtworks.go.server.service;
 
+import com.github.benmanes.caffeine.cache.Ticker;
 import com.thoughtworks.go.config.exceptions.EntityType;
 import com.thoughtworks.go.config.exceptions.RecordNotFoundException;
 import com.thoughtworks.go.domain.AccessToken;
@@ -53,7 +54,7 @@ class AccessTokenServiceTest {
     @BeforeEach
     void setUp() {
         initMocks(this);
-        accessTokenService = new AccessTokenService(accessTokenDao, clock, securityService);
+        accessTokenService = new AccessTokenService(accessTokenDao, clock, securityService, new VerifiedAccessTokenCache(0, 0, Ticker.systemTicker()));
         result = new HttpLocalizedOperationResult();
 
         username = "Bob";
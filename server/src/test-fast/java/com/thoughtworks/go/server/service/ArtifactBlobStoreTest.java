@@ -0,0 +1,159 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.service;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisabledOnOs(OS.WINDOWS)
+class ArtifactBlobStoreTest {
+    @TempDir
+    Path artifactsDir;
+    private ArtifactBlobStore blobStore;
+    private byte[] content;
+
+    @BeforeEach
+    void setUp() {
+        blobStore = new ArtifactBlobStore(artifactsDir.resolve(ArtifactBlobStore.BLOBS_FOLDER).toFile());
+        content = new byte[(int) ArtifactBlobStore.MIN_SIZE];
+        Arrays.fill(content, (byte) 'a');
+    }
+
+    @Test
+    void shouldStoreIdenticalFilesOfDifferentJobsOnlyOnce() throws IOException {
+        Path first = write("pipelines/p/1/s/1/job1/bundle.jar", content);
+        Path second = write("pipelines/p/2/s/1/job1/lib/bundle.jar", content);
+
+        blobStore.deduplicate(List.of(first.toFile()));
+        blobStore.deduplicate(List.of(second.toFile()));
+
+        assertThat(Files.isSameFile(first, second)).isTrue();
+        assertThat(linkCount(first)).isEqualTo(3);
+        assertThat(Files.readAllBytes(second)).isEqualTo(content);
+    }
+
+    @Test
+    void shouldNotDeduplicateSmallFiles() throws IOException {
+        Path first = write("job1/small.txt", "small".getBytes());
+        Path second = write("job2/small.txt", "small".getBytes());
+
+        blobStore.deduplicate(List.of(first.toFile(), second.toFile()));
+
+        assertThat(Files.isSameFile(first, second)).isFalse();
+        assertThat(artifactsDir.resolve(ArtifactBlobStore.BLOBS_FOLDER)).doesNotExist();
+    }
+
+    @Test
+    void shouldGiveAFileItsOwnCopyBeforeItIsModified() throws IOException {
+        Path first = write("job1/bundle.jar", content);
+        Path second = write("job2/bundle.jar", content);
+        blobStore.deduplicate(List.of(first.toFile(), second.toFile()));
+
+        blobStore.detach(second.toFile());
+        Files.write(second, "changed".getBytes());
+
+        assertThat(Files.readAllBytes(first)).isEqualTo(content);
+        assertThat(linkCount(first)).isEqualTo(2);
+    }
+
+    @Test
+    void shouldReleaseTheBlobOfTheLastFileThatIsDetached() throws IOException {
+        Path file = write("job1/bundle.jar", content);
+        blobStore.deduplicate(List.of(file.toFile()));
+
+        blobStore.detach(file.toFile());
+
+        assertThat(linkCount(file)).isEqualTo(1);
+        assertThat(blobsInStore()).isEmpty();
+    }
+
+    @Test
+    void shouldOnlyDetachTheGivenFile() throws IOException {
+        Path first = write("job1/first.jar", content);
+        Path second = write("job1/second.jar", content);
+        blobStore.deduplicate(List.of(first.toFile(), second.toFile()));
+
+        blobStore.detach(first.toFile());
+
+        assertThat(linkCount(first)).isEqualTo(1);
+        assertThat(linkCount(second)).isEqualTo(2);
+    }
+
+    @Test
+    void shouldReleaseOnlyBlobsNoArtifactLinksTo() throws IOException {
+        byte[] otherContent = Arrays.copyOf(content, content.length + 1);
+        Path kept = write("job1/kept.jar", content);
+        Path shared = write("job2/shared.jar", content);
+        Path deleted = write("job2/deleted.jar", otherContent);
+        blobStore.deduplicate(List.of(kept.toFile(), shared.toFile(), deleted.toFile()));
+
+        Set<Path> blobs = blobStore.blobsLinkedFrom(deleted.getParent().toFile());
+        assertThat(blobs).hasSize(2);
+        FileUtils.deleteDirectory(deleted.getParent().toFile());
+
+        assertThat(blobStore.release(blobs)).isEqualTo(1);
+        assertThat(linkCount(kept)).isEqualTo(2);
+        assertThat(blobsInStore()).hasSize(1);
+        assertThat(blobStore.release(blobs)).isEqualTo(0);
+    }
+
+    @Test
+    void shouldNotReleaseBlobsOfOtherStages() throws IOException {
+        byte[] otherContent = Arrays.copyOf(content, content.length + 1);
+        Path unrelated = write("job1/unrelated.jar", otherContent);
+        Path deleted = write("job2/deleted.jar", content);
+        blobStore.deduplicate(List.of(unrelated.toFile(), deleted.toFile()));
+        Files.delete(unrelated);
+
+        Set<Path> blobs = blobStore.blobsLinkedFrom(deleted.getParent().toFile());
+        FileUtils.deleteDirectory(deleted.getParent().toFile());
+
+        assertThat(blobStore.release(blobs)).isEqualTo(1);
+        assertThat(blobsInStore()).hasSize(1);
+    }
+
+    private Path write(String path, byte[] bytes) throws IOException {
+        File file = artifactsDir.resolve(path).toFile();
+        file.getParentFile().mkdirs();
+        return Files.write(file.toPath(), bytes);
+    }
+
+    private List<Path> blobsInStore() throws IOException {
+        try (Stream<Path> paths = Files.walk(artifactsDir.resolve(ArtifactBlobStore.BLOBS_FOLDER))) {
+            return paths.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+    }
+
+    private static int linkCount(Path file) throws IOException {
+        return (Integer) Files.getAttribute(file, "unix:nlink");
+    }
+}
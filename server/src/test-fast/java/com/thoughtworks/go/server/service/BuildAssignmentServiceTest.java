@@ -100,7 +100,7 @@ class BuildAssignmentServiceTest {
     private BuildAssignmentService buildAssignmentService;
     private TransactionTemplate transactionTemplate;
     private SchedulingContext schedulingContext;
-    private ArrayList<JobPlan> jobPlans;
+    private List<JobPlan> jobPlans;
     private Agent elasticAgent;
     private AgentInstance elasticAgentInstance;
     private ElasticProfile elasticProfile1;
@@ -131,6 +131,7 @@ class BuildAssignmentServiceTest {
         schedulingContext = new DefaultSchedulingContext("me", new Agents(elasticAgent), profiles);
         when(jobInstanceService.orderedScheduledBuilds()).thenReturn(jobPlans);
         when(environmentConfigService.filterJobsByAgent(ArgumentMatchers.eq(jobPlans), any(String.class))).thenReturn(jobPlans);
+        when(environmentConfigService.isAgentAllowedToRunPipeline(any(String.class), any(String.class))).thenReturn(true);
         when(environmentConfigService.envForPipeline(any(String.class))).thenReturn("");
         when(maintenanceModeService.isMaintenanceMode()).thenReturn(false);
     }
@@ -177,6 +178,58 @@ class BuildAssignmentServiceTest {
         assertThat(buildAssignmentService.jobPlans().size()).isEqualTo(1);
     }
 
+    @Test
+    void shouldAskAPluginThatDecidesByProfileOnlyOnceForJobsWithTheSameProfiles() {
+        when(systemEnvironment.shouldAskElasticAgentPluginOncePerProfile(any())).thenReturn(true);
+        PipelineConfig pipelineWith3ElasticJobs = PipelineConfigMother.pipelineWithElasticJobs(elasticProfileId1, "up42", "stage", "job1", "job2", "job3");
+        for (JobConfig jobConfig : pipelineWith3ElasticJobs.first().getJobs()) {
+            jobPlans.add(new InstanceFactory().createJobPlan(jobConfig, schedulingContext));
+        }
+        JobPlan jobWithAnotherProfile = new InstanceFactory().createJobPlan(PipelineConfigMother.pipelineWithElasticJob(elasticProfileId2).first().getJobs().first(), schedulingContext);
+        jobPlans.add(jobWithAnotherProfile);
+        ElasticProfile profileOfFirstJobs = jobPlans.get(0).getElasticProfile();
+        when(elasticAgentPluginService.shouldAssignWork(eq(elasticAgentInstance.elasticAgentMetadata()), any(), eq(profileOfFirstJobs), any(), any())).thenReturn(false);
+        when(elasticAgentPluginService.shouldAssignWork(elasticAgentInstance.elasticAgentMetadata(), "", jobWithAnotherProfile.getElasticProfile(), jobWithAnotherProfile.getClusterProfile(), jobWithAnotherProfile.getIdentifier())).thenReturn(true);
+        buildAssignmentService.onTimer();
+
+        JobPlan matchingJob = buildAssignmentService.findMatchingJob(elasticAgentInstance);
+
+        assertThat(matchingJob).isEqualTo(jobWithAnotherProfile);
+        verify(elasticAgentPluginService, times(1)).shouldAssignWork(eq(elasticAgentInstance.elasticAgentMetadata()), any(), eq(profileOfFirstJobs), any(), any());
+    }
+
+    @Test
+    void shouldRememberForAWhileThatAPluginWhichDecidesByProfileDeclinedTheJobsOfAProfile() {
+        when(systemEnvironment.shouldAskElasticAgentPluginOncePerProfile(any())).thenReturn(true);
+        when(systemEnvironment.getElasticAgentDeclinedWorkTtlInMillis()).thenReturn(60_000L);
+        buildAssignmentService = new BuildAssignmentService(goConfigService, jobInstanceService, scheduleService, agentService,
+                environmentConfigService, transactionTemplate, scheduledPipelineLoader, pipelineService, builderFactory,
+                maintenanceModeService, elasticAgentPluginService, systemEnvironment, secretParamResolver,
+                jobStatusTopic, consoleService);
+        JobPlan jobPlan = new InstanceFactory().createJobPlan(PipelineConfigMother.pipelineWithElasticJob(elasticProfileId1).first().getJobs().first(), schedulingContext);
+        jobPlans.add(jobPlan);
+        when(elasticAgentPluginService.shouldAssignWork(elasticAgentInstance.elasticAgentMetadata(), "", jobPlan.getElasticProfile(), jobPlan.getClusterProfile(), jobPlan.getIdentifier())).thenReturn(false);
+        buildAssignmentService.onTimer();
+
+        assertThat(buildAssignmentService.findMatchingJob(elasticAgentInstance)).isNull();
+        assertThat(buildAssignmentService.findMatchingJob(elasticAgentInstance)).isNull();
+
+        verify(elasticAgentPluginService, times(1)).shouldAssignWork(elasticAgentInstance.elasticAgentMetadata(), "", jobPlan.getElasticProfile(), jobPlan.getClusterProfile(), jobPlan.getIdentifier());
+    }
+
+    @Test
+    void shouldAskThePluginAboutEveryJobUnlessItDecidesByProfile() {
+        PipelineConfig pipelineWith2ElasticJobs = PipelineConfigMother.pipelineWithElasticJobs(elasticProfileId1, "up42", "stage", "job1", "job2");
+        for (JobConfig jobConfig : pipelineWith2ElasticJobs.first().getJobs()) {
+            jobPlans.add(new InstanceFactory().createJobPlan(jobConfig, schedulingContext));
+        }
+        buildAssignmentService.onTimer();
+
+        assertThat(buildAssignmentService.findMatchingJob(elasticAgentInstance)).isNull();
+
+        verify(elasticAgentPluginService, times(2)).shouldAssignWork(eq(elasticAgentInstance.elasticAgentMetadata()), any(), any(), any(), any());
+    }
+
     @Test
     void shouldMatchNonElasticJobToNonElasticAgentIfResourcesMatch() {
         PipelineConfig pipeline = PipelineConfigMother.pipelineConfig(UUID.randomUUID().toString());
@@ -194,6 +247,30 @@ class BuildAssignmentServiceTest {
         verify(elasticAgentPluginService, never()).shouldAssignWork(any(ElasticAgentMetadata.class), any(String.class), any(ElasticProfile.class), any(ClusterProfile.class), any(JobIdentifier.class));
     }
 
+    @Test
+    void shouldTellListenersWhenReloadingTurnsUpNewlyScheduledJobs() {
+        PipelineConfig pipeline = PipelineConfigMother.pipelineConfig(UUID.randomUUID().toString());
+        pipeline.first().getJobs().add(JobConfigMother.jobWithNoResourceRequirement());
+        DefaultJobPlan jobPlan1 = (DefaultJobPlan) new InstanceFactory().createJobPlan(pipeline.first().getJobs().first(), schedulingContext);
+        DefaultJobPlan jobPlan2 = (DefaultJobPlan) new InstanceFactory().createJobPlan(pipeline.first().getJobs().first(), schedulingContext);
+        jobPlan1.setJobId(1);
+        jobPlan2.setJobId(2);
+        Runnable listener = mock(Runnable.class);
+        buildAssignmentService.addNewJobPlansListener(listener);
+
+        when(jobInstanceService.orderedScheduledBuilds()).thenReturn(new ArrayList<>(List.of(jobPlan1)));
+        buildAssignmentService.onTimer();
+        verify(listener, times(1)).run();
+
+        when(jobInstanceService.orderedScheduledBuilds()).thenReturn(new ArrayList<>(List.of(jobPlan1)));
+        buildAssignmentService.onTimer();
+        verify(listener, times(1)).run();
+
+        when(jobInstanceService.orderedScheduledBuilds()).thenReturn(new ArrayList<>(List.of(jobPlan1, jobPlan2)));
+        buildAssignmentService.onTimer();
+        verify(listener, times(2)).run();
+    }
+
     @Test
     void shouldNotMatchJobsDuringMaintenanceMode() {
         when(maintenanceModeService.isMaintenanceMode()).thenReturn(true);
@@ -229,7 +306,7 @@ class BuildAssignmentServiceTest {
         JobPlan jobPlan3 = getJobPlan(irrelevantPipeline.getName(), irrelevantPipeline.get(0).name(), irrelevantPipeline.get(0).getJobs().first());
 
         //need to get hold of original jobPlans in the tests
-        jobPlans = (ArrayList<JobPlan>) buildAssignmentService.jobPlans();
+        jobPlans = buildAssignmentService.jobPlans();
 
         jobPlans.add(jobPlan1);
         jobPlans.add(jobPlan2);
@@ -265,7 +342,7 @@ class BuildAssignmentServiceTest {
         JobPlan jobPlan3 = getJobPlan(irrelevantPipeline.getName(), irrelevantPipeline.get(0).name(), irrelevantPipeline.get(0).getJobs().first());
 
         //need to get hold of original jobPlans in the tests
-        jobPlans = (ArrayList<JobPlan>) buildAssignmentService.jobPlans();
+        jobPlans = buildAssignmentService.jobPlans();
 
         jobPlans.add(jobPlan1);
         jobPlans.add(jobPlan2);
@@ -392,6 +469,34 @@ class BuildAssignmentServiceTest {
             inOrder.verify(jobStatusTopic).post(new JobStatusMessage(jobPlan1.getIdentifier(), JobState.Completed, "agent_uuid"));
         }
 
+        @Test
+        void shouldFailJobAndAssignNoWorkIfCreatingTheWorkFailsUnexpectedly() throws Exception {
+            final PipelineConfig pipelineConfig = PipelineConfigMother.pipelineConfig(UUID.randomUUID().toString());
+            pipelineConfig.get(0).getJobs().add(JobConfigMother.jobWithNoResourceRequirement());
+            final AgentInstance agentInstance = mock(AgentInstance.class);
+            final Pipeline pipeline = mock(Pipeline.class);
+            final JobPlan jobPlan1 = getJobPlan(pipelineConfig.getName(), pipelineConfig.get(0).name(), pipelineConfig.get(0).getJobs().last());
+            JobInstance jobInstance = mock(JobInstance.class);
+
+            when(agentInstance.isRegistered()).thenReturn(true);
+            when(agentInstance.firstMatching(anyList())).thenReturn(jobPlan1);
+            when(pipeline.getBuildCause()).thenReturn(BuildCause.createWithModifications(new MaterialRevisions(), "bob"));
+            when(scheduledPipelineLoader.pipelineWithPasswordAwareBuildCauseByBuildId(anyLong())).thenReturn(pipeline);
+            when(goConfigService.artifactStores()).thenReturn(new ArtifactStores());
+            when(jobInstanceService.buildById(jobPlan1.getJobId())).thenReturn(jobInstance);
+            when(agentInstance.getUuid()).thenReturn("agent_uuid");
+            when(jobInstance.getState()).thenReturn(JobState.Completed);
+            doThrow(new IllegalStateException("boom")).when(secretParamResolver).resolve(any(BuildAssignment.class));
+
+            assertThat(buildAssignmentService.assignWorkToAgent(agentInstance)).isSameAs(BuildAssignmentService.NO_WORK);
+
+            InOrder inOrder = inOrder(scheduleService, jobStatusTopic, consoleService);
+            inOrder.verify(consoleService).appendToConsoleLog(eq(jobPlan1.getIdentifier()), contains("boom"));
+            inOrder.verify(scheduleService).failJob(jobInstance);
+            inOrder.verify(jobStatusTopic).post(new JobStatusMessage(jobPlan1.getIdentifier(), JobState.Completed, "agent_uuid"));
+            verify(agentService, never()).building(anyString(), any());
+        }
+
         @Test
         void shouldFailJobIfEnvironmentVariableInEnvironmentConfigCanNotReferToSecretConfig() throws Exception {
             final PipelineConfig pipelineConfig = PipelineConfigMother.pipelineConfig(UUID.randomUUID().toString());
@@ -16,6 +16,7 @@
 
 package com.thoughtworks.go.server.service;
 
+import ch.qos.logback.classic.Level;
 import com.thoughtworks.go.config.BasicCruiseConfig;
 import com.thoughtworks.go.config.GoConfigRepoConfigDataSource;
 import com.thoughtworks.go.config.materials.MaterialConfigs;
@@ -33,6 +34,7 @@ import com.thoughtworks.go.plugin.infra.PluginManager;
 import com.thoughtworks.go.plugin.infra.plugininfo.GoPluginBundleDescriptor;
 import com.thoughtworks.go.plugin.infra.plugininfo.GoPluginDescriptor;
 import com.thoughtworks.go.server.persistence.MaterialRepository;
+import com.thoughtworks.go.util.LogFixture;
 import com.thoughtworks.go.util.SystemEnvironment;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -42,6 +44,8 @@ import java.io.File;
 
 import static com.thoughtworks.go.helper.ModificationsMother.oneModifiedFile;
 import static com.thoughtworks.go.plugin.domain.common.PluginConstants.CONFIG_REPO_EXTENSION;
+import static com.thoughtworks.go.util.LogFixture.logFixtureFor;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
 import static org.mockito.MockitoAnnotations.initMocks;
 
@@ -180,6 +184,61 @@ class ConfigRepositoryInitializerTest {
         verify(goConfigRepoConfigDataSource, times(1)).onCheckoutComplete(gitMaterialConfig, folder, modification);
     }
 
+    @Test
+    void shouldInitializeConfigRepositoriesOfAPluginSideBySide() {
+        when(systemEnvironment.getNumberOfConfigMaterialPostUpdateListeners()).thenReturn(2);
+        ConfigRepoConfig repoConfig2 = new ConfigRepoConfig();
+        repoConfig2.setId("repo2");
+        repoConfig2.setPluginId(YAML_PLUGIN_ID);
+        repoConfig2.setRepo(MaterialConfigsMother.git("another-git-repo"));
+        repoConfigs.add(repoConfig2);
+
+        File folder = new File("repo-folder");
+        for (ConfigRepoConfig repoConfig : repoConfigs) {
+            GitMaterialConfig gitMaterialConfig = (GitMaterialConfig) repoConfig.getRepo();
+            Material gitMaterial = new Materials(new MaterialConfigs(gitMaterialConfig)).first();
+            when(materialRepository.findMaterialInstance(gitMaterialConfig)).thenReturn(new TestingMaterialInstance(gitMaterialConfig.getUrl(), "flyweight"));
+            when(materialRepository.folderFor(gitMaterial)).thenReturn(folder);
+            when(materialRepository.findLatestModification(gitMaterial)).thenReturn(new MaterialRevisions(new MaterialRevision(gitMaterial, oneModifiedFile("revision1"))));
+        }
+
+        configRepositoryInitializer.onConfigChange(new BasicCruiseConfig());
+        configRepositoryInitializer.pluginLoaded(yamlPluginDescriptor);
+
+        verify(goConfigRepoConfigDataSource, times(1)).onCheckoutComplete(eq(repoConfigs.get(0).getRepo()), eq(folder), any(Modification.class));
+        verify(goConfigRepoConfigDataSource, times(1)).onCheckoutComplete(eq(repoConfig2.getRepo()), eq(folder), any(Modification.class));
+    }
+
+    @Test
+    void shouldLogTheRepositoryWhoseInitializationFailedWhenInitializingSideBySide() {
+        when(systemEnvironment.getNumberOfConfigMaterialPostUpdateListeners()).thenReturn(2);
+        ConfigRepoConfig repoConfig2 = new ConfigRepoConfig();
+        repoConfig2.setId("repo2");
+        repoConfig2.setPluginId(YAML_PLUGIN_ID);
+        repoConfig2.setRepo(MaterialConfigsMother.git("another-git-repo"));
+        repoConfigs.add(repoConfig2);
+
+        File folder = new File("repo-folder");
+        for (ConfigRepoConfig repoConfig : repoConfigs) {
+            GitMaterialConfig gitMaterialConfig = (GitMaterialConfig) repoConfig.getRepo();
+            Material gitMaterial = new Materials(new MaterialConfigs(gitMaterialConfig)).first();
+            when(materialRepository.findMaterialInstance(gitMaterialConfig)).thenReturn(new TestingMaterialInstance(gitMaterialConfig.getUrl(), "flyweight"));
+            when(materialRepository.folderFor(gitMaterial)).thenReturn(folder);
+            when(materialRepository.findLatestModification(gitMaterial)).thenReturn(new MaterialRevisions(new MaterialRevision(gitMaterial, oneModifiedFile("revision1"))));
+        }
+        Material failingMaterial = new Materials(new MaterialConfigs(repoConfigs.get(0).getRepo())).first();
+        when(materialRepository.findLatestModification(failingMaterial)).thenThrow(new RuntimeException("boom"));
+
+        try (LogFixture logFixture = logFixtureFor(ConfigRepositoryInitializer.class, Level.ERROR)) {
+            configRepositoryInitializer.onConfigChange(new BasicCruiseConfig());
+            configRepositoryInitializer.pluginLoaded(yamlPluginDescriptor);
+
+            assertThat(logFixture.contains(Level.ERROR, "an error occurred while initializing 'repo1' config repository.")).isTrue();
+        }
+        verify(goConfigRepoConfigDataSource, never()).onCheckoutComplete(eq(repoConfigs.get(0).getRepo()), eq(folder), any(Modification.class));
+        verify(goConfigRepoConfigDataSource, times(1)).onCheckoutComplete(eq(repoConfig2.getRepo()), eq(folder), any(Modification.class));
+    }
+
     @Test
     void shouldNotInitializeConfigRepositoryWhenTheRepositoryIsNotAvailableUnderFlyweightFolder() {
         GitMaterialConfig gitMaterialConfig = (GitMaterialConfig) repoConfigs.get(0).getRepo();
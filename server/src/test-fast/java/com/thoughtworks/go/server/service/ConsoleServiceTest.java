@@ -18,6 +18,7 @@ package com.thoughtworks.go.server.service;
 import com.thoughtworks.go.domain.JobIdentifier;
 import com.thoughtworks.go.helper.JobIdentifierMother;
 import com.thoughtworks.go.server.view.artifacts.ArtifactDirectoryChooser;
+import com.thoughtworks.go.util.SystemEnvironment;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
@@ -42,7 +43,7 @@ public class ConsoleServiceTest {
     @Before
     public void setUp() throws Exception {
         chooser = mock(ArtifactDirectoryChooser.class);
-        service = new ConsoleService(chooser);
+        service = new ConsoleService(chooser, new SystemEnvironment());
     }
 
     @After
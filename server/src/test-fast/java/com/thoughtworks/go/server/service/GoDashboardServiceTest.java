@@ -31,11 +31,15 @@ import com.thoughtworks.go.server.domain.user.DashboardFilter;
 import com.thoughtworks.go.server.domain.user.Filters;
 import com.thoughtworks.go.server.service.support.toggle.FeatureToggleService;
 import com.thoughtworks.go.server.service.support.toggle.Toggles;
+import com.thoughtworks.go.listener.ConfigChangedListener;
+import com.thoughtworks.go.util.TestingClock;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 
 import static com.thoughtworks.go.server.dashboard.GoDashboardPipelineMother.pipeline;
@@ -56,6 +60,7 @@ public class GoDashboardServiceTest {
     @Mock private GoDashboardPipelines pipelines;
 
     private GoDashboardService service;
+    private TestingClock clock;
 
     private GoConfigMother configMother;
     private CruiseConfig config;
@@ -68,7 +73,8 @@ public class GoDashboardServiceTest {
         config = GoConfigMother.defaultCruiseConfig();
         Toggles.initializeWith(featureToggleService);
         when(cache.allEntries()).thenReturn(this.pipelines);
-        service = new GoDashboardService(cache, dashboardCurrentStateLoader, permissionsAuthority, goConfigService);
+        clock = new TestingClock();
+        service = new GoDashboardService(cache, dashboardCurrentStateLoader, permissionsAuthority, goConfigService, clock);
 
         GoConfigMother.addUserAsSuperAdmin(config, "superduper");
         configMother.addRoleAsSuperAdmin(config, "supers");
@@ -323,6 +329,77 @@ public class GoDashboardServiceTest {
         verifyZeroInteractions(dashboardCurrentStateLoader);
     }
 
+    @Test
+    public void allPipelineGroupsForDashboard_shouldReuseTheGroupsOfAUserWhenNothingHasChanged() {
+        configMother.addPipelineWithGroup(config, "group1", "pipeline1", "stage1A", "job1A1");
+        addPipelinesToCache(pipeline("pipeline1", "group1"));
+
+        List<GoDashboardPipelineGroup> first = allPipelineGroupsForDashboard(Filters.WILDCARD_FILTER, new Username("user1"));
+        List<GoDashboardPipelineGroup> second = allPipelineGroupsForDashboard(Filters.WILDCARD_FILTER, new Username("user1"));
+
+        assertThat(second.get(0), is(sameInstance(first.get(0))));
+        verify(goConfigService, times(1)).groups();
+    }
+
+    @Test
+    public void allPipelineGroupsForDashboard_shouldOnlyRebuildTheGroupsWhosePipelinesChangedInTheCache() {
+        configMother.addPipelineWithGroup(config, "group1", "pipeline1", "stage1A", "job1A1");
+        configMother.addPipelineWithGroup(config, "group2", "pipeline2", "stage1A", "job1A1");
+        GoDashboardPipeline pipeline1 = pipeline("pipeline1", "group1");
+        GoDashboardPipeline pipeline2 = pipeline("pipeline2", "group2");
+        when(cache.allEntries()).thenReturn(pipelinesInCache(pipeline1, pipeline2));
+
+        List<GoDashboardPipelineGroup> before = allPipelineGroupsForDashboard(Filters.WILDCARD_FILTER, new Username("user1"));
+
+        GoDashboardPipeline updatedPipeline2 = pipeline("pipeline2", "group2");
+        when(cache.allEntries()).thenReturn(pipelinesInCache(pipeline1, updatedPipeline2));
+
+        List<GoDashboardPipelineGroup> after = allPipelineGroupsForDashboard(Filters.WILDCARD_FILTER, new Username("user1"));
+
+        assertThat(after.get(0), is(sameInstance(before.get(0))));
+        assertThat(after.get(1), is(not(sameInstance(before.get(1)))));
+        assertThat(after.get(1).allPipelines(), contains(updatedPipeline2));
+        verify(goConfigService, times(1)).groups();
+    }
+
+    @Test
+    public void allPipelineGroupsForDashboard_shouldRebuildTheGroupsOfAUserFromConfigOnceConfigChanges() {
+        ArgumentCaptor<ConfigChangedListener> listener = ArgumentCaptor.forClass(ConfigChangedListener.class);
+        verify(goConfigService).register(listener.capture());
+        configMother.addPipelineWithGroup(config, "group1", "pipeline1", "stage1A", "job1A1");
+        addPipelinesToCache(pipeline("pipeline1", "group1"));
+
+        allPipelineGroupsForDashboard(Filters.WILDCARD_FILTER, new Username("user1"));
+        configMother.addPipelineWithGroup(config, "group2", "pipeline2", "stage1A", "job1A1");
+        addPipelinesToCache(pipeline("pipeline2", "group2"));
+        listener.getValue().onConfigChange(config);
+
+        List<GoDashboardPipelineGroup> pipelineGroups = allPipelineGroupsForDashboard(Filters.WILDCARD_FILTER, new Username("user1"));
+
+        assertThat(pipelineGroups.size(), is(2));
+        verify(goConfigService, times(2)).groups();
+    }
+
+    @Test
+    public void allPipelineGroupsForDashboard_shouldRebuildTheGroupsOfAUserFromConfigOnceInAWhile() {
+        configMother.addPipelineWithGroup(config, "group1", "pipeline1", "stage1A", "job1A1");
+        addPipelinesToCache(pipeline("pipeline1", "group1"));
+
+        allPipelineGroupsForDashboard(Filters.WILDCARD_FILTER, new Username("user1"));
+        clock.addSeconds(61);
+        allPipelineGroupsForDashboard(Filters.WILDCARD_FILTER, new Username("user1"));
+
+        verify(goConfigService, times(2)).groups();
+    }
+
+    private GoDashboardPipelines pipelinesInCache(GoDashboardPipeline... pipelines) {
+        HashMap<CaseInsensitiveString, GoDashboardPipeline> map = new HashMap<>();
+        for (GoDashboardPipeline pipeline : pipelines) {
+            map.put(pipeline.name(), pipeline);
+        }
+        return new GoDashboardPipelines(map, new TimeStampBasedCounter(clock));
+    }
+
     private List<GoDashboardEnvironment> allEnvironmentsForDashboard(DashboardFilter filter, Username username) {
         when(goConfigService.getEnvironments()).thenReturn(config.getEnvironments());
         when(goConfigService.security()).thenReturn(config.server().security());
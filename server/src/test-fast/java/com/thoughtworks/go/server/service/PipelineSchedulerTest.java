@@ -17,6 +17,7 @@ package com.thoughtworks.go.server.service;
 
 import com.thoughtworks.go.config.BasicCruiseConfig;
 import com.thoughtworks.go.config.CaseInsensitiveString;
+import com.thoughtworks.go.config.ConfigChangeSet;
 import com.thoughtworks.go.config.PipelineConfig;
 import com.thoughtworks.go.config.remote.ConfigRepoConfig;
 import com.thoughtworks.go.config.remote.ConfigReposConfig;
@@ -86,6 +87,18 @@ public class PipelineSchedulerTest {
         verify(queue).post(ScheduleCheckMessageMatcher.matchScheduleCheckMessage("cruise"));
     }
 
+    @Test
+    public void shouldOnlyAddAndRemoveThePipelinesInAConfigChangeSet() {
+        BasicCruiseConfig previous = configWithPipelines("cruise", "mingle");
+        BasicCruiseConfig current = configWithPipelines("cruise", "twist");
+        scheduler.onConfigChange(previous);
+        scheduler.onConfigChange(current, ConfigChangeSet.between(previous, current));
+        scheduler.checkPipelines();
+        verify(queue).post(ScheduleCheckMessageMatcher.matchScheduleCheckMessage("cruise"));
+        verify(queue).post(ScheduleCheckMessageMatcher.matchScheduleCheckMessage("twist"));
+        verify(queue, never()).post(ScheduleCheckMessageMatcher.matchScheduleCheckMessage("mingle"));
+    }
+
     @Test
     public void shouldNotCheckPipelineWhenChecking() {
         scheduler.onConfigChange(configWithPipelines("cruise"));
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.service;
+
+import com.thoughtworks.go.config.Agent;
+import com.thoughtworks.go.config.elastic.ElasticProfile;
+import com.thoughtworks.go.domain.*;
+import com.thoughtworks.go.helper.JobIdentifierMother;
+import com.thoughtworks.go.util.SystemEnvironment;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScheduledJobPlanIndexTest {
+    private final AgentInstance linuxAgent = agentWithResources("linux-agent", "linux", "docker");
+
+    @Test
+    void shouldOfferOnlyTheEarliestJobOfEachCompatibleGroupInSchedulingOrder() {
+        JobPlan up42Linux1 = jobPlan(1, "up42", "linux", null);
+        JobPlan up42Linux2 = jobPlan(2, "up42", "linux", null);
+        JobPlan windows = jobPlan(3, "up42", "windows", null);
+        JobPlan downstreamDocker = jobPlan(4, "downstream", "docker", null);
+
+        ScheduledJobPlanIndex index = new ScheduledJobPlanIndex(asList(up42Linux1, up42Linux2, windows, downstreamDocker));
+
+        assertThat(index.candidatesFor(linuxAgent, (pipeline, uuid) -> true)).containsExactly(up42Linux1, downstreamDocker);
+    }
+
+    @Test
+    void shouldConsultEnvironmentMatcherOncePerPipeline() {
+        List<String> consultedPipelines = new ArrayList<>();
+        ScheduledJobPlanIndex index = new ScheduledJobPlanIndex(asList(
+                jobPlan(1, "up42", "linux", null),
+                jobPlan(2, "up42", "docker", null),
+                jobPlan(3, "downstream", "linux", null)));
+
+        List<JobPlan> candidates = index.candidatesFor(linuxAgent, (pipeline, uuid) -> {
+            consultedPipelines.add(pipeline);
+            return pipeline.equals("downstream");
+        });
+
+        assertThat(consultedPipelines).containsExactlyInAnyOrder("up42", "downstream");
+        assertThat(candidates).hasSize(1);
+        assertThat(candidates.get(0).getPipelineName()).isEqualTo("downstream");
+    }
+
+    @Test
+    void shouldOfferJobsPinnedToAnAgentOnlyToThatAgent() {
+        JobPlan pinned = jobPlan(1, "up42", "windows", "linux-agent");
+        JobPlan pinnedToAnother = jobPlan(2, "up42", "linux", "some-other-agent");
+
+        ScheduledJobPlanIndex index = new ScheduledJobPlanIndex(asList(pinned, pinnedToAnother));
+
+        assertThat(index.candidatesFor(linuxAgent, (pipeline, uuid) -> true)).containsExactly(pinned);
+    }
+
+    @Test
+    void shouldNotOfferElasticJobsToNonElasticAgents() {
+        DefaultJobPlan elastic = jobPlan(1, "up42", "linux", null);
+        elastic.setElasticProfile(new ElasticProfile("docker-profile", "prod-cluster"));
+
+        ScheduledJobPlanIndex index = new ScheduledJobPlanIndex(asList(elastic));
+
+        assertThat(index.candidatesFor(linuxAgent, (pipeline, uuid) -> true)).isEmpty();
+    }
+
+    @Test
+    void shouldClaimAJobOnlyOnceAndMoveTheNextJobOfTheGroupUp() {
+        JobPlan first = jobPlan(1, "up42", "linux", null);
+        JobPlan second = jobPlan(2, "up42", "linux", null);
+        ScheduledJobPlanIndex index = new ScheduledJobPlanIndex(asList(first, second));
+
+        assertThat(index.claim(first)).isTrue();
+        assertThat(index.claim(first)).isFalse();
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.candidatesFor(linuxAgent, (pipeline, uuid) -> true)).containsExactly(second);
+    }
+
+    @Test
+    void shouldForgetRemovedJobs() {
+        JobPlan first = jobPlan(1, "up42", "linux", null);
+        ScheduledJobPlanIndex index = new ScheduledJobPlanIndex(asList(first));
+
+        index.remove(first);
+
+        assertThat(index.size()).isEqualTo(0);
+        assertThat(index.candidatesFor(linuxAgent, (pipeline, uuid) -> true)).isEmpty();
+        assertThat(index.claim(first)).isFalse();
+    }
+
+    @Test
+    void shouldNotClaimJobsItDoesNotKnowAbout() {
+        ScheduledJobPlanIndex index = new ScheduledJobPlanIndex(asList(jobPlan(1, "up42", "linux", null)));
+
+        assertThat(index.claim(jobPlan(2, "up42", "linux", null))).isFalse();
+    }
+
+    @Test
+    void shouldHandAJobToOnlyOneOfManyConcurrentClaims() throws Exception {
+        JobPlan job = jobPlan(1, "up42", "linux", null);
+        ScheduledJobPlanIndex index = new ScheduledJobPlanIndex(asList(job));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<Boolean>> claims = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                claims.add(() -> index.claim(job));
+            }
+
+            long successfulClaims = 0;
+            for (Future<Boolean> claim : executor.invokeAll(claims)) {
+                if (claim.get()) {
+                    successfulClaims++;
+                }
+            }
+
+            assertThat(successfulClaims).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private DefaultJobPlan jobPlan(long id, String pipelineName, String resources, String agentUuid) {
+        JobIdentifier identifier = JobIdentifierMother.jobIdentifier(pipelineName, 1, "stage", "1", "job-" + id);
+        return new DefaultJobPlan(new Resources(resources), new ArrayList<>(), id, identifier, agentUuid,
+                new EnvironmentVariables(), new EnvironmentVariables(), null, null);
+    }
+
+    private AgentInstance agentWithResources(String uuid, String... resources) {
+        return AgentInstance.createFromAgent(new Agent(uuid, "localhost", "127.0.0.1", asList(resources)), new SystemEnvironment(), null);
+    }
+}
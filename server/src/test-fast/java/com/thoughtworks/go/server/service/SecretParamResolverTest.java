@@ -39,10 +39,12 @@ import com.thoughtworks.go.domain.packagerepository.PackageRepository;
 import com.thoughtworks.go.domain.scm.SCM;
 import com.thoughtworks.go.helper.GoConfigMother;
 import com.thoughtworks.go.helper.MaterialsMother;
+import com.thoughtworks.go.plugin.access.exceptions.SecretResolutionFailureException;
 import com.thoughtworks.go.plugin.access.secrets.SecretsExtension;
 import com.thoughtworks.go.plugin.domain.secrets.Secret;
 import com.thoughtworks.go.remote.work.BuildAssignment;
 import com.thoughtworks.go.server.domain.Username;
+import com.thoughtworks.go.util.SystemEnvironment;
 import com.thoughtworks.go.util.command.EnvironmentVariableContext;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
@@ -69,13 +71,15 @@ class SecretParamResolverTest {
     private GoConfigService goConfigService;
     @Mock
     private RulesService rulesService;
+    @Mock
+    private SystemEnvironment systemEnvironment;
     private SecretParamResolver secretParamResolver;
 
     @BeforeEach
     void setUp() {
         initMocks(this);
 
-        secretParamResolver = new SecretParamResolver(secretsExtension, goConfigService, rulesService);
+        secretParamResolver = new SecretParamResolver(secretsExtension, goConfigService, rulesService, systemEnvironment);
     }
 
     @Nested
@@ -565,6 +569,94 @@ class SecretParamResolverTest {
         }
     }
 
+    @Nested
+    class LookingUpSecrets {
+        private final SecretConfig secretConfig = new SecretConfig("secret_config_id", "cd.go.file");
+
+        @BeforeEach
+        void setUp() {
+            when(goConfigService.cruiseConfig()).thenReturn(GoConfigMother.configWithSecretConfig(secretConfig));
+            when(secretsExtension.lookupSecrets("cd.go.file", secretConfig, singleton("password")))
+                    .thenReturn(singletonList(new Secret("password", "some-password")));
+        }
+
+        @Test
+        void shouldNotCacheResolvedSecretsByDefault() {
+            secretParamResolver.resolve(materialWithSecretPassword());
+            secretParamResolver.resolve(materialWithSecretPassword());
+
+            verify(secretsExtension, times(2)).lookupSecrets("cd.go.file", secretConfig, singleton("password"));
+        }
+
+        @Test
+        void shouldReuseResolvedSecretsWhileTheyAreCached() {
+            when(systemEnvironment.getSecretsCacheMaxEntries()).thenReturn(100);
+            when(systemEnvironment.getSecretsCacheTtlInMillis("secret_config_id")).thenReturn(60_000L);
+            secretParamResolver = new SecretParamResolver(secretsExtension, goConfigService, rulesService, systemEnvironment);
+
+            secretParamResolver.resolve(materialWithSecretPassword());
+            GitMaterial gitMaterial = materialWithSecretPassword();
+            secretParamResolver.resolve(gitMaterial);
+
+            assertThat(gitMaterial.passwordForCommandLine()).isEqualTo("some-password");
+            verify(secretsExtension, times(1)).lookupSecrets("cd.go.file", secretConfig, singleton("password"));
+        }
+
+        @Test
+        void shouldLookUpSecretsAgainOnceTheSecretConfigChanges() {
+            when(systemEnvironment.getSecretsCacheMaxEntries()).thenReturn(100);
+            when(systemEnvironment.getSecretsCacheTtlInMillis("secret_config_id")).thenReturn(60_000L);
+            secretParamResolver = new SecretParamResolver(secretsExtension, goConfigService, rulesService, systemEnvironment);
+            secretParamResolver.resolve(materialWithSecretPassword());
+
+            SecretConfig changedSecretConfig = new SecretConfig("secret_config_id", "cd.go.vault");
+            when(goConfigService.cruiseConfig()).thenReturn(GoConfigMother.configWithSecretConfig(changedSecretConfig));
+            when(secretsExtension.lookupSecrets("cd.go.vault", changedSecretConfig, singleton("password")))
+                    .thenReturn(singletonList(new Secret("password", "new-password")));
+            GitMaterial gitMaterial = materialWithSecretPassword();
+            secretParamResolver.resolve(gitMaterial);
+
+            assertThat(gitMaterial.passwordForCommandLine()).isEqualTo("new-password");
+        }
+
+        @Test
+        void shouldLookUpSecretsOfEverySecretConfigReferred() {
+            SecretConfig otherSecretConfig = new SecretConfig("other_secret_config_id", "cd.go.vault");
+            when(goConfigService.cruiseConfig()).thenReturn(GoConfigMother.configWithSecretConfig(secretConfig, otherSecretConfig));
+            when(secretsExtension.lookupSecrets("cd.go.vault", otherSecretConfig, singleton("token")))
+                    .thenReturn(singletonList(new Secret("token", "some-token")));
+            ElasticProfile elasticProfile = new ElasticProfile("elastic-id", "cluster-profile-id",
+                    ConfigurationPropertyMother.create("k1", false, "{{SECRET:[secret_config_id][password]}}"),
+                    ConfigurationPropertyMother.create("k2", false, "{{SECRET:[other_secret_config_id][token]}}"));
+
+            secretParamResolver.resolve(elasticProfile);
+
+            assertThat(elasticProfile.getSecretParams().get(0).getValue()).isEqualTo("some-password");
+            assertThat(elasticProfile.getSecretParams().get(1).getValue()).isEqualTo("some-token");
+        }
+
+        @Test
+        void shouldFailWithTheLookupFailureWhenLookingUpSecretsOfSeveralSecretConfigs() {
+            SecretConfig otherSecretConfig = new SecretConfig("other_secret_config_id", "cd.go.vault");
+            when(goConfigService.cruiseConfig()).thenReturn(GoConfigMother.configWithSecretConfig(secretConfig, otherSecretConfig));
+            when(secretsExtension.lookupSecrets("cd.go.vault", otherSecretConfig, singleton("token")))
+                    .thenThrow(new SecretResolutionFailureException("vault is down"));
+            ElasticProfile elasticProfile = new ElasticProfile("elastic-id", "cluster-profile-id",
+                    ConfigurationPropertyMother.create("k1", false, "{{SECRET:[secret_config_id][password]}}"),
+                    ConfigurationPropertyMother.create("k2", false, "{{SECRET:[other_secret_config_id][token]}}"));
+
+            assertThatCode(() -> secretParamResolver.resolve(elasticProfile))
+                    .isInstanceOf(SecretResolutionFailureException.class)
+                    .hasMessage("vault is down");
+        }
+
+        private GitMaterial materialWithSecretPassword() {
+            GitMaterial gitMaterial = new GitMaterial("http://example.com");
+            gitMaterial.setPassword("{{SECRET:[secret_config_id][password]}}");
+            return gitMaterial;
+        }
+    }
+
     private JobPlan defaultJobPlan(EnvironmentVariables variables, EnvironmentVariables triggerVariables) {
         JobIdentifier identifier = new JobIdentifier("Up42", 1, "1", "test", "1", "unit_test", 123L);
         return new DefaultJobPlan(new Resources(), new ArrayList<>(), -1, identifier, null,
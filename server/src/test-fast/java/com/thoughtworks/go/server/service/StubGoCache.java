@@ -16,6 +16,7 @@
 package com.thoughtworks.go.server.service;
 
 import com.thoughtworks.go.server.cache.GoCache;
+import com.thoughtworks.go.server.cache.GoCacheStore;
 import com.thoughtworks.go.server.transaction.TestTransactionSynchronizationManager;
 
 import java.util.ArrayList;
@@ -31,7 +32,7 @@ public class StubGoCache extends GoCache {
     private Map<String, Object> map;
 
     public StubGoCache(final TestTransactionSynchronizationManager transactionSynchronizationManager) {
-        super(null, transactionSynchronizationManager);
+        super((GoCacheStore) null, transactionSynchronizationManager);
         map = new HashMap<>();
     }
 
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.service;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.thoughtworks.go.domain.AccessToken;
+import com.thoughtworks.go.server.exceptions.InvalidAccessTokenException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static com.thoughtworks.go.helper.AccessTokenMother.randomAccessTokenForUser;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class VerifiedAccessTokenCacheTest {
+    private static final String PRESENTED_TOKEN = "0123456789abcdef0123456789abcdef01234567";
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final Ticker ticker = nanos::get;
+    private VerifiedAccessTokenCache cache;
+    private AtomicInteger verifications;
+
+    @BeforeEach
+    void setUp() {
+        cache = new VerifiedAccessTokenCache(60, 10, ticker);
+        verifications = new AtomicInteger();
+    }
+
+    @Test
+    void shouldVerifyATokenOnlyOnceWhileItIsCached() {
+        AccessToken token = tokenWithId(1, "bob");
+
+        assertThat(cache.get(PRESENTED_TOKEN, verifying(token))).isSameAs(token);
+        assertThat(cache.get(PRESENTED_TOKEN, verifying(token))).isSameAs(token);
+
+        assertThat(verifications.get()).isEqualTo(1);
+        Map<String, Object> statistics = cache.statistics();
+        assertThat(statistics.get("Hits")).isEqualTo(1L);
+        assertThat(statistics.get("Miss")).isEqualTo(1L);
+    }
+
+    @Test
+    void shouldVerifyATokenAgainOnceItsEntryHasExpired() {
+        AccessToken token = tokenWithId(1, "bob");
+        cache.get(PRESENTED_TOKEN, verifying(token));
+
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(61));
+        cache.get(PRESENTED_TOKEN, verifying(token));
+
+        assertThat(verifications.get()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldNotCacheTokensThatFailVerification() {
+        Supplier<AccessToken> invalid = () -> {
+            verifications.incrementAndGet();
+            throw new InvalidAccessTokenException();
+        };
+
+        assertThatThrownBy(() -> cache.get(PRESENTED_TOKEN, invalid)).isInstanceOf(InvalidAccessTokenException.class);
+        assertThatThrownBy(() -> cache.get(PRESENTED_TOKEN, invalid)).isInstanceOf(InvalidAccessTokenException.class);
+
+        assertThat(verifications.get()).isEqualTo(2);
+        assertThat(cache.statistics().get("Entries")).isEqualTo(0L);
+    }
+
+    @Test
+    void shouldVerifyAgainOnceTheTokenIsInvalidated() {
+        AccessToken token = tokenWithId(1, "bob");
+        cache.get(PRESENTED_TOKEN, verifying(token));
+
+        cache.invalidate(2);
+        cache.get(PRESENTED_TOKEN, verifying(token));
+        assertThat(verifications.get()).isEqualTo(1);
+
+        cache.invalidate(1);
+        cache.get(PRESENTED_TOKEN, verifying(token));
+        assertThat(verifications.get()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldVerifyAgainOnceTheTokensOfItsUserAreInvalidated() {
+        AccessToken token = tokenWithId(1, "bob");
+        cache.get(PRESENTED_TOKEN, verifying(token));
+
+        cache.invalidateTokensOf(List.of("alice"));
+        cache.get(PRESENTED_TOKEN, verifying(token));
+        assertThat(verifications.get()).isEqualTo(1);
+
+        cache.invalidateTokensOf(List.of("alice", "bob"));
+        cache.get(PRESENTED_TOKEN, verifying(token));
+        assertThat(verifications.get()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldNotKeepATokenThatWasInvalidatedWhileItWasBeingVerified() {
+        AccessToken token = tokenWithId(1, "bob");
+
+        cache.get(PRESENTED_TOKEN, () -> {
+            verifications.incrementAndGet();
+            cache.invalidate(1);
+            return token;
+        });
+        cache.get(PRESENTED_TOKEN, verifying(token));
+
+        assertThat(verifications.get()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldAlwaysVerifyWhenDisabled() {
+        cache = new VerifiedAccessTokenCache(0, 10, ticker);
+        AccessToken token = tokenWithId(1, "bob");
+
+        cache.get(PRESENTED_TOKEN, verifying(token));
+        cache.get(PRESENTED_TOKEN, verifying(token));
+
+        assertThat(verifications.get()).isEqualTo(2);
+        assertThat(cache.statistics().get("Enabled")).isEqualTo(false);
+    }
+
+    private Supplier<AccessToken> verifying(AccessToken token) {
+        return () -> {
+            verifications.incrementAndGet();
+            return token;
+        };
+    }
+
+    private static AccessToken tokenWithId(long id, String username) {
+        AccessToken token = randomAccessTokenForUser(username);
+        token.setId(id);
+        return token;
+    }
+}
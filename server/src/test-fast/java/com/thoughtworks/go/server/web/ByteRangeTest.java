@@ -0,0 +1,71 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.web;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static java.time.format.DateTimeFormatter.RFC_1123_DATE_TIME;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ByteRangeTest {
+    private static final long LAST_MODIFIED = 1609459200000L;
+    private static final String ENTITY_TAG = ByteRange.entityTag(LAST_MODIFIED, 100);
+
+    @Test
+    void shouldUnderstandFirstAndLastBytePositions() {
+        ByteRange range = ByteRange.requested("bytes=10-19", null, ENTITY_TAG, LAST_MODIFIED, 100);
+
+        assertThat(range.first()).isEqualTo(10);
+        assertThat(range.length()).isEqualTo(10);
+        assertThat(range.contentRange(100)).isEqualTo("bytes 10-19/100");
+    }
+
+    @Test
+    void shouldUnderstandOpenEndedAndSuffixRanges() {
+        assertThat(ByteRange.requested("bytes=90-", null, ENTITY_TAG, LAST_MODIFIED, 100).contentRange(100)).isEqualTo("bytes 90-99/100");
+        assertThat(ByteRange.requested("bytes=-5", null, ENTITY_TAG, LAST_MODIFIED, 100).contentRange(100)).isEqualTo("bytes 95-99/100");
+        assertThat(ByteRange.requested("bytes=-500", null, ENTITY_TAG, LAST_MODIFIED, 100).contentRange(100)).isEqualTo("bytes 0-99/100");
+        assertThat(ByteRange.requested("bytes=50-500", null, ENTITY_TAG, LAST_MODIFIED, 100).contentRange(100)).isEqualTo("bytes 50-99/100");
+    }
+
+    @Test
+    void shouldAskForTheWholeFileWhenTheRangeCannotBeHonoured() {
+        assertThat(ByteRange.requested(null, null, ENTITY_TAG, LAST_MODIFIED, 100)).isNull();
+        assertThat(ByteRange.requested("items=1-2", null, ENTITY_TAG, LAST_MODIFIED, 100)).isNull();
+        assertThat(ByteRange.requested("bytes=1-2,5-6", null, ENTITY_TAG, LAST_MODIFIED, 100)).isNull();
+        assertThat(ByteRange.requested("bytes=5-1", null, ENTITY_TAG, LAST_MODIFIED, 100)).isNull();
+        assertThat(ByteRange.requested("bytes=a-b", null, ENTITY_TAG, LAST_MODIFIED, 100)).isNull();
+    }
+
+    @Test
+    void shouldNotBeSatisfiableBeyondTheEndOfTheFile() {
+        assertThat(ByteRange.requested("bytes=100-", null, ENTITY_TAG, LAST_MODIFIED, 100)).isSameAs(ByteRange.UNSATISFIABLE);
+        assertThat(ByteRange.requested("bytes=-0", null, ENTITY_TAG, LAST_MODIFIED, 100)).isSameAs(ByteRange.UNSATISFIABLE);
+    }
+
+    @Test
+    void shouldHonourTheRangeOnlyWhileIfRangeMatches() {
+        String lastModified = RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(LAST_MODIFIED).atZone(ZoneOffset.UTC));
+
+        assertThat(ByteRange.requested("bytes=10-", ENTITY_TAG, ENTITY_TAG, LAST_MODIFIED, 100)).isNotNull();
+        assertThat(ByteRange.requested("bytes=10-", lastModified, ENTITY_TAG, LAST_MODIFIED, 100)).isNotNull();
+        assertThat(ByteRange.requested("bytes=10-", "\"other\"", ENTITY_TAG, LAST_MODIFIED, 100)).isNull();
+        assertThat(ByteRange.requested("bytes=10-", "not a date", ENTITY_TAG, LAST_MODIFIED, 100)).isNull();
+    }
+}
@@ -121,6 +121,59 @@ public class FileViewTest {
         assertEquals(mockResponse.getContentAsString(), "hello");
     }
 
+    @Test
+    public void shouldSendOnlyTheRequestedRangeOfAFile() throws Exception {
+        Map<String, Object> model = new HashMap<>();
+        model.put("targetFile", file);
+        mockRequest.addHeader("Range", "bytes=1-3");
+
+        view.render(model, mockRequest, mockResponse);
+
+        assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, mockResponse.getStatus());
+        assertEquals("bytes 1-3/5", mockResponse.getHeader("Content-Range"));
+        assertEquals(3, getContentLength(mockResponse));
+        assertEquals("ell", mockResponse.getContentAsString());
+    }
+
+    @Test
+    public void shouldContinueFromAGivenOffsetWhileTheFileHasNotChanged() throws Exception {
+        Map<String, Object> model = new HashMap<>();
+        model.put("targetFile", file);
+        mockRequest.addHeader("Range", "bytes=2-");
+        mockRequest.addHeader("If-Range", ByteRange.entityTag(file.lastModified(), file.length()));
+
+        view.render(model, mockRequest, mockResponse);
+
+        assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, mockResponse.getStatus());
+        assertEquals("llo", mockResponse.getContentAsString());
+    }
+
+    @Test
+    public void shouldSendTheWholeFileWhenItHasChangedSinceTheRangeWasAskedFor() throws Exception {
+        Map<String, Object> model = new HashMap<>();
+        model.put("targetFile", file);
+        mockRequest.addHeader("Range", "bytes=2-");
+        mockRequest.addHeader("If-Range", "\"some-other-version\"");
+
+        view.render(model, mockRequest, mockResponse);
+
+        assertEquals(HttpServletResponse.SC_OK, mockResponse.getStatus());
+        assertEquals("hello", mockResponse.getContentAsString());
+        assertEquals(ByteRange.entityTag(file.lastModified(), file.length()), mockResponse.getHeader("ETag"));
+    }
+
+    @Test
+    public void shouldRejectARangeBeyondTheEndOfTheFile() throws Exception {
+        Map<String, Object> model = new HashMap<>();
+        model.put("targetFile", file);
+        mockRequest.addHeader("Range", "bytes=5-");
+
+        view.render(model, mockRequest, mockResponse);
+
+        assertEquals(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE, mockResponse.getStatus());
+        assertEquals("bytes */5", mockResponse.getHeader("Content-Range"));
+    }
+
     @Test
     public void testDefaultContentTypeShouldBeTextPlain() throws Exception {
         assertEquals("application/octet-stream", view.getContentType());
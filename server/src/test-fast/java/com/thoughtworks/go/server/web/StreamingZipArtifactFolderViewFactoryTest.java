@@ -0,0 +1,39 @@
+/*
+ * Copyright 2021 ThoughtWorks, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.thoughtworks.go.server.web;
+
+import com.thoughtworks.go.domain.JobIdentifier;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.ModelAndView;
+
+import java.io.File;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StreamingZipArtifactFolderViewFactoryTest {
+    private static final JobIdentifier JOB_IDENTIFIER = new JobIdentifier("pipeline-name", "label-111", "stage-name", 1, "job-name", 666L);
+
+    @Test
+    void shouldZipTheFolderStraightToTheResponse() {
+        File folder = new File("pipelines/pipeline-name/label-111/stage-name/1/job-name/666/dir");
+
+        ModelAndView modelAndView = new StreamingZipArtifactFolderViewFactory().createView(JOB_IDENTIFIER, new ArtifactFolder(JOB_IDENTIFIER, folder, "dir"));
+
+        assertThat(modelAndView.getViewName()).isEqualTo("fileView");
+        assertThat(modelAndView.getModel().get("targetFile")).isEqualTo(folder);
+        assertThat(modelAndView.getModel()).containsEntry(FileView.NEED_TO_ZIP, true);
+    }
+}
@@ -15,17 +15,20 @@
  */
 package com.thoughtworks.go.server.websocket;
 
-import com.thoughtworks.go.domain.ConsoleConsumer;
 import com.thoughtworks.go.domain.ConsoleStreamer;
 import com.thoughtworks.go.domain.JobIdentifier;
+import com.thoughtworks.go.domain.JobState;
 import com.thoughtworks.go.domain.exception.IllegalArtifactLocationException;
 import com.thoughtworks.go.server.dao.JobInstanceDao;
+import com.thoughtworks.go.server.messaging.JobStatusMessage;
+import com.thoughtworks.go.server.messaging.JobStatusTopic;
 import com.thoughtworks.go.server.service.ConsoleService;
 import com.thoughtworks.go.util.SystemEnvironment;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -33,7 +36,12 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.file.Files;
-import java.util.function.Consumer;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.zip.GZIPInputStream;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
@@ -49,18 +57,28 @@ public class ConsoleLogSenderTest {
     private JobIdentifier jobIdentifier;
     private JobInstanceDao jobInstanceDao;
     private SystemEnvironment systemEnvironment;
+    private ScheduledExecutorService executor;
+    private List<Runnable> scheduledTasks;
 
 
     @Before
     public void setUp() throws Exception {
         consoleService = mock(ConsoleService.class);
         jobInstanceDao = mock(JobInstanceDao.class);
-        socket = mock(SocketEndpoint.class);
-        when(socket.isOpen()).thenReturn(true);
+        socket = openSocket();
         systemEnvironment = mock(SystemEnvironment.class);
         when(systemEnvironment.consoleLogCharsetAsCharset()).thenReturn(UTF_8);
-        consoleLogSender = new ConsoleLogSender(consoleService, jobInstanceDao, systemEnvironment);
+        executor = mock(ScheduledExecutorService.class);
+        scheduledTasks = new ArrayList<>();
+        when(executor.schedule(any(Runnable.class), anyLong(), any(TimeUnit.class))).thenAnswer(invocation -> {
+            scheduledTasks.add(invocation.getArgument(0));
+            return null;
+        });
+        consoleLogSender = new ConsoleLogSender(consoleService, jobInstanceDao, systemEnvironment, mock(JobStatusTopic.class), executor);
         jobIdentifier = mock(JobIdentifier.class);
+        when(jobIdentifier.buildLocator()).thenReturn("pipeline/1/stage/1/job");
+        when(consoleService.getStreamer(anyLong(), eq(jobIdentifier))).thenAnswer(invocation ->
+                new ConsoleStreamer(consoleService.consoleLogFile(jobIdentifier).toPath(), invocation.getArgument(0)));
     }
 
     @Test
@@ -97,55 +115,142 @@ public class ConsoleLogSenderTest {
     }
 
     @Test
-    public void shouldSendConsoleLogInMultipleMessagesIfBuildInProgress() throws Exception {
-        File fakeFile = mock(File.class);
-        when(consoleService.consoleLogFile(jobIdentifier)).thenReturn(fakeFile);
-
-        when(jobInstanceDao.isJobCompleted(jobIdentifier)).thenReturn(false).thenReturn(true);
+    public void shouldKeepSocketOfRunningBuildOpenAndSendWhatIsAlreadyThere() throws Exception {
+        makeConsoleFile("First Output\n");
+        when(jobInstanceDao.isJobCompleted(jobIdentifier)).thenReturn(false);
         when(consoleService.doesLogExist(jobIdentifier)).thenReturn(true);
 
-        when(consoleService.getStreamer(anyLong(), eq(jobIdentifier))).
-                thenReturn(new FakeConsoleStreamer("First Output", "Second Output"));
-
         consoleLogSender.process(socket, jobIdentifier, 0L);
 
-        verify(socket, times(1)).send(ByteBuffer.wrap(consoleLogSender.maybeGzipIfLargeEnough("First Output\n".getBytes(UTF_8))));
-        verify(socket, times(1)).send(ByteBuffer.wrap(consoleLogSender.maybeGzipIfLargeEnough("Second Output\n".getBytes(UTF_8))));
+        assertThat(sentTo(socket), equalTo("First Output\n"));
+        verify(socket, never()).close();
+        assertThat(consoleLogSender.numberOfTails(), equalTo(1));
     }
 
     @Test
-    public void shouldSendConsoleLogEvenAfterBuildCompletion() throws Exception {
-        File fakeFile = mock(File.class);
-        when(consoleService.consoleLogFile(jobIdentifier)).thenReturn(fakeFile);
+    public void shouldOnlySendLinesOfARunningBuildOnceTheyAreComplete() throws Exception {
+        File console = makeConsoleFile("First Output\nSecond");
+        when(jobInstanceDao.isJobCompleted(jobIdentifier)).thenReturn(false);
+        when(consoleService.doesLogExist(jobIdentifier)).thenReturn(true);
 
-        when(jobInstanceDao.isJobCompleted(jobIdentifier)).thenReturn(false).thenReturn(true);
+        consoleLogSender.process(socket, jobIdentifier, 0L);
+        assertThat(sentTo(socket), equalTo("First Output\n"));
+
+        Files.write(console.toPath(), " Output\nThird".getBytes(UTF_8), StandardOpenOption.APPEND);
+        consoleLogSender.consoleLogAppended(console);
+        runScheduledTasks();
+        assertThat(sentTo(socket), equalTo("First Output\nSecond Output\n"));
+
+        consoleLogSender.onMessage(new JobStatusMessage(jobIdentifier, JobState.Completed, "agent-uuid"));
+        runScheduledTasks();
+        assertThat(sentTo(socket), equalTo("First Output\nSecond Output\nThird\n"));
+    }
+
+    @Test
+    public void shouldReadAppendedOutputOnceAndSendItToAllSocketsWatchingTheJob() throws Exception {
+        File console = makeConsoleFile("First Output\n");
+        SocketEndpoint anotherSocket = openSocket();
+        when(jobInstanceDao.isJobCompleted(jobIdentifier)).thenReturn(false);
         when(consoleService.doesLogExist(jobIdentifier)).thenReturn(true);
 
-        when(consoleService.getStreamer(0L, jobIdentifier))
-                .thenReturn(new FakeConsoleStreamer("First Output", "Second Output"));
-        when(consoleService.getStreamer(1L, jobIdentifier))
-                .thenReturn(new FakeConsoleStreamer("More Output"));
+        consoleLogSender.process(socket, jobIdentifier, 0L);
+        consoleLogSender.process(anotherSocket, jobIdentifier, 1L);
+
+        Files.write(console.toPath(), "Second Output\n".getBytes(UTF_8), StandardOpenOption.APPEND);
+        consoleLogSender.consoleLogAppended(console);
+        consoleLogSender.consoleLogAppended(console);
+        runScheduledTasks();
+
+        assertThat(sentTo(socket), equalTo("First Output\nSecond Output\n"));
+        assertThat(sentTo(anotherSocket), equalTo("Second Output\n"));
+        assertThat(consoleLogSender.numberOfTails(), equalTo(1));
+        verify(jobInstanceDao, times(2)).isJobCompleted(jobIdentifier);
+    }
+
+    @Test
+    public void shouldCatchUpNewSocketWithOutputOthersHaveAlreadyBeenSent() throws Exception {
+        File console = makeConsoleFile("First Output\n");
+        SocketEndpoint lateSocket = openSocket();
+        when(jobInstanceDao.isJobCompleted(jobIdentifier)).thenReturn(false);
+        when(consoleService.doesLogExist(jobIdentifier)).thenReturn(true);
 
         consoleLogSender.process(socket, jobIdentifier, 0L);
+        Files.write(console.toPath(), "Second Output\n".getBytes(UTF_8), StandardOpenOption.APPEND);
+        consoleLogSender.consoleLogAppended(console);
+        runScheduledTasks();
+
+        consoleLogSender.process(lateSocket, jobIdentifier, 0L);
 
-        verify(socket, times(1)).send(ByteBuffer.wrap(consoleLogSender.maybeGzipIfLargeEnough("First Output\n".getBytes(UTF_8))));
-        verify(socket, times(1)).send(ByteBuffer.wrap(consoleLogSender.maybeGzipIfLargeEnough("Second Output\n".getBytes(UTF_8))));
-        verify(socket, times(1)).send(ByteBuffer.wrap(consoleLogSender.maybeGzipIfLargeEnough("More Output\n".getBytes(UTF_8))));
+        assertThat(sentTo(socket), equalTo("First Output\nSecond Output\n"));
+        assertThat(sentTo(lateSocket), equalTo("First Output\nSecond Output\n"));
     }
 
     @Test
-    public void shouldNotSendMessagesWhenOutputHasNotAdvanced() throws Exception {
-        File console = makeConsoleFile("First Output");
-        when(jobInstanceDao.isJobCompleted(jobIdentifier)).thenReturn(false).thenReturn(true);
+    public void shouldSendRemainingOutputAndCloseSocketsWhenJobCompletes() throws Exception {
+        File console = makeConsoleFile("First Output\n");
+        when(jobInstanceDao.isJobCompleted(jobIdentifier)).thenReturn(false);
         when(consoleService.doesLogExist(jobIdentifier)).thenReturn(true);
 
-        when(consoleService.getStreamer(anyLong(), eq(jobIdentifier))).
-                thenReturn(new ConsoleStreamer(console.toPath(), 0L));
+        consoleLogSender.process(socket, jobIdentifier, 0L);
+        Files.write(console.toPath(), "Last Output\n".getBytes(UTF_8), StandardOpenOption.APPEND);
+        consoleLogSender.onMessage(new JobStatusMessage(jobIdentifier, JobState.Completed, "agent-uuid"));
+        runScheduledTasks();
+
+        assertThat(sentTo(socket), equalTo("First Output\nLast Output\n"));
+        verify(socket).close();
+        assertThat(consoleLogSender.numberOfTails(), equalTo(0));
+        verify(jobInstanceDao, times(1)).isJobCompleted(jobIdentifier);
+    }
+
+    @Test
+    public void shouldIgnoreStatusUpdatesOtherThanCompletion() throws Exception {
+        makeConsoleFile("First Output\n");
+        when(jobInstanceDao.isJobCompleted(jobIdentifier)).thenReturn(false);
+        when(consoleService.doesLogExist(jobIdentifier)).thenReturn(true);
 
         consoleLogSender.process(socket, jobIdentifier, 0L);
+        consoleLogSender.onMessage(new JobStatusMessage(jobIdentifier, JobState.Building, "agent-uuid"));
+        runScheduledTasks();
 
-        verify(jobInstanceDao, times(3)).isJobCompleted(jobIdentifier);
-        verify(socket, times(1)).send(anyObject());
+        verify(socket, never()).close();
+        assertThat(consoleLogSender.numberOfTails(), equalTo(1));
+    }
+
+    @Test
+    public void shouldNotHoldUpOtherSocketsWhileASocketIsSlow() throws Exception {
+        File console = makeConsoleFile("First Output\n");
+        SocketEndpoint slowSocket = mock(SocketEndpoint.class);
+        when(slowSocket.isOpen()).thenReturn(true);
+        List<CompletableFuture<Void>> pendingSends = new ArrayList<>();
+        when(slowSocket.sendAsync(any(ByteBuffer.class))).thenAnswer(invocation -> {
+            CompletableFuture<Void> pending = new CompletableFuture<>();
+            pendingSends.add(pending);
+            return pending;
+        });
+        when(jobInstanceDao.isJobCompleted(jobIdentifier)).thenReturn(false);
+        when(consoleService.doesLogExist(jobIdentifier)).thenReturn(true);
+
+        consoleLogSender.process(socket, jobIdentifier, 0L);
+        consoleLogSender.process(slowSocket, jobIdentifier, 1L);
+
+        Files.write(console.toPath(), "Second Output\n".getBytes(UTF_8), StandardOpenOption.APPEND);
+        consoleLogSender.consoleLogAppended(console);
+        runScheduledTasks();
+        Files.write(console.toPath(), "Third Output\n".getBytes(UTF_8), StandardOpenOption.APPEND);
+        consoleLogSender.consoleLogAppended(console);
+        runScheduledTasks();
+
+        assertThat(sentTo(socket), equalTo("First Output\nSecond Output\nThird Output\n"));
+        assertThat(pendingSends.size(), equalTo(1));
+
+        pendingSends.get(0).complete(null);
+        assertThat(pendingSends.size(), equalTo(2));
+        pendingSends.get(1).complete(null);
+
+        ArgumentCaptor<ByteBuffer> captor = ArgumentCaptor.forClass(ByteBuffer.class);
+        verify(slowSocket, times(2)).sendAsync(captor.capture());
+        assertThat(asString(captor.getAllValues().get(1)), equalTo("Third Output\n"));
+        verify(slowSocket, never()).send(any(ByteBuffer.class));
     }
 
     @Test
@@ -183,44 +288,44 @@ public class ConsoleLogSenderTest {
         assertThat(bytes, equalTo(byteArrayOutputStream.toByteArray()));
     }
 
-    private File makeConsoleFile(String message) throws IOException, IllegalArtifactLocationException {
-        File console = File.createTempFile("console", ".log");
-        console.deleteOnExit();
-        when(consoleService.consoleLogFile(jobIdentifier)).thenReturn(console);
-
-        Files.write(console.toPath(), message.getBytes());
-        return console;
+    private SocketEndpoint openSocket() throws IOException {
+        SocketEndpoint endpoint = mock(SocketEndpoint.class);
+        when(endpoint.isOpen()).thenReturn(true);
+        when(endpoint.sendAsync(any(ByteBuffer.class))).thenAnswer(invocation -> {
+            endpoint.send(invocation.getArgument(0));
+            return CompletableFuture.completedFuture(null);
+        });
+        return endpoint;
     }
 
-    /**
-     * allows us to simulate log appending by doing reads with multiple invocations to stream()
-     */
-    private class FakeConsoleStreamer implements ConsoleConsumer {
-
-        private String[] mockedLines;
-        private int count = 0;
-
-        FakeConsoleStreamer(String... mockedLines) {
-            this.mockedLines = mockedLines;
+    private void runScheduledTasks() {
+        while (!scheduledTasks.isEmpty()) {
+            scheduledTasks.remove(0).run();
         }
+    }
 
-        @Override
-        public long stream(Consumer<String> action) throws IOException {
-            // this is necessary for showing no logs has been missed out even after job completion
-            if(mockedLines.length <= count) {
-                return mockedLines.length;
-            }
-            action.accept(mockedLines[count]);
-            return ++count;
+    private String sentTo(SocketEndpoint endpoint) throws IOException {
+        ArgumentCaptor<ByteBuffer> captor = ArgumentCaptor.forClass(ByteBuffer.class);
+        verify(endpoint, atLeastOnce()).send(captor.capture());
+        StringBuilder sent = new StringBuilder();
+        for (ByteBuffer buffer : captor.getAllValues()) {
+            sent.append(asString(buffer));
         }
+        return sent.toString();
+    }
 
-        @Override
-        public long totalLinesConsumed() {
-            return (long) count;
-        }
+    private String asString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return new String(bytes, UTF_8);
+    }
 
-        @Override
-        public void close() throws Exception {
-        }
+    private File makeConsoleFile(String message) throws IOException, IllegalArtifactLocationException {
+        File console = File.createTempFile("console", ".log");
+        console.deleteOnExit();
+        when(consoleService.consoleLogFile(jobIdentifier)).thenReturn(console);
+
+        Files.write(console.toPath(), message.getBytes());
+        return console;
     }
 }
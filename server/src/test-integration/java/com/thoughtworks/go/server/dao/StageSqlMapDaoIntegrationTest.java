@@ -39,14 +39,11 @@ import com.thoughtworks.go.server.util.Pagination;
 import com.thoughtworks.go.util.Clock;
 import com.thoughtworks.go.util.GoConfigFileHelper;
 import com.thoughtworks.go.util.TimeProvider;
-import net.sf.ehcache.Element;
-import net.sf.ehcache.event.CacheEventListener;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -54,7 +51,6 @@ import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.support.TransactionCallbackWithoutResult;
 import org.springframework.util.ReflectionUtils;
 
-import java.io.Serializable;
 import java.lang.reflect.Method;
 import java.sql.SQLException;
 import java.util.*;
@@ -1595,41 +1591,21 @@ public class StageSqlMapDaoIntegrationTest {
         Stage stage = stageDao.mostRecentStage(new StageConfigIdentifier(pipelineName, stageName));
         stageDao.findStageHistoryPage(stage, 10); // PRIME CACHE
 
-        CacheEventListener listener = mock(CacheEventListener.class);
-        goCache.addListener(listener);
+        String stageHistoriesKey = stageDao.cacheKeyForStageHistories(pipelineName, stageName);
+        String stageCountKey = stageDao.cacheKeyForStageCount(pipelineName, stageName);
+        String stageOffsetKey = stageDao.cacheKeyForStageOffset(stage);
+        Object primedStageHistoryPage = goCache.get(stageHistoriesKey);
+        Object primedStageHistoryCount = goCache.get(stageCountKey);
+        Object primedStageHistoryOffsets = goCache.get(stageOffsetKey);
 
         scheduleUtil.runAndPass(p1, "h1"); // NEW RUN OF STAGE, CACHE SHOULD BE INVALIDATED
 
         stage = stageDao.mostRecentStage(new StageConfigIdentifier(pipelineName, stageName));
         stageDao.findStageHistoryPage(stage, 10); // SHOULD QUERY AGAIN
 
-        ArgumentCaptor<Element> elementRemovedCaptor = ArgumentCaptor.forClass(Element.class);
-        ArgumentCaptor<Element> elementAddedCaptor = ArgumentCaptor.forClass(Element.class);
-        verify(listener, atLeastOnce()).notifyElementRemoved(any(), elementRemovedCaptor.capture());
-        verify(listener, atLeastOnce()).notifyElementPut(any(), elementAddedCaptor.capture());
-
-        List<Serializable> keysThatWereRemoved = new ArrayList<>();
-        List<Serializable> keysThatWereAdded = new ArrayList<>();
-
-        for (Element element : elementRemovedCaptor.getAllValues()) {
-            keysThatWereRemoved.add(element.getKey());
-        }
-
-        for (Element element : elementAddedCaptor.getAllValues()) {
-            keysThatWereAdded.add(element.getKey());
-        }
-
-        Assertions.assertThat(keysThatWereRemoved).contains(
-            stageDao.cacheKeyForStageHistories(pipelineName, stageName),
-            stageDao.cacheKeyForStageCount(pipelineName, stageName),
-            stageDao.cacheKeyForStageOffset(stage)
-        );
-
-        Assertions.assertThat(keysThatWereAdded).contains(
-            stageDao.cacheKeyForStageHistories(pipelineName, stageName),
-            stageDao.cacheKeyForStageCount(pipelineName, stageName),
-            stageDao.cacheKeyForStageOffset(stage)
-        );
+        Assertions.assertThat(goCache.get(stageHistoriesKey)).isNotNull().isNotSameAs(primedStageHistoryPage);
+        Assertions.assertThat(goCache.get(stageCountKey)).isNotNull().isNotSameAs(primedStageHistoryCount);
+        Assertions.assertThat(goCache.get(stageOffsetKey)).isNotNull().isNotSameAs(primedStageHistoryOffsets);
     }
 
     @Test
@@ -430,9 +430,9 @@ public class MaterialRepositoryIntegrationTest {
     }
 
     @Test
-    public void shouldMaterialCacheKeyShouldReturnTheSameInstance() {
+    public void shouldMaterialCacheKeyShouldReturnTheSameKey() {
         Material svn = MaterialsMother.svnMaterial("url", null, "username", "password", false, null);
-        assertSame(repo.materialKey(svn), repo.materialKey(svn));
+        assertEquals(repo.materialKey(svn), repo.materialKey(svn));
     }
 
     @Test
@@ -15,6 +15,7 @@
  */
 package com.thoughtworks.go.api.base;
 
+import com.fasterxml.jackson.core.JsonEncoding;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -27,6 +28,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Writer;
 import java.util.Collection;
 import java.util.Date;
@@ -45,34 +47,63 @@ public class JsonOutputWriter {
             .enable(JsonGenerator.Feature.STRICT_DUPLICATE_DETECTION);
 
     protected final Writer writer;
+    private final OutputStream outputStream;
     private final RequestContext requestContext;
+    private final boolean prettyPrint;
     private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
 
     public JsonOutputWriter(Writer writer, RequestContext requestContext) {
         this.writer = writer;
+        this.outputStream = null;
         this.requestContext = requestContext;
+        this.prettyPrint = true;
     }
 
-    public JsonOutputWriter forTopLevelObject(Consumer<OutputWriter> consumer) {
-        bufferWriterAndFlushWhenDone(writer, bufferedWriter -> {
-            try (JsonOutputWriterUsingJackson jacksonOutputWriter = new JsonOutputWriterUsingJackson(bufferedWriter, requestContext)) {
-                jacksonOutputWriter.forTopLevelObject(consumer);
-            }
-        });
+    /**
+     * Writes UTF-8 encoded JSON straight to the given stream, skipping the character writer (and its encoder) that
+     * would otherwise sit in between. The stream is flushed, but not closed, once the document is written.
+     *
+     * @param prettyPrint whether to indent the output, or emit it without any insignificant whitespace
+     */
+    public JsonOutputWriter(OutputStream outputStream, RequestContext requestContext, boolean prettyPrint) {
+        this.writer = null;
+        this.outputStream = outputStream;
+        this.requestContext = requestContext;
+        this.prettyPrint = prettyPrint;
+    }
 
+    public JsonOutputWriter forTopLevelObject(Consumer<OutputWriter> consumer) {
+        generateAndFlushWhenDone(jacksonOutputWriter -> jacksonOutputWriter.forTopLevelObject(consumer));
         return this;
     }
 
     public JsonOutputWriter forTopLevelArray(Consumer<OutputListWriter> consumer) {
-        bufferWriterAndFlushWhenDone(writer, bufferedWriter -> {
-            try (JsonOutputWriterUsingJackson jacksonOutputWriter = new JsonOutputWriterUsingJackson(bufferedWriter, requestContext)) {
-                jacksonOutputWriter.forTopLevelArray(consumer);
-            }
-        });
-
+        generateAndFlushWhenDone(jacksonOutputWriter -> jacksonOutputWriter.forTopLevelArray(consumer));
         return this;
     }
 
+    private void generateAndFlushWhenDone(Consumer<JsonOutputWriterUsingJackson> consumer) {
+        if (outputStream == null) {
+            bufferWriterAndFlushWhenDone(writer, bufferedWriter -> {
+                try (JsonOutputWriterUsingJackson jacksonOutputWriter = new JsonOutputWriterUsingJackson(createGenerator(bufferedWriter), requestContext)) {
+                    consumer.accept(jacksonOutputWriter);
+                }
+            });
+            return;
+        }
+
+        try {
+            try (JsonOutputWriterUsingJackson jacksonOutputWriter = new JsonOutputWriterUsingJackson(createGenerator(outputStream), requestContext)) {
+                consumer.accept(jacksonOutputWriter);
+            } finally {
+                outputStream.flush();
+            }
+        } catch (Exception e) {
+            log.error("There was an error generating JSON", e);
+            throw new RuntimeException(e);
+        }
+    }
+
     private void bufferWriterAndFlushWhenDone(Writer writer, Consumer<BufferedWriter> consumer) {
         BufferedWriter bufferedWriter = (writer instanceof BufferedWriter) ? (BufferedWriter) writer : new BufferedWriter(writer, 32 * 1024);
         try {
@@ -87,19 +118,34 @@ public class JsonOutputWriter {
         }
     }
 
+    private JsonGenerator createGenerator(Writer writer) {
+        try {
+            return withPrettyPrinting(JSON_FACTORY.createGenerator(writer));
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private JsonGenerator createGenerator(OutputStream outputStream) {
+        try {
+            return withPrettyPrinting(JSON_FACTORY.createGenerator(outputStream, JsonEncoding.UTF8));
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private JsonGenerator withPrettyPrinting(JsonGenerator generator) {
+        return prettyPrint ? generator.useDefaultPrettyPrinter() : generator;
+    }
+
     private static class JsonOutputWriterUsingJackson implements OutputWriter {
 
         private final RequestContext requestContext;
         private final JsonGenerator jacksonWriter;
 
-        private JsonOutputWriterUsingJackson(Writer writer, RequestContext requestContext) {
+        private JsonOutputWriterUsingJackson(JsonGenerator jacksonWriter, RequestContext requestContext) {
             this.requestContext = requestContext;
-            try {
-                jacksonWriter = JSON_FACTORY.createGenerator(writer);
-                jacksonWriter.useDefaultPrettyPrinter();
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
+            this.jacksonWriter = jacksonWriter;
         }
 
         @Override